@@ -0,0 +1,33 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * Builds events for the benchmarks outside the kernel package, which hand them to an entity
+ * directly instead of going through the future event list.
+ */
+public final class BenchmarkEvents {
+
+	private BenchmarkEvents() {
+	}
+
+	/**
+	 * Creates an event as {@link CloudSim#send(int, int, double, CloudSimTags, Object)} would.
+	 *
+	 * @param time the time the event is delivered at
+	 * @param source the id of the sender
+	 * @param destination the id of the receiver
+	 * @param tag the tag
+	 * @param data the data
+	 * @return the event, which is not scheduled
+	 */
+	public static SimEvent newEvent(double time, int source, int destination, CloudSimTags tag, Object data) {
+		return new SimEvent(SimEvent.SEND, time, source, destination, tag, data);
+	}
+}
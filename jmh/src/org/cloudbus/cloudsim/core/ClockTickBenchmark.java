@@ -0,0 +1,113 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The clock ticks of {@link CloudSim}: a population of entities of which a share wakes up once per
+ * time unit, at its own offset, and sends an event to another entity. Each invocation runs the
+ * simulation one time unit further, i.e. <tt>entities * activeShare * 2</tt> events over as many
+ * clock ticks as there are distinct offsets, with both dispatch modes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClockTickBenchmark {
+
+	enum Tags implements CloudSimTags {
+		WAKE_UP,
+		MESSAGE
+	}
+
+	@Param({ "100", "1000", "10000" })
+	public int entities;
+
+	/** The share of the entities that wake up every time unit; the others only receive messages. */
+	@Param({ "0.1", "1.0" })
+	public double activeShare;
+
+	@Param({ "false", "true" })
+	public boolean activeEntityScheduling;
+
+	/** Number of distinct wake-up offsets, i.e. of clock ticks per time unit. */
+	static final int OFFSETS = 20;
+
+	private double time;
+
+	static class Node extends SimEntity {
+		final boolean active;
+		final int peerId;
+		long received;
+
+		Node(String name, boolean active, int peerId) {
+			super(name);
+			this.active = active;
+			this.peerId = peerId;
+		}
+
+		@Override
+		public void startEntity() {
+			if (active)
+				schedule(getId(), 1 + (getId() % OFFSETS) / (double) OFFSETS, Tags.WAKE_UP);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == Tags.WAKE_UP) {
+				schedule(peerId, 0, Tags.MESSAGE);
+				schedule(getId(), 1, Tags.WAKE_UP);
+			} else {
+				received++;
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		CloudSim.setActiveEntityScheduling(activeEntityScheduling);
+		int firstId = CloudSim.getNumEntities();
+		int activeEvery = (int) Math.round(1 / activeShare);
+		for (int i = 0; i < entities; i++) {
+			new Node("node-" + i, i % activeEvery == 0, firstId + (i * 7919 + 1) % entities);
+		}
+		time = 1;
+		CloudSim.runUntil(time);
+	}
+
+	@Benchmark
+	public double runOneTimeUnit() {
+		time += 1;
+		return CloudSim.runUntil(time);
+	}
+}
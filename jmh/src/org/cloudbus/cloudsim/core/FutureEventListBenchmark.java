@@ -0,0 +1,117 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insertion, removal and cancellation of events in the {@link FutureEventList} implementations,
+ * wrapped in a {@link CancellableEventList} as {@link CloudSim} uses them.
+ * <ul>
+ * <li><tt>hold</tt>: the classic hold model, one event polled and one inserted a random
+ * increment later, with the list at a steady size;</li>
+ * <li><tt>fillAndDrain</tt>: the list filled with random times, then emptied;</li>
+ * <li><tt>cancelAndReschedule</tt>: the event of an entity cancelled and sent again, as a
+ * timeout that is renewed.</li>
+ * </ul>
+ * The benchmark lives in the kernel package to build events directly, without a running
+ * simulation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FutureEventListBenchmark {
+
+	enum Tags implements CloudSimTags {
+		PING,
+		TIMEOUT
+	}
+
+	private static final int NUM_OF_SOURCES = 1024;
+
+	@Param({ "BINARY_HEAP", "CALENDAR_QUEUE", "LADDER_QUEUE" })
+	public FutureEventListType type;
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	private CancellableEventList list;
+
+	private SplittableRandom random;
+
+	private double now;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		// the binary heap only returns events while a simulation runs
+		SimulationContext.current().running = true;
+		random = new SplittableRandom(42);
+		list = new CancellableEventList(type.create());
+		now = 0;
+		for (int i = 0; i < size; i++) {
+			list.addEvent(newEvent(random.nextDouble() * 100, i % NUM_OF_SOURCES, Tags.PING));
+		}
+		for (int i = 0; i < NUM_OF_SOURCES; i++) {
+			list.addEvent(newEvent(1e9, i, Tags.TIMEOUT));
+		}
+	}
+
+	@Benchmark
+	public SimEvent hold() {
+		SimEvent event = list.poll();
+		now = event.eventTime();
+		list.addEvent(newEvent(now + random.nextDouble() * 100, event.getSource(), Tags.PING));
+		return event;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(1000)
+	public double fillAndDrain() {
+		CancellableEventList batch = new CancellableEventList(type.create());
+		for (int i = 0; i < 1000; i++) {
+			batch.addEvent(newEvent(random.nextDouble() * 100, i % NUM_OF_SOURCES, Tags.PING));
+		}
+		double last = 0;
+		SimEvent event;
+		while ((event = batch.poll()) != null) {
+			last = event.eventTime();
+		}
+		return last;
+	}
+
+	@Benchmark
+	public SimEvent cancelAndReschedule() {
+		int source = random.nextInt(NUM_OF_SOURCES);
+		SimEvent cancelled = list.cancelFirst(source, Tags.TIMEOUT);
+		list.addEvent(newEvent(1e9 + random.nextDouble(), source, Tags.TIMEOUT));
+		return cancelled;
+	}
+
+	private static SimEvent newEvent(double time, int source, Tags tag) {
+		return new SimEvent(SimEvent.SEND, time, source, source, tag, null);
+	}
+}
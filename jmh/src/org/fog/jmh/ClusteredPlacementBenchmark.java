@@ -0,0 +1,191 @@
+package org.fog.jmh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.application.AppEdge;
+import org.fog.application.Application;
+import org.fog.entities.ControllerComponent;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.MicroserviceFogDevice;
+import org.fog.entities.PlacementRequest;
+import org.fog.entities.Tuple;
+import org.fog.placement.ClusteredMicroservicePlacementLogic;
+import org.fog.placement.PlacementLogicOutput;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One round of {@link ClusteredMicroservicePlacementLogic} on a large generated topology: a
+ * cloud, proxies, gateways clustered with the other gateways of their proxy, and user devices,
+ * with placement requests for chains of microservices spread over the user devices. The topology
+ * and the requests only depend on the seed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ClusteredPlacementBenchmark {
+
+	static final int PROXIES = 20;
+	static final int GATEWAYS_PER_PROXY = 20;
+	static final int APPS = 10;
+	static final int MICROSERVICES_PER_APP = 3;
+
+	@Param({ "2000" })
+	public int devices;
+
+	@Param({ "10000" })
+	public int requests;
+
+	@Param({ "42" })
+	public long seed;
+
+	private final List<FogDevice> fogDevices = new ArrayList<>();
+
+	private final Map<String, Application> applications = new HashMap<>();
+
+	private FogDevice cloud;
+
+	private int[] requestApps;
+
+	private int[] requestUsers;
+
+	private List<PlacementRequest> placementRequests;
+
+	private Map<Integer, Map<String, Double>> resourceAvailability;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Simulations.init();
+		Random random = new Random(seed);
+
+		List<Integer> userDevices = new ArrayList<>();
+		cloud = createFogDevice("cloud", 100000000, 0);
+		cloud.setParentId(-1);
+		fogDevices.add(cloud);
+		List<FogDevice> gateways = new ArrayList<>();
+		for (int p = 0; p < PROXIES; p++) {
+			FogDevice proxy = createFogDevice("proxy-" + p, 20000, 1);
+			proxy.setParentId(cloud.getId());
+			fogDevices.add(proxy);
+			List<Integer> siblings = new ArrayList<>();
+			List<FogDevice> proxyGateways = new ArrayList<>();
+			for (int g = 0; g < GATEWAYS_PER_PROXY; g++) {
+				FogDevice gateway = createFogDevice("gateway-" + p + "-" + g, 2000 + 500 * random.nextInt(5), 2);
+				gateway.setParentId(proxy.getId());
+				fogDevices.add(gateway);
+				siblings.add(gateway.getId());
+				proxyGateways.add(gateway);
+			}
+			for (FogDevice gateway : proxyGateways) {
+				List<Integer> members = new ArrayList<>(siblings);
+				members.remove(Integer.valueOf(gateway.getId()));
+				gateway.setClusterMembers(members);
+				gateway.setIsInCluster(true);
+			}
+			gateways.addAll(proxyGateways);
+		}
+		for (int u = 0; fogDevices.size() < devices; u++) {
+			FogDevice user = createFogDevice("user-" + u, 500, 3);
+			user.setParentId(gateways.get(random.nextInt(gateways.size())).getId());
+			fogDevices.add(user);
+			userDevices.add(user.getId());
+		}
+
+		for (int a = 0; a < APPS; a++) {
+			Application application = createApplication("app" + a, random);
+			applications.put(application.getAppId(), application);
+		}
+		requestApps = new int[requests];
+		requestUsers = new int[requests];
+		for (int r = 0; r < requests; r++) {
+			requestApps[r] = random.nextInt(APPS);
+			requestUsers[r] = userDevices.get(random.nextInt(userDevices.size()));
+		}
+	}
+
+	/** The logic updates the requests and the resources it is given. */
+	@Setup(Level.Invocation)
+	public void reset() {
+		placementRequests = new ArrayList<>();
+		for (int r = 0; r < requests; r++) {
+			Map<String, Integer> placed = new HashMap<>();
+			placed.put("client_app" + requestApps[r], requestUsers[r]);
+			placementRequests.add(new PlacementRequest("app" + requestApps[r], r, requestUsers[r], placed));
+		}
+		resourceAvailability = new HashMap<>();
+		for (FogDevice fogDevice : fogDevices) {
+			Map<String, Double> resources = new HashMap<>();
+			resources.put(ControllerComponent.CPU, fogDevice.getHost().getTotalMips());
+			resourceAvailability.put(fogDevice.getId(), resources);
+		}
+	}
+
+	@Benchmark
+	public PlacementLogicOutput place() {
+		return new ClusteredMicroservicePlacementLogic(cloud.getId()).run(fogDevices, applications,
+				resourceAvailability, placementRequests);
+	}
+
+	private static Application createApplication(String appId, Random random) {
+		Application application = Application.createApplication(appId, 1);
+		String client = "client_" + appId;
+		application.addAppModule(client, 128, 100, 100);
+		String previous = client;
+		for (int m = 1; m <= MICROSERVICES_PER_APP; m++) {
+			String microservice = "mService" + m + "_" + appId;
+			application.addAppModule(microservice, 512, 100 + 100 * random.nextInt(4), 200);
+			application.addAppEdge(previous, microservice, 1000, 500, previous + "_" + microservice, Tuple.UP, AppEdge.MODULE);
+			previous = microservice;
+		}
+		application.addAppEdge(previous, client, 28, 200, previous + "_" + client, Tuple.DOWN, AppEdge.MODULE);
+		return application;
+	}
+
+	private static MicroserviceFogDevice createFogDevice(String nodeName, long mips, int level) throws Exception {
+		List<Pe> peList = new ArrayList<>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+		PowerHost host = new PowerHost(FogUtils.generateEntityId(), new RamProvisionerSimple(4000),
+				new BwProvisionerOverbooking(10000), 1000000, peList, new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(100, 80));
+		List<Host> hostList = new ArrayList<>();
+		hostList.add(host);
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics("x86", "Linux", "Xen", host, 10.0, 3.0,
+				0.05, 0.001, 0.0);
+		MicroserviceFogDevice fogDevice = new MicroserviceFogDevice(nodeName, characteristics,
+				new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), 10, 10000, 10000, 1250000, 0, 0.01,
+				level == 3 ? MicroserviceFogDevice.CLIENT : level == 0 ? MicroserviceFogDevice.CLOUD : MicroserviceFogDevice.FCN);
+		fogDevice.setLevel(level);
+		return fogDevice;
+	}
+}
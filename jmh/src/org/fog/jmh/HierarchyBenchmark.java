@@ -0,0 +1,80 @@
+package org.fog.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.placement.Controller;
+import org.fog.utils.SimulationConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end runs of synthetic VRGame hierarchies of 100 to 10,000 devices: building the
+ * hierarchy and placing the application, and simulating it for {@link #SIMULATION_TIME}, with
+ * the sensors reading every 5 time units. Each invocation is a new simulation, so these are
+ * single-shot measurements; the controller's final report is not part of them.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HierarchyBenchmark {
+
+	static final double SIMULATION_TIME = 100;
+
+	@State(Scope.Thread)
+	public static class Parameters {
+
+		@Param({ "100", "1000", "10000" })
+		public int devices;
+
+		@Param({ "EDGEWARDS", "MAPPING" })
+		public VRGameHierarchy.Placement placement;
+
+		@Param({ "false", "true" })
+		public boolean activeEntityScheduling;
+	}
+
+	@State(Scope.Thread)
+	public static class Simulation {
+
+		int maxSimulationTime;
+
+		@Setup(Level.Invocation)
+		public void setUp(Parameters parameters) throws Exception {
+			maxSimulationTime = SimulationConfig.current().getMaxSimulationTime();
+			SimulationConfig.current().setMaxSimulationTime((int) SIMULATION_TIME * 2);
+			Simulations.init();
+			CloudSim.setActiveEntityScheduling(parameters.activeEntityScheduling);
+			new VRGameHierarchy(parameters.devices, 5).submit(parameters.placement);
+		}
+
+		@TearDown(Level.Invocation)
+		public void tearDown() {
+			SimulationConfig.current().setMaxSimulationTime(maxSimulationTime);
+		}
+	}
+
+	@Benchmark
+	public Controller build(Parameters parameters) throws Exception {
+		Simulations.init();
+		return new VRGameHierarchy(parameters.devices, 5).submit(parameters.placement);
+	}
+
+	@Benchmark
+	public double simulate(Simulation simulation) {
+		return CloudSim.runUntil(SIMULATION_TIME);
+	}
+}
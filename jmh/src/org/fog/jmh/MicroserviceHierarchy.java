@@ -0,0 +1,221 @@
+package org.fog.jmh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.entities.Actuator;
+import org.fog.entities.ControllerComponent;
+import org.fog.entities.FogBroker;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.MicroserviceFogDevice;
+import org.fog.entities.PlacementRequest;
+import org.fog.entities.Sensor;
+import org.fog.entities.Tuple;
+import org.fog.placement.MicroservicesController;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+import org.fog.utils.distribution.DeterministicDistribution;
+
+/**
+ * A synthetic microservice hierarchy (see {@link org.fog.test.perfeval.MicroservicesAppSample1})
+ * of about a given number of devices: the cloud, proxy servers with {@link #GATEWAYS_PER_PROXY}
+ * clustered gateways each, and {@link #MOBILES_PER_GATEWAY} client mobiles per gateway running
+ * the ECG monitoring application. It is created in the simulation of the calling thread, which
+ * must have been initialised.
+ */
+public class MicroserviceHierarchy {
+
+	public static final int GATEWAYS_PER_PROXY = 10;
+	public static final int MOBILES_PER_GATEWAY = 9;
+
+	public final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	public final List<Sensor> sensors = new ArrayList<Sensor>();
+	public final List<Actuator> actuators = new ArrayList<Actuator>();
+	public final FogBroker broker;
+	public final Application application;
+	public final FogDevice cloud;
+
+	/**
+	 * Creates the hierarchy.
+	 *
+	 * @param numOfDevices the number of devices, rounded to whole proxy servers
+	 */
+	public MicroserviceHierarchy(int numOfDevices) throws Exception {
+		broker = new FogBroker("broker");
+		application = createApplication("ECG_monitoring", broker.getId());
+		application.setUserId(broker.getId());
+
+		cloud = createFogDevice("cloud", 80000000, 49152000, 100, 12500000, 0, 0.01, 16 * 103, 16 * 83.25, MicroserviceFogDevice.CLOUD);
+		cloud.setParentId(-1);
+		fogDevices.add(cloud);
+		int devicesPerProxy = 1 + GATEWAYS_PER_PROXY * (1 + MOBILES_PER_GATEWAY);
+		int numOfProxies = Math.max(1, Math.round((numOfDevices - 1) / (float) devicesPerProxy));
+		for (int i = 0; i < numOfProxies; i++) {
+			FogDevice proxy = createFogDevice("proxy-server-" + i, 10000, 8192, 12500000, 1250000, 1, 0.0, 107.339, 83.4333, MicroserviceFogDevice.FON);
+			proxy.setParentId(cloud.getId());
+			proxy.setUplinkLatency(150);
+			fogDevices.add(proxy);
+			for (int j = 0; j < GATEWAYS_PER_PROXY; j++) {
+				String id = i + "-" + j;
+				FogDevice gateway = createFogDevice("L2-" + id, j % 2 == 0 ? 2800 : 6000, j % 2 == 0 ? 2048 : 4096, 1250000, 18750, 2, 0.0, 107.339, 83.4333, MicroserviceFogDevice.FON);
+				gateway.setParentId(proxy.getId());
+				gateway.setUplinkLatency(30);
+				fogDevices.add(gateway);
+				for (int k = 0; k < MOBILES_PER_GATEWAY; k++) {
+					addMobile(id + "-" + k, gateway.getId());
+				}
+			}
+		}
+
+		for (FogDevice f : fogDevices) {
+			MicroserviceFogDevice device = (MicroserviceFogDevice) f;
+			if (device.getDeviceType().equals(MicroserviceFogDevice.CLIENT))
+				device.setFonID(device.getParentId());
+			else
+				device.setFonID(device.getId());
+		}
+	}
+
+	private void addMobile(String id, int parentId) throws Exception {
+		FogDevice mobile = createFogDevice("m-" + id, 1000, 2048, 18750, 250, 3, 0, 87.53, 82.44, MicroserviceFogDevice.CLIENT);
+		mobile.setParentId(parentId);
+		mobile.setUplinkLatency(20);
+		fogDevices.add(mobile);
+
+		Sensor ecgSensor = new Sensor("s-" + id, "ECG", broker.getId(), application.getAppId(), new DeterministicDistribution(1000 / (200.0 / 9 * 10)));
+		ecgSensor.setApp(application);
+		ecgSensor.setGatewayDeviceId(mobile.getId());
+		ecgSensor.setLatency(5.0);
+		sensors.add(ecgSensor);
+
+		Actuator display = new Actuator("a-" + id, broker.getId(), application.getAppId(), "DISPLAY");
+		display.setGatewayDeviceId(mobile.getId());
+		display.setLatency(1.0);
+		display.setApp(application);
+		actuators.add(display);
+	}
+
+	/**
+	 * Creates the controller of the hierarchy, which links the devices, clusters the gateways and
+	 * computes the routing tables. Each orchestration node monitors itself.
+	 */
+	public MicroservicesController createController(int placementLogic) {
+		Map<Integer, List<FogDevice>> monitored = new HashMap<>();
+		for (FogDevice f : fogDevices) {
+			String type = ((MicroserviceFogDevice) f).getDeviceType();
+			if (type.equals(MicroserviceFogDevice.FON) || type.equals(MicroserviceFogDevice.CLOUD))
+				monitored.put(f.getId(), new ArrayList<>(Arrays.asList(f)));
+		}
+		return new MicroservicesController("controller", fogDevices, sensors, Arrays.asList(application),
+				Arrays.asList(2), 2.0, placementLogic, monitored);
+	}
+
+	/**
+	 * Creates a placement request per sensor, with the client module placed on its mobile.
+	 */
+	public List<PlacementRequest> createPlacementRequests() {
+		List<PlacementRequest> placementRequests = new ArrayList<>();
+		for (Sensor s : sensors) {
+			Map<String, Integer> placedMicroservicesMap = new HashMap<>();
+			placedMicroservicesMap.put("client", s.getGatewayDeviceId());
+			placementRequests.add(new PlacementRequest(s.getAppId(), s.getId(), s.getGatewayDeviceId(), placedMicroservicesMap));
+		}
+		return placementRequests;
+	}
+
+	/**
+	 * Gets the resources of the devices, as the controller gives them to the placement logics.
+	 */
+	public Map<Integer, Map<String, Double>> getResourceInfo() {
+		Map<Integer, Map<String, Double>> resources = new HashMap<>();
+		for (FogDevice device : fogDevices) {
+			Map<String, Double> perDevice = new HashMap<>();
+			perDevice.put(ControllerComponent.CPU, (double) device.getHost().getTotalMips());
+			perDevice.put(ControllerComponent.RAM, (double) device.getHost().getRam());
+			perDevice.put(ControllerComponent.STORAGE, (double) device.getHost().getStorage());
+			resources.put(device.getId(), perDevice);
+		}
+		return resources;
+	}
+
+	private static MicroserviceFogDevice createFogDevice(String nodeName, long mips, int ram, long upBw, long downBw, int level,
+			double ratePerMips, double busyPower, double idlePower, String deviceType) throws Exception {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		PowerHost host = new PowerHost(
+				FogUtils.generateEntityId(),
+				new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(10000),
+				1000000,
+				peList,
+				new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(busyPower, idlePower)
+		);
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
+				"x86", "Linux", "Xen", host, 10.0, 3.0, 0.05, 0.001, 0.0);
+
+		MicroserviceFogDevice fogdevice = new MicroserviceFogDevice(nodeName, characteristics,
+				new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), 10, upBw, downBw, 1250000, 0, ratePerMips, deviceType);
+		fogdevice.setLevel(level);
+		return fogdevice;
+	}
+
+	@SuppressWarnings({"serial"})
+	private static Application createApplication(String appId, int userId) {
+		Application application = Application.createApplication(appId, userId);
+		application.addAppModule("client", 128, 605, 100);
+		application.addAppModule("ECGFeature_Extractor", 256, 630, 200);
+		application.addAppModule("ECG_Analyser", 512, 100, 2000);
+
+		application.addAppEdge("ECG", "client", 3000, 500, "ECG", Tuple.UP, AppEdge.SENSOR);
+		application.addAppEdge("client", "ECGFeature_Extractor", 3500, 500, "_SENSOR", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("ECGFeature_Extractor", "ECG_Analyser", 100, 10000, 1000, "ECG_FEATURES", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("ECGFeature_Extractor", "client", 14, 500, "ECG_FEATURE_ANALYSIS", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("ECG_Analyser", "client", 100, 28, 1000, "LONG_TERM_ANALYSIS", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("client", "DISPLAY", 1000, 500, "EMERGENCY_NOTIFICATION", Tuple.DOWN, AppEdge.ACTUATOR);
+		application.addAppEdge("client", "DISPLAY", 1000, 500, "LONG_TERM_ANALYSIS_UPDATE", Tuple.DOWN, AppEdge.ACTUATOR);
+
+		application.addTupleMapping("client", "ECG", "_SENSOR", new FractionalSelectivity(0.9));
+		application.addTupleMapping("client", "ECG_FEATURE_ANALYSIS", "EMERGENCY_NOTIFICATION", new FractionalSelectivity(1.0));
+		application.addTupleMapping("ECGFeature_Extractor", "_SENSOR", "ECG_FEATURE_ANALYSIS", new FractionalSelectivity(1.0));
+		application.addTupleMapping("client", "LONG_TERM_ANALYSIS", "LONG_TERM_ANALYSIS_UPDATE", new FractionalSelectivity(1.0));
+
+		final AppLoop loop1 = new AppLoop(new ArrayList<String>() {{
+			add("ECG");
+			add("client");
+			add("ECGFeature_Extractor");
+			add("client");
+			add("DISPLAY");
+		}});
+		List<AppLoop> loops = new ArrayList<AppLoop>() {{
+			add(loop1);
+		}};
+		application.setLoops(loops);
+
+		application.setSpecialPlacementInfo("ECG_Analyser", "cloud");
+		application.createDAG();
+		return application;
+	}
+}
@@ -0,0 +1,98 @@
+package org.fog.jmh;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.fog.application.Application;
+import org.fog.entities.PlacementRequest;
+import org.fog.placement.MicroservicePlacementLogic;
+import org.fog.placement.ModulePlacement;
+import org.fog.placement.PlacementLogicFactory;
+import org.fog.placement.PlacementLogicOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The placement logics, each run from scratch on a hierarchy built once: the module placements
+ * of the VRGame hierarchy, and the microservice placement logics of the clustered hierarchy
+ * with one placement request per sensor, all handled by the cloud.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlacementBenchmark {
+
+	@State(Scope.Thread)
+	public static class ModulePlacementState {
+
+		@Param({ "100", "1000", "10000" })
+		public int devices;
+
+		@Param({ "EDGEWARDS", "MAPPING" })
+		public VRGameHierarchy.Placement placement;
+
+		VRGameHierarchy hierarchy;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			Simulations.init();
+			hierarchy = new VRGameHierarchy(devices, 5);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class MicroservicePlacementState {
+
+		@Param({ "100", "1000", "10000" })
+		public int devices;
+
+		@Param({ "" + PlacementLogicFactory.CLUSTERED_MICROSERVICES_PLACEMENT,
+				"" + PlacementLogicFactory.DISTRIBUTED_MICROSERVICES_PLACEMENT })
+		public int logic;
+
+		MicroserviceHierarchy hierarchy;
+		Map<String, Application> applications = new HashMap<>();
+		List<PlacementRequest> placementRequests;
+		Map<Integer, Map<String, Double>> resources;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			Simulations.init();
+			hierarchy = new MicroserviceHierarchy(devices);
+			hierarchy.createController(logic);
+			applications.put(hierarchy.application.getAppId(), hierarchy.application);
+		}
+
+		/** The logics update the requests and the resources they are given. */
+		@Setup(Level.Invocation)
+		public void reset() {
+			placementRequests = hierarchy.createPlacementRequests();
+			resources = hierarchy.getResourceInfo();
+		}
+	}
+
+	@Benchmark
+	public ModulePlacement modulePlacement(ModulePlacementState state) {
+		return state.hierarchy.place(state.placement);
+	}
+
+	@Benchmark
+	public PlacementLogicOutput microservicePlacement(MicroservicePlacementState state) {
+		MicroservicePlacementLogic logic = new PlacementLogicFactory().getPlacementLogic(state.logic, state.hierarchy.cloud.getId());
+		return logic.run(state.hierarchy.fogDevices, state.applications, state.resources, state.placementRequests);
+	}
+}
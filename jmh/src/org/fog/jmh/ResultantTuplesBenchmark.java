@@ -0,0 +1,90 @@
+package org.fog.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fog.application.Application;
+import org.fog.entities.Tuple;
+import org.fog.entities.TuplePool;
+import org.fog.utils.FogUtils;
+import org.fog.utils.SimulationConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Application#getResultantTuples(String, Tuple, int, int)} on the VRGame application: the
+ * tuples the client emits for an EEG reading and for a concentration update. With lightweight
+ * tuples, the resultant tuples go back to the {@link TuplePool} as a device would release them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultantTuplesBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean lightweightTuples;
+
+	private TuplePool tuplePool;
+	private Application application;
+	private Tuple eeg;
+	private Tuple concentration;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Simulations.init();
+		SimulationConfig.current().setLightweightTuples(lightweightTuples);
+		tuplePool = TuplePool.getInstance();
+		application = VRGameHierarchy.createApplication("vr_game", 0);
+		eeg = newTuple("EEG", "EEG", "client", Tuple.UP);
+		concentration = newTuple("CONCENTRATION", "concentration_calculator", "client", Tuple.DOWN);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		SimulationConfig.current().setLightweightTuples(false);
+	}
+
+	@Benchmark
+	public int sensorReading() {
+		return emit(eeg);
+	}
+
+	@Benchmark
+	public int moduleOutput() {
+		return emit(concentration);
+	}
+
+	private int emit(Tuple input) {
+		List<Tuple> tuples = application.getResultantTuples("client", input, 1, 1);
+		int count = tuples.size();
+		if (lightweightTuples) {
+			for (Tuple tuple : tuples)
+				tuplePool.release(tuple);
+		}
+		return count;
+	}
+
+	private static Tuple newTuple(String type, String source, String destination, int direction) {
+		Tuple tuple = new Tuple("vr_game", FogUtils.generateTupleId(), direction, 3000, 1, 500, 500,
+				Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION);
+		tuple.setTupleType(type);
+		tuple.setSrcModuleName(source);
+		tuple.setDestModuleName(destination);
+		tuple.setActualTupleId(1);
+		return tuple;
+	}
+}
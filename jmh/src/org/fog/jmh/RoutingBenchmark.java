@@ -0,0 +1,66 @@
+package org.fog.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.fog.entities.FogDevice;
+import org.fog.placement.PlacementLogicFactory;
+import org.fog.utils.NextHopTable;
+import org.fog.utils.ShortestPathRoutingGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ShortestPathRoutingGenerator} on a clustered microservice hierarchy: building the table
+ * alone, and building it then looking up the routes between every device and the cloud, both
+ * ways, which computes the next hops of every source.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	public int devices;
+
+	private MicroserviceHierarchy hierarchy;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Simulations.init();
+		hierarchy = new MicroserviceHierarchy(devices);
+		// links the devices and clusters the gateways
+		hierarchy.createController(PlacementLogicFactory.CLUSTERED_MICROSERVICES_PLACEMENT);
+	}
+
+	@Benchmark
+	public NextHopTable generate() {
+		return ShortestPathRoutingGenerator.generateRoutingTable(hierarchy.fogDevices);
+	}
+
+	@Benchmark
+	public long generateAndRoute() {
+		NextHopTable routing = ShortestPathRoutingGenerator.generateRoutingTable(hierarchy.fogDevices);
+		int cloudId = hierarchy.cloud.getId();
+		long sum = 0;
+		for (FogDevice device : hierarchy.fogDevices) {
+			if (device.getId() == cloudId)
+				continue;
+			sum += routing.getNextHop(device.getId(), cloudId);
+			sum += routing.getNextHop(cloudId, device.getId());
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,30 @@
+package org.fog.jmh;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Calendar;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.utils.TimeKeeper;
+
+/**
+ * Common set-up of the fog benchmarks.
+ */
+final class Simulations {
+
+	private Simulations() {
+	}
+
+	/**
+	 * Initialises a new simulation in the context of the calling thread, with logging off. The
+	 * standard output of the benchmark JVM is discarded too, as the placements and the
+	 * controllers print a line per module or device.
+	 */
+	static void init() {
+		Log.disable();
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		CloudSim.init(1, Calendar.getInstance(), false);
+		TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+	}
+}
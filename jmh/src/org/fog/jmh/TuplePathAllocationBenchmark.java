@@ -0,0 +1,161 @@
+package org.fog.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.core.BenchmarkEvents;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.fog.entities.FogDevice;
+import org.fog.entities.Tuple;
+import org.fog.entities.TupleQueue;
+import org.fog.utils.AcknowledgementPolicy;
+import org.fog.utils.FogEvents;
+import org.fog.utils.FogUtils;
+import org.fog.utils.Logger;
+import org.fog.utils.SimulationConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Allocation of the tuple path of a fog device, to be run with the GC profiler: a gateway of a
+ * deployed VRGame hierarchy receives a tuple, routes it and hands it to the link towards its
+ * parent (<tt>forwardUp</tt>) or towards the mobiles hosting its destination module
+ * (<tt>forwardDown</tt>), the debug messages of {@link FogDevice} included. With logging
+ * disabled nothing should be allocated, i.e. <tt>gc.alloc.rate.norm</tt> should be about 0 B/op.
+ * <p>
+ * The events of the kernel are left out, as they are allocated whatever the logging: the
+ * arrival is handed to the gateway directly, the tuples are not acknowledged, and the links are
+ * kept busy so that the tuples are queued, then taken off the queues, rather than sent.
+ * <p>
+ * {@link #main(String[])} runs the benchmark with logging disabled under the GC profiler and
+ * fails if a tuple allocates more than {@link #MAX_BYTES_PER_TUPLE}:
+ * <pre>
+ * java -cp target/benchmarks.jar org.fog.jmh.TuplePathAllocationBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TuplePathAllocationBenchmark {
+
+	/** Bytes per operation below which the tuple path is taken as not allocating (the profiler is not exact). */
+	static final double MAX_BYTES_PER_TUPLE = 1;
+
+	@Param({ "false", "true" })
+	public boolean logging;
+
+	private AcknowledgementPolicy acknowledgementPolicy;
+
+	private FogDevice gateway;
+
+	private SimEvent upArrival;
+
+	private SimEvent downArrival;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Simulations.init();
+		acknowledgementPolicy = SimulationConfig.current().getAcknowledgementPolicy();
+		SimulationConfig.current().setAcknowledgementPolicy(AcknowledgementPolicy.NONE);
+		VRGameHierarchy hierarchy = new VRGameHierarchy(100, Double.MAX_VALUE / 4);
+		hierarchy.submit(VRGameHierarchy.Placement.MAPPING);
+		// deploys the modules, the sensors not emitting
+		CloudSim.runUntil(TupleProcessingBenchmark.WAVE_TIME);
+
+		gateway = find(hierarchy, "d-0");
+		FogDevice proxy = find(hierarchy, "proxy-server");
+		FogDevice mobile = find(hierarchy, "m-0-0");
+		gateway.setNorthLinkBusy(true);
+		gateway.setSouthLinkBusy(true);
+
+		Tuple up = newTuple(hierarchy, Tuple.UP, "_SENSOR", "client", "concentration_calculator");
+		upArrival = BenchmarkEvents.newEvent(CloudSim.clock(), mobile.getId(), gateway.getId(), FogEvents.TUPLE_ARRIVAL, up);
+		Tuple down = newTuple(hierarchy, Tuple.DOWN, "CONCENTRATION", "concentration_calculator", "client");
+		downArrival = BenchmarkEvents.newEvent(CloudSim.clock(), proxy.getId(), gateway.getId(), FogEvents.TUPLE_ARRIVAL, down);
+
+		Logger.ENABLED = logging;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Logger.ENABLED = false;
+		SimulationConfig.current().setAcknowledgementPolicy(acknowledgementPolicy);
+	}
+
+	@Benchmark
+	public Tuple forwardUp() {
+		gateway.processEvent(upArrival);
+		return gateway.getNorthTupleQueue().poll();
+	}
+
+	@Benchmark
+	public void forwardDown(Blackhole blackhole) {
+		gateway.processEvent(downArrival);
+		TupleQueue queue = gateway.getSouthTupleQueue();
+		while (!queue.isEmpty())
+			blackhole.consume(queue.poll());
+	}
+
+	private static FogDevice find(VRGameHierarchy hierarchy, String name) {
+		for (FogDevice device : hierarchy.fogDevices) {
+			if (device.getName().equals(name))
+				return device;
+		}
+		throw new IllegalArgumentException("No device " + name);
+	}
+
+	private static Tuple newTuple(VRGameHierarchy hierarchy, int direction, String tupleType, String srcModule, String destModule) {
+		Tuple tuple = new Tuple(hierarchy.application.getAppId(), FogUtils.generateTupleId(), direction, 1000, 1, 500, 500,
+				new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+		tuple.setUserId(hierarchy.broker.getId());
+		tuple.setTupleType(tupleType);
+		tuple.setSrcModuleName(srcModule);
+		tuple.setDestModuleName(destModule);
+		return tuple;
+	}
+
+	/**
+	 * Runs the benchmark with logging disabled under the GC profiler, and fails if the tuple path
+	 * allocates.
+	 */
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(TuplePathAllocationBenchmark.class.getName())
+				.param("logging", "false")
+				.addProfiler(GCProfiler.class)
+				.build();
+		for (RunResult result : new Runner(options).run()) {
+			String benchmark = result.getParams().getBenchmark();
+			Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+			if (allocation == null)
+				throw new IllegalStateException("The GC profiler gave no allocation rate for " + benchmark);
+			System.err.printf("%s: %.3f B/op%n", benchmark, allocation.getScore());
+			if (allocation.getScore() > MAX_BYTES_PER_TUPLE)
+				throw new IllegalStateException(benchmark + " allocates " + allocation.getScore()
+						+ " B/op with logging disabled, more than " + MAX_BYTES_PER_TUPLE);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package org.fog.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.entities.FogDevice;
+import org.fog.entities.Sensor;
+import org.fog.utils.SimulationConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The tuple path of the fog devices, {@link FogDevice#processTupleArrival} and
+ * {@link FogDevice#executeTuple} with the links and the kernel between them, on a deployed
+ * VRGame hierarchy. The sensors do not emit on their own: each invocation makes every sensor
+ * transmit one EEG reading and runs the simulation until the resulting loop (client,
+ * concentration calculator on the cloud, client, display) has completed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TupleProcessingBenchmark {
+
+	/** Simulated time for a wave of readings to go round the loop. */
+	static final double WAVE_TIME = 1000;
+
+	@Param({ "100", "1000" })
+	public int devices;
+
+	@Param({ "false", "true" })
+	public boolean analyticTupleExecution;
+
+	private VRGameHierarchy hierarchy;
+
+	private double time;
+
+	private int maxSimulationTime;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Simulations.init();
+		SimulationConfig config = SimulationConfig.current();
+		config.setAnalyticTupleExecution(analyticTupleExecution);
+		maxSimulationTime = config.getMaxSimulationTime();
+		config.setMaxSimulationTime(Integer.MAX_VALUE);
+		hierarchy = new VRGameHierarchy(devices, Double.MAX_VALUE / 4);
+		hierarchy.submit(VRGameHierarchy.Placement.MAPPING);
+		time = WAVE_TIME;
+		CloudSim.runUntil(time);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		SimulationConfig config = SimulationConfig.current();
+		config.setAnalyticTupleExecution(false);
+		config.setMaxSimulationTime(maxSimulationTime);
+	}
+
+	@Benchmark
+	public double readingWave() {
+		for (Sensor sensor : hierarchy.sensors)
+			sensor.transmit();
+		time += WAVE_TIME;
+		return CloudSim.runUntil(time);
+	}
+}
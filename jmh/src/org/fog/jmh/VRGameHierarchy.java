@@ -0,0 +1,179 @@
+package org.fog.jmh;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogBroker;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.Sensor;
+import org.fog.entities.Tuple;
+import org.fog.placement.Controller;
+import org.fog.placement.ModuleMapping;
+import org.fog.placement.ModulePlacement;
+import org.fog.placement.ModulePlacementEdgewards;
+import org.fog.placement.ModulePlacementMapping;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+import org.fog.utils.distribution.DeterministicDistribution;
+
+/**
+ * A synthetic VRGame hierarchy (see {@link org.fog.test.perfeval.VRGameFog}) of about a given
+ * number of fog devices: the cloud, a proxy server, and gateways with
+ * {@link #MOBILES_PER_GATEWAY} mobiles each, every mobile with an EEG sensor and a display.
+ * It is created in the simulation of the calling thread, which must have been initialised.
+ */
+public class VRGameHierarchy {
+
+	public static final int MOBILES_PER_GATEWAY = 4;
+
+	/** The module placements the hierarchy can be submitted with. */
+	public enum Placement {
+		/** {@link ModulePlacementEdgewards}, the connector fixed to the cloud. */
+		EDGEWARDS,
+		/** {@link ModulePlacementMapping}, the clients on the mobiles and the rest on the cloud. */
+		MAPPING
+	}
+
+	public final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	public final List<Sensor> sensors = new ArrayList<Sensor>();
+	public final List<Actuator> actuators = new ArrayList<Actuator>();
+	public final FogBroker broker;
+	public final Application application;
+	public final Controller controller;
+
+	/**
+	 * Creates the hierarchy.
+	 *
+	 * @param numOfDevices the number of fog devices, rounded to whole gateways
+	 * @param sensorPeriod the time between two EEG readings of a sensor
+	 */
+	public VRGameHierarchy(int numOfDevices, double sensorPeriod) throws Exception {
+		broker = new FogBroker("broker");
+		application = createApplication("vr_game", broker.getId());
+		application.setUserId(broker.getId());
+
+		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16*103, 16*83.25);
+		cloud.setParentId(-1);
+		FogDevice proxy = createFogDevice("proxy-server", 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
+		proxy.setParentId(cloud.getId());
+		proxy.setUplinkLatency(100);
+		fogDevices.add(cloud);
+		fogDevices.add(proxy);
+		int numOfGateways = Math.max(1, Math.round((numOfDevices - 2) / (float) (MOBILES_PER_GATEWAY + 1)));
+		for(int i=0;i<numOfGateways;i++){
+			FogDevice gateway = createFogDevice("d-"+i, 2800, 4000, 10000, 10000, 2, 0.0, 107.339, 83.4333);
+			gateway.setParentId(proxy.getId());
+			gateway.setUplinkLatency(4);
+			fogDevices.add(gateway);
+			for(int j=0;j<MOBILES_PER_GATEWAY;j++){
+				String id = i+"-"+j;
+				FogDevice mobile = createFogDevice("m-"+id, 1000, 1000, 10000, 270, 3, 0, 87.53, 82.44);
+				mobile.setParentId(gateway.getId());
+				mobile.setUplinkLatency(2);
+				fogDevices.add(mobile);
+				Sensor eegSensor = new Sensor("s-"+id, "EEG", broker.getId(), application.getAppId(), new DeterministicDistribution(sensorPeriod));
+				eegSensor.setGatewayDeviceId(mobile.getId());
+				eegSensor.setLatency(6.0);
+				sensors.add(eegSensor);
+				Actuator display = new Actuator("a-"+id, broker.getId(), application.getAppId(), "DISPLAY");
+				display.setGatewayDeviceId(mobile.getId());
+				display.setLatency(1.0);
+				actuators.add(display);
+			}
+		}
+		// links the devices to their parents
+		controller = new Controller("master-controller", fogDevices, sensors, actuators);
+	}
+
+	/**
+	 * Computes a placement of the application on the hierarchy.
+	 */
+	public ModulePlacement place(Placement placement) {
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping();
+		moduleMapping.addModuleToDevice("connector", "cloud");
+		if(placement == Placement.EDGEWARDS)
+			return new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping);
+		moduleMapping.addModuleToDevice("concentration_calculator", "cloud");
+		for(FogDevice device : fogDevices){
+			if(device.getName().startsWith("m"))
+				moduleMapping.addModuleToDevice("client", device.getName());
+		}
+		return new ModulePlacementMapping(fogDevices, application, moduleMapping);
+	}
+
+	/**
+	 * Submits the application to the controller of the hierarchy.
+	 */
+	public Controller submit(Placement placement) {
+		controller.submitApplication(application, 0, place(placement));
+		return controller;
+	}
+
+	private static FogDevice createFogDevice(String nodeName, long mips,
+			int ram, long upBw, long downBw, int level, double ratePerMips, double busyPower, double idlePower) throws Exception {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		PowerHost host = new PowerHost(
+				FogUtils.generateEntityId(),
+				new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(10000),
+				1000000,
+				peList,
+				new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(busyPower, idlePower)
+			);
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
+				"x86", "Linux", "Xen", host, 10.0, 3.0, 0.05, 0.001, 0.0);
+
+		FogDevice fogdevice = new FogDevice(nodeName, characteristics,
+				new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), 10, upBw, downBw, 0, ratePerMips);
+		fogdevice.setLevel(level);
+		return fogdevice;
+	}
+
+	@SuppressWarnings({"serial" })
+	static Application createApplication(String appId, int userId){
+		Application application = Application.createApplication(appId, userId);
+		application.addAppModule("client", 10);
+		application.addAppModule("concentration_calculator", 10);
+		application.addAppModule("connector", 10);
+
+		application.addAppEdge("EEG", "client", 3000, 500, "EEG", Tuple.UP, AppEdge.SENSOR);
+		application.addAppEdge("client", "concentration_calculator", 3500, 500, "_SENSOR", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("concentration_calculator", "connector", 100, 1000, 1000, "PLAYER_GAME_STATE", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("concentration_calculator", "client", 14, 500, "CONCENTRATION", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("connector", "client", 100, 28, 1000, "GLOBAL_GAME_STATE", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("client", "DISPLAY", 1000, 500, "SELF_STATE_UPDATE", Tuple.DOWN, AppEdge.ACTUATOR);
+		application.addAppEdge("client", "DISPLAY", 1000, 500, "GLOBAL_STATE_UPDATE", Tuple.DOWN, AppEdge.ACTUATOR);
+
+		application.addTupleMapping("client", "EEG", "_SENSOR", new FractionalSelectivity(0.9));
+		application.addTupleMapping("client", "CONCENTRATION", "SELF_STATE_UPDATE", new FractionalSelectivity(1.0));
+		application.addTupleMapping("concentration_calculator", "_SENSOR", "CONCENTRATION", new FractionalSelectivity(1.0));
+		application.addTupleMapping("client", "GLOBAL_GAME_STATE", "GLOBAL_STATE_UPDATE", new FractionalSelectivity(1.0));
+
+		final AppLoop loop1 = new AppLoop(new ArrayList<String>(){{add("EEG");add("client");add("concentration_calculator");add("client");add("DISPLAY");}});
+		List<AppLoop> loops = new ArrayList<AppLoop>(){{add(loop1);}};
+		application.setLoops(loops);
+		return application;
+	}
+}
@@ -8,6 +8,7 @@
 package org.cloudbus.cloudsim;
 
 import java.text.DecimalFormat;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -61,7 +62,7 @@ public class Cloudlet {
     /**
      * The cloudlet ID.
      */
-    private final int cloudletId;
+    private int cloudletId;
 
     /**
      * The User or Broker ID. It is advisable that broker set this ID with its
@@ -90,7 +91,7 @@ public class Cloudlet {
      * The input file size of this Cloudlet before execution (unit: in byte).
      * This size has to be considered the program + input data sizes.
      */
-    private final long cloudletFileSize;
+    private long cloudletFileSize;
 
     /**
      * The output file size of this Cloudlet after execution (unit: in byte).
@@ -99,7 +100,7 @@ public class Cloudlet {
      * <a href="https://groups.google.com/forum/#!topic/cloudsim/MyZ7OnrXuuI">this
      * discussion</a>
      */
-    private final long cloudletOutputSize;
+    private long cloudletOutputSize;
 
     /**
      * The number of Processing Elements (Pe) required to execute this cloudlet
@@ -156,7 +157,7 @@ public class Cloudlet {
      * it starts and finishes executing in a single cloud resource, without
      * being migrated, this list will have only one item.
      */
-    private final List<Resource> resList;
+    private List<Resource> resList;
 
     /**
      * The classType or priority of this Cloudlet for scheduling on a resource.
@@ -264,10 +265,6 @@ public class Cloudlet {
                 utilizationModelRam,
                 utilizationModelBw,
                 false);
-        guestId = -1;
-        accumulatedBwCost = 0;
-        costPerBw = 0;
-        requiredFiles = new LinkedList<>();
     }
 
     /**
@@ -419,16 +416,17 @@ public class Cloudlet {
         this.cloudletOutputSize = Math.max(1, cloudletOutputSize);
 
         // Normally, a Cloudlet is only executed on a resource without being
-        // migrated to others. Hence, to reduce memory consumption, set the
-        // size of this ArrayList to be less than the default one.
-        resList = new LinkedList<>();
+        // migrated to others. Hence, to reduce memory consumption, the list
+        // is only created when the Cloudlet is first submitted.
+        resList = Collections.emptyList();
         this.record = record;
 
         guestId = -1;
         accumulatedBwCost = 0.0;
         costPerBw = 0.0;
 
-        requiredFiles = new LinkedList<>();
+        // as with resList, the list is only created when a file is first required
+        requiredFiles = Collections.emptyList();
 
         setUtilizationModelCpu(utilizationModelCpu);
         setUtilizationModelRam(utilizationModelRam);
@@ -857,6 +855,9 @@ public class Cloudlet {
         res.resourceName = CloudSim.getEntityName(resourceID);
 
         // add into a list if moving to a new grid resource
+        if (resList == Collections.<Resource>emptyList()) {
+            resList = new LinkedList<>();
+        }
         resList.add(res);
 
         if (resList.size() == 1 && record) {
@@ -1374,7 +1375,7 @@ public class Cloudlet {
      */
     public boolean addRequiredFile(final String fileName) {
         // if the list is empty
-        if (getRequiredFiles() == null) {
+        if (getRequiredFiles() == null || getRequiredFiles() == Collections.<String>emptyList()) {
             setRequiredFiles(new LinkedList<>());
         }
 
@@ -1500,12 +1501,75 @@ public class Cloudlet {
      * @return The UID
      */
     public String getUid() {
+        if (uid == null) {
+            uid = getUserId() + "-" + getCloudletId();
+        }
         return uid;
     }
 
-    /** update uid after change of cloudletId or userId */
+    /** update uid after change of cloudletId or userId; it is built again when asked for */
     private void updateUid() {
-        uid = getUserId() + "-" + getCloudletId();
+        uid = null;
+    }
+
+    /**
+     * Brings a finished Cloudlet back to the state of a new one, with new parameters, so that
+     * the object can be used again. It must no longer be referenced by any entity, queue or
+     * scheduler. The list of required files is kept, emptied.
+     *
+     * @param cloudletId          the unique ID of this Cloudlet
+     * @param cloudletLength      the length or size (in MI) of this cloudlet
+     * @param pesNumber           the pes number
+     * @param cloudletFileSize    the file size (in byte) of this cloudlet before execution
+     * @param cloudletOutputSize  the file size (in byte) of this cloudlet after execution
+     * @param utilizationModelCpu the utilization model of cpu
+     * @param utilizationModelRam the utilization model of ram
+     * @param utilizationModelBw  the utilization model of bw
+     */
+    protected void reinitialize(
+            final int cloudletId,
+            final long cloudletLength,
+            final int pesNumber,
+            final long cloudletFileSize,
+            final long cloudletOutputSize,
+            final UtilizationModel utilizationModelCpu,
+            final UtilizationModel utilizationModelRam,
+            final UtilizationModel utilizationModelBw) {
+        userId = -1;
+        status = CloudletStatus.CREATED;
+        this.cloudletId = cloudletId;
+        numberOfPes = pesNumber;
+
+        execStartTime = 0.0;
+        execFinishTime = -1.0;
+        totalCompletionTime = 0.0;
+        reservationId = -1;
+        classType = 0;
+        netToS = 0;
+
+        this.cloudletLength = Math.max(1, cloudletLength);
+        this.cloudletFileSize = Math.max(1, cloudletFileSize);
+        this.cloudletOutputSize = Math.max(1, cloudletOutputSize);
+
+        history = null;
+        num = null;
+        if (!resList.isEmpty()) {
+            resList.clear();
+        }
+
+        guestId = -1;
+        containerId = -1;
+        accumulatedBwCost = 0.0;
+        costPerBw = 0.0;
+
+        if (requiredFiles != null && !requiredFiles.isEmpty()) {
+            requiredFiles.clear();
+        }
+
+        setUtilizationModelCpu(utilizationModelCpu);
+        setUtilizationModelRam(utilizationModelRam);
+        setUtilizationModelBw(utilizationModelBw);
+        updateUid();
     }
 
     /**
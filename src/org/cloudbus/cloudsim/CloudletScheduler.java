@@ -106,6 +106,8 @@ public abstract class CloudletScheduler {
 			}
 		}
 		getCloudletExecList().removeAll(cloudletJustFinishedList);
+		// cleared before returning, so that no finished cloudlet is kept until the next update
+		cloudletJustFinishedList.clear();
 
 
 		if (getCloudletExecList().isEmpty() && getCloudletWaitingList().isEmpty()) {
@@ -116,7 +118,6 @@ public abstract class CloudletScheduler {
 
 		// Update cloudlets in waiting list, if any
 		updateWaitingCloudlets(currentTime, null);
-		cloudletJustFinishedList.clear();
 
 		// estimate finish time of cloudlets in the execution queue
 		double nextEvent = Double.MAX_VALUE;
@@ -10,6 +10,7 @@ package org.cloudbus.cloudsim;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.function.Supplier;
 
 /**
  * Logger used for performing logging of the simulation process. It provides the ability to
@@ -31,8 +32,8 @@ public class Log {
          the call for any print method has no effect. */
 	private static boolean disabled;
 	
-	/** Buffer to avoid creating new string builder upon every print. */
-	private static final StringBuilder buffer = new StringBuilder();
+	/** Buffer to avoid creating new string builder upon every print, one per thread so that simulations can log concurrently. */
+	private static final ThreadLocal<StringBuilder> buffer = ThreadLocal.withInitial(StringBuilder::new);
 
 	/**
 	 * Prints a message.
@@ -94,6 +95,7 @@ public class Log {
 	 */
 	public static void printConcat(Object... messages) {
 		if (!isDisabled()) {
+			StringBuilder buffer = Log.buffer.get();
 			buffer.setLength(0); // Clear the buffer		    
             for (Object message : messages) {
                 buffer.append(message);
@@ -109,6 +111,7 @@ public class Log {
 	 */
 	public static void printlnConcat(Object... messages) {
 		if (!isDisabled()) {
+			StringBuilder buffer = Log.buffer.get();
 			buffer.setLength(0); // Clear the buffer		    
             for (Object message : messages) {
                 buffer.append(message);
@@ -160,6 +163,30 @@ public class Log {
 		}
 	}
 
+	/**
+	 * Prints a message that is only built if the logger is enabled, so that call sites executed
+	 * on every event do not pay for formatting when logging is disabled.
+	 * 
+	 * @param message supplies the message
+	 */
+	public static void print(Supplier<String> message) {
+		if (!isDisabled()) {
+			print(message.get());
+		}
+	}
+
+	/**
+	 * Prints a message that is only built if the logger is enabled, and a new line.
+	 * 
+	 * @param message supplies the message
+	 * @see #print(Supplier)
+	 */
+	public static void println(Supplier<String> message) {
+		if (!isDisabled()) {
+			println(message.get());
+		}
+	}
+
 	/**
 	 * Sets the output stream.
 	 * 
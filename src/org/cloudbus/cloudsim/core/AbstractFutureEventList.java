@@ -0,0 +1,92 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import org.cloudbus.cloudsim.Log;
+
+import java.util.Iterator;
+
+/**
+ * Base class of the future event lists that are not backed by a {@link java.util.PriorityQueue}.
+ * It assigns the event serials the same way {@link EventQueue} does, and leaves the storage of
+ * the events to the subclasses.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public abstract class AbstractFutureEventList implements FutureEventList {
+	/** A incremental number used for event attribute */
+	private long serial = 0;
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (!CloudSim.running()) {
+			return null;
+		}
+		return removeFirst();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Stores an event whose serial has already been set.
+	 *
+	 * @param event the event
+	 */
+	protected abstract void insert(SimEvent event);
+
+	/**
+	 * Removes and returns the event with the smallest (time, serial).
+	 *
+	 * @return the event, or <tt>null</tt> if the list is empty
+	 */
+	protected abstract SimEvent removeFirst();
+
+	/**
+	 * Compares two events by time and then by serial. Unlike {@link SimEvent#compareTo(SimEvent)}
+	 * it returns 0 for events with the same time and serial, so that the subclasses can keep them
+	 * in insertion order.
+	 *
+	 * @param a the first event
+	 * @param b the second event
+	 * @return a negative number, zero or a positive number as <tt>a</tt> is due before, together
+	 *         with or after <tt>b</tt>
+	 */
+	protected static int compare(SimEvent a, SimEvent b) {
+		if (a.eventTime() < b.eventTime()) {
+			return -1;
+		} else if (a.eventTime() > b.eventTime()) {
+			return 1;
+		}
+		return Long.compare(a.getSerial(), b.getSerial());
+	}
+
+	public void print() {
+		Iterator<SimEvent> iter = iterator();
+		int i = 0;
+		while(iter.hasNext()) {
+			Log.printlnConcat("[", i, "] -> ", iter.next().toString());
+			i++;
+		}
+	}
+}
@@ -0,0 +1,308 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A calendar queue (R. Brown, "Calendar queues: a fast O(1) priority queue implementation for
+ * the simulation event set problem", CACM 31(10), 1988). Events are hashed by time into an array
+ * of "day" buckets of equal width that together make up one "year"; each bucket is a list sorted
+ * by (time, serial). The number of buckets doubles or halves with the number of pending events
+ * and the bucket width is re-estimated from the spacing of the earliest events on every resize.
+ * <p>
+ * Instead of comparing times against the top of the current bucket, the queue keeps the index
+ * of the current "virtual" bucket (time divided by width, not wrapped around the year). Since
+ * the same function places and finds the events, rounding can never make the queue skip one.
+ *
+ * @see FutureEventListType#CALENDAR_QUEUE
+ * @since CloudSim Toolkit 7.0
+ */
+public class CalendarQueue extends AbstractFutureEventList {
+
+	/** The minimum number of buckets of the calendar. */
+	private static final int MIN_BUCKETS = 2;
+
+	/** The number of events sampled to estimate the bucket width on a resize. */
+	private static final int WIDTH_SAMPLE_SIZE = 25;
+
+	/** A node of the sorted list of a bucket. */
+	private static final class Node {
+		final SimEvent event;
+		final long virtualBucket;
+		Node next;
+
+		Node(SimEvent event, long virtualBucket) {
+			this.event = event;
+			this.virtualBucket = virtualBucket;
+		}
+	}
+
+	/** The heads of the bucket lists. */
+	private Node[] heads;
+
+	/** The tails of the bucket lists, so that events due last in a bucket are appended in O(1). */
+	private Node[] tails;
+
+	/** The width (in simulation time) of a bucket. */
+	private double width;
+
+	/** The virtual bucket being drained; no pending event belongs to an earlier one. */
+	private long currentBucket;
+
+	/** The number of pending events. */
+	private int size;
+
+	/** The number of events above which the calendar grows. */
+	private int topThreshold;
+
+	/** The number of events below which the calendar shrinks. */
+	private int bottomThreshold;
+
+	/** Flag used to suspend resizing while sampling events for a new bucket width. */
+	private boolean resizeEnabled = true;
+
+	/**
+	 * Creates an empty calendar queue.
+	 */
+	public CalendarQueue() {
+		setup(MIN_BUCKETS, 1.0, 0);
+	}
+
+	private void setup(int numBuckets, double bucketWidth, long startBucket) {
+		heads = new Node[numBuckets];
+		tails = new Node[numBuckets];
+		width = bucketWidth;
+		currentBucket = startBucket;
+		topThreshold = 2 * numBuckets;
+		bottomThreshold = numBuckets / 2 - 2;
+	}
+
+	private long virtualBucketOf(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	private int bucketIndex(long virtualBucket) {
+		return (int) Math.floorMod(virtualBucket, (long) heads.length);
+	}
+
+	@Override
+	protected void insert(SimEvent event) {
+		enqueue(new Node(event, virtualBucketOf(event.eventTime())));
+		size++;
+		if (resizeEnabled && size > topThreshold) {
+			resize(heads.length * 2);
+		}
+	}
+
+	private void enqueue(Node node) {
+		if (node.virtualBucket < currentBucket) {
+			currentBucket = node.virtualBucket;
+		}
+		int i = bucketIndex(node.virtualBucket);
+		Node head = heads[i];
+		if (head == null) {
+			heads[i] = node;
+			tails[i] = node;
+		} else if (compare(node.event, tails[i].event) >= 0) {
+			tails[i].next = node;
+			tails[i] = node;
+		} else if (compare(node.event, head.event) < 0) {
+			node.next = head;
+			heads[i] = node;
+		} else {
+			Node prev = head;
+			while (compare(node.event, prev.next.event) >= 0) {
+				prev = prev.next;
+			}
+			node.next = prev.next;
+			prev.next = node;
+		}
+	}
+
+	/**
+	 * Advances {@link #currentBucket} to the bucket that holds the earliest event.
+	 *
+	 * @return the index of that bucket, or -1 if the queue is empty
+	 */
+	private int locateFirst() {
+		if (size == 0) {
+			return -1;
+		}
+		for (int n = 0; n < heads.length; n++) {
+			int i = bucketIndex(currentBucket);
+			Node head = heads[i];
+			if (head != null && head.virtualBucket == currentBucket) {
+				return i;
+			}
+			currentBucket++;
+		}
+
+		// no event within one year: jump straight to the earliest one
+		Node first = null;
+		int firstIndex = -1;
+		for (int i = 0; i < heads.length; i++) {
+			if (heads[i] != null && (first == null || compare(heads[i].event, first.event) < 0)) {
+				first = heads[i];
+				firstIndex = i;
+			}
+		}
+		currentBucket = first.virtualBucket;
+		return firstIndex;
+	}
+
+	@Override
+	public SimEvent peek() {
+		int i = locateFirst();
+		return i < 0 ? null : heads[i].event;
+	}
+
+	@Override
+	protected SimEvent removeFirst() {
+		int i = locateFirst();
+		if (i < 0) {
+			return null;
+		}
+		Node head = heads[i];
+		unlink(i, null, head);
+		if (resizeEnabled && size < bottomThreshold && heads.length > MIN_BUCKETS) {
+			resize(heads.length / 2);
+		}
+		return head.event;
+	}
+
+	private void unlink(int i, Node prev, Node node) {
+		if (prev == null) {
+			heads[i] = node.next;
+		} else {
+			prev.next = node.next;
+		}
+		if (tails[i] == node) {
+			tails[i] = prev;
+		}
+		node.next = null;
+		size--;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Rebuilds the calendar with a new number of buckets and a bucket width estimated from the
+	 * average separation of the earliest pending events.
+	 *
+	 * @param numBuckets the new number of buckets
+	 */
+	private void resize(int numBuckets) {
+		double newWidth = estimateWidth();
+		Node[] oldHeads = heads;
+		setup(Math.max(numBuckets, MIN_BUCKETS), newWidth, 0);
+		boolean first = true;
+		for (Node head : oldHeads) {
+			Node node = head;
+			while (node != null) {
+				Node next = node.next;
+				Node moved = new Node(node.event, virtualBucketOf(node.event.eventTime()));
+				if (first || moved.virtualBucket < currentBucket) {
+					currentBucket = moved.virtualBucket;
+					first = false;
+				}
+				enqueue(moved);
+				node = next;
+			}
+		}
+	}
+
+	private double estimateWidth() {
+		int samples = Math.min(size, WIDTH_SAMPLE_SIZE);
+		if (samples < 2) {
+			return width;
+		}
+		resizeEnabled = false;
+		SimEvent[] sampled = new SimEvent[samples];
+		for (int i = 0; i < samples; i++) {
+			sampled[i] = removeFirst();
+		}
+		for (SimEvent event : sampled) {
+			enqueue(new Node(event, virtualBucketOf(event.eventTime())));
+			size++;
+		}
+		resizeEnabled = true;
+
+		double average = (sampled[samples - 1].eventTime() - sampled[0].eventTime()) / (samples - 1);
+		double total = 0;
+		int count = 0;
+		for (int i = 1; i < samples; i++) {
+			double separation = sampled[i].eventTime() - sampled[i - 1].eventTime();
+			if (separation <= 2 * average) {
+				total += separation;
+				count++;
+			}
+		}
+		double newWidth = count > 0 ? 3 * total / count : 0;
+		return newWidth > 0 ? newWidth : width;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<>() {
+			/** The bucket of the cursor. */
+			private int bucket = 0;
+			/** The node after which the cursor lies, or null if it lies at the head of the bucket. */
+			private Node before = null;
+			/** The node last returned by next(), or null if it has been removed. */
+			private Node last = null;
+			private Node lastPrev = null;
+			private int lastBucket = -1;
+
+			private Node peekNext() {
+				while (bucket < heads.length) {
+					Node node = before == null ? heads[bucket] : before.next;
+					if (node != null) {
+						return node;
+					}
+					bucket++;
+					before = null;
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return peekNext() != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				Node node = peekNext();
+				if (node == null) {
+					throw new NoSuchElementException();
+				}
+				lastPrev = before;
+				lastBucket = bucket;
+				last = node;
+				before = node;
+				return node.event;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				unlink(lastBucket, lastPrev, last);
+				before = lastPrev;
+				last = null;
+			}
+		};
+	}
+}
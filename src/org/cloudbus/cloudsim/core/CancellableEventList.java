@@ -0,0 +1,253 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event list that cancels the events of an entity with a given tag without scanning the
+ * events. It decorates the list chosen with {@link FutureEventListType}: the pending events of
+ * every tag that has been cancelled at least once are indexed by source entity, and cancelling
+ * them only marks them (see {@link SimEvent#cancel()}). Marked events are left in the decorated
+ * list and discarded when they reach its head, or all at once when they outnumber the live events.
+ * They are not counted by {@link #size()} nor returned by {@link #iterator()}, so both behave as
+ * if the events had been removed; only the decorated list, if iterated directly, still holds them.
+ * <p>
+ * Entities such as the power datacenters cancel and reschedule their next
+ * {@link CloudActionTags#VM_DATACENTER_EVENT} whenever they process a cloudlet, which used to cost
+ * a scan of the whole list and, with {@link EventQueue}, a linear-time removal from the heap.
+ *
+ * @see CloudSim#cancelAll(int, org.cloudbus.cloudsim.core.predicates.Predicate)
+ * @since CloudSim Toolkit 7.0
+ */
+public class CancellableEventList implements FutureEventList {
+
+	/** Number of cancelled events the decorated list may hold before it is compacted. */
+	private static final int COMPACTION_THRESHOLD = 1024;
+
+	private final FutureEventList events;
+
+	/** Pending events of the indexed tags, by tag and source entity id. */
+	private final Map<CloudSimTags, List<ArrayDeque<SimEvent>>> index = new IdentityHashMap<>();
+
+	/** Number of cancelled events still in the decorated list. */
+	private int cancelledCount;
+
+	/**
+	 * Creates a list that decorates another one.
+	 *
+	 * @param events the list holding the events, which should be empty
+	 */
+	public CancellableEventList(FutureEventList events) {
+		this.events = events;
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		events.addEvent(newEvent);
+		track(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		events.addEventFirst(newEvent);
+		track(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		discardCancelledHead();
+		return events.peek();
+	}
+
+	@Override
+	public SimEvent poll() {
+		discardCancelledHead();
+		SimEvent event = events.poll();
+		if (event != null) {
+			untrack(event);
+		}
+		return event;
+	}
+
+	@Override
+	public int size() {
+		return events.size() - cancelledCount;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Cancels all the pending events sent by an entity with a given tag.
+	 *
+	 * @param srcId the id of the entity that sent the events
+	 * @param tag the tag of the events
+	 * @return the number of cancelled events
+	 */
+	public int cancelAll(int srcId, CloudSimTags tag) {
+		ArrayDeque<SimEvent> pending = getPending(srcId, tag);
+		if (pending == null || pending.isEmpty()) {
+			return 0;
+		}
+		int count = pending.size();
+		for (SimEvent event : pending) {
+			event.cancel();
+		}
+		pending.clear();
+		cancelledCount += count;
+		compactIfNeeded();
+		return count;
+	}
+
+	/**
+	 * Cancels one pending event sent by an entity with a given tag, the one sent first.
+	 *
+	 * @param srcId the id of the entity that sent the event
+	 * @param tag the tag of the event
+	 * @return the cancelled event, or <tt>null</tt> if there was none
+	 */
+	public SimEvent cancelFirst(int srcId, CloudSimTags tag) {
+		ArrayDeque<SimEvent> pending = getPending(srcId, tag);
+		if (pending == null || pending.isEmpty()) {
+			return null;
+		}
+		SimEvent event = pending.pollFirst();
+		event.cancel();
+		cancelledCount++;
+		compactIfNeeded();
+		return event;
+	}
+
+	/**
+	 * Returns an iterator over the pending events that have not been cancelled, in no particular
+	 * order. {@link Iterator#remove()} removes the event from the decorated list.
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final Iterator<SimEvent> iterator = events.iterator();
+		return new Iterator<SimEvent>() {
+			private SimEvent next;
+			private SimEvent last;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && iterator.hasNext()) {
+					SimEvent event = iterator.next();
+					if (!event.isCancelled()) {
+						next = event;
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = null;
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				// the decorated iterator is already past the next live event, if it was looked up
+				if (last == null || next != null) {
+					throw new IllegalStateException();
+				}
+				iterator.remove();
+				untrack(last);
+				last = null;
+			}
+		};
+	}
+
+	/**
+	 * Gets the pending events of an entity with a tag, indexing the tag first if needed.
+	 *
+	 * @return the events, or <tt>null</tt> if there are none
+	 */
+	private ArrayDeque<SimEvent> getPending(int srcId, CloudSimTags tag) {
+		List<ArrayDeque<SimEvent>> bySource = index.get(tag);
+		if (bySource == null) {
+			// the first cancellation of a tag scans the list once; its later events are indexed as they are added
+			bySource = new ArrayList<>();
+			index.put(tag, bySource);
+			for (SimEvent event : events) {
+				if (!event.isCancelled() && event.getTag() == tag) {
+					track(event);
+				}
+			}
+		}
+		return srcId >= 0 && srcId < bySource.size() ? bySource.get(srcId) : null;
+	}
+
+	private void track(SimEvent event) {
+		List<ArrayDeque<SimEvent>> bySource = index.get(event.getTag());
+		int srcId = event.getSourceId();
+		if (bySource == null || srcId < 0) {
+			return;
+		}
+		while (srcId >= bySource.size()) {
+			bySource.add(null);
+		}
+		ArrayDeque<SimEvent> pending = bySource.get(srcId);
+		if (pending == null) {
+			pending = new ArrayDeque<>();
+			bySource.set(srcId, pending);
+		}
+		pending.addLast(event);
+	}
+
+	private void untrack(SimEvent event) {
+		List<ArrayDeque<SimEvent>> bySource = index.get(event.getTag());
+		int srcId = event.getSourceId();
+		if (bySource != null && srcId >= 0 && srcId < bySource.size() && bySource.get(srcId) != null) {
+			// events of an entity with a tag are mostly dispatched in the order they were sent
+			bySource.get(srcId).removeFirstOccurrence(event);
+		}
+	}
+
+	private void discardCancelledHead() {
+		SimEvent head;
+		while (cancelledCount > 0 && (head = events.peek()) != null && head.isCancelled()) {
+			if (events.poll() == null) {
+				return;
+			}
+			cancelledCount--;
+		}
+	}
+
+	/**
+	 * Removes the cancelled events from the decorated list once they outnumber the live ones, so
+	 * that events cancelled long before they are due do not accumulate.
+	 */
+	private void compactIfNeeded() {
+		if (cancelledCount < COMPACTION_THRESHOLD || cancelledCount < events.size() - cancelledCount) {
+			return;
+		}
+		Iterator<SimEvent> iterator = events.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().isCancelled()) {
+				iterator.remove();
+			}
+		}
+		cancelledCount = 0;
+	}
+}
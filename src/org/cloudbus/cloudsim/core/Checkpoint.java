@@ -0,0 +1,1076 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractQueue;
+import java.util.AbstractSequentialList;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+
+/**
+ * Saves the state of a simulation between two clock ticks to a compact binary snapshot, and
+ * restores it into a context to continue from there, so that a warm-up phase runs once and the
+ * what-if branches fork from its end (see {@link CloudSim#runUntil(double)}), possibly in
+ * contexts of their own on other threads or in other processes.
+ * <p>
+ * The snapshot holds the whole context: the future event list, the entities with their incoming
+ * events and everything reachable from them (fog devices with their modules and tuple queues,
+ * controllers, applications, ...), and the per-simulation state of the other modules, such as
+ * the time keeper and the monitors. Objects are written field by field, keeping shared and
+ * cyclic references, in a custom format rather than through {@link java.io.Serializable}: the
+ * classes of the simulation need no marker, nor any particular constructor. As in Java
+ * serialization, an object is restored by creating an instance without running the constructors
+ * of the classes of the simulation, only that of its first JDK superclass, then setting all its
+ * fields, so that e.g. no entity is registered twice. The collections and maps of the JDK are
+ * written as their elements, and
+ * calendars, atomic numbers and the empty collections of {@link Collections} by codecs of their
+ * own; other JDK objects cannot be saved. A random number generator can be saved if it keeps
+ * its state in fields of its own, as the per-simulation generator of the fog models does.
+ * <p>
+ * A snapshot can only be restored by the build that wrote it. Static fields are not part of it,
+ * so neither are class-level settings nor the sequence of {@link Math#random()}; objects only
+ * referenced from outside the simulation, e.g. lists kept by the main method of a scenario, are
+ * not updated by a restore. Lambdas cannot be saved.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public final class Checkpoint {
+
+	private static final int MAGIC = 0x43534350;
+
+	private static final int VERSION = 2;
+
+	// Tags of the encoded values
+
+	private static final int NULL = 0;
+	private static final int REFERENCE = 1;
+	private static final int CONTEXT = 2;
+	private static final int STRING = 3;
+	private static final int BOXED = 4;
+	private static final int ENUM = 5;
+	private static final int CLASS = 6;
+	private static final int ARRAY = 7;
+	private static final int OBJECT = 8;
+	private static final int COLLECTION = 9;
+	private static final int MAP = 10;
+	private static final int BITSET = 11;
+	private static final int CALENDAR = 12;
+	private static final int ATOMIC = 13;
+	private static final int CONSTANT = 14;
+
+	// Codes of the field types
+
+	private static final int REFERENCE_FIELD = 0;
+	private static final int INT_FIELD = 1;
+	private static final int LONG_FIELD = 2;
+	private static final int DOUBLE_FIELD = 3;
+	private static final int FLOAT_FIELD = 4;
+	private static final int BOOLEAN_FIELD = 5;
+	private static final int BYTE_FIELD = 6;
+	private static final int SHORT_FIELD = 7;
+	private static final int CHAR_FIELD = 8;
+
+	/** JDK base classes that hold no state worth saving. */
+	private static final Set<Class<?>> STATELESS_BASES = new HashSet<>(Arrays.asList(Object.class,
+			AbstractCollection.class, AbstractList.class, AbstractSequentialList.class, AbstractSet.class,
+			AbstractQueue.class, AbstractMap.class, Number.class));
+
+	/** JDK collections restored by adding their elements. */
+	private static final Set<Class<?>> COLLECTION_BASES = new HashSet<>(Arrays.asList(ArrayList.class,
+			LinkedList.class, Vector.class, HashSet.class, LinkedHashSet.class, TreeSet.class, ArrayDeque.class,
+			PriorityQueue.class, CopyOnWriteArrayList.class, CopyOnWriteArraySet.class, ConcurrentLinkedQueue.class,
+			ConcurrentLinkedDeque.class, LinkedBlockingQueue.class, LinkedBlockingDeque.class,
+			PriorityBlockingQueue.class, ConcurrentSkipListSet.class));
+
+	/** JDK maps restored by putting their entries. */
+	private static final Set<Class<?>> MAP_BASES = new HashSet<>(Arrays.asList(HashMap.class,
+			LinkedHashMap.class, TreeMap.class, IdentityHashMap.class, Hashtable.class, ConcurrentHashMap.class,
+			ConcurrentSkipListMap.class));
+
+	/** JDK collections and maps built with their comparator. */
+	private static final Set<Class<?>> SORTED_BASES = new HashSet<>(Arrays.asList(TreeSet.class,
+			PriorityQueue.class, PriorityBlockingQueue.class, ConcurrentSkipListSet.class, TreeMap.class,
+			ConcurrentSkipListMap.class));
+
+	/** Atomic numbers, written as their value. */
+	private static final Set<Class<?>> ATOMIC_TYPES = new HashSet<>(Arrays.asList(AtomicInteger.class,
+			AtomicLong.class, AtomicBoolean.class));
+
+	/** Shared instances of the JDK, written as their index so that they are restored as themselves. */
+	private static final List<Object> CONSTANTS = Arrays.asList(Collections.emptyList(), Collections.emptySet(),
+			Collections.emptyMap(), Collections.emptySortedSet(), Collections.emptySortedMap(),
+			Collections.emptyNavigableSet(), Collections.emptyNavigableMap(), Collections.reverseOrder(),
+			String.CASE_INSENSITIVE_ORDER);
+
+	private static final Map<Object, Integer> CONSTANT_INDEXES = new IdentityHashMap<>();
+
+	/** The field type codes of the primitive types and of their wrappers. */
+	private static final Map<Class<?>, Integer> VALUE_CODES = new HashMap<>();
+
+	private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+	static {
+		Class<?>[][] types = { { int.class, Integer.class }, { long.class, Long.class }, { double.class, Double.class },
+				{ float.class, Float.class }, { boolean.class, Boolean.class }, { byte.class, Byte.class },
+				{ short.class, Short.class }, { char.class, Character.class } };
+		for (int i = 0; i < types.length; i++) {
+			VALUE_CODES.put(types[i][0], INT_FIELD + i);
+			VALUE_CODES.put(types[i][1], INT_FIELD + i);
+			PRIMITIVE_TYPES.put(types[i][0].getName(), types[i][0]);
+		}
+		PRIMITIVE_TYPES.put(void.class.getName(), void.class);
+		for (int i = 0; i < CONSTANTS.size(); i++) {
+			CONSTANT_INDEXES.put(CONSTANTS.get(i), i);
+		}
+	}
+
+	/** How the instances of each class are written, built on first use. */
+	private static final Map<Class<?>, Layout> LAYOUTS = new ConcurrentHashMap<>();
+
+	/** The fingerprints of the classes, computed on first use. */
+	private static final Map<Class<?>, Integer> FINGERPRINTS = new ConcurrentHashMap<>();
+
+	/**
+	 * The reflection factory of the JDK and its method building, for a class and a constructor of
+	 * one of its superclasses, a constructor that allocates an instance of the class and only runs
+	 * that of the superclass, as Java serialization does. They are looked up by reflection, the
+	 * JDK only exporting them for that use, and are <tt>null</tt> if the runtime lacks them.
+	 */
+	private static final Object REFLECTION_FACTORY;
+
+	private static final Method NEW_CONSTRUCTOR_FOR_SERIALIZATION;
+
+	static {
+		Object reflectionFactory = null;
+		Method newConstructorForSerialization = null;
+		try {
+			Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+			reflectionFactory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+			newConstructorForSerialization = factoryClass.getMethod("newConstructorForSerialization", Class.class,
+					Constructor.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// only the classes that declare a constructor without parameters can be restored
+		}
+		REFLECTION_FACTORY = reflectionFactory;
+		NEW_CONSTRUCTOR_FOR_SERIALIZATION = newConstructorForSerialization;
+	}
+
+	private Checkpoint() {
+	}
+
+	/**
+	 * Saves the simulation of the calling thread to a file.
+	 *
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written or the simulation holds an object that
+	 *             cannot be saved
+	 */
+	public static void save(String file) throws IOException {
+		try (OutputStream out = Files.newOutputStream(Paths.get(file))) {
+			save(out);
+		}
+	}
+
+	/**
+	 * Saves the simulation of the calling thread to a stream, which is left open.
+	 *
+	 * @param out the stream
+	 * @throws IOException if the stream cannot be written or the simulation holds an object that
+	 *             cannot be saved
+	 */
+	public static void save(OutputStream out) throws IOException {
+		SimulationContext ctx = SimulationContext.current();
+		if (ctx.entities == null) {
+			throw new IllegalStateException("No simulation to checkpoint.");
+		}
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.flush();
+		DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED));
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(deflater, 1 << 16));
+		Object[] state = { ctx.cisId, ctx.shutdownId, ctx.cis, ctx.traceFlag, ctx.calendar, ctx.terminateAt,
+				ctx.minTimeBetweenEvents, ctx.activeEntityScheduling, ctx.futureEventListType, ctx.entities,
+				ctx.entitiesByName, ctx.future, ctx.clock, ctx.running, ctx.readyEntities, ctx.waitPredicates,
+				ctx.pauseAt, new HashMap<>(ctx.getStates()) };
+		new Writer(data, ctx).writeObject(state);
+		data.flush();
+		deflater.finish();
+		out.flush();
+	}
+
+	/**
+	 * Saves the simulation of the calling thread to an array, e.g. to restore it in several
+	 * contexts.
+	 *
+	 * @return the snapshot
+	 * @throws IOException if the simulation holds an object that cannot be saved
+	 */
+	public static byte[] toByteArray() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		save(out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Replaces the simulation of the calling thread with one saved to a file.
+	 *
+	 * @param file the file to read
+	 * @throws IOException if the file cannot be read or was not written by this build
+	 */
+	public static void restore(String file) throws IOException {
+		try (InputStream in = Files.newInputStream(Paths.get(file))) {
+			restore(in);
+		}
+	}
+
+	/**
+	 * Replaces the simulation of the calling thread with one saved to an array.
+	 *
+	 * @param snapshot the snapshot
+	 * @throws IOException if the snapshot was not written by this build
+	 */
+	public static void restore(byte[] snapshot) throws IOException {
+		restore(new ByteArrayInputStream(snapshot));
+	}
+
+	/**
+	 * Replaces the simulation of the calling thread with one saved to a stream. The simulation
+	 * then continues with {@link CloudSim#run()} or {@link CloudSim#startSimulation()}.
+	 *
+	 * @param in the stream
+	 * @throws IOException if the stream cannot be read or was not written by this build
+	 */
+	@SuppressWarnings("unchecked")
+	public static void restore(InputStream in) throws IOException {
+		SimulationContext ctx = SimulationContext.current();
+		DataInputStream header = new DataInputStream(in);
+		if (header.readInt() != MAGIC) {
+			throw new IOException("Not a simulation checkpoint.");
+		}
+		if (header.readInt() != VERSION) {
+			throw new IOException("Unsupported checkpoint version.");
+		}
+		DataInputStream data = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in), 1 << 16));
+		Object[] state;
+		try {
+			state = (Object[]) new Reader(data, ctx).readObject();
+		} catch (ClassCastException e) {
+			throw new IOException("Corrupted checkpoint.", e);
+		}
+		int i = 0;
+		ctx.cisId = (Integer) state[i++];
+		ctx.shutdownId = (Integer) state[i++];
+		ctx.cis = (CloudInformationService) state[i++];
+		ctx.traceFlag = (Boolean) state[i++];
+		ctx.calendar = (Calendar) state[i++];
+		ctx.terminateAt = (Double) state[i++];
+		ctx.minTimeBetweenEvents = (Double) state[i++];
+		ctx.activeEntityScheduling = (Boolean) state[i++];
+		ctx.futureEventListType = (FutureEventListType) state[i++];
+		ctx.entities = (List<SimEntity>) state[i++];
+		ctx.entitiesByName = (Map<String, SimEntity>) state[i++];
+		ctx.future = (CancellableEventList) state[i++];
+		ctx.clock = (Double) state[i++];
+		ctx.running = (Boolean) state[i++];
+		ctx.readyEntities = (BitSet) state[i++];
+		ctx.waitPredicates = (Map<Integer, org.cloudbus.cloudsim.core.predicates.Predicate>) state[i++];
+		ctx.pauseAt = (Long) state[i++];
+		ctx.getStates().clear();
+		ctx.getStates().putAll((Map<Class<?>, Object>) state[i++]);
+		ctx.abruptTerminate = false;
+	}
+
+	/** How the instances of a class are written. */
+	private static final class Layout {
+
+		final Class<?> type;
+
+		/**
+		 * {@link #OBJECT}, {@link #COLLECTION}, {@link #MAP}, {@link #BITSET}, {@link #CALENDAR} or
+		 * {@link #ATOMIC}.
+		 */
+		final int kind;
+
+		/** Whether the JDK class the instances are built from takes a comparator. */
+		final boolean sorted;
+
+		/**
+		 * The JDK class the instances are written as, for the anonymous classes that only fill a
+		 * collection or map in their initialiser, or null.
+		 */
+		final Class<?> writtenAs;
+
+		/** The fields declared below that JDK class, superclass fields first. */
+		final Field[] fields;
+
+		final int[] fieldCodes;
+
+		/** Creates the instances, the collections and maps empty. */
+		final Constructor<?> constructor;
+
+		Layout(Class<?> type) throws IOException {
+			this.type = type;
+			Class<?> base = type;
+			while (!isPlatform(base)) {
+				base = base.getSuperclass();
+			}
+			if (STATELESS_BASES.contains(base) || (base == Random.class && keepsRandomState(type))) {
+				kind = OBJECT;
+			} else if (COLLECTION_BASES.contains(base)) {
+				kind = COLLECTION;
+			} else if (MAP_BASES.contains(base)) {
+				kind = MAP;
+			} else if (type == BitSet.class) {
+				kind = BITSET;
+			} else if (type == base && Calendar.class.isAssignableFrom(type)) {
+				kind = CALENDAR;
+			} else if (ATOMIC_TYPES.contains(type)) {
+				kind = ATOMIC;
+			} else {
+				throw new UnsupportedObjectException("Cannot checkpoint an instance of " + type.getName() + ".");
+			}
+			sorted = SORTED_BASES.contains(base);
+			writtenAs = (kind == COLLECTION || kind == MAP) && type != base && isInitialiserOnly(type) ? base : null;
+
+			fields = instanceFields(type, base).toArray(new Field[0]);
+			fieldCodes = new int[fields.length];
+			for (int i = 0; i < fields.length; i++) {
+				fields[i].setAccessible(true);
+				Class<?> fieldType = fields[i].getType();
+				fieldCodes[i] = fieldType.isPrimitive() ? VALUE_CODES.get(fieldType) : REFERENCE_FIELD;
+			}
+
+			if (writtenAs == null && (kind == OBJECT || kind == COLLECTION || kind == MAP)) {
+				constructor = constructor(type, base);
+			} else {
+				constructor = null;
+			}
+		}
+
+		private Constructor<?> constructor(Class<?> type, Class<?> base) throws IOException {
+			try {
+				Constructor<?> baseConstructor = sorted ? base.getConstructor(Comparator.class)
+						: base.getDeclaredConstructor();
+				if (type == base) {
+					return baseConstructor;
+				}
+				if (REFLECTION_FACTORY == null) {
+					Constructor<?> constructor = type.getDeclaredConstructor();
+					constructor.setAccessible(true);
+					return constructor;
+				}
+				return (Constructor<?>) NEW_CONSTRUCTOR_FOR_SERIALIZATION.invoke(REFLECTION_FACTORY, type,
+						baseConstructor);
+			} catch (NoSuchMethodException e) {
+				throw new UnsupportedObjectException("Cannot checkpoint an instance of " + type.getName()
+						+ ": it declares no constructor without parameters.");
+			} catch (ReflectiveOperationException e) {
+				throw new IOException("Cannot restore the instances of " + type.getName() + ".", e);
+			}
+		}
+
+		Object newInstance(Comparator<?> comparator) throws IOException {
+			Object[] arguments = new Object[constructor.getParameterCount()];
+			if (arguments.length == 1) {
+				arguments[0] = comparator;
+			}
+			Object o;
+			try {
+				o = constructor.newInstance(arguments);
+			} catch (ReflectiveOperationException e) {
+				throw new IOException("Cannot restore an instance of " + type.getName() + ".", e);
+			}
+			if (comparator != null && comparator(o) != comparator) {
+				throw new IOException("Cannot restore the comparator of an instance of " + type.getName() + ".");
+			}
+			return o;
+		}
+	}
+
+	private static Layout layout(Class<?> type) throws IOException {
+		Layout layout = LAYOUTS.get(type);
+		if (layout == null) {
+			layout = new Layout(type);
+			LAYOUTS.put(type, layout);
+		}
+		return layout;
+	}
+
+	/**
+	 * Gets the instance fields declared by a class and its superclasses below a base class,
+	 * superclass fields first, each class in the order of the field names.
+	 */
+	private static List<Field> instanceFields(Class<?> type, Class<?> base) {
+		List<Field> fields = new ArrayList<>();
+		for (Class<?> c = type; c != base && c != null; c = c.getSuperclass()) {
+			Field[] declared = c.getDeclaredFields();
+			Arrays.sort(declared, Comparator.comparing(Field::getName));
+			List<Field> declaredFields = new ArrayList<>();
+			for (Field field : declared) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					declaredFields.add(field);
+				}
+			}
+			fields.addAll(0, declaredFields);
+		}
+		return fields;
+	}
+
+	/**
+	 * Identifies the fields of the classes of the simulation, so that a snapshot of another
+	 * build of a class is rejected.
+	 */
+	private static int fingerprint(Class<?> type) {
+		Integer fingerprint = FINGERPRINTS.get(type);
+		if (fingerprint == null) {
+			Class<?> base = type;
+			while (base != null && !isPlatform(base)) {
+				base = base.getSuperclass();
+			}
+			int hash = 0;
+			for (Field field : instanceFields(type, base)) {
+				hash = hash * 31 + field.getName().hashCode();
+				hash = hash * 31 + field.getType().getName().hashCode();
+			}
+			fingerprint = hash;
+			FINGERPRINTS.put(type, fingerprint);
+		}
+		return fingerprint;
+	}
+
+	private static boolean isPlatform(Class<?> type) {
+		String name = type.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+				|| name.startsWith("sun.") || name.startsWith("com.sun.");
+	}
+
+	/**
+	 * Checks whether a random number generator keeps its state in fields of its own, i.e.
+	 * overrides the methods of {@link Random} that use the state of the JDK class.
+	 */
+	private static boolean keepsRandomState(Class<?> type) {
+		return overrides(type, "next", int.class) && overrides(type, "nextGaussian")
+				&& overrides(type, "setSeed", long.class);
+	}
+
+	private static boolean overrides(Class<?> type, String name, Class<?>... parameterTypes) {
+		for (Class<?> c = type; c != Random.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod(name, parameterTypes);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// declared further up, if at all
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether an anonymous class only has an initialiser, e.g. a collection filled with
+	 * <tt>new ArrayList&lt;Host&gt;(){{add(host);}}</tt>, so that its instances can be written as
+	 * instances of its superclass.
+	 */
+	private static boolean isInitialiserOnly(Class<?> type) {
+		if (!type.isAnonymousClass() || type.getDeclaredMethods().length > 0) {
+			return false;
+		}
+		for (Field field : type.getDeclaredFields()) {
+			if (!field.isSynthetic() && !Modifier.isStatic(field.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Comparator<?> comparator(Object o) {
+		if (o instanceof SortedSet) {
+			return ((SortedSet<?>) o).comparator();
+		} else if (o instanceof SortedMap) {
+			return ((SortedMap<?, ?>) o).comparator();
+		} else if (o instanceof PriorityQueue) {
+			return ((PriorityQueue<?>) o).comparator();
+		}
+		return ((PriorityBlockingQueue<?>) o).comparator();
+	}
+
+	/** An object that cannot be saved, with the fields leading to it. */
+	private static final class UnsupportedObjectException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final StringBuilder path = new StringBuilder();
+
+		UnsupportedObjectException(String message) {
+			super(message);
+		}
+
+		void addField(Field field) {
+			path.insert(0, (path.length() > 0 ? ", " : "") + field.getDeclaringClass().getName() + "." + field.getName());
+		}
+
+		@Override
+		public String getMessage() {
+			return super.getMessage() + (path.length() > 0 ? " Reached through " + path + "." : "");
+		}
+	}
+
+	private static final class Writer {
+
+		private final DataOutputStream out;
+
+		private final SimulationContext context;
+
+		private final Map<Object, Integer> handles = new IdentityHashMap<>();
+
+		private final Map<Class<?>, Integer> classIds = new HashMap<>();
+
+		Writer(DataOutputStream out, SimulationContext context) {
+			this.out = out;
+			this.context = context;
+		}
+
+		void writeObject(Object o) throws IOException {
+			if (o == null) {
+				out.writeByte(NULL);
+				return;
+			}
+			Integer constant = CONSTANT_INDEXES.get(o);
+			if (constant != null) {
+				out.writeByte(CONSTANT);
+				writeVarInt(constant);
+				return;
+			}
+			Integer handle = handles.get(o);
+			if (handle != null) {
+				out.writeByte(REFERENCE);
+				writeVarInt(handle);
+				return;
+			}
+			if (o == context) {
+				out.writeByte(CONTEXT);
+				return;
+			}
+			handles.put(o, handles.size());
+			Class<?> type = o.getClass();
+			Integer boxed = type.isPrimitive() ? null : VALUE_CODES.get(type);
+			if (type == String.class) {
+				out.writeByte(STRING);
+				writeString((String) o);
+			} else if (boxed != null) {
+				out.writeByte(BOXED);
+				writeClass(type);
+				writeValue(boxed, o);
+			} else if (o instanceof Enum) {
+				out.writeByte(ENUM);
+				writeClass(((Enum<?>) o).getDeclaringClass());
+				writeString(((Enum<?>) o).name());
+			} else if (type == Class.class) {
+				out.writeByte(CLASS);
+				writeClass((Class<?>) o);
+			} else if (type.isArray()) {
+				out.writeByte(ARRAY);
+				writeClass(type);
+				writeArray(o);
+			} else {
+				writeInstance(o, type);
+			}
+		}
+
+		private void writeInstance(Object o, Class<?> type) throws IOException {
+			Layout layout = layout(type);
+			if (layout.writtenAs != null) {
+				type = layout.writtenAs;
+				layout = layout(type);
+			}
+			out.writeByte(layout.kind);
+			writeClass(type);
+			switch (layout.kind) {
+				case OBJECT -> writeFields(o, layout);
+				case COLLECTION -> {
+					if (layout.sorted) {
+						writeObject(comparator(o));
+					}
+					writeFields(o, layout);
+					Object[] elements = ((Collection<?>) o).toArray();
+					writeVarInt(elements.length);
+					for (Object element : elements) {
+						writeObject(element);
+					}
+				}
+				case MAP -> {
+					if (layout.sorted) {
+						writeObject(comparator(o));
+					}
+					writeFields(o, layout);
+					Map<?, ?> map = (Map<?, ?>) o;
+					writeVarInt(map.size());
+					for (Map.Entry<?, ?> entry : map.entrySet()) {
+						writeObject(entry.getKey());
+						writeObject(entry.getValue());
+					}
+				}
+				case BITSET -> {
+					long[] words = ((BitSet) o).toLongArray();
+					writeVarInt(words.length);
+					for (long word : words) {
+						out.writeLong(word);
+					}
+				}
+				case CALENDAR -> {
+					Calendar calendar = (Calendar) o;
+					writeString(calendar.getCalendarType());
+					writeString(calendar.getTimeZone().getID());
+					writeVarLong(calendar.getTimeInMillis());
+					out.writeBoolean(calendar.isLenient());
+					out.writeByte(calendar.getFirstDayOfWeek());
+					out.writeByte(calendar.getMinimalDaysInFirstWeek());
+				}
+				default -> {
+					if (o instanceof AtomicInteger) {
+						writeVarLong(((AtomicInteger) o).get());
+					} else if (o instanceof AtomicLong) {
+						writeVarLong(((AtomicLong) o).get());
+					} else {
+						out.writeBoolean(((AtomicBoolean) o).get());
+					}
+				}
+			}
+		}
+
+		private void writeFields(Object o, Layout layout) throws IOException {
+			Field[] fields = layout.fields;
+			int[] codes = layout.fieldCodes;
+			for (int i = 0; i < fields.length; i++) {
+				try {
+					writeValue(codes[i], fields[i].get(o));
+				} catch (IllegalAccessException e) {
+					throw new IOException(e);
+				} catch (UnsupportedObjectException e) {
+					e.addField(fields[i]);
+					throw e;
+				}
+			}
+		}
+
+		private void writeValue(int code, Object value) throws IOException {
+			switch (code) {
+				case INT_FIELD -> writeVarLong((Integer) value);
+				case LONG_FIELD -> writeVarLong((Long) value);
+				case DOUBLE_FIELD -> out.writeDouble((Double) value);
+				case FLOAT_FIELD -> out.writeFloat((Float) value);
+				case BOOLEAN_FIELD -> out.writeBoolean((Boolean) value);
+				case BYTE_FIELD -> out.writeByte((Byte) value);
+				case SHORT_FIELD -> out.writeShort((Short) value);
+				case CHAR_FIELD -> out.writeChar((Character) value);
+				default -> writeObject(value);
+			}
+		}
+
+		private void writeArray(Object array) throws IOException {
+			int length = Array.getLength(array);
+			writeVarInt(length);
+			Class<?> component = array.getClass().getComponentType();
+			if (component == double.class) {
+				for (double value : (double[]) array) {
+					out.writeDouble(value);
+				}
+			} else if (component == int.class) {
+				for (int value : (int[]) array) {
+					writeVarLong(value);
+				}
+			} else if (component == long.class) {
+				for (long value : (long[]) array) {
+					writeVarLong(value);
+				}
+			} else if (component == byte.class) {
+				out.write((byte[]) array);
+			} else if (component.isPrimitive()) {
+				int code = VALUE_CODES.get(component);
+				for (int i = 0; i < length; i++) {
+					writeValue(code, Array.get(array, i));
+				}
+			} else {
+				for (Object element : (Object[]) array) {
+					writeObject(element);
+				}
+			}
+		}
+
+		private void writeClass(Class<?> type) throws IOException {
+			Integer id = classIds.get(type);
+			if (id != null) {
+				writeVarInt(id + 1);
+				return;
+			}
+			if (type.isHidden()) {
+				throw new UnsupportedObjectException("Cannot checkpoint an instance of " + type.getName()
+						+ ": lambdas and other hidden classes have no stable name.");
+			}
+			classIds.put(type, classIds.size());
+			writeVarInt(0);
+			writeString(type.getName());
+			out.writeInt(fingerprint(type));
+		}
+
+		private void writeString(String s) throws IOException {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			out.writeByte(value);
+		}
+
+		/** Writes a zigzag-encoded varint, short for values near zero of either sign. */
+		private void writeVarLong(long value) throws IOException {
+			long zigzag = (value << 1) ^ (value >> 63);
+			while ((zigzag & ~0x7FL) != 0) {
+				out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+				zigzag >>>= 7;
+			}
+			out.writeByte((int) zigzag);
+		}
+	}
+
+	private static final class Reader {
+
+		private final DataInputStream in;
+
+		private final SimulationContext context;
+
+		private final List<Object> objects = new ArrayList<>();
+
+		private final List<Class<?>> classes = new ArrayList<>();
+
+		Reader(DataInputStream in, SimulationContext context) {
+			this.in = in;
+			this.context = context;
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Object readObject() throws IOException {
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+				case NULL:
+					return null;
+				case REFERENCE:
+					return objects.get(readVarInt());
+				case CONTEXT:
+					return context;
+				case CONSTANT: {
+					int constant = readVarInt();
+					if (constant >= CONSTANTS.size()) {
+						throw new IOException("Corrupted checkpoint.");
+					}
+					return CONSTANTS.get(constant);
+				}
+				case STRING:
+					return register(readString());
+				case BOXED: {
+					int index = reserve();
+					Object value = readValue(VALUE_CODES.get(readClass()));
+					objects.set(index, value);
+					return value;
+				}
+				case ENUM: {
+					int index = reserve();
+					Object value = Enum.valueOf((Class) readClass(), readString());
+					objects.set(index, value);
+					return value;
+				}
+				case CLASS: {
+					int index = reserve();
+					Object value = readClass();
+					objects.set(index, value);
+					return value;
+				}
+				case ARRAY: {
+					int index = reserve();
+					Class<?> type = readClass();
+					Object array = Array.newInstance(type.getComponentType(), readVarInt());
+					objects.set(index, array);
+					readArray(array);
+					return array;
+				}
+				case OBJECT:
+				case COLLECTION:
+				case MAP:
+				case BITSET:
+				case CALENDAR:
+				case ATOMIC:
+					return readInstance(tag);
+				default:
+					throw new IOException("Corrupted checkpoint.");
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private Object readInstance(int tag) throws IOException {
+			int index = reserve();
+			Class<?> type = readClass();
+			Layout layout = layout(type);
+			if (layout.kind != tag) {
+				throw new IOException("The class " + type.getName() + " has changed since the checkpoint was written.");
+			}
+			switch (tag) {
+				case OBJECT: {
+					Object o = layout.newInstance(null);
+					objects.set(index, o);
+					readFields(o, layout);
+					return o;
+				}
+				case COLLECTION: {
+					Comparator<?> comparator = layout.sorted ? (Comparator<?>) readObject() : null;
+					Collection<Object> collection = (Collection<Object>) layout.newInstance(comparator);
+					objects.set(index, collection);
+					readFields(collection, layout);
+					int size = readVarInt();
+					for (int i = 0; i < size; i++) {
+						collection.add(readObject());
+					}
+					return collection;
+				}
+				case MAP: {
+					Comparator<?> comparator = layout.sorted ? (Comparator<?>) readObject() : null;
+					Map<Object, Object> map = (Map<Object, Object>) layout.newInstance(comparator);
+					objects.set(index, map);
+					readFields(map, layout);
+					int size = readVarInt();
+					for (int i = 0; i < size; i++) {
+						Object key = readObject();
+						map.put(key, readObject());
+					}
+					return map;
+				}
+				case BITSET: {
+					long[] words = new long[readVarInt()];
+					for (int i = 0; i < words.length; i++) {
+						words[i] = in.readLong();
+					}
+					BitSet bits = BitSet.valueOf(words);
+					objects.set(index, bits);
+					return bits;
+				}
+				case CALENDAR: {
+					Calendar.Builder builder = new Calendar.Builder().setCalendarType(readString())
+							.setTimeZone(TimeZone.getTimeZone(readString())).setInstant(readVarLong());
+					builder.setLenient(in.readBoolean());
+					builder.setWeekDefinition(in.readByte(), in.readByte());
+					Calendar calendar = builder.build();
+					if (calendar.getClass() != type) {
+						throw new IOException("Cannot restore an instance of " + type.getName() + ".");
+					}
+					objects.set(index, calendar);
+					return calendar;
+				}
+				default: {
+					Object atomic;
+					if (type == AtomicInteger.class) {
+						atomic = new AtomicInteger((int) readVarLong());
+					} else if (type == AtomicLong.class) {
+						atomic = new AtomicLong(readVarLong());
+					} else {
+						atomic = new AtomicBoolean(in.readBoolean());
+					}
+					objects.set(index, atomic);
+					return atomic;
+				}
+			}
+		}
+
+		private void readFields(Object o, Layout layout) throws IOException {
+			Field[] fields = layout.fields;
+			int[] codes = layout.fieldCodes;
+			for (int i = 0; i < fields.length; i++) {
+				try {
+					fields[i].set(o, readValue(codes[i]));
+				} catch (IllegalAccessException | IllegalArgumentException e) {
+					throw new IOException("Cannot restore " + fields[i] + ".", e);
+				}
+			}
+		}
+
+		private Object readValue(int code) throws IOException {
+			return switch (code) {
+				case INT_FIELD -> (int) readVarLong();
+				case LONG_FIELD -> readVarLong();
+				case DOUBLE_FIELD -> in.readDouble();
+				case FLOAT_FIELD -> in.readFloat();
+				case BOOLEAN_FIELD -> in.readBoolean();
+				case BYTE_FIELD -> in.readByte();
+				case SHORT_FIELD -> in.readShort();
+				case CHAR_FIELD -> in.readChar();
+				default -> readObject();
+			};
+		}
+
+		private void readArray(Object array) throws IOException {
+			int length = Array.getLength(array);
+			Class<?> component = array.getClass().getComponentType();
+			if (component == double.class) {
+				double[] values = (double[]) array;
+				for (int i = 0; i < length; i++) {
+					values[i] = in.readDouble();
+				}
+			} else if (component == int.class) {
+				int[] values = (int[]) array;
+				for (int i = 0; i < length; i++) {
+					values[i] = (int) readVarLong();
+				}
+			} else if (component == long.class) {
+				long[] values = (long[]) array;
+				for (int i = 0; i < length; i++) {
+					values[i] = readVarLong();
+				}
+			} else if (component == byte.class) {
+				in.readFully((byte[]) array);
+			} else if (component.isPrimitive()) {
+				int code = VALUE_CODES.get(component);
+				for (int i = 0; i < length; i++) {
+					Array.set(array, i, readValue(code));
+				}
+			} else {
+				Object[] values = (Object[]) array;
+				for (int i = 0; i < length; i++) {
+					values[i] = readObject();
+				}
+			}
+		}
+
+		private Class<?> readClass() throws IOException {
+			int id = readVarInt();
+			if (id > 0) {
+				return classes.get(id - 1);
+			}
+			String name = readString();
+			Class<?> type = PRIMITIVE_TYPES.get(name);
+			if (type == null) {
+				try {
+					ClassLoader loader = Thread.currentThread().getContextClassLoader();
+					type = Class.forName(name, false, loader != null ? loader : Checkpoint.class.getClassLoader());
+				} catch (ClassNotFoundException e) {
+					throw new IOException("The class " + name + " of the checkpoint cannot be found.", e);
+				}
+			}
+			if (in.readInt() != fingerprint(type)) {
+				throw new IOException("The class " + name + " has changed since the checkpoint was written.");
+			}
+			classes.add(type);
+			return type;
+		}
+
+		private Object register(Object o) {
+			objects.add(o);
+			return o;
+		}
+
+		private int reserve() {
+			objects.add(null);
+			return objects.size() - 1;
+		}
+
+		private String readString() throws IOException {
+			byte[] bytes = new byte[readVarInt()];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private int readVarInt() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = in.readUnsignedByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Corrupted checkpoint.");
+		}
+
+		private long readVarLong() throws IOException {
+			long zigzag = 0;
+			for (int shift = 0; shift < 70; shift += 7) {
+				int b = in.readUnsignedByte();
+				zigzag |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return (zigzag >>> 1) ^ -(zigzag & 1);
+				}
+			}
+			throw new IOException("Corrupted checkpoint.");
+		}
+	}
+}
@@ -9,6 +9,7 @@
 package org.cloudbus.cloudsim.core;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,12 +22,14 @@ import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 import org.cloudbus.cloudsim.core.predicates.PredicateAny;
 import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
  *
  * The main class of the simulation.
  * It provides all the methods to start, pause and stop simulated entities.
  * It stores and dispatches all the discrete events to be processed at run-time by the entities.
+ * The state of the simulation is held by the {@link SimulationContext} of the calling thread.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -38,30 +41,9 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "7.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
-
-	/** The id of CloudSimShutdown entity. */
-	private static int shutdownId = -1;
-
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
 	/** The Constant NOT_FOUND. */
 	private static final int NOT_FOUND = -1;
 
-	/** The trace flag. */
-	private static boolean traceFlag = false;
-
-	/** The calendar. */
-	private static Calendar calendar = null;
-
-	/** The termination time. */
-	private static double terminateAt = -1;
-
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.01;
-	
 	/**
 	 * Initialises all the common attributes.
 	 * 
@@ -76,20 +58,21 @@ public class CloudSim {
 	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
 			throws Exception {
 		initialize();
+		SimulationContext ctx = SimulationContext.current();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		ctx.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			ctx.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			ctx.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		ctx.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -118,10 +101,11 @@ public class CloudSim {
 			initCommonVariable(cal, traceFlag, numUser);
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			SimulationContext ctx = SimulationContext.current();
+			ctx.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			ctx.cisId = ctx.cis.getId();
 		} catch (Exception s) {
 			Log.println("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.println(s.getMessage());
@@ -157,7 +141,34 @@ public class CloudSim {
 	    }
 	    
 	    init(numUser, cal, traceFlag);
-	    CloudSim.minTimeBetweenEvents = minTimeBetweenEvents;
+	    SimulationContext.current().minTimeBetweenEvents = minTimeBetweenEvents;
+	}
+
+	/**
+	 * Initialises CloudSim parameters, using the given implementation of the future event list.
+	 * This method should be called before creating any entities.
+	 * 
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureEventListType the data structure that holds the future events
+	 * @see #init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, FutureEventListType futureEventListType) {
+		SimulationContext.current().futureEventListType = futureEventListType;
+		init(numUser, cal, traceFlag);
+	}
+
+	/**
+	 * Gets the implementation of the future event list used by the simulation.
+	 * 
+	 * @return the future event list type
+	 */
+	public static FutureEventListType getFutureEventListType() {
+		return SimulationContext.current().futureEventListType;
 	}
 	
 	
@@ -181,12 +192,13 @@ public class CloudSim {
 		try {
 			double clock = run();
 
-			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			// reset all the simulation variables
+			SimulationContext ctx = SimulationContext.current();
+			ctx.cisId = -1;
+			ctx.shutdownId = -1;
+			ctx.cis = null;
+			ctx.calendar = null;
+			ctx.traceFlag = false;
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -222,7 +234,7 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static void terminateSimulation() {
-		running = false;
+		SimulationContext.current().running = false;
 		printMessage("Simulation: Reached termination time.");
 	}
 
@@ -233,10 +245,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		SimulationContext ctx = SimulationContext.current();
+		if (time <= ctx.clock) {
 			return false;
 		} else {
-			terminateAt = time;
+			ctx.terminateAt = time;
 		}
 		return true;
 	}
@@ -247,7 +260,27 @@ public class CloudSim {
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+	    return SimulationContext.current().minTimeBetweenEvents;
+	}
+
+	/**
+	 * Enables or disables active-entity scheduling. When enabled, {@link #runClockTick()} only
+	 * runs the entities put on the ready set by {@link #dispatchEvent(SimEvent)}, in ascending
+	 * id order, which yields the same event order as scanning the whole entity list.
+	 * 
+	 * @param activeEntityScheduling <tt>true</tt> to run only the entities with pending work
+	 */
+	public static void setActiveEntityScheduling(boolean activeEntityScheduling) {
+		SimulationContext.current().activeEntityScheduling = activeEntityScheduling;
+	}
+
+	/**
+	 * Checks whether active-entity scheduling is enabled.
+	 * 
+	 * @return <tt>true</tt> if only the entities with pending work are run on each clock tick
+	 */
+	public static boolean isActiveEntityScheduling() {
+		return SimulationContext.current().activeEntityScheduling;
 	}
 
 	/**
@@ -259,6 +292,7 @@ public class CloudSim {
 	 */
 	public static Calendar getSimulationCalendar() {
 		// make a new copy
+		Calendar calendar = SimulationContext.current().calendar;
 		Calendar clone = calendar;
 		if (calendar != null) {
 			clone = (Calendar) calendar.clone();
@@ -275,7 +309,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return SimulationContext.current().cisId;
 	}
 
 	/**
@@ -288,6 +322,7 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
+		CloudInformationService cis = SimulationContext.current().cis;
 		if (cis == null) {
 			return null;
 		}
@@ -297,36 +332,15 @@ public class CloudSim {
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static EventQueue future;
-
-
-	/** 
-         * The current simulation clock.
-         */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
+	/**
+	 * Gets the context holding the state of the simulation run by the calling thread.
+	 * 
+	 * @return the simulation context
+	 * @see SimulationContext#current()
+	 */
+	public static SimulationContext getContext() {
+		return SimulationContext.current();
+	}
 
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
@@ -334,12 +348,14 @@ public class CloudSim {
 	 */
 	protected static void initialize() {
 		Log.println("Initialising...");
-		entities = new ArrayList<>();
-		entitiesByName = new LinkedHashMap<>();
-		future = new EventQueue();
-		waitPredicates = new HashMap<>();
-		clock = 0;
-		running = false;
+		SimulationContext ctx = SimulationContext.current();
+		ctx.entities = new ArrayList<>();
+		ctx.entitiesByName = new LinkedHashMap<>();
+		ctx.readyEntities = new BitSet();
+		ctx.future = new CancellableEventList(ctx.futureEventListType.create());
+		ctx.waitPredicates = new HashMap<>();
+		ctx.clock = 0;
+		ctx.running = false;
 	}
 
 	// The two standard predicates
@@ -358,7 +374,7 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		return SimulationContext.current().clock;
 	}
 
 	/**
@@ -367,7 +383,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return SimulationContext.current().entities.size();
 	}
 
 	/**
@@ -377,7 +393,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return SimulationContext.current().entities.get(id);
 	}
 
 	/**
@@ -387,7 +403,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return SimulationContext.current().entitiesByName.get(name);
 	}
 
 	/**
@@ -397,7 +413,7 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimEntity obj = SimulationContext.current().entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -444,7 +460,7 @@ public class CloudSim {
 	public static List<SimEntity> getEntityList() {
 		// create a new list to prevent the user from changing
 		// the list of entities used by Simulation
-		List<SimEntity> list = new LinkedList<>(entities);
+		List<SimEntity> list = new LinkedList<>(SimulationContext.current().entities);
 		return list;
 	}
 
@@ -457,17 +473,18 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		SimulationContext ctx = SimulationContext.current();
 		SimEvent evt;
-		if (running) {
+		if (ctx.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, CloudActionTags.BLANK, e);
-			future.addEvent(evt);
+			evt = new SimEvent(SimEvent.CREATE, ctx.clock, 1, 0, CloudActionTags.BLANK, e);
+			ctx.future.addEvent(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
+			int id = ctx.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			ctx.entities.add(e);
+			ctx.entitiesByName.put(e.getName(), e);
 		}
 	}
 
@@ -490,26 +507,40 @@ public class CloudSim {
 	 * Internal method used to run one tick of the simulation. This method should <b>not</b> be
 	 * called in simulations.
 	 * 
+	 * @param ctx the context of the simulation
 	 * @return true if there are events to be processed, false if event queue is empty
 	 */
-	private static boolean runClockTick() {
+	private static boolean runClockTick(SimulationContext ctx) {
+		List<SimEntity> entities = ctx.entities;
+		BitSet readyEntities = ctx.readyEntities;
+		FutureEventList future = ctx.future;
 		SimEntity ent;
-		for (int i = 0; i < entities.size(); i++) {
-			ent = entities.get(i);
-			if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
-				ent.run();
+		if (ctx.activeEntityScheduling) {
+			for (int i = readyEntities.nextSetBit(0); i >= 0; i = readyEntities.nextSetBit(i + 1)) {
+				readyEntities.clear(i);
+				ent = entities.get(i);
+				if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
+					ent.run();
+				}
+			}
+		} else {
+			for (int i = 0; i < entities.size(); i++) {
+				ent = entities.get(i);
+				if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
+					ent.run();
+				}
 			}
 		}
 
 		if (future.isEmpty()) {
-			running = false;
+			ctx.running = false;
 			printMessage(CloudSim.clock()+": Simulation: No more future events");
 			return false;
 		}
 
 		double clk = future.peek().eventTime();
 		while (!future.isEmpty() && future.peek().eventTime() == clk) {
-			dispatchEvent(future.poll());
+			dispatchEvent(ctx, future.poll());
 		}
 
 		return true;
@@ -529,9 +560,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int srcId, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, srcId);
-		future.addEvent(e);
-		entities.get(srcId).setState(SimEntity.EntityStatus.HOLDING);
+		SimulationContext ctx = SimulationContext.current();
+		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, ctx.clock + delay, srcId);
+		ctx.future.addEvent(e);
+		ctx.entities.get(srcId).setState(SimEntity.EntityStatus.HOLDING);
 	}
 
 	/**
@@ -551,8 +583,9 @@ public class CloudSim {
 			throw new RuntimeException("Send delay can't be infinite.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, srcId, dstId, tag, data);
-		future.addEvent(e);
+		SimulationContext ctx = SimulationContext.current();
+		SimEvent e = new SimEvent(SimEvent.SEND, ctx.clock + delay, srcId, dstId, tag, data);
+		ctx.future.addEvent(e);
 	}
 
 	/**
@@ -569,8 +602,9 @@ public class CloudSim {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, srcId, dstId, tag, data);
-		future.addEventFirst(e);
+		SimulationContext ctx = SimulationContext.current();
+		SimEvent e = new SimEvent(SimEvent.SEND, ctx.clock + delay, srcId, dstId, tag, data);
+		ctx.future.addEventFirst(e);
 	}
 
 	/**
@@ -582,10 +616,11 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int srcId, Predicate p) {
-		entities.get(srcId).setState(SimEntity.EntityStatus.WAITING);
+		SimulationContext ctx = SimulationContext.current();
+		ctx.entities.get(srcId).setState(SimEntity.EntityStatus.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(srcId, p);
+			ctx.waitPredicates.put(srcId, p);
 		}
 	}
 
@@ -597,6 +632,16 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int srcId, Predicate p) {
+		CancellableEventList future = SimulationContext.current().future;
+		if (p.getClass() == PredicateType.class) {
+			for (CloudSimTags tag : ((PredicateType) p).getTags()) {
+				SimEvent ev = future.cancelFirst(srcId, tag);
+				if (ev != null) {
+					return ev;
+				}
+			}
+			return null;
+		}
 		SimEvent ev;
 		Iterator<SimEvent> iter = future.iterator();
 		while (iter.hasNext()) {
@@ -611,7 +656,8 @@ public class CloudSim {
 
 	/**
 	 * Removes all events that match a given predicate from the future event queue returns true if
-	 * at least one event has been cancelled; false otherwise.
+	 * at least one event has been cancelled; false otherwise. Events selected by a
+	 * {@link PredicateType} are found through the index of the queue instead of by scanning it.
 	 * 
 	 * @param srcId the entity source id
 	 * @param p the p
@@ -619,6 +665,14 @@ public class CloudSim {
 	 */
 	public static boolean cancelAll(int srcId, Predicate p) {
 		SimEvent ev;
+		CancellableEventList future = SimulationContext.current().future;
+		if (p.getClass() == PredicateType.class) {
+			int count = 0;
+			for (CloudSimTags tag : ((PredicateType) p).getTags()) {
+				count += future.cancelAll(srcId, tag);
+			}
+			return count > 0;
+		}
 		int previousSize = future.size();
 		Iterator<SimEvent> iter = future.iterator();
 		while (iter.hasNext()) {
@@ -627,7 +681,7 @@ public class CloudSim {
 				iter.remove();
 			}
 		}
-		return previousSize < future.size();
+		return previousSize > future.size();
 	}
 
 	//
@@ -637,18 +691,19 @@ public class CloudSim {
 	/**
 	 * Dispatch event to destination entity
 	 * 
+	 * @param ctx the context of the simulation
 	 * @param e the e
 	 */
-	private static void dispatchEvent(SimEvent e) {
+	private static void dispatchEvent(SimulationContext ctx, SimEvent e) {
 		int dstId = e.getDestinationId();
 		int srcId = e.getSourceId();
-		SimEntity destEnt = entities.get(dstId);
+		SimEntity destEnt = ctx.entities.get(dstId);
 
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < ctx.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		ctx.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -658,16 +713,20 @@ public class CloudSim {
 			}
 			case SimEvent.SEND -> {
                 if (destEnt.getState() == SimEntity.EntityStatus.WAITING) { // NOTE: this branch is never used
-                    Predicate p = waitPredicates.get(dstId);
+                    Predicate p = ctx.waitPredicates.get(dstId);
 
                     if ((p == null) || (p.match(e))) {
                         destEnt.setState(SimEntity.EntityStatus.RUNNABLE);
-                        waitPredicates.remove(dstId);
+                        ctx.waitPredicates.remove(dstId);
                     }
                 }
 				destEnt.getIncomingEvents().add(e);
+				ctx.readyEntities.set(dstId);
             }
-			case SimEvent.HOLD_DONE -> entities.get(srcId).setState(SimEntity.EntityStatus.RUNNABLE);
+			case SimEvent.HOLD_DONE -> {
+				ctx.entities.get(srcId).setState(SimEntity.EntityStatus.RUNNABLE);
+				ctx.readyEntities.set(srcId);
+			}
 			default -> {
 			}
 		}
@@ -678,9 +737,10 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationContext ctx = SimulationContext.current();
+		ctx.running = true;
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : ctx.entities) {
 			ent.startEntity();
 		}
 
@@ -694,7 +754,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return SimulationContext.current().running;
 	}
 
 	/**
@@ -703,8 +763,8 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationContext.current().paused = true;
+		return true;
 	}
 
 	/**
@@ -714,10 +774,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationContext ctx = SimulationContext.current();
+		if (time <= ctx.clock) {
 			return false;
 		} else {
-			pauseAt = time;
+			ctx.pauseAt = time;
 		}
 		return true;
 	}
@@ -728,13 +789,14 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationContext ctx = SimulationContext.current();
+		ctx.paused = false;
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+		if (ctx.pauseAt <= ctx.clock) {
+			ctx.pauseAt = -1;
 		}
 
-		return !paused;
+		return !ctx.paused;
 	}
 
 	/**
@@ -744,29 +806,30 @@ public class CloudSim {
 	 * @return the last clock value
 	 */
 	public static double run() {
-		if (!running) {
+		SimulationContext ctx = SimulationContext.current();
+		if (!ctx.running) {
 			runStart();
 		}
 		while (true) {
-			if (!runClockTick() || abruptTerminate) {
+			if (!runClockTick(ctx) || ctx.abruptTerminate) {
 				break;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (ctx.terminateAt > 0.0 && ctx.clock >= ctx.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
+				ctx.clock = ctx.terminateAt;
 				break;
 			}
 
-			if (pauseAt != -1
-					&& ((!future.isEmpty() && clock <= pauseAt && pauseAt <= future.peek()
-							.eventTime()) || future.isEmpty() && pauseAt <= clock)) {
+			if (ctx.pauseAt != -1
+					&& ((!ctx.future.isEmpty() && ctx.clock <= ctx.pauseAt && ctx.pauseAt <= ctx.future.peek()
+							.eventTime()) || ctx.future.isEmpty() && ctx.pauseAt <= ctx.clock)) {
 				pauseSimulation();
-				clock = pauseAt;
+				ctx.clock = ctx.pauseAt;
 			}
 
-			while (paused) {
+			while (ctx.paused) {
 				try {
 					Thread.sleep(100);
 				} catch (InterruptedException e) {
@@ -775,51 +838,76 @@ public class CloudSim {
 			}
 		}
 
-		double clock = clock();
+		double clock = ctx.clock;
 
-		finishSimulation();
+		finishSimulation(ctx);
 		runStop();
 
 		return clock;
 	}
 
+	/**
+	 * Runs the simulation until the next events are due after a given time, and leaves it running
+	 * between two clock ticks, e.g. to save a {@link Checkpoint} of it. {@link #run()} or
+	 * {@link #startSimulation()} then continue it as if it had not stopped.
+	 * 
+	 * @param time the time up to which the simulation runs
+	 * @return the clock, i.e. the time of the last events dispatched
+	 */
+	public static double runUntil(double time) {
+		SimulationContext ctx = SimulationContext.current();
+		if (!ctx.running) {
+			runStart();
+		}
+		while (!ctx.abruptTerminate && !ctx.future.isEmpty()) {
+			double next = ctx.future.peek().eventTime();
+			if (next > time || (ctx.terminateAt > 0.0 && next >= ctx.terminateAt) || !runClockTick(ctx)) {
+				break;
+			}
+		}
+		return ctx.clock;
+	}
+
 	/**
 	 * Internal method that allows the entities to terminate. This method should <b>not</b> be used
 	 * in user simulations.
+	 * 
+	 * @param ctx the context of the simulation
 	 */
-	private static void finishSimulation() {
+	private static void finishSimulation(SimulationContext ctx) {
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!ctx.abruptTerminate) {
+			for (SimEntity ent : ctx.entities) {
 				if (ent.getState() != SimEntity.EntityStatus.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : ctx.entities) {
 			ent.shutdownEntity();
 		}
 
-		// reset all static variables
+		// reset all the simulation variables
 		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		clock = 0L;
-		running = false;
+		ctx.entities = null;
+		ctx.entitiesByName = null;
+		ctx.readyEntities = null;
+		ctx.future = null;
+		ctx.clock = 0L;
+		ctx.running = false;
 
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		ctx.waitPredicates = null;
+		ctx.paused = false;
+		ctx.pauseAt = -1;
+		ctx.abruptTerminate = false;
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		SimulationContext.current().abruptTerminate = true;
 	}
 
 	/**
@@ -837,7 +925,7 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return SimulationContext.current().paused;
 	}
 
 }
@@ -0,0 +1,76 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+
+/**
+ * The future event list used by {@link CloudSim}. Implementations must return events in
+ * ascending (time, serial) order, i.e. the order defined by {@link SimEvent#compareTo(SimEvent)}.
+ * The serial of an event is assigned by the list when the event is added.
+ *
+ * @see EventQueue
+ * @see CalendarQueue
+ * @see LadderQueue
+ * @see FutureEventListType
+ * @since CloudSim Toolkit 7.0
+ */
+public interface FutureEventList extends Iterable<SimEvent> {
+
+	/**
+	 * Adds a new event to the list, after all the events already scheduled for the same time.
+	 *
+	 * @param newEvent The event to be put in the list.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Adds a new event to the list, ahead of the events already scheduled for the same time.
+	 *
+	 * @param newEvent The event to be put in the list.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Gets, without removing it, the next event to be dispatched.
+	 *
+	 * @return the next event, or <tt>null</tt> if the list is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the next event to be dispatched.
+	 *
+	 * @return the next event, or <tt>null</tt> if the list is empty or the simulation is not running
+	 */
+	SimEvent poll();
+
+	/**
+	 * Gets the number of pending events.
+	 *
+	 * @return the number of events in the list
+	 */
+	int size();
+
+	/**
+	 * Checks whether there are no pending events.
+	 *
+	 * @return <tt>true</tt> if the list is empty
+	 */
+	boolean isEmpty();
+
+	/**
+	 * Returns an iterator over the pending events, in no particular order. The iterator supports
+	 * {@link Iterator#remove()}, which is used to cancel events.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	Iterator<SimEvent> iterator();
+}
@@ -0,0 +1,37 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * The available implementations of the {@link CloudSim} future event list.
+ *
+ * @see CloudSim#init(int, java.util.Calendar, boolean, FutureEventListType)
+ * @since CloudSim Toolkit 7.0
+ */
+public enum FutureEventListType {
+	/** A binary heap ({@link EventQueue}); O(log n) insertion and removal. */
+	BINARY_HEAP,
+	/** A calendar queue ({@link CalendarQueue}); expected O(1) insertion and removal. */
+	CALENDAR_QUEUE,
+	/** A ladder queue ({@link LadderQueue}); amortised O(1) insertion and removal. */
+	LADDER_QUEUE;
+
+	/**
+	 * Creates an empty future event list of this type.
+	 *
+	 * @return the new list
+	 */
+	public FutureEventList create() {
+		return switch (this) {
+			case BINARY_HEAP -> new EventQueue();
+			case CALENDAR_QUEUE -> new CalendarQueue();
+			case LADDER_QUEUE -> new LadderQueue();
+		};
+	}
+}
@@ -0,0 +1,374 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A ladder queue (W. T. Tang, R. S. M. Goh and I. L.-J. Thng, "Ladder queue: an O(1) priority
+ * queue structure for large-scale discrete event simulation", ACM TOMACS 15(3), 2005).
+ * <p>
+ * Events are kept in three tiers:
+ * <ul>
+ * <li><b>top</b>: an unsorted list of the events due after {@link #topStart};
+ * <li><b>ladder</b>: rungs of unsorted buckets. When the bottom tier runs dry, the top is spread
+ * over a first rung, and any bucket that is too crowded to be sorted cheaply is spread over a
+ * finer rung below it;
+ * <li><b>bottom</b>: a short sorted list holding the earliest events, from which events are polled.
+ * </ul>
+ * Only the small buckets that reach the bottom are ever sorted, which gives amortised O(1)
+ * insertion and removal. Bucket indexes are computed with the same monotone function when events
+ * are stored and when they are looked up, so events due at the same time always end up in the same
+ * bucket and leave the queue in (time, serial) order.
+ *
+ * @see FutureEventListType#LADDER_QUEUE
+ * @since CloudSim Toolkit 7.0
+ */
+public class LadderQueue extends AbstractFutureEventList {
+
+	/** The bucket size above which a bucket is spread over a new rung instead of being sorted. */
+	private static final int THRESHOLD = 50;
+
+	/** The maximum number of rungs of the ladder. */
+	private static final int MAX_RUNGS = 8;
+
+	/** A rung of the ladder. */
+	private static final class Rung {
+		final double start;
+		final double bucketWidth;
+		/** The buckets, <tt>null</tt> until an event goes to them. */
+		final List<List<SimEvent>> buckets;
+		/** The bucket being drained; buckets before it are empty. */
+		int current;
+
+		Rung(double start, double bucketWidth, int numBuckets) {
+			this.start = start;
+			this.bucketWidth = bucketWidth;
+			buckets = new ArrayList<>(Collections.nCopies(numBuckets, (List<SimEvent>) null));
+		}
+
+		int bucketOf(double time) {
+			double index = Math.floor((time - start) / bucketWidth);
+			if (index >= buckets.size()) {
+				return buckets.size() - 1;
+			}
+			return index < 0 ? -1 : (int) index;
+		}
+
+		void add(int bucket, SimEvent event) {
+			List<SimEvent> events = buckets.get(bucket);
+			if (events == null) {
+				events = new ArrayList<>();
+				buckets.set(bucket, events);
+			}
+			events.add(event);
+		}
+	}
+
+	private final List<SimEvent> top = new ArrayList<>();
+	private double topMin;
+	private double topMax;
+
+	/** Events due after this time go to the top tier. */
+	private double topStart = Double.NEGATIVE_INFINITY;
+
+	private final Rung[] rungs = new Rung[MAX_RUNGS];
+	private int numRungs = 0;
+
+	/** The bottom tier, sorted by (time, serial), from index {@link #bottomHead} (inclusive) to {@link #bottomTail} (exclusive). */
+	private SimEvent[] bottom = new SimEvent[THRESHOLD * 2];
+	private int bottomHead = 0;
+	private int bottomTail = 0;
+
+	private int size = 0;
+
+	@Override
+	protected void insert(SimEvent event) {
+		size++;
+		double time = event.eventTime();
+		if (time > topStart) {
+			if (top.isEmpty()) {
+				topMin = time;
+				topMax = time;
+			} else {
+				topMin = Math.min(topMin, time);
+				topMax = Math.max(topMax, time);
+			}
+			top.add(event);
+			return;
+		}
+		for (int r = 0; r < numRungs; r++) {
+			int bucket = rungs[r].bucketOf(time);
+			if (bucket >= rungs[r].current) {
+				rungs[r].add(bucket, event);
+				return;
+			}
+		}
+		insertIntoBottom(event);
+	}
+
+	private void insertIntoBottom(SimEvent event) {
+		// binary search for the first event due strictly after the new one
+		int low = bottomHead;
+		int high = bottomTail;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(bottom[mid], event) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		if (bottomTail == bottom.length) {
+			compactBottom(bottomTail - bottomHead + 1);
+			low -= bottomHead;
+			bottomTail -= bottomHead;
+			bottomHead = 0;
+		}
+		System.arraycopy(bottom, low, bottom, low + 1, bottomTail - low);
+		bottom[low] = event;
+		bottomTail++;
+	}
+
+	/**
+	 * Moves the bottom tier to the front of its array, growing the array if needed.
+	 *
+	 * @param required the number of slots needed
+	 */
+	private void compactBottom(int required) {
+		int length = bottomTail - bottomHead;
+		SimEvent[] target = bottom;
+		if (required > bottom.length) {
+			target = new SimEvent[Math.max(required, bottom.length * 2)];
+		} else if (required > bottom.length / 2) {
+			target = new SimEvent[bottom.length * 2];
+		}
+		System.arraycopy(bottom, bottomHead, target, 0, length);
+		if (target == bottom) {
+			Arrays.fill(bottom, length, bottomTail, null);
+		}
+		bottom = target;
+	}
+
+	/**
+	 * Refills the bottom tier from the ladder or the top tier if it is empty.
+	 *
+	 * @return <tt>true</tt> if the bottom tier holds at least one event
+	 */
+	private boolean prepareBottom() {
+		while (bottomHead == bottomTail) {
+			bottomHead = 0;
+			bottomTail = 0;
+			if (numRungs == 0) {
+				if (top.isEmpty()) {
+					return false;
+				}
+				spreadTop();
+				continue;
+			}
+			Rung rung = rungs[numRungs - 1];
+			while (rung.current < rung.buckets.size()
+					&& (rung.buckets.get(rung.current) == null || rung.buckets.get(rung.current).isEmpty())) {
+				rung.current++;
+			}
+			if (rung.current == rung.buckets.size()) {
+				rungs[--numRungs] = null;
+				continue;
+			}
+			List<SimEvent> bucket = rung.buckets.set(rung.current, null);
+			double bucketStart = rung.start + rung.current * rung.bucketWidth;
+			rung.current++;
+			if (bucket.size() > THRESHOLD && numRungs < MAX_RUNGS) {
+				double childWidth = rung.bucketWidth / bucket.size();
+				if (childWidth > 0 && !sameTime(bucket)) {
+					Rung child = new Rung(bucketStart, childWidth, bucket.size() + 1);
+					rungs[numRungs++] = child;
+					spread(bucket, child);
+					continue;
+				}
+			}
+			fillBottom(bucket);
+		}
+		return true;
+	}
+
+	private void spreadTop() {
+		List<SimEvent> events = new ArrayList<>(top);
+		top.clear();
+		topStart = topMax;
+		double bucketWidth = (topMax - topMin) / events.size();
+		if (events.size() <= THRESHOLD || bucketWidth <= 0) {
+			fillBottom(events);
+			return;
+		}
+		Rung rung = new Rung(topMin, bucketWidth, events.size() + 1);
+		rungs[numRungs++] = rung;
+		spread(events, rung);
+	}
+
+	/**
+	 * Distributes events over a newly created (lowest) rung. Events that rounding places before the
+	 * start of the rung go to the bottom tier, where later events due at the same time are sent too.
+	 */
+	private void spread(List<SimEvent> events, Rung rung) {
+		for (SimEvent event : events) {
+			int bucket = rung.bucketOf(event.eventTime());
+			if (bucket >= 0) {
+				rung.add(bucket, event);
+			} else {
+				insertIntoBottom(event);
+			}
+		}
+	}
+
+	private static boolean sameTime(List<SimEvent> events) {
+		double time = events.get(0).eventTime();
+		for (SimEvent event : events) {
+			if (event.eventTime() != time) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void fillBottom(List<SimEvent> events) {
+		SimEvent[] sorted = events.toArray(new SimEvent[0]);
+		Arrays.sort(sorted, AbstractFutureEventList::compare);
+		if (sorted.length > bottom.length) {
+			bottom = new SimEvent[sorted.length * 2];
+		}
+		System.arraycopy(sorted, 0, bottom, 0, sorted.length);
+		bottomHead = 0;
+		bottomTail = sorted.length;
+	}
+
+	@Override
+	public SimEvent peek() {
+		return prepareBottom() ? bottom[bottomHead] : null;
+	}
+
+	@Override
+	protected SimEvent removeFirst() {
+		if (!prepareBottom()) {
+			return null;
+		}
+		SimEvent event = bottom[bottomHead];
+		bottom[bottomHead++] = null;
+		size--;
+		return event;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		List<Iterator<SimEvent>> parts = new ArrayList<>();
+		parts.add(new Iterator<>() {
+			private int next = bottomHead;
+			private boolean removable = false;
+
+			@Override
+			public boolean hasNext() {
+				return next < bottomTail;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (next >= bottomTail) {
+					throw new NoSuchElementException();
+				}
+				removable = true;
+				return bottom[next++];
+			}
+
+			@Override
+			public void remove() {
+				if (!removable) {
+					throw new IllegalStateException();
+				}
+				removable = false;
+				next--;
+				System.arraycopy(bottom, next + 1, bottom, next, bottomTail - next - 1);
+				bottom[--bottomTail] = null;
+				size--;
+			}
+		});
+		for (int r = 0; r < numRungs; r++) {
+			Rung rung = rungs[r];
+			for (int b = rung.current; b < rung.buckets.size(); b++) {
+				List<SimEvent> bucket = rung.buckets.get(b);
+				if (bucket != null && !bucket.isEmpty()) {
+					parts.add(countingIterator(bucket.iterator()));
+				}
+			}
+		}
+		parts.add(countingIterator(top.iterator()));
+
+		return new Iterator<>() {
+			private int part = 0;
+			private Iterator<SimEvent> last;
+
+			@Override
+			public boolean hasNext() {
+				while (part < parts.size()) {
+					if (parts.get(part).hasNext()) {
+						return true;
+					}
+					part++;
+				}
+				return false;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = parts.get(part);
+				return last.next();
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				last.remove();
+			}
+		};
+	}
+
+	private Iterator<SimEvent> countingIterator(Iterator<SimEvent> iterator) {
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public SimEvent next() {
+				return iterator.next();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				size--;
+			}
+		};
+	}
+}
@@ -52,6 +52,9 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          */
 	private long serial = -1;
 
+	/** Whether the event has been cancelled while it was still in the future event list. */
+	private boolean cancelled;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -81,6 +84,31 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		this.serial = serial;
 	}
 
+	/**
+	 * Gets the serial used to order events scheduled for the same time.
+	 * 
+	 * @return the serial
+	 */
+	long getSerial() {
+		return serial;
+	}
+
+	/**
+	 * Marks the event as cancelled, so that it is discarded instead of being dispatched.
+	 */
+	void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Checks whether the event has been cancelled.
+	 * 
+	 * @return <tt>true</tt> if the event is not to be dispatched
+	 */
+	boolean isCancelled() {
+		return cancelled;
+	}
+
 	/**
 	 * Sets the time that the event was removed from the queue to start service. 
 	 * 
@@ -0,0 +1,190 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2024, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The state of one simulation: the entities, the future event list, the clock and the settings
+ * given to {@link CloudSim#init(int, Calendar, boolean)}, plus any per-simulation state kept by
+ * the modules built on top of the kernel (see {@link #getOrCreate(Class, Supplier)}).
+ * <p>
+ * The static methods of {@link CloudSim} operate on the context bound to the calling thread.
+ * Threads that have not bound a context share the {@link #getDefault() default context}, so
+ * single simulations behave exactly as before. To run several simulations in the same JVM, give
+ * each one its own context and run it through {@link #call(Callable)} on its own thread:
+ * everything created and executed inside the call, entities included, belongs to that context.
+ * Class-level configuration (e.g. logging) is still shared by all the contexts.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class SimulationContext {
+
+	/** The context used by the threads that have not bound one. */
+	private static final SimulationContext DEFAULT = new SimulationContext();
+
+	/** The context bound to each thread, if any. */
+	private static final ThreadLocal<SimulationContext> BOUND = new ThreadLocal<>();
+
+	/** Set once any context has been bound, so that single-threaded runs skip the thread-local lookup. */
+	private static volatile boolean bindingUsed = false;
+
+	// ======== SETTINGS ===============//
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	double minTimeBetweenEvents = 0.01;
+
+	/** @see CloudSim#setActiveEntityScheduling(boolean) */
+	boolean activeEntityScheduling = false;
+
+	/** The implementation of the future event list created by {@link CloudSim#initialize()}. */
+	FutureEventListType futureEventListType = FutureEventListType.BINARY_HEAP;
+
+	// ======== SIMULATION STATE ===============//
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue, decorating the list of type {@link #futureEventListType}. */
+	CancellableEventList future;
+
+	/** The current simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	/** The ids of the entities that have work to do in the next clock tick. */
+	BitSet readyEntities;
+
+	/** The predicates used in entity wait methods. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	boolean paused = false;
+
+	/** The pause at. */
+	long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	boolean abruptTerminate = false;
+
+	/** The per-simulation state of other modules, by owner class. */
+	private final Map<Class<?>, Object> states = new HashMap<>();
+
+	/**
+	 * Gets the context of the calling thread.
+	 *
+	 * @return the context bound to the thread, or the default context if none is bound
+	 */
+	public static SimulationContext current() {
+		if (!bindingUsed) {
+			return DEFAULT;
+		}
+		SimulationContext context = BOUND.get();
+		return context != null ? context : DEFAULT;
+	}
+
+	/**
+	 * Gets the context shared by the threads that have not bound one.
+	 *
+	 * @return the default context
+	 */
+	public static SimulationContext getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Checks whether this is the default context, i.e. the simulation owns the whole JVM.
+	 *
+	 * @return <tt>true</tt> if this is the default context
+	 */
+	public boolean isDefault() {
+		return this == DEFAULT;
+	}
+
+	/**
+	 * Runs a task with this context bound to the calling thread, restoring the previously bound
+	 * context afterwards.
+	 *
+	 * @param task the task, typically one that builds and starts a simulation
+	 * @return the result of the task
+	 * @throws Exception the exception thrown by the task
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		bindingUsed = true;
+		SimulationContext previous = BOUND.get();
+		BOUND.set(this);
+		try {
+			return task.call();
+		} finally {
+			if (previous == null) {
+				BOUND.remove();
+			} else {
+				BOUND.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Gets the state kept by a module for this simulation, creating it on first use. Modules
+	 * that used to keep per-simulation data in static fields keep it here instead, so that every
+	 * context sees its own copy.
+	 *
+	 * @param type the class of the state, which is also its key
+	 * @param factory creates the state the first time it is requested
+	 * @return the state
+	 */
+	public <T> T getOrCreate(Class<T> type, Supplier<? extends T> factory) {
+		Object state = states.get(type);
+		if (state == null) {
+			state = factory.get();
+			states.put(type, state);
+		}
+		return type.cast(state);
+	}
+
+	/**
+	 * Gets the per-simulation state of the modules, e.g. to save it in a {@link Checkpoint}.
+	 *
+	 * @return the state, by owner class
+	 */
+	Map<Class<?>, Object> getStates() {
+		return states;
+	}
+}
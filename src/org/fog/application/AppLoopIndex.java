@@ -0,0 +1,127 @@
+package org.fog.application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loop membership of the edges of an application, computed once from its {@link AppLoop}s so that
+ * the loop-delay accounting done for every tuple takes a single lookup instead of a scan of all
+ * the loops.
+ * An edge is identified by its source and destination module names.
+ */
+public class AppLoopIndex {
+
+	private static final int[] NO_LOOPS = new int[0];
+
+	/**
+	 * The loops an edge takes part in.
+	 */
+	private static class EdgeLoops {
+		final String destination;
+		/** The first loop containing the edge, or -1. */
+		int firstLoopId = -1;
+		/** The loops containing the edge whose start module is the source of the edge. */
+		int[] startingLoopIds = NO_LOOPS;
+		/** The first loop containing the edge whose end module is the destination of the edge, or -1. */
+		int endingLoopId = -1;
+
+		EdgeLoops(String destination){
+			this.destination = destination;
+		}
+	}
+
+	/** Edges by source module. Few edges leave a module, so the destination is matched with a scan. */
+	private Map<String, EdgeLoops[]> edgesBySource = new HashMap<String, EdgeLoops[]>();
+
+	public AppLoopIndex(List<AppLoop> loops){
+		Map<String, List<EdgeLoops>> edges = new HashMap<String, List<EdgeLoops>>();
+		for(AppLoop loop : loops){
+			List<String> modules = loop.getModules();
+			for(int i=0;i<modules.size()-1;i++){
+				EdgeLoops edge = getOrCreate(edges, modules.get(i), modules.get(i+1));
+				if(edge.firstLoopId == -1)
+					edge.firstLoopId = loop.getLoopId();
+			}
+		}
+		// a loop counts once per edge even if the edge appears several times in it
+		for(AppLoop loop : loops){
+			List<String> modules = loop.getModules();
+			List<EdgeLoops> starting = new ArrayList<EdgeLoops>();
+			for(int i=0;i<modules.size()-1;i++){
+				EdgeLoops edge = getOrCreate(edges, modules.get(i), modules.get(i+1));
+				if(loop.isStartModule(modules.get(i)) && !starting.contains(edge)){
+					starting.add(edge);
+					edge.startingLoopIds = append(edge.startingLoopIds, loop.getLoopId());
+				}
+				if(loop.isEndModule(modules.get(i+1)) && edge.endingLoopId == -1)
+					edge.endingLoopId = loop.getLoopId();
+			}
+		}
+		for(Map.Entry<String, List<EdgeLoops>> entry : edges.entrySet())
+			edgesBySource.put(entry.getKey(), entry.getValue().toArray(new EdgeLoops[0]));
+	}
+
+	private static EdgeLoops getOrCreate(Map<String, List<EdgeLoops>> edges, String src, String dest){
+		List<EdgeLoops> fromSource = edges.get(src);
+		if(fromSource == null){
+			fromSource = new ArrayList<EdgeLoops>();
+			edges.put(src, fromSource);
+		}
+		for(EdgeLoops edge : fromSource){
+			if(edge.destination.equals(dest))
+				return edge;
+		}
+		EdgeLoops edge = new EdgeLoops(dest);
+		fromSource.add(edge);
+		return edge;
+	}
+
+	private static int[] append(int[] ids, int id){
+		int[] result = new int[ids.length+1];
+		System.arraycopy(ids, 0, result, 0, ids.length);
+		result[ids.length] = id;
+		return result;
+	}
+
+	private EdgeLoops find(String src, String dest){
+		EdgeLoops[] fromSource = edgesBySource.get(src);
+		if(fromSource == null || dest == null)
+			return null;
+		for(EdgeLoops edge : fromSource){
+			if(edge.destination.equals(dest))
+				return edge;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the first loop (in the order of the application's loops) containing an edge.
+	 * @return the loop id, or -1 if no loop contains the edge
+	 */
+	public int getFirstLoopId(String src, String dest){
+		EdgeLoops edge = find(src, dest);
+		return edge != null ? edge.firstLoopId : -1;
+	}
+
+	/**
+	 * Gets the loops, in the order of the application's loops, that contain an edge and start at its source module.
+	 * A tuple sent on the edge starts a new execution of each of these loops.
+	 * @return the loop ids; the array must not be modified
+	 */
+	public int[] getStartingLoopIds(String src, String dest){
+		EdgeLoops edge = find(src, dest);
+		return edge != null ? edge.startingLoopIds : NO_LOOPS;
+	}
+
+	/**
+	 * Gets the first loop that contains an edge and ends at its destination module.
+	 * A tuple received on the edge completes an execution of this loop.
+	 * @return the loop id, or -1 if there is no such loop
+	 */
+	public int getEndingLoopId(String src, String dest){
+		EdgeLoops edge = find(src, dest);
+		return edge != null ? edge.endingLoopId : -1;
+	}
+}
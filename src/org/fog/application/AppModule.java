@@ -1,6 +1,7 @@
 package org.fog.application;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +24,13 @@ public class AppModule extends PowerVm{
 	private String appId;
 	private Map<Pair<String, String>, SelectivityModel> selectivityMap;
 	
+	/**
+	 * Whether the application of this module was compiled (see {@link Application#getCompiled()}),
+	 * after which the selectivity map only changes through {@link Application#addTupleMapping}, so
+	 * that the compiled application is rebuilt.
+	 */
+	private boolean selectivityMapCompiled;
+	
 	/**
 	 * A map from the AppModules sending tuples UP to this module to their instance IDs.
 	 * If a new instance ID is detected, the number of instances is incremented.  
@@ -85,7 +93,8 @@ public class AppModule extends PowerVm{
 		setCurrentAllocatedMips(null);
 		setCurrentAllocatedRam(0);
 		setCurrentAllocatedSize(0);
-		setSelectivityMap(operator.getSelectivityMap());
+		this.selectivityMap = operator.selectivityMap;
+		this.selectivityMapCompiled = operator.selectivityMapCompiled;
 		setDownInstanceIdsMaps(new HashMap<String, List<Integer>>());
 	}
 	
@@ -101,12 +110,26 @@ public class AppModule extends PowerVm{
 	public void setName(String name) {
 		this.name = name;
 	}
+	/**
+	 * Gets the selectivity map, read-only once the application of the module is compiled.
+	 */
 	public Map<Pair<String, String>, SelectivityModel> getSelectivityMap() {
-		return selectivityMap;
+		return selectivityMapCompiled ? Collections.unmodifiableMap(selectivityMap) : selectivityMap;
 	}
 	public void setSelectivityMap(Map<Pair<String, String>, SelectivityModel> selectivityMap) {
+		if(selectivityMapCompiled)
+			throw new UnsupportedOperationException("The application of module " + getName()
+					+ " is compiled: add its tuple mappings through Application.addTupleMapping.");
 		this.selectivityMap = selectivityMap;
 	}
+	
+	void putTupleMapping(Pair<String, String> mapping, SelectivityModel selectivityModel) {
+		selectivityMap.put(mapping, selectivityModel);
+	}
+	
+	void setSelectivityMapCompiled() {
+		selectivityMapCompiled = true;
+	}
 	public String getAppId() {
 		return appId;
 	}
@@ -1,14 +1,16 @@
 package org.fog.application;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.math3.util.Pair;
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.fog.application.selectivity.SelectivityModel;
 import org.fog.entities.Tuple;
+import org.fog.entities.TuplePool;
 import org.fog.scheduler.TupleScheduler;
 import org.fog.utils.FogUtils;
 import org.fog.utils.GeoCoverage;
@@ -39,8 +41,23 @@ public class Application {
 	 */
 	private List<AppLoop> loops;
 	
+	/**
+	 * Loop membership of the edges, built from the loops on first use
+	 */
+	private AppLoopIndex loopIndex;
+	
 	private Map<String, AppEdge> edgeMap;
 
+	/**
+	 * Modules and edges indexed for the tuples emitted on each execution, built on first use
+	 */
+	private CompiledApplication compiled;
+
+	/**
+	 * Pool of the simulation running the application, which creates its tuples; got on first use
+	 */
+	private TuplePool tuplePool;
+
 	protected Map<String, List<String>> specialPlacementInfo = new HashMap<>(); // module name to placement device staring with
 
 	protected DAG dag;
@@ -70,7 +87,7 @@ public class Application {
 				mips, ram, bw, size, vmm, new TupleScheduler(mips, 1), new HashMap<Pair<String, String>, SelectivityModel>());
 		
 		getModules().add(module);
-		
+		compiled = null;
 	}
 
 	/**
@@ -87,6 +104,7 @@ public class Application {
 				mips, ram, bw, size, vmm, new TupleScheduler(mips, 1), new HashMap<Pair<String, String>, SelectivityModel>());
 
 		getModules().add(module);
+		compiled = null;
 	}
 	
 	/**
@@ -104,6 +122,7 @@ public class Application {
 		AppEdge edge = new AppEdge(source, destination, tupleCpuLength, tupleNwLength, tupleType, direction, edgeType);
 		getEdges().add(edge);
 		getEdgeMap().put(edge.getTupleType(), edge);
+		compiled = null;
 	}
 	
 	/**
@@ -121,6 +140,7 @@ public class Application {
 		AppEdge edge = new AppEdge(source, destination, periodicity, tupleCpuLength, tupleNwLength, tupleType, direction, edgeType);
 		getEdges().add(edge);
 		getEdgeMap().put(edge.getTupleType(), edge);
+		compiled = null;
 	}
 	
 	/**
@@ -132,7 +152,8 @@ public class Application {
 	 */
 	public void addTupleMapping(String moduleName, String inputTupleType, String outputTupleType, SelectivityModel selectivityModel){
 		AppModule module = getModuleByName(moduleName);
-		module.getSelectivityMap().put(new Pair<String, String>(inputTupleType, outputTupleType), selectivityModel);
+		module.putTupleMapping(new Pair<String, String>(inputTupleType, outputTupleType), selectivityModel);
+		compiled = null;
 	}
 	
 	/**
@@ -141,12 +162,7 @@ public class Application {
 	 * @return
 	 */
 	public List<AppEdge> getPeriodicEdges(String srcModule){
-		List<AppEdge> result = new ArrayList<AppEdge>();
-		for(AppEdge edge : edges){
-			if(edge.isPeriodic() && edge.getSource().equals(srcModule))
-				result.add(edge);
-		}
-		return result;
+		return new ArrayList<AppEdge>(Arrays.asList(getCompiled().getPeriodicEdges(srcModule)));
 	}
 	
 	public Application(String appId, int userId) {
@@ -178,6 +194,10 @@ public class Application {
 	 * @return
 	 */
 	public AppModule getModuleByName(String name){
+		// while the application is being built, a scan is cheaper than compiling it after every change
+		CompiledApplication compiled = this.compiled;
+		if(compiled != null)
+			return compiled.getModule(name);
 		for(AppModule module : modules){
 			if(module.getName().equals(name))
 				return module;
@@ -185,6 +205,12 @@ public class Application {
 		return null;
 	}
 	
+	private TuplePool tuplePool(){
+		if(tuplePool == null)
+			tuplePool = TuplePool.getInstance();
+		return tuplePool;
+	}
+
 	/**
 	 * Get the tuples generated upon execution of incoming tuple <i>inputTuple</i> by module named <i>moduleName</i>
 	 * @param moduleName name of the module performing execution of incoming tuple and emitting resultant tuples
@@ -193,43 +219,19 @@ public class Application {
 	 * @return
 	 */
 	public List<Tuple> getResultantTuples(String moduleName, Tuple inputTuple, int sourceDeviceId, int sourceModuleId){
-		List<Tuple> tuples = new ArrayList<Tuple>();
-		AppModule module = getModuleByName(moduleName);
-		for(AppEdge edge : getEdges()){
-			if(edge.getSource().equals(moduleName)){
-				Pair<String, String> pair = new Pair<String, String>(inputTuple.getTupleType(), edge.getTupleType());
-				
-				if(module.getSelectivityMap().get(pair)==null)
-					continue;
-				SelectivityModel selectivityModel = module.getSelectivityMap().get(pair);
-				if(selectivityModel.canSelect()){
-					//TODO check if the edge is ACTUATOR, then create multiple tuples
-					if(edge.getEdgeType() == AppEdge.ACTUATOR){
-						//for(Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())){
-							Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
-									(long) (edge.getTupleCpuLength()),
-									inputTuple.getNumberOfPes(),
-									(long) (edge.getTupleNwLength()),
-									inputTuple.getCloudletOutputSize(),
-									inputTuple.getUtilizationModelCpu(),
-									inputTuple.getUtilizationModelRam(),
-									inputTuple.getUtilizationModelBw()
-									);
-							tuple.setActualTupleId(inputTuple.getActualTupleId());
-							tuple.setUserId(inputTuple.getUserId());
-							tuple.setAppId(inputTuple.getAppId());
-							tuple.setDestModuleName(edge.getDestination());
-							tuple.setSrcModuleName(edge.getSource());
-							tuple.setDirection(Tuple.ACTUATOR);
-							tuple.setTupleType(edge.getTupleType());
-							tuple.setSourceDeviceId(sourceDeviceId);
-							tuple.setSourceModuleId(sourceModuleId);
-							//tuple.setActuatorId(actuatorId);
-							
-							tuples.add(tuple);
-						//}
-					}else{
-						Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+		CompiledApplication compiled = getCompiled();
+		int moduleId = compiled.getModuleId(moduleName);
+		CompiledApplication.Outputs outputs = moduleId >= 0 ? compiled.getOutputs(moduleId, inputTuple.getTupleType()) : null;
+		if(outputs == null)
+			return Collections.emptyList();
+		List<Tuple> tuples = new ArrayList<Tuple>(outputs.size());
+		for(int i=0;i<outputs.size();i++){
+			AppEdge edge = outputs.getEdge(i);
+			if(outputs.getSelectivityModel(i).canSelect()){
+				//TODO check if the edge is ACTUATOR, then create multiple tuples
+				if(edge.getEdgeType() == AppEdge.ACTUATOR){
+					//for(Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())){
+						Tuple tuple = tuplePool().obtain(appId, FogUtils.generateTupleId(), edge.getDirection(),  
 								(long) (edge.getTupleCpuLength()),
 								inputTuple.getNumberOfPes(),
 								(long) (edge.getTupleNwLength()),
@@ -243,13 +245,35 @@ public class Application {
 						tuple.setAppId(inputTuple.getAppId());
 						tuple.setDestModuleName(edge.getDestination());
 						tuple.setSrcModuleName(edge.getSource());
-						tuple.setDirection(edge.getDirection());
+						tuple.setDirection(Tuple.ACTUATOR);
 						tuple.setTupleType(edge.getTupleType());
+						tuple.setSourceDeviceId(sourceDeviceId);
 						tuple.setSourceModuleId(sourceModuleId);
-						tuple.setTraversedMicroservices(inputTuple.getTraversed());
-
+						//tuple.setActuatorId(actuatorId);
+						
 						tuples.add(tuple);
-					}
+					//}
+				}else{
+					Tuple tuple = tuplePool().obtain(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+							(long) (edge.getTupleCpuLength()),
+							inputTuple.getNumberOfPes(),
+							(long) (edge.getTupleNwLength()),
+							inputTuple.getCloudletOutputSize(),
+							inputTuple.getUtilizationModelCpu(),
+							inputTuple.getUtilizationModelRam(),
+							inputTuple.getUtilizationModelBw()
+							);
+					tuple.setActualTupleId(inputTuple.getActualTupleId());
+					tuple.setUserId(inputTuple.getUserId());
+					tuple.setAppId(inputTuple.getAppId());
+					tuple.setDestModuleName(edge.getDestination());
+					tuple.setSrcModuleName(edge.getSource());
+					tuple.setDirection(edge.getDirection());
+					tuple.setTupleType(edge.getTupleType());
+					tuple.setSourceModuleId(sourceModuleId);
+					tuple.setTraversedMicroservices(inputTuple.getTraversed());
+
+					tuples.add(tuple);
 				}
 			}
 		}
@@ -263,17 +287,17 @@ public class Application {
 	 * @return
 	 */
 	public Tuple createTuple(AppEdge edge, int sourceDeviceId, int sourceModuleId){
-		AppModule module = getModuleByName(edge.getSource());
+		AppModule module = getCompiled().getModule(edge.getSource());
 		if(edge.getEdgeType() == AppEdge.ACTUATOR){
 			for(Integer actuatorId : module.getActuatorSubscriptions().get(edge.getTupleType())){
-				Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+				Tuple tuple = tuplePool().obtain(appId, FogUtils.generateTupleId(), edge.getDirection(),  
 						(long) (edge.getTupleCpuLength()),
 						1,
 						(long) (edge.getTupleNwLength()),
 						100,
-						new UtilizationModelFull(), 
-						new UtilizationModelFull(), 
-						new UtilizationModelFull()
+						Tuple.FULL_UTILIZATION, 
+						Tuple.FULL_UTILIZATION, 
+						Tuple.FULL_UTILIZATION
 						);
 				tuple.setUserId(getUserId());
 				tuple.setAppId(getAppId());
@@ -288,14 +312,14 @@ public class Application {
 				return tuple;
 			}
 		}else{
-			Tuple tuple = new Tuple(appId, FogUtils.generateTupleId(), edge.getDirection(),  
+			Tuple tuple = tuplePool().obtain(appId, FogUtils.generateTupleId(), edge.getDirection(),  
 					(long) (edge.getTupleCpuLength()),
 					1,
 					(long) (edge.getTupleNwLength()),
 					100,
-					new UtilizationModelFull(), 
-					new UtilizationModelFull(), 
-					new UtilizationModelFull()
+					Tuple.FULL_UTILIZATION, 
+					Tuple.FULL_UTILIZATION, 
+					Tuple.FULL_UTILIZATION
 					);
 			//tuple.setActualTupleId(inputTuple.getActualTupleId());
 			tuple.setUserId(getUserId());
@@ -322,12 +346,14 @@ public class Application {
 	}
 	public void setModules(List<AppModule> modules) {
 		this.modules = modules;
+		this.compiled = null;
 	}
 	public List<AppEdge> getEdges() {
 		return edges;
 	}
 	public void setEdges(List<AppEdge> edges) {
 		this.edges = edges;
+		this.compiled = null;
 	}
 	public GeoCoverage getGeoCoverage() {
 		return geoCoverage;
@@ -342,6 +368,35 @@ public class Application {
 
 	public void setLoops(List<AppLoop> loops) {
 		this.loops = loops;
+		this.loopIndex = null;
+	}
+
+	/**
+	 * Gets the loop membership of the edges of the application. The index is built on first use, so loops must
+	 * be set with {@link #setLoops(List)} rather than added to {@link #getLoops()} once the simulation runs.
+	 * @return the loop index
+	 */
+	public AppLoopIndex getLoopIndex() {
+		if(loopIndex == null)
+			loopIndex = new AppLoopIndex(getLoops());
+		return loopIndex;
+	}
+
+	/**
+	 * Gets the modules and edges of the application indexed for the tuples emitted on each execution. The
+	 * compiled form is built on first use and dropped when modules, edges or tuple mappings are added through
+	 * this class; from then on the selectivity maps of the modules only change through {@link #addTupleMapping}.
+	 * @return the compiled application
+	 */
+	public CompiledApplication getCompiled() {
+		CompiledApplication compiled = this.compiled;
+		if(compiled == null){
+			compiled = new CompiledApplication(getModules(), getEdges());
+			for(AppModule module : getModules())
+				module.setSelectivityMapCompiled();
+			this.compiled = compiled;
+		}
+		return compiled;
 	}
 
 	public int getUserId() {
@@ -0,0 +1,164 @@
+package org.fog.application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.util.Pair;
+import org.fog.application.selectivity.SelectivityModel;
+
+/**
+ * The modules and edges of an {@link Application} indexed by dense ints, built once so that
+ * finding the tuples a module emits for an input tuple walks an array of edges whose selectivity
+ * models are already resolved, instead of scanning every edge of the application and hashing a
+ * pair of tuple types for each.
+ * Modules, edges and tuple mappings must be added through {@link Application}, which drops its
+ * compiled form whenever they change; edges modified directly are not seen, and the selectivity
+ * maps of the modules are read-only once compiled (see {@link AppModule#getSelectivityMap()}).
+ */
+public class CompiledApplication {
+
+	private static final AppEdge[] NO_EDGES = new AppEdge[0];
+
+	/**
+	 * The edges a module emits tuples on for one input tuple type, in the order of the edges of
+	 * the application, with the selectivity model of each.
+	 */
+	public static class Outputs {
+		private final AppEdge[] edges;
+		private final SelectivityModel[] selectivityModels;
+
+		Outputs(List<AppEdge> edges, List<SelectivityModel> selectivityModels){
+			this.edges = edges.toArray(new AppEdge[0]);
+			this.selectivityModels = selectivityModels.toArray(new SelectivityModel[0]);
+		}
+
+		public int size(){
+			return edges.length;
+		}
+
+		public AppEdge getEdge(int index){
+			return edges[index];
+		}
+
+		public SelectivityModel getSelectivityModel(int index){
+			return selectivityModels[index];
+		}
+	}
+
+	/** Ids of the modules by name; a name given to several modules stands for the first one. */
+	private final Map<String, Integer> moduleIds = new HashMap<String, Integer>();
+	private final AppModule[] modules;
+	/** Ids of the tuple types carried by the edges or used as inputs in the tuple mappings. */
+	private final Map<String, Integer> tupleTypeIds = new HashMap<String, Integer>();
+	/** Outputs by module id and input tuple type id, null where the module emits nothing for the type. */
+	private final Outputs[][] outputs;
+	/** Periodic edges by source module name. */
+	private final Map<String, AppEdge[]> periodicEdges = new HashMap<String, AppEdge[]>();
+
+	public CompiledApplication(List<AppModule> appModules, List<AppEdge> edges){
+		List<AppModule> moduleList = new ArrayList<AppModule>();
+		for(AppModule module : appModules){
+			if(!moduleIds.containsKey(module.getName())){
+				moduleIds.put(module.getName(), moduleList.size());
+				moduleList.add(module);
+			}
+		}
+		modules = moduleList.toArray(new AppModule[0]);
+
+		for(AppEdge edge : edges)
+			getTupleTypeId(edge.getTupleType());
+		for(AppModule module : modules){
+			for(Pair<String, String> mapping : module.getSelectivityMap().keySet())
+				getTupleTypeId(mapping.getFirst());
+		}
+
+		List<List<AppEdge>> edgesBySource = new ArrayList<List<AppEdge>>();
+		for(int i=0;i<modules.length;i++)
+			edgesBySource.add(new ArrayList<AppEdge>());
+		Map<String, List<AppEdge>> periodicEdgeLists = new HashMap<String, List<AppEdge>>();
+		for(AppEdge edge : edges){
+			Integer moduleId = moduleIds.get(edge.getSource());
+			if(moduleId != null)
+				edgesBySource.get(moduleId).add(edge);
+			if(edge.isPeriodic())
+				periodicEdgeLists.computeIfAbsent(edge.getSource(), source -> new ArrayList<AppEdge>()).add(edge);
+		}
+		for(Map.Entry<String, List<AppEdge>> entry : periodicEdgeLists.entrySet())
+			periodicEdges.put(entry.getKey(), entry.getValue().toArray(new AppEdge[0]));
+
+		outputs = new Outputs[modules.length][];
+		for(int moduleId=0;moduleId<modules.length;moduleId++){
+			Map<Pair<String, String>, SelectivityModel> selectivityMap = modules[moduleId].getSelectivityMap();
+			List<List<AppEdge>> outputEdges = new ArrayList<List<AppEdge>>();
+			List<List<SelectivityModel>> outputModels = new ArrayList<List<SelectivityModel>>();
+			for(int i=0;i<tupleTypeIds.size();i++){
+				outputEdges.add(null);
+				outputModels.add(null);
+			}
+			for(AppEdge edge : edgesBySource.get(moduleId)){
+				for(Map.Entry<Pair<String, String>, SelectivityModel> mapping : selectivityMap.entrySet()){
+					if(mapping.getValue() == null || !mapping.getKey().getSecond().equals(edge.getTupleType()))
+						continue;
+					int inputTypeId = tupleTypeIds.get(mapping.getKey().getFirst());
+					if(outputEdges.get(inputTypeId) == null){
+						outputEdges.set(inputTypeId, new ArrayList<AppEdge>());
+						outputModels.set(inputTypeId, new ArrayList<SelectivityModel>());
+					}
+					outputEdges.get(inputTypeId).add(edge);
+					outputModels.get(inputTypeId).add(mapping.getValue());
+				}
+			}
+			outputs[moduleId] = new Outputs[tupleTypeIds.size()];
+			for(int i=0;i<tupleTypeIds.size();i++){
+				if(outputEdges.get(i) != null)
+					outputs[moduleId][i] = new Outputs(outputEdges.get(i), outputModels.get(i));
+			}
+		}
+	}
+
+	private int getTupleTypeId(String tupleType){
+		Integer id = tupleTypeIds.get(tupleType);
+		if(id == null){
+			id = tupleTypeIds.size();
+			tupleTypeIds.put(tupleType, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Gets the id of a module.
+	 * @return the id, or -1 if the application has no module of that name
+	 */
+	public int getModuleId(String moduleName){
+		Integer id = moduleIds.get(moduleName);
+		return id != null ? id : -1;
+	}
+
+	public AppModule getModule(int moduleId){
+		return modules[moduleId];
+	}
+
+	public AppModule getModule(String moduleName){
+		Integer id = moduleIds.get(moduleName);
+		return id != null ? modules[id] : null;
+	}
+
+	/**
+	 * Gets the edges a module emits tuples on when it executes a tuple of a given type.
+	 * @return the outputs, or null if the module emits nothing for tuples of that type
+	 */
+	public Outputs getOutputs(int moduleId, String inputTupleType){
+		Integer tupleTypeId = tupleTypeIds.get(inputTupleType);
+		return tupleTypeId != null ? outputs[moduleId][tupleTypeId] : null;
+	}
+
+	/**
+	 * Gets the periodic edges leaving a module, in the order of the edges of the application.
+	 */
+	public AppEdge[] getPeriodicEdges(String sourceModuleName){
+		AppEdge[] edges = periodicEdges.get(sourceModuleName);
+		return edges != null ? edges : NO_EDGES;
+	}
+}
@@ -1,7 +1,12 @@
 package org.fog.application.selectivity;
 
+import org.fog.utils.SimulationRandom;
+
 /**
- * Generates an output tuple for an incoming input tuple with a fixed probability
+ * Generates an output tuple for an incoming input tuple with a fixed probability, drawn from
+ * {@link Math#random()}, or from the {@link SimulationRandom} of the simulation once it is seeded,
+ * so that the selection is reproducible and restored with a
+ * {@link org.cloudbus.cloudsim.core.Checkpoint}.
  * @author Harshit Gupta
  *
  */
@@ -24,7 +29,9 @@ public class FractionalSelectivity implements SelectivityModel{
 	
 	@Override
 	public boolean canSelect() {
-		if(Math.random() < getSelectivity()) // if the probability condition is satisfied
+		SimulationRandom random = SimulationRandom.current();
+		double draw = random.isSeeded() ? random.nextDouble() : Math.random();
+		if(draw < getSelectivity()) // if the probability condition is satisfied
 			return true;
 		return false;
 	}
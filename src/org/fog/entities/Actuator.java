@@ -1,9 +1,7 @@
 package org.fog.entities;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
-import org.fog.application.AppLoop;
 import org.fog.application.Application;
 import org.fog.utils.FogEvents;
 import org.fog.utils.GeoLocation;
@@ -19,6 +17,8 @@ public class Actuator extends SimEntity{
 	private int userId;
 	private String actuatorType;
 	private Application app;
+	// time keeper of the simulation of the actuator, got once when it is created
+	private final TimeKeeper timeKeeper = TimeKeeper.getInstance();
 	
 	public Actuator(String name, int userId, String appId, int gatewayDeviceId, double latency, GeoLocation geoLocation, String actuatorType, String srcModuleName) {
 		super(name);
@@ -48,6 +48,9 @@ public class Actuator extends SimEntity{
 		case FogEvents.TUPLE_ARRIVAL:
 			processTupleArrival(ev);
 			break;
+		case FogEvents.TUPLE_ACK:
+			// acknowledgements (see Config.ACKNOWLEDGEMENT_POLICY) are not acted upon
+			break;
             default:
                 throw new IllegalStateException("Unexpected value: " + ev.getTag());
         }		
@@ -55,31 +58,12 @@ public class Actuator extends SimEntity{
 
 	private void processTupleArrival(SimEvent ev) {
 		Tuple tuple = (Tuple)ev.getData();
-		Logger.debug(getName(), "Received tuple "+tuple.getCloudletId()+"on "+tuple.getDestModuleName());
-		String srcModule = tuple.getSrcModuleName();
-		String destModule = tuple.getDestModuleName();
+		Logger.debug(getName(), () -> "Received tuple "+tuple.getCloudletId()+"on "+tuple.getDestModuleName());
 		Application app = getApp();
 		
-		for(AppLoop loop : app.getLoops()){
-			if(loop.hasEdge(srcModule, destModule) && loop.isEndModule(destModule)){
-				
-				Double startTime = TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-				if(startTime==null)
-					break;
-				if(!TimeKeeper.getInstance().getLoopIdToCurrentAverage().containsKey(loop.getLoopId())){
-					TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), 0.0);
-					TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), 0);
-				}
-				double currentAverage = TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loop.getLoopId());
-				int currentCount = TimeKeeper.getInstance().getLoopIdToCurrentNum().get(loop.getLoopId());
-				double delay = CloudSim.clock()- TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-				TimeKeeper.getInstance().getEmitTimes().remove(tuple.getActualTupleId());
-				double newAverage = (currentAverage*currentCount + delay)/(currentCount+1);
-				TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), newAverage);
-				TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), currentCount+1);
-				break;
-			}
-		}
+		int loopId = app.getLoopIndex().getEndingLoopId(tuple.getSrcModuleName(), tuple.getDestModuleName());
+		if(loopId != -1)
+			timeKeeper.loopEnded(loopId, tuple.getActualTupleId());
 	}
 
 	@Override
@@ -0,0 +1,247 @@
+package org.fog.entities;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.cloudbus.cloudsim.VmScheduler;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.GuestEntity;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.fog.application.AppModule;
+import org.fog.utils.FogEvents;
+
+/**
+ * Executes the tuples of a fog device by computing their processor-sharing finish times, instead
+ * of submitting them as cloudlets to the schedulers of the module VMs (see
+ * {@link org.fog.utils.Config#ANALYTIC_TUPLE_EXECUTION}).
+ * <p>
+ * The sharing model is the one of the cloudlet path: every module running tuples requests the
+ * MIPS of the host from the VM scheduler of the host, which allocates each its share, e.g.
+ * <tt>floor(totalMips / k)</tt> MIPS to each of k busy modules, less while a module migrates;
+ * the tuples of a module share the MIPS allocated to it equally, as in a time-shared cloudlet
+ * scheduler. The requests are only made again when a module becomes busy or idle. Each
+ * module keeps a virtual time, the work done so far by each of its tuples, and its tuples are
+ * ordered by the virtual time at which they finish, so that the next completion is known
+ * without updating every running tuple. The device gets one
+ * {@link FogEvents#TUPLE_EXECUTION_COMPLETE} event at the next completion, rescheduled whenever a
+ * tuple starts or ends, and its energy and cost are accounted at the same points as with
+ * cloudlets, from the MIPS allocated to the busy modules.
+ * <p>
+ * The tuples finish at their processor-sharing finish times, whereas the cloudlet path only
+ * notices a finished cloudlet when the device next updates its cloudlets, at most its scheduling
+ * interval later, and meanwhile lets the module hold its share: the CPU times of the two paths
+ * agree when that interval is short (see
+ * {@link org.fog.test.perfeval.DCNSFogAnalyticCheck}).
+ */
+public class AnalyticTupleExecutor {
+
+    private static final PredicateType COMPLETION_EVENTS = new PredicateType(FogEvents.TUPLE_EXECUTION_COMPLETE);
+
+    /** Relative tolerance on the work left when deciding that a tuple has finished. */
+    private static final double WORK_TOLERANCE = 1e-9;
+
+    private static class RunningTuple implements Comparable<RunningTuple> {
+        final Tuple tuple;
+        /** Virtual time of the module at which the tuple finishes. */
+        final double finishTag;
+        final long order;
+
+        RunningTuple(Tuple tuple, double finishTag, long order) {
+            this.tuple = tuple;
+            this.finishTag = finishTag;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(RunningTuple other) {
+            int result = Double.compare(finishTag, other.finishTag);
+            return result != 0 ? result : Long.compare(order, other.order);
+        }
+    }
+
+    private static class ModuleState {
+        final AppModule module;
+        /** Work done so far, in MI, by each PE of the running tuples. */
+        double virtualTime;
+        /** Number of PEs used by the running tuples. */
+        int pesInUse;
+        /** MIPS allocated to the module by the VM scheduler while it runs tuples. */
+        double mips;
+        final PriorityQueue<RunningTuple> runningTuples = new PriorityQueue<RunningTuple>();
+
+        ModuleState(AppModule module) {
+            this.module = module;
+        }
+    }
+
+    private final FogDevice fogDevice;
+    private final Map<AppModule, ModuleState> moduleStates = new IdentityHashMap<AppModule, ModuleState>();
+    /** Modules running tuples, in the order they became busy. */
+    private final List<ModuleState> busyModules = new ArrayList<ModuleState>();
+    /** MIPS allocated to the busy modules. */
+    private double totalAllocatedMips;
+    /** Whether a module became busy or idle since the MIPS were last requested. */
+    private boolean busyModulesChanged;
+    private double lastUpdateTime;
+    private long submittedCount;
+    /** Time of the pending completion event, or -1 if there is none. */
+    private double scheduledCompletionTime = -1;
+
+    public AnalyticTupleExecutor(FogDevice fogDevice) {
+        this.fogDevice = fogDevice;
+    }
+
+    /**
+     * Starts the execution of a tuple on a module of the device.
+     */
+    public void submit(Tuple tuple, AppModule module) {
+        advance();
+        ModuleState state = moduleStates.get(module);
+        if (state == null) {
+            state = new ModuleState(module);
+            moduleStates.put(module, state);
+        }
+        if (state.runningTuples.isEmpty()) {
+            busyModules.add(state);
+            busyModulesChanged = true;
+        }
+        int pes = Math.max(1, tuple.getNumberOfPes());
+        state.runningTuples.add(new RunningTuple(tuple, state.virtualTime + (double) tuple.getCloudletLength() / pes, submittedCount++));
+        state.pesInUse += pes;
+        updateAllocation();
+        scheduleNextCompletion();
+    }
+
+    /**
+     * Completes the tuples that are done by now, handing each to the device, and schedules the
+     * next completion.
+     */
+    public void processCompletions() {
+        scheduledCompletionTime = -1;
+        advance();
+        List<RunningTuple> finished = null;
+        List<AppModule> finishedModules = null;
+        for (int i = 0; i < busyModules.size(); i++) {
+            ModuleState state = busyModules.get(i);
+            RunningTuple head;
+            while ((head = state.runningTuples.peek()) != null
+                    && head.finishTag - state.virtualTime <= WORK_TOLERANCE * Math.max(1.0, Math.abs(head.finishTag))) {
+                state.runningTuples.poll();
+                state.pesInUse -= Math.max(1, head.tuple.getNumberOfPes());
+                if (finished == null) {
+                    finished = new ArrayList<RunningTuple>();
+                    finishedModules = new ArrayList<AppModule>();
+                }
+                finished.add(head);
+                finishedModules.add(state.module);
+            }
+        }
+        if (finished != null) {
+            if (busyModules.removeIf(state -> state.runningTuples.isEmpty()))
+                busyModulesChanged = true;
+            for (int i = 0; i < finished.size(); i++)
+                fogDevice.processTupleCompletion(finished.get(i).tuple, finishedModules.get(i));
+            updateAllocation();
+        }
+        scheduleNextCompletion();
+    }
+
+    /**
+     * Drops the tuples of a module that leaves the device.
+     */
+    public void removeModule(AppModule module) {
+        ModuleState state = moduleStates.remove(module);
+        if (state == null)
+            return;
+        advance();
+        if (busyModules.remove(state)) {
+            busyModulesChanged = true;
+            updateAllocation();
+            scheduleNextCompletion();
+        }
+    }
+
+    /**
+     * Gets the total MIPS allocated to the modules running tuples.
+     */
+    public double getTotalAllocatedMips() {
+        return totalAllocatedMips;
+    }
+
+    /**
+     * Gets the number of tuples being executed.
+     */
+    public int getRunningTupleCount() {
+        int count = 0;
+        for (ModuleState state : busyModules)
+            count += state.runningTuples.size();
+        return count;
+    }
+
+    /** Brings the virtual times of the busy modules up to the current time. */
+    private void advance() {
+        double now = CloudSim.clock();
+        double elapsed = now - lastUpdateTime;
+        if (elapsed > 0) {
+            for (ModuleState state : busyModules)
+                state.virtualTime += elapsed * state.mips / Math.max(1, state.pesInUse);
+        }
+        lastUpdateTime = now;
+    }
+
+    /**
+     * Requests the MIPS of the host for the busy modules and none for the others, as updating the
+     * VM allocations does on the cloudlet path, and accounts the energy consumed with the previous
+     * allocation.
+     */
+    private void updateAllocation() {
+        if (busyModulesChanged) {
+            PowerHost host = fogDevice.getHost();
+            VmScheduler scheduler = host.getGuestScheduler();
+            scheduler.deallocatePesForAllGuests();
+            for (GuestEntity guest : host.<GuestEntity>getGuestList()) {
+                ModuleState state = moduleStates.get(guest);
+                List<Double> mipsShare = new ArrayList<Double>(1);
+                mipsShare.add(state != null && !state.runningTuples.isEmpty() ? host.getTotalMips() : 0.0);
+                scheduler.allocatePesForGuest(guest, mipsShare);
+            }
+            totalAllocatedMips = 0;
+            for (ModuleState state : busyModules) {
+                state.mips = scheduler.getTotalAllocatedMipsForGuest(state.module);
+                totalAllocatedMips += state.mips;
+            }
+            busyModulesChanged = false;
+        }
+        fogDevice.updateEnergyConsumption();
+    }
+
+    private void scheduleNextCompletion() {
+        double next = Double.MAX_VALUE;
+        for (ModuleState state : busyModules) {
+            if (state.mips <= 0)
+                continue;
+            RunningTuple head = state.runningTuples.peek();
+            double time = (head.finishTag - state.virtualTime) * Math.max(1, state.pesInUse) / state.mips;
+            if (time < next)
+                next = time;
+        }
+        if (next == Double.MAX_VALUE) {
+            if (scheduledCompletionTime >= 0)
+                CloudSim.cancelAll(fogDevice.getId(), COMPLETION_EVENTS);
+            scheduledCompletionTime = -1;
+            return;
+        }
+        double delay = Math.max(next, CloudSim.getMinTimeBetweenEvents());
+        double completionTime = CloudSim.clock() + delay;
+        if (completionTime == scheduledCompletionTime)
+            return;
+        if (scheduledCompletionTime >= 0)
+            CloudSim.cancelAll(fogDevice.getId(), COMPLETION_EVENTS);
+        CloudSim.send(fogDevice.getId(), fogDevice.getId(), delay, FogEvents.TUPLE_EXECUTION_COMPLETE, null);
+        scheduledCompletionTime = completionTime;
+    }
+}
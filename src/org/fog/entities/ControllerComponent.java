@@ -1,6 +1,7 @@
 package org.fog.entities;
 
 import org.fog.application.Application;
+import org.fog.placement.DistributedMicroservicePlacementLogic;
 import org.fog.placement.MicroservicePlacementLogic;
 import org.fog.placement.PlacementLogicOutput;
 
@@ -88,6 +89,23 @@ public class ControllerComponent {
         return null;
     }
 
+    /**
+     * Checks whether the placement logic can map requests ahead of executeApplicationPlacementLogic, i.e. it is a
+     * distributed placement logic with no prepared requests pending.
+     */
+    public boolean canPrepareApplicationPlacement() {
+        return microservicePlacementLogic instanceof DistributedMicroservicePlacementLogic
+                && !((DistributedMicroservicePlacementLogic) microservicePlacementLogic).isPrepared();
+    }
+
+    /**
+     * Maps the requests that the next executeApplicationPlacementLogic will place (see
+     * {@link DistributedMicroservicePlacementLogic#prepare(List, Map, Map, List)}).
+     */
+    public void prepareApplicationPlacement(List<PlacementRequest> placementRequests) {
+        ((DistributedMicroservicePlacementLogic) microservicePlacementLogic).prepare(fogDeviceList, applicationInfo, resourceAvailability, placementRequests);
+    }
+
     public void addServiceDiscoveryInfo(String microserviceName, Integer deviceID) {
         this.serviceDiscoveryInfo.addServiceDIscoveryInfo(microserviceName, deviceID);
         System.out.println("Service Discovery Info ADDED (device:" + this.deviceId + ") for microservice :" + microserviceName + " , destDevice : " + deviceID);
@@ -0,0 +1,65 @@
+package org.fog.entities;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * The fog devices that DOWN and actuator tuples are delivered to: the devices hosting each module
+ * of each application, and the devices each type of actuator is attached to. Fog devices keep it
+ * up to date as modules are placed and released and actuators join, and route such tuples only
+ * towards these devices (see {@link FogDevice#sendDownTowards(Tuple, Set)}). There is one per
+ * simulation, which each fog device gets when it is created.
+ */
+public class DownlinkTargets {
+
+	/** Ids of the devices hosting each module, by application id and module name. */
+	private final Map<String, Map<String, Set<Integer>>> moduleHosts = new HashMap<String, Map<String, Set<Integer>>>();
+	/** Ids of the gateway devices of the actuators of each type. */
+	private final Map<String, Set<Integer>> actuatorGateways = new HashMap<String, Set<Integer>>();
+
+	/**
+	 * Gets the targets of the simulation run by the calling thread.
+	 */
+	public static DownlinkTargets getInstance(){
+		return SimulationContext.current().getOrCreate(DownlinkTargets.class, DownlinkTargets::new);
+	}
+
+	public void moduleAdded(String appId, String moduleName, int deviceId){
+		moduleHosts.computeIfAbsent(appId, k -> new HashMap<String, Set<Integer>>())
+				.computeIfAbsent(moduleName, k -> new LinkedHashSet<Integer>()).add(deviceId);
+	}
+
+	public void moduleRemoved(String appId, String moduleName, int deviceId){
+		Map<String, Set<Integer>> hosts = moduleHosts.get(appId);
+		if(hosts != null && hosts.containsKey(moduleName))
+			hosts.get(moduleName).remove(deviceId);
+	}
+
+	public void actuatorJoined(String actuatorType, int gatewayDeviceId){
+		actuatorGateways.computeIfAbsent(actuatorType, k -> new LinkedHashSet<Integer>()).add(gatewayDeviceId);
+	}
+
+	/**
+	 * Gets the ids of the devices hosting a module.
+	 * @return the ids, empty if the module is not placed anywhere
+	 */
+	public Set<Integer> getModuleHosts(String appId, String moduleName){
+		Map<String, Set<Integer>> hosts = moduleHosts.get(appId);
+		Set<Integer> deviceIds = hosts != null ? hosts.get(moduleName) : null;
+		return deviceIds != null ? deviceIds : Collections.<Integer>emptySet();
+	}
+
+	/**
+	 * Gets the ids of the devices the actuators of a type are attached to.
+	 * @return the ids, empty if no such actuator has joined
+	 */
+	public Set<Integer> getActuatorGateways(String actuatorType){
+		Set<Integer> deviceIds = actuatorGateways.get(actuatorType);
+		return deviceIds != null ? deviceIds : Collections.<Integer>emptySet();
+	}
+}
@@ -1,10 +1,14 @@
 package org.fog.entities;
 
+import org.cloudbus.cloudsim.core.CloudActionTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.power.PowerDatacenterBroker;
 
 public class FogBroker extends PowerDatacenterBroker{
 
+	// tuple pool of the simulation of the broker, got once when it is created
+	private final TuplePool tuplePool = TuplePool.getInstance();
+
 	public FogBroker(String name) throws Exception {
 		super(name);
 		// TODO Auto-generated constructor stub
@@ -18,8 +22,9 @@ public class FogBroker extends PowerDatacenterBroker{
 
 	@Override
 	public void processEvent(SimEvent ev) {
-		// TODO Auto-generated method stub
-		
+		// executed tuples come back to their user
+		if(ev.getTag() == CloudActionTags.CLOUDLET_RETURN && ev.getData() instanceof Tuple)
+			tuplePool.release((Tuple) ev.getData());
 	}
 
 	@Override
@@ -10,7 +10,6 @@ import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
 import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
 import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
 import org.fog.application.AppEdge;
-import org.fog.application.AppLoop;
 import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.mobilitydata.Clustering;
@@ -22,8 +21,8 @@ import org.json.simple.JSONObject;
 import java.util.*;
 
 public class FogDevice extends PowerDatacenter {
-    protected Queue<Tuple> northTupleQueue;
-    protected Queue<Pair<Tuple, Integer>> southTupleQueue;
+    protected TupleQueue northTupleQueue;
+    protected TupleQueue southTupleQueue;
 
     protected List<String> activeApplications;
 
@@ -50,8 +49,38 @@ public class FogDevice extends PowerDatacenter {
      */
     protected List<Integer> childrenIds;
 
+    /**
+     * For each device below this FogDevice, the ID of the child through which it is reached; built from the
+     * children lists on first use, updated by {@link #setParentId(int)} when a device changes its parent, and
+     * rebuilt when the children of a device below change otherwise (see {@link #addChild(int)})
+     */
+    protected Map<Integer, Integer> descendantToChild;
+
+    /**
+     * Executes the tuples of this FogDevice when {@link Config#ANALYTIC_TUPLE_EXECUTION} is set; created on first use
+     */
+    protected AnalyticTupleExecutor tupleExecutor;
+
+    /**
+     * The settings and the shared state of the simulation of this FogDevice, got once when it is created
+     */
+    protected final SimulationConfig simulationConfig = SimulationConfig.current();
+    protected final TimeKeeper timeKeeper = TimeKeeper.getInstance();
+    protected final NetworkUsageMonitor networkUsageMonitor = NetworkUsageMonitor.getInstance();
+    protected final DownlinkTargets downlinkTargets = DownlinkTargets.getInstance();
+
+    /**
+     * IDs of the children a DOWN tuple is being sent to (see {@link #sendDownTowards(Tuple, Set)}); created on first use
+     */
+    protected BitSet downlinkChildren;
+
     protected Map<Integer, List<String>> childToOperatorsMap;
 
+    /**
+     * Number of tuples received since the last acknowledged one, with {@link AcknowledgementPolicy#SAMPLED}
+     */
+    protected int unacknowledgedTupleCount;
+
     /**
      * Flag denoting whether the link southwards from this FogDevice is busy
      */
@@ -78,12 +107,19 @@ public class FogDevice extends PowerDatacenter {
 
     protected Map<String, Map<String, Integer>> moduleInstanceCount;
 
+    /**
+     * Module instances running on the host of this device, by module name (in the order of the host's VM list) and
+     * by VM id. Rebuilt by {@link AppModuleAllocationPolicy} whenever it adds a module to or removes one from the host.
+     */
+    protected Map<String, List<AppModule>> modulesByName = new HashMap<String, List<AppModule>>();
+    protected Map<Integer, AppModule> moduleByVmId = new HashMap<Integer, AppModule>();
+
     protected List<Integer> clusterMembers = new ArrayList<Integer>();
     protected boolean isInCluster = false;
     protected boolean selfCluster = false; // IF there is only one fog device in one cluster without any sibling
     protected Map<Integer, Double> clusterMembersToLatencyMap; // latency to other cluster members
 
-    protected Queue<Pair<Tuple, Integer>> clusterTupleQueue;// tuple and destination cluster device ID
+    protected TupleQueue clusterTupleQueue;// tuple and destination cluster device ID
     protected boolean isClusterLinkBusy; //Flag denoting whether the link connecting to cluster from this FogDevice is busy
     protected double clusterLinkBandwidth;
 
@@ -121,8 +157,8 @@ public class FogDevice extends PowerDatacenter {
 
         applicationMap = new HashMap<String, Application>();
         appToModulesMap = new HashMap<String, List<String>>();
-        northTupleQueue = new LinkedList<Tuple>();
-        southTupleQueue = new LinkedList<Pair<Tuple, Integer>>();
+        northTupleQueue = new TupleQueue();
+        southTupleQueue = new TupleQueue();
         setNorthLinkBusy(false);
         setSouthLinkBusy(false);
 
@@ -140,7 +176,7 @@ public class FogDevice extends PowerDatacenter {
         setModuleInstanceCount(new HashMap<String, Map<String, Integer>>());
         setChildToLatencyMap(new HashMap<Integer, Double>());
 
-        clusterTupleQueue = new LinkedList<>();
+        clusterTupleQueue = new TupleQueue();
         setClusterLinkBusy(false);
 
     }
@@ -209,8 +245,8 @@ public class FogDevice extends PowerDatacenter {
 
         applicationMap = new HashMap<String, Application>();
         appToModulesMap = new HashMap<String, List<String>>();
-        northTupleQueue = new LinkedList<Tuple>();
-        southTupleQueue = new LinkedList<Pair<Tuple, Integer>>();
+        northTupleQueue = new TupleQueue();
+        southTupleQueue = new TupleQueue();
         setNorthLinkBusy(false);
         setSouthLinkBusy(false);
 
@@ -228,7 +264,7 @@ public class FogDevice extends PowerDatacenter {
         setChildToLatencyMap(new HashMap<Integer, Double>());
         setModuleInstanceCount(new HashMap<String, Map<String, Integer>>());
 
-        clusterTupleQueue = new LinkedList<>();
+        clusterTupleQueue = new TupleQueue();
         setClusterLinkBusy(false);
     }
 
@@ -294,6 +330,9 @@ public class FogDevice extends PowerDatacenter {
             case FogEvents.UPDATE_CLUSTER_TUPLE_QUEUE:
                 updateClusterTupleQueue();
                 break;
+            case FogEvents.TUPLE_EXECUTION_COMPLETE:
+                getTupleExecutor().processCompletions();
+                break;
             case FogEvents.START_DYNAMIC_CLUSTERING:
                 //This message is received by the devices to start their clustering
                 processClustering(this.getParentId(), this.getId(), ev);
@@ -308,7 +347,7 @@ public class FogDevice extends PowerDatacenter {
         JSONObject object = (JSONObject) ev.getData();
         AppModule appModule = (AppModule) object.get("module");
         System.out.println(getName() + " is sending " + appModule.getName());
-        NetworkUsageMonitor.sendingModule((double) object.get("delay"), appModule.getSize());
+        networkUsageMonitor.moduleSent((double) object.get("delay"), appModule.getSize());
         MigrationDelayMonitor.setMigrationDelay((double) object.get("delay"));
 
 
@@ -323,7 +362,7 @@ public class FogDevice extends PowerDatacenter {
         AppModule appModule = (AppModule) object.get("module");
         Application app = (Application) object.get("application");
         System.out.println(getName() + " is receiving " + appModule.getName());
-        NetworkUsageMonitor.sendingModule((double) object.get("delay"), appModule.getSize());
+        networkUsageMonitor.moduleSent((double) object.get("delay"), appModule.getSize());
         MigrationDelayMonitor.setMigrationDelay((double) object.get("delay"));
 
         sendNow(getId(), FogEvents.APP_SUBMIT, app);
@@ -354,15 +393,45 @@ public class FogDevice extends PowerDatacenter {
         System.out.println(getName() + " Creating " + config.getInstanceCount() + " instances of module " + config.getModule().getName());
     }
 
-    private AppModule getModuleByName(String moduleName) {
-        AppModule module = null;
+    /**
+     * Gets the first instance of a module running on this device.
+     *
+     * @param moduleName name of the module
+     * @return the module instance, or null if the module does not run on this device
+     */
+    protected AppModule getModuleByName(String moduleName) {
+        List<AppModule> instances = modulesByName.get(moduleName);
+        return instances != null ? instances.get(0) : null;
+    }
+
+    /**
+     * Gets the most recently created instance of a module running on this device, which is the one incoming tuples
+     * are executed on.
+     *
+     * @param moduleName name of the module
+     * @return the VM id of the module instance, or -1 if the module does not run on this device
+     */
+    protected int getTargetVmId(String moduleName) {
+        List<AppModule> instances = modulesByName.get(moduleName);
+        return instances != null ? instances.get(instances.size() - 1).getId() : -1;
+    }
+
+    /**
+     * Rebuilds the module indexes from the VM list of the host.
+     */
+    public void updateModuleIndex() {
+        modulesByName.clear();
+        moduleByVmId.clear();
         for (Vm vm : getHost().getVmList()) {
-            if (((AppModule) vm).getName().equals(moduleName)) {
-                module = (AppModule) vm;
-                break;
+            AppModule module = (AppModule) vm;
+            List<AppModule> instances = modulesByName.get(module.getName());
+            if (instances == null) {
+                instances = new ArrayList<AppModule>(1);
+                modulesByName.put(module.getName(), instances);
             }
+            instances.add(module);
+            moduleByVmId.put(module.getId(), module);
         }
-        return module;
     }
 
     /**
@@ -395,6 +464,7 @@ public class FogDevice extends PowerDatacenter {
         int actuatorId = ev.getSource();
         double delay = (double) ev.getData();
         getAssociatedActuatorIds().add(new Pair<Integer, Double>(actuatorId, delay));
+        downlinkTargets.actuatorJoined(((Actuator) CloudSim.getEntity(actuatorId)).getActuatorType(), getId());
     }
 
 
@@ -405,11 +475,8 @@ public class FogDevice extends PowerDatacenter {
 
 
     public String getOperatorName(int vmId) {
-        for (Vm vm : this.getHost().getVmList()) {
-            if (vm.getId() == vmId)
-                return ((AppModule) vm).getName();
-        }
-        return null;
+        AppModule module = moduleByVmId.get(vmId);
+        return module != null ? module.getName() : null;
     }
 
     /**
@@ -431,18 +498,18 @@ public class FogDevice extends PowerDatacenter {
                 minTime = time;
             }
 
-            Log.formatLine(
+            Log.println(() -> String.format(
                     "%.2f: [Host #%d] utilization is %.2f%%",
                     currentTime,
                     host.getId(),
-                    host.getUtilizationOfCpu() * 100);
+                    host.getUtilizationOfCpu() * 100));
         }
 
         if (timeDiff > 0) {
-            Log.formatLine(
+            Log.println(() -> String.format(
                     "\nEnergy consumption for the last time frame from %.2f to %.2f:",
                     getLastProcessTime(),
-                    currentTime);
+                    currentTime));
 
             for (PowerHost host : this.<PowerHost>getHostList()) {
                 double previousUtilizationOfCpu = host.getPreviousUtilizationOfCpu();
@@ -454,24 +521,25 @@ public class FogDevice extends PowerDatacenter {
                 timeFrameDatacenterEnergy += timeFrameHostEnergy;
 
                 Log.printLine();
-                Log.formatLine(
+                Log.println(() -> String.format(
                         "%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
                         currentTime,
                         host.getId(),
                         getLastProcessTime(),
                         previousUtilizationOfCpu * 100,
-                        utilizationOfCpu * 100);
-                Log.formatLine(
+                        utilizationOfCpu * 100));
+                Log.println(() -> String.format(
                         "%.2f: [Host #%d] energy is %.2f W*sec",
                         currentTime,
                         host.getId(),
-                        timeFrameHostEnergy);
+                        timeFrameHostEnergy));
             }
 
-            Log.formatLine(
+            double datacenterEnergy = timeFrameDatacenterEnergy;
+            Log.println(() -> String.format(
                     "\n%.2f: Data center's energy is %.2f W*sec\n",
                     currentTime,
-                    timeFrameDatacenterEnergy);
+                    datacenterEnergy));
         }
 
         setPower(getPower() + timeFrameDatacenterEnergy);
@@ -508,18 +576,7 @@ public class FogDevice extends PowerDatacenter {
                     if (cl != null) {
 
                         cloudletCompleted = true;
-                        Tuple tuple = (Tuple) cl;
-                        TimeKeeper.getInstance().tupleEndedExecution(tuple);
-                        Application application = getApplicationMap().get(tuple.getAppId());
-                        Logger.debug(getName(), "Completed execution of tuple " + tuple.getCloudletId() + "on " + tuple.getDestModuleName());
-                        List<Tuple> resultantTuples = application.getResultantTuples(tuple.getDestModuleName(), tuple, getId(), vm.getId());
-                        for (Tuple resTuple : resultantTuples) {
-                            resTuple.setModuleCopyMap(new HashMap<String, Integer>(tuple.getModuleCopyMap()));
-                            resTuple.getModuleCopyMap().put(((AppModule) vm).getName(), vm.getId());
-                            updateTimingsOnSending(resTuple);
-                            sendToSelf(resTuple);
-                        }
-                        sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_RETURN, cl);
+                        processTupleCompletion((Tuple) cl, (AppModule) vm);
                     }
                 }
             }
@@ -528,34 +585,164 @@ public class FogDevice extends PowerDatacenter {
             updateAllocatedMips(null);
     }
 
+    /**
+     * Emits the tuples resulting from the execution of a tuple on a module of this device.
+     */
+    protected void processTupleCompletion(Tuple tuple, AppModule module) {
+        timeKeeper.tupleEndedExecution(tuple);
+        Application application = getApplicationMap().get(tuple.getAppId());
+        Logger.debug(getName(), () -> "Completed execution of tuple " + tuple.getCloudletId() + "on " + tuple.getDestModuleName());
+        List<Tuple> resultantTuples = application.getResultantTuples(tuple.getDestModuleName(), tuple, getId(), module.getId());
+        for (Tuple resTuple : resultantTuples) {
+            resTuple.inheritModuleCopies(tuple, module.getName(), module.getId());
+            updateTimingsOnSending(resTuple);
+            sendToSelf(resTuple);
+        }
+        sendNow(tuple.getUserId(), CloudActionTags.CLOUDLET_RETURN, tuple);
+    }
+
+    protected AnalyticTupleExecutor getTupleExecutor() {
+        if (tupleExecutor == null)
+            tupleExecutor = new AnalyticTupleExecutor(this);
+        return tupleExecutor;
+    }
+
     protected void updateTimingsOnSending(Tuple resTuple) {
         // TODO ADD CODE FOR UPDATING TIMINGS WHEN A TUPLE IS GENERATED FROM A PREVIOUSLY RECIEVED TUPLE.
         // WILL NEED TO CHECK IF A NEW LOOP STARTS AND INSERT A UNIQUE TUPLE ID TO IT.
-        String srcModule = resTuple.getSrcModuleName();
-        String destModule = resTuple.getDestModuleName();
-        for (AppLoop loop : getApplicationMap().get(resTuple.getAppId()).getLoops()) {
-            if (loop.hasEdge(srcModule, destModule) && loop.isStartModule(srcModule)) {
-                int tupleId = TimeKeeper.getInstance().getUniqueId();
-                resTuple.setActualTupleId(tupleId);
-                if (!TimeKeeper.getInstance().getLoopIdToTupleIds().containsKey(loop.getLoopId()))
-                    TimeKeeper.getInstance().getLoopIdToTupleIds().put(loop.getLoopId(), new ArrayList<Integer>());
-                TimeKeeper.getInstance().getLoopIdToTupleIds().get(loop.getLoopId()).add(tupleId);
-                TimeKeeper.getInstance().getEmitTimes().put(tupleId, CloudSim.clock());
-
-                //Logger.debug(getName(), "\tSENDING\t"+tuple.getActualTupleId()+"\tSrc:"+srcModule+"\tDest:"+destModule);
+        int[] loopIds = getApplicationMap().get(resTuple.getAppId()).getLoopIndex()
+                .getStartingLoopIds(resTuple.getSrcModuleName(), resTuple.getDestModuleName());
+        if (loopIds.length == 0)
+            return;
+        for (int loopId : loopIds) {
+            resTuple.setActualTupleId(timeKeeper.loopStarted(loopId));
+        }
+    }
+
+    protected int getChildIdWithRouteTo(int targetDeviceId) {
+        Integer childId = getDescendantToChild().get(targetDeviceId);
+        return childId != null ? childId : -1;
+    }
 
+    /**
+     * Gets the child through which each device below this one is reached, building the index of the whole
+     * subtree if needed.
+     */
+    protected Map<Integer, Integer> getDescendantToChild() {
+        if (descendantToChild == null) {
+            Map<Integer, Integer> index = new HashMap<Integer, Integer>();
+            for (int childId : childrenIds) {
+                index.put(childId, childId);
+                SimEntity child = CloudSim.getEntity(childId);
+                if (child instanceof FogDevice) {
+                    for (int descendantId : ((FogDevice) child).getDescendantToChild().keySet())
+                        index.put(descendantId, childId);
+                }
             }
+            descendantToChild = index;
         }
+        return descendantToChild;
     }
 
-    protected int getChildIdWithRouteTo(int targetDeviceId) {
-        for (Integer childId : getChildrenIds()) {
-            if (targetDeviceId == childId)
-                return childId;
-            if (((FogDevice) CloudSim.getEntity(childId)).getChildIdWithRouteTo(targetDeviceId) != -1)
-                return childId;
+    /**
+     * Moves this device and its subtree from the descendant indexes of the previous parent and its ancestors
+     * to those of the new parent and its ancestors. Indexes that were not built yet are left alone.
+     */
+    private void moveInDescendantIndexes(int previousParentId, int newParentId) {
+        List<Integer> movedIds = null;
+        for (FogDevice ancestor = getFogDevice(previousParentId); ancestor != null; ancestor = getFogDevice(ancestor.getParentId())) {
+            if (ancestor.descendantToChild == null)
+                continue;
+            if (movedIds == null)
+                movedIds = getSubtreeIds();
+            for (int id : movedIds)
+                ancestor.descendantToChild.remove(id);
         }
-        return -1;
+        int childId = getId();
+        for (FogDevice ancestor = getFogDevice(newParentId); ancestor != null; childId = ancestor.getId(), ancestor = getFogDevice(ancestor.getParentId())) {
+            if (ancestor.descendantToChild == null)
+                continue;
+            if (movedIds == null)
+                movedIds = getSubtreeIds();
+            for (int id : movedIds)
+                ancestor.descendantToChild.put(id, childId);
+        }
+    }
+
+    /**
+     * Drops the descendant indexes of this device and its ancestors, to be rebuilt on next use.
+     */
+    private void dropDescendantIndexes() {
+        descendantToChild = null;
+        for (FogDevice ancestor = getFogDevice(getParentId()); ancestor != null; ancestor = getFogDevice(ancestor.getParentId()))
+            ancestor.descendantToChild = null;
+    }
+
+    private List<Integer> getSubtreeIds() {
+        List<Integer> ids = new ArrayList<Integer>(getDescendantToChild().keySet());
+        ids.add(getId());
+        return ids;
+    }
+
+    private static FogDevice getFogDevice(int id) {
+        if (id < 0 || id >= CloudSim.getNumEntities())
+            return null;
+        SimEntity entity = CloudSim.getEntity(id);
+        return entity instanceof FogDevice ? (FogDevice) entity : null;
+    }
+
+    /**
+     * Sends a DOWN or actuator tuple to the children below which at least one of the target devices lies, in
+     * the order of the children, instead of to all of them (unless {@link Config#FLOOD_DOWN_TUPLES} is set).
+     *
+     * @param tuple the tuple
+     * @param targetDeviceIds IDs of the devices the tuple is delivered to
+     */
+    protected void sendDownTowards(Tuple tuple, Set<Integer> targetDeviceIds) {
+        if (simulationConfig.isFloodDownTuples()) {
+            if (childrenIds.size() > 1)
+                tuple.markShared();
+            for (int childId : childrenIds)
+                sendDown(tuple, childId);
+            return;
+        }
+        if (targetDeviceIds.isEmpty())
+            return;
+        Map<Integer, Integer> index = getDescendantToChild();
+        if (targetDeviceIds.size() == 1) {
+            Integer childId = index.get(targetDeviceIds.iterator().next());
+            if (childId != null)
+                sendDown(tuple, childId);
+            return;
+        }
+        if (downlinkChildren == null)
+            downlinkChildren = new BitSet();
+        else
+            downlinkChildren.clear();
+        for (Integer targetId : targetDeviceIds) {
+            Integer childId = index.get(targetId);
+            if (childId != null)
+                downlinkChildren.set(childId);
+        }
+        if (downlinkChildren.cardinality() > 1)
+            tuple.markShared();
+        for (int childId : childrenIds) {
+            if (downlinkChildren.get(childId))
+                sendDown(tuple, childId);
+        }
+    }
+
+    /**
+     * Sends a DOWN tuple towards the devices hosting its destination module. Tuples without a destination
+     * module go to all the children.
+     */
+    protected void sendDownToModuleHosts(Tuple tuple) {
+        if (tuple.getDestModuleName() == null) {
+            for (int childId : childrenIds)
+                sendDown(tuple, childId);
+            return;
+        }
+        sendDownTowards(tuple, downlinkTargets.getModuleHosts(tuple.getAppId(), tuple.getDestModuleName()));
     }
 
     protected int getChildIdForTuple(Tuple tuple) {
@@ -592,13 +779,17 @@ public class FogDevice extends PowerDatacenter {
 
     }
 
-    private void updateEnergyConsumption() {
+    protected void updateEnergyConsumption() {
         double totalMipsAllocated = 0;
-        for (final Vm vm : getHost().getVmList()) {
-            AppModule operator = (AppModule) vm;
-            operator.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(operator).getVmScheduler()
-                    .getAllocatedMipsForVm(operator));
-            totalMipsAllocated += getHost().getTotalAllocatedMipsForVm(vm);
+        if (tupleExecutor != null) {
+            totalMipsAllocated = tupleExecutor.getTotalAllocatedMips();
+        } else {
+            for (final Vm vm : getHost().getVmList()) {
+                AppModule operator = (AppModule) vm;
+                operator.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(operator).getVmScheduler()
+                        .getAllocatedMipsForVm(operator));
+                totalMipsAllocated += getHost().getTotalAllocatedMipsForVm(vm);
+            }
         }
 
         double timeNow = CloudSim.clock();
@@ -629,8 +820,11 @@ public class FogDevice extends PowerDatacenter {
     public void addChild(int childId) {
         if (CloudSim.getEntityName(childId).toLowerCase().contains("sensor"))
             return;
-        if (!getChildrenIds().contains(childId) && childId != getId())
-            getChildrenIds().add(childId);
+        if (!childrenIds.contains(childId) && childId != getId())
+            childrenIds.add(childId);
+        // a device attached with setParentId is already indexed here
+        if (descendantToChild != null && !Integer.valueOf(childId).equals(descendantToChild.get(childId)))
+            dropDescendantIndexes();
         if (!getChildToOperatorsMap().containsKey(childId))
             getChildToOperatorsMap().put(childId, new ArrayList<String>());
     }
@@ -664,9 +858,7 @@ public class FogDevice extends PowerDatacenter {
                 return;
             }
         }
-        for (int childId : getChildrenIds()) {
-            sendDown(tuple, childId);
-        }
+        sendDownTowards(tuple, downlinkTargets.getActuatorGateways(tuple.getDestModuleName()));
     }
 
     int numClients = 0;
@@ -681,16 +873,16 @@ public class FogDevice extends PowerDatacenter {
 		/*if(getName().equals("d-0") && tuple.getTupleType().equals("_SENSOR")){
 			System.out.println(++numClients);
 		}*/
-        Logger.debug(getName(), "Received tuple " + tuple.getCloudletId() + "with tupleType = " + tuple.getTupleType() + "\t| Source : " +
+        Logger.debug(getName(), () -> "Received tuple " + tuple.getCloudletId() + "with tupleType = " + tuple.getTupleType() + "\t| Source : " +
                 CloudSim.getEntityName(ev.getSource()) + "|Dest : " + CloudSim.getEntityName(ev.getDestination()));
 		
 		/*if(CloudSim.getEntityName(ev.getSource()).equals("drone_0")||CloudSim.getEntityName(ev.getDestination()).equals("drone_0"))
 			System.out.println(CloudSim.clock()+" "+getName()+" Received tuple "+tuple.getCloudletId()+" with tupleType = "+tuple.getTupleType()+"\t| Source : "+
 		CloudSim.getEntityName(ev.getSource())+"|Dest : "+CloudSim.getEntityName(ev.getDestination()));*/
 
-        send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+        acknowledgeTuple(ev);
 
-        if (FogUtils.appIdToGeoCoverageMap.containsKey(tuple.getAppId())) {
+        if (FogUtils.getAppIdToGeoCoverageMap().containsKey(tuple.getAppId())) {
         }
 
         if (tuple.getDirection() == Tuple.ACTUATOR) {
@@ -698,7 +890,8 @@ public class FogDevice extends PowerDatacenter {
             return;
         }
 
-        if (getHost().getVmList().size() > 0) {
+        // the analytic executor shares the host itself, without the VM allocations
+        if (!simulationConfig.isAnalyticTupleExecution() && getHost().getVmList().size() > 0) {
             final AppModule operator = (AppModule) getHost().getVmList().get(0);
             if (CloudSim.clock() > 0) {
                 getHost().getVmScheduler().deallocatePesForVm(operator);
@@ -719,14 +912,10 @@ public class FogDevice extends PowerDatacenter {
 
         if (appToModulesMap.containsKey(tuple.getAppId())) {
             if (appToModulesMap.get(tuple.getAppId()).contains(tuple.getDestModuleName())) {
-                int vmId = -1;
-                for (Vm vm : getHost().getVmList()) {
-                    if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
-                        vmId = vm.getId();
-                }
+                int vmId = getTargetVmId(tuple.getDestModuleName());
                 if (vmId < 0
-                        || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName()) &&
-                        tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+                        || (tuple.getModuleCopy(tuple.getDestModuleName()) != -1 &&
+                        tuple.getModuleCopy(tuple.getDestModuleName()) != vmId)) {
                     return;
                 }
                 tuple.setVmId(vmId);
@@ -738,55 +927,51 @@ public class FogDevice extends PowerDatacenter {
             } else if (tuple.getDestModuleName() != null) {
                 if (tuple.getDirection() == Tuple.UP)
                     sendUp(tuple);
-                else if (tuple.getDirection() == Tuple.DOWN) {
-                    for (int childId : getChildrenIds())
-                        sendDown(tuple, childId);
-                }
+                else if (tuple.getDirection() == Tuple.DOWN)
+                    sendDownToModuleHosts(tuple);
             } else {
                 sendUp(tuple);
             }
         } else {
             if (tuple.getDirection() == Tuple.UP)
                 sendUp(tuple);
-            else if (tuple.getDirection() == Tuple.DOWN) {
-                for (int childId : getChildrenIds())
-                    sendDown(tuple, childId);
-            }
+            else if (tuple.getDirection() == Tuple.DOWN)
+                sendDownToModuleHosts(tuple);
         }
     }
 
     protected void updateTimingsOnReceipt(Tuple tuple) {
         Application app = getApplicationMap().get(tuple.getAppId());
-        String srcModule = tuple.getSrcModuleName();
-        String destModule = tuple.getDestModuleName();
-        List<AppLoop> loops = app.getLoops();
-        for (AppLoop loop : loops) {
-            if (loop.hasEdge(srcModule, destModule) && loop.isEndModule(destModule)) {
-                Double startTime = TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-                if (startTime == null)
-                    break;
-                if (!TimeKeeper.getInstance().getLoopIdToCurrentAverage().containsKey(loop.getLoopId())) {
-                    TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), 0.0);
-                    TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), 0);
-                }
-                double currentAverage = TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loop.getLoopId());
-                int currentCount = TimeKeeper.getInstance().getLoopIdToCurrentNum().get(loop.getLoopId());
-                double delay = CloudSim.clock() - TimeKeeper.getInstance().getEmitTimes().get(tuple.getActualTupleId());
-                TimeKeeper.getInstance().getEmitTimes().remove(tuple.getActualTupleId());
-                double newAverage = (currentAverage * currentCount + delay) / (currentCount + 1);
-                TimeKeeper.getInstance().getLoopIdToCurrentAverage().put(loop.getLoopId(), newAverage);
-                TimeKeeper.getInstance().getLoopIdToCurrentNum().put(loop.getLoopId(), currentCount + 1);
-                break;
-            }
-        }
+        int loopId = app.getLoopIndex().getEndingLoopId(tuple.getSrcModuleName(), tuple.getDestModuleName());
+        if (loopId != -1)
+            timeKeeper.loopEnded(loopId, tuple.getActualTupleId());
     }
 
     protected void processSensorJoining(SimEvent ev) {
+        if (simulationConfig.getAcknowledgementPolicy() != AcknowledgementPolicy.NONE)
+            send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+    }
+
+    /**
+     * Acknowledges the arrival of a tuple to its sender, as {@link Config#ACKNOWLEDGEMENT_POLICY} requires.
+     */
+    protected void acknowledgeTuple(SimEvent ev) {
+        switch (simulationConfig.getAcknowledgementPolicy()) {
+            case NONE:
+                return;
+            case SAMPLED:
+                if (++unacknowledgedTupleCount < simulationConfig.getAcknowledgementSamplingInterval())
+                    return;
+                unacknowledgedTupleCount = 0;
+                break;
+            default:
+                break;
+        }
         send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
     }
 
     protected void executeTuple(SimEvent ev, String moduleName) {
-        Logger.debug(getName(), "Executing tuple on module " + moduleName);
+        Logger.debug(getName(), () -> "Executing tuple on module " + moduleName);
         Tuple tuple = (Tuple) ev.getData();
 
         AppModule module = getModuleByName(moduleName);
@@ -805,7 +990,11 @@ public class FogDevice extends PowerDatacenter {
             module.setNumInstances(instances);
         }
 
-        TimeKeeper.getInstance().tupleStartedExecution(tuple);
+        timeKeeper.tupleStartedExecution(tuple);
+        if (simulationConfig.isAnalyticTupleExecution()) {
+            getTupleExecutor().submit(tuple, module);
+            return;
+        }
         updateAllocatedMips(moduleName);
         processCloudletSubmit(ev, false);
         updateAllocatedMips(moduleName);
@@ -821,6 +1010,7 @@ public class FogDevice extends PowerDatacenter {
             appToModulesMap.put(appId, new ArrayList<String>());
         }
         appToModulesMap.get(appId).add(module.getName());
+        downlinkTargets.moduleAdded(appId, module.getName(), getId());
         processVmCreate(ev, false);
         if (module.isBeingInstantiated()) {
             module.setBeingInstantiated(false);
@@ -834,7 +1024,24 @@ public class FogDevice extends PowerDatacenter {
     }
 
     protected void processModuleTermination(SimEvent ev) {
+        AppModule module = (AppModule) ev.getData();
+        if (tupleExecutor != null)
+            tupleExecutor.removeModule(module);
         processVmDestroy(ev, false);
+        if (!hostsModule(module.getAppId(), module.getName()))
+            downlinkTargets.moduleRemoved(module.getAppId(), module.getName(), getId());
+    }
+
+    /**
+     * Checks whether an instance of a module is still placed on this device.
+     */
+    protected boolean hostsModule(String appId, String moduleName) {
+        for (Vm vm : getHost().getVmList()) {
+            AppModule module = (AppModule) vm;
+            if (module.getName().equals(moduleName) && module.getAppId().equals(appId))
+                return true;
+        }
+        return false;
     }
 
     protected void initializePeriodicTuples(AppModule module) {
@@ -852,11 +1059,24 @@ public class FogDevice extends PowerDatacenter {
 
 
     protected void updateNorthTupleQueue() {
-        if (!getNorthTupleQueue().isEmpty()) {
-            Tuple tuple = getNorthTupleQueue().poll();
-            sendUpFreeLink(tuple);
-        } else {
+        TupleQueue queue = getNorthTupleQueue();
+        if (queue.isEmpty()) {
             setNorthLinkBusy(false);
+        } else if (!simulationConfig.isBatchLinkTransmission()) {
+            sendUpFreeLink(queue.poll());
+        } else {
+            // the whole backlog leaves back to back; the link is free again after the last tuple
+            double busyTime = 0;
+            for (int i = 0; i < queue.size(); i++)
+                busyTime += queue.get(i).getCloudletFileSize() / getUplinkBandwidth();
+            send(getId(), busyTime, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
+            double queueDelay = 0;
+            while (!queue.isEmpty()) {
+                Tuple tuple = queue.poll();
+                double networkDelay = tuple.getCloudletFileSize() / getUplinkBandwidth();
+                transmitUp(tuple, queueDelay + networkDelay);
+                queueDelay += networkDelay;
+            }
         }
     }
 
@@ -864,8 +1084,19 @@ public class FogDevice extends PowerDatacenter {
         double networkDelay = tuple.getCloudletFileSize() / getUplinkBandwidth();
         setNorthLinkBusy(true);
         send(getId(), networkDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
-        send(parentId, networkDelay + getUplinkLatency(), FogEvents.TUPLE_ARRIVAL, tuple);
-        NetworkUsageMonitor.sendingTuple(getUplinkLatency(), tuple.getCloudletFileSize());
+        transmitUp(tuple, networkDelay);
+    }
+
+    /**
+     * Sends a tuple to the parent once it has been transmitted on the uplink.
+     *
+     * @param tuple the tuple
+     * @param transmissionDelay delay until the tuple has left this device: its own transmission
+     *                          time, plus the transmission time of the tuples sent before it in the same batch
+     */
+    protected void transmitUp(Tuple tuple, double transmissionDelay) {
+        send(parentId, transmissionDelay + getUplinkLatency(), FogEvents.TUPLE_ARRIVAL, tuple);
+        networkUsageMonitor.tupleSent(getUplinkLatency(), tuple.getCloudletFileSize());
     }
 
     protected void sendUp(Tuple tuple) {
@@ -873,18 +1104,32 @@ public class FogDevice extends PowerDatacenter {
             if (!isNorthLinkBusy()) {
                 sendUpFreeLink(tuple);
             } else {
-                northTupleQueue.add(tuple);
+                northTupleQueue.add(tuple, parentId);
             }
         }
     }
 
 
     protected void updateSouthTupleQueue() {
-        if (!getSouthTupleQueue().isEmpty()) {
-            Pair<Tuple, Integer> pair = getSouthTupleQueue().poll();
-            sendDownFreeLink(pair.getFirst(), pair.getSecond());
-        } else {
+        TupleQueue queue = getSouthTupleQueue();
+        if (queue.isEmpty()) {
             setSouthLinkBusy(false);
+        } else if (!simulationConfig.isBatchLinkTransmission()) {
+            int childId = queue.peekDestination();
+            sendDownFreeLink(queue.poll(), childId);
+        } else {
+            double busyTime = 0;
+            for (int i = 0; i < queue.size(); i++)
+                busyTime += queue.get(i).getCloudletFileSize() / getDownlinkBandwidth();
+            send(getId(), busyTime, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
+            double queueDelay = 0;
+            while (!queue.isEmpty()) {
+                int childId = queue.peekDestination();
+                Tuple tuple = queue.poll();
+                double networkDelay = tuple.getCloudletFileSize() / getDownlinkBandwidth();
+                transmitDown(tuple, childId, queueDelay + networkDelay);
+                queueDelay += networkDelay;
+            }
         }
     }
 
@@ -893,18 +1138,29 @@ public class FogDevice extends PowerDatacenter {
         //Logger.debug(getName(), "Sending tuple with tupleType = "+tuple.getTupleType()+" DOWN");
         setSouthLinkBusy(true);
         //System.out.println(getName()+" Sending tuple with tupleType = "+tuple.getTupleType()+" to "+childId);
-        double latency = getChildToLatencyMap().get(childId);
         send(getId(), networkDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
-        send(childId, networkDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
-        NetworkUsageMonitor.sendingTuple(latency, tuple.getCloudletFileSize());
+        transmitDown(tuple, childId, networkDelay);
+    }
+
+    /**
+     * Sends a tuple to a child once it has been transmitted on the downlink.
+     *
+     * @param tuple the tuple
+     * @param childId id of the child
+     * @param transmissionDelay delay until the tuple has left this device, see {@link #transmitUp(Tuple, double)}
+     */
+    protected void transmitDown(Tuple tuple, int childId, double transmissionDelay) {
+        double latency = getChildToLatencyMap().get(childId);
+        send(childId, transmissionDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
+        networkUsageMonitor.tupleSent(latency, tuple.getCloudletFileSize());
     }
 
     protected void sendDown(Tuple tuple, int childId) {
-        if (getChildrenIds().contains(childId)) {
+        if (childrenIds.contains(childId)) {
             if (!isSouthLinkBusy()) {
                 sendDownFreeLink(tuple, childId);
             } else {
-                southTupleQueue.add(new Pair<Tuple, Integer>(tuple, childId));
+                southTupleQueue.add(tuple, childId);
             }
         }
     }
@@ -922,16 +1178,29 @@ public class FogDevice extends PowerDatacenter {
         return parentId;
     }
 
+    /**
+     * Sets the parent of this device. When a device with a parent is attached to another one, it is moved
+     * with its subtree between the descendant indexes of the two branches; the children lists of the two
+     * parents are to be updated by the caller.
+     */
     public void setParentId(int parentId) {
+        int previousParentId = this.parentId;
         this.parentId = parentId;
+        if (previousParentId != parentId)
+            moveInDescendantIndexes(previousParentId, parentId);
     }
 
+    /**
+     * Gets the IDs of the children, read-only: they are added and removed with {@link #addChild(int)} and
+     * {@link #removeChild(int)}, which keep the descendant indexes up to date.
+     */
     public List<Integer> getChildrenIds() {
-        return childrenIds;
+        return Collections.unmodifiableList(childrenIds);
     }
 
     public void setChildrenIds(List<Integer> childrenIds) {
         this.childrenIds = childrenIds;
+        dropDescendantIndexes();
     }
 
     public double getUplinkBandwidth() {
@@ -998,19 +1267,19 @@ public class FogDevice extends PowerDatacenter {
         this.applicationMap = applicationMap;
     }
 
-    public Queue<Tuple> getNorthTupleQueue() {
+    public TupleQueue getNorthTupleQueue() {
         return northTupleQueue;
     }
 
-    public void setNorthTupleQueue(Queue<Tuple> northTupleQueue) {
+    public void setNorthTupleQueue(TupleQueue northTupleQueue) {
         this.northTupleQueue = northTupleQueue;
     }
 
-    public Queue<Pair<Tuple, Integer>> getSouthTupleQueue() {
+    public TupleQueue getSouthTupleQueue() {
         return southTupleQueue;
     }
 
-    public void setSouthTupleQueue(Queue<Pair<Tuple, Integer>> southTupleQueue) {
+    public void setSouthTupleQueue(TupleQueue southTupleQueue) {
         this.southTupleQueue = southTupleQueue;
     }
 
@@ -1087,8 +1356,11 @@ public class FogDevice extends PowerDatacenter {
         // TODO Auto-generated method stub
         @SuppressWarnings("deprecation")
         Integer childIDobject = Integer.valueOf(childId);
-        if (getChildrenIds().contains(childId) && childId != getId())
-            getChildrenIds().remove(childIDobject);
+        if (childrenIds.contains(childId) && childId != getId())
+            childrenIds.remove(childIDobject);
+        // a device detached with setParentId is already out of the index
+        if (descendantToChild != null && descendantToChild.containsKey(childId))
+            dropDescendantIndexes();
         if (getChildToOperatorsMap().containsKey(childId)) {
             List<String> operatorName = getChildToOperatorsMap().get(childId);
             getChildToOperatorsMap().remove(childId, operatorName);
@@ -1150,34 +1422,52 @@ public class FogDevice extends PowerDatacenter {
             if (!isClusterLinkBusy) {
                 sendThroughFreeClusterLink(tuple, clusterNodeID);
             } else {
-                clusterTupleQueue.add(new Pair<Tuple, Integer>(tuple, clusterNodeID));
+                clusterTupleQueue.add(tuple, clusterNodeID);
             }
         }
     }
 
     private void updateClusterTupleQueue() {
-        if (!getClusterTupleQueue().isEmpty()) {
-            Pair<Tuple, Integer> pair = getClusterTupleQueue().poll();
-            sendThroughFreeClusterLink(pair.getFirst(), pair.getSecond());
-        } else {
+        TupleQueue queue = getClusterTupleQueue();
+        if (queue.isEmpty()) {
             setClusterLinkBusy(false);
+        } else if (!simulationConfig.isBatchLinkTransmission()) {
+            int clusterNodeID = queue.peekDestination();
+            sendThroughFreeClusterLink(queue.poll(), clusterNodeID);
+        } else {
+            double busyTime = 0;
+            for (int i = 0; i < queue.size(); i++)
+                busyTime += queue.get(i).getCloudletFileSize() / getClusterLinkBandwidth();
+            send(getId(), busyTime, FogEvents.UPDATE_CLUSTER_TUPLE_QUEUE);
+            double queueDelay = 0;
+            while (!queue.isEmpty()) {
+                int clusterNodeID = queue.peekDestination();
+                Tuple tuple = queue.poll();
+                double networkDelay = tuple.getCloudletFileSize() / getClusterLinkBandwidth();
+                transmitToCluster(tuple, clusterNodeID, queueDelay + networkDelay);
+                queueDelay += networkDelay;
+            }
         }
     }
 
-    private void sendThroughFreeClusterLink(Tuple tuple, Integer clusterNodeID) {
+    private void sendThroughFreeClusterLink(Tuple tuple, int clusterNodeID) {
         double networkDelay = tuple.getCloudletFileSize() / getClusterLinkBandwidth();
         setClusterLinkBusy(true);
-        double latency = (getClusterMembersToLatencyMap()).get(clusterNodeID);
         send(getId(), networkDelay, FogEvents.UPDATE_CLUSTER_TUPLE_QUEUE);
-        send(clusterNodeID, networkDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
-        NetworkUsageMonitor.sendingTuple(latency, tuple.getCloudletFileSize());
+        transmitToCluster(tuple, clusterNodeID, networkDelay);
+    }
+
+    private void transmitToCluster(Tuple tuple, int clusterNodeID, double transmissionDelay) {
+        double latency = (getClusterMembersToLatencyMap()).get(clusterNodeID);
+        send(clusterNodeID, transmissionDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
+        networkUsageMonitor.tupleSent(latency, tuple.getCloudletFileSize());
     }
 
     protected void setClusterLinkBusy(boolean busy) {
         this.isClusterLinkBusy = busy;
     }
 
-    public Queue<Pair<Tuple, Integer>> getClusterTupleQueue() {
+    public TupleQueue getClusterTupleQueue() {
         return clusterTupleQueue;
     }
 
@@ -2,7 +2,6 @@ package org.fog.entities;
 
 import org.apache.commons.math3.util.Pair;
 import org.cloudbus.cloudsim.Storage;
-import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -15,6 +14,7 @@ import org.fog.utils.*;
 import org.json.simple.JSONObject;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * Created by Samodha Pallewatta
@@ -42,9 +42,9 @@ public class MicroserviceFogDevice extends FogDevice {
 
     /**
      * used to forward tuples towards the destination device
-     * map of <destinationID,nextDeviceID> based on shortest path.
+     * next devices based on shortest path, shared by all the devices of the controller; set by the controller.
      */
-    protected Map<Integer, Integer> routingTable = new HashMap<>();
+    protected NextHopTable routingTable;
 
 
     protected ControllerComponent controllerComponent;
@@ -111,7 +111,7 @@ public class MicroserviceFogDevice extends FogDevice {
 
     public void addPlacementRequest(PlacementRequest pr) {
         placementRequests.add(pr);
-        if (MicroservicePlacementConfig.PR_PROCESSING_MODE == MicroservicePlacementConfig.SEQUENTIAL && placementRequests.size() == 1)
+        if (MicroservicePlacementConfig.SEQUENTIAL.equals(simulationConfig.getPrProcessingMode()) && placementRequests.size() == 1)
             sendNow(getId(), FogEvents.PROCESS_PRS);
     }
 
@@ -128,7 +128,7 @@ public class MicroserviceFogDevice extends FogDevice {
 //                NetworkUsageMonitor.sendingManagementTuple(latency, tuple.getCloudletFileSize());
         } else {
             send(clusterNodeID, networkDelay + latency, FogEvents.TUPLE_ARRIVAL, tuple);
-            NetworkUsageMonitor.sendingTuple(latency, tuple.getCloudletFileSize());
+            networkUsageMonitor.tupleSent(latency, tuple.getCloudletFileSize());
         }
     }
 
@@ -144,28 +144,37 @@ public class MicroserviceFogDevice extends FogDevice {
         return deviceType;
     }
 
-    public void addRoutingTable(Map<Integer, Integer> routingTable) {
+    public void addRoutingTable(NextHopTable routingTable) {
         this.routingTable = routingTable;
     }
 
-    public Map<Integer, Integer> getRoutingTable() {
+    public NextHopTable getRoutingTable() {
         return routingTable;
     }
 
+    /**
+     * Gets the device to which this device forwards tuples for a destination.
+     *
+     * @return the id of the next device, or -1 if the routing table has no route
+     */
+    public int getNextHop(int destId) {
+        return routingTable != null ? routingTable.getNextHop(getId(), destId) : -1;
+    }
+
     protected void processTupleArrival(SimEvent ev) {
 
         Tuple tuple = (Tuple) ev.getData();
 
-        Logger.debug(getName(), "Received tuple " + tuple.getCloudletId() + "with tupleType = " + tuple.getTupleType() + "\t| Source : " +
+        Logger.debug(getName(), () -> "Received tuple " + tuple.getCloudletId() + "with tupleType = " + tuple.getTupleType() + "\t| Source : " +
                 CloudSim.getEntityName(ev.getSource()) + "|Dest : " + CloudSim.getEntityName(ev.getDestination()));
 
         if (deviceType.equals(MicroserviceFogDevice.CLOUD)) {
             updateCloudTraffic();
         }
 
-        send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), FogEvents.TUPLE_ACK);
+        acknowledgeTuple(ev);
 
-        if (FogUtils.appIdToGeoCoverageMap.containsKey(tuple.getAppId())) {
+        if (FogUtils.getAppIdToGeoCoverageMap().containsKey(tuple.getAppId())) {
         }
 
         if (tuple.getDirection() == Tuple.ACTUATOR) {
@@ -173,7 +182,8 @@ public class MicroserviceFogDevice extends FogDevice {
             return;
         }
 
-        if (getHost().getVmList().size() > 0) {
+        // the analytic executor shares the host itself, without the VM allocations
+        if (!simulationConfig.isAnalyticTupleExecution() && getHost().getVmList().size() > 0) {
             final AppModule operator = (AppModule) getHost().getVmList().get(0);
             if (CloudSim.clock() > 0) {
                 getHost().getVmScheduler().deallocatePesForVm(operator);
@@ -210,14 +220,10 @@ public class MicroserviceFogDevice extends FogDevice {
         }
 
         if (tuple.getDestinationDeviceId() == getId()) {
-            int vmId = -1;
-            for (Vm vm : getHost().getVmList()) {
-                if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
-                    vmId = vm.getId();
-            }
+            int vmId = getTargetVmId(tuple.getDestModuleName());
             if (vmId < 0
-                    || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName()) &&
-                    tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+                    || (tuple.getModuleCopy(tuple.getDestModuleName()) != -1 &&
+                    tuple.getModuleCopy(tuple.getDestModuleName()) != vmId)) {
                 return;
             }
             tuple.setVmId(vmId);
@@ -228,7 +234,7 @@ public class MicroserviceFogDevice extends FogDevice {
             executeTuple(ev, tuple.getDestModuleName());
         } else {
             if (tuple.getDestinationDeviceId() != -1) {
-                int nextDeviceToSend = routingTable.get(tuple.getDestinationDeviceId());
+                int nextDeviceToSend = getNextHop(tuple.getDestinationDeviceId());
                 if (nextDeviceToSend == parentId)
                     sendUp(tuple);
                 else if (childrenIds.contains(nextDeviceToSend))
@@ -243,14 +249,10 @@ public class MicroserviceFogDevice extends FogDevice {
                 if (tuple.getDirection() == Tuple.DOWN) {
                     if (appToModulesMap.containsKey(tuple.getAppId())) {
                         if (appToModulesMap.get(tuple.getAppId()).contains(tuple.getDestModuleName())) {
-                            int vmId = -1;
-                            for (Vm vm : getHost().getVmList()) {
-                                if (((AppModule) vm).getName().equals(tuple.getDestModuleName()))
-                                    vmId = vm.getId();
-                            }
+                            int vmId = getTargetVmId(tuple.getDestModuleName());
                             if (vmId < 0
-                                    || (tuple.getModuleCopyMap().containsKey(tuple.getDestModuleName()) &&
-                                    tuple.getModuleCopyMap().get(tuple.getDestModuleName()) != vmId)) {
+                                    || (tuple.getModuleCopy(tuple.getDestModuleName()) != -1 &&
+                                    tuple.getModuleCopy(tuple.getDestModuleName()) != vmId)) {
                                 return;
                             }
                             tuple.setVmId(vmId);
@@ -265,8 +267,7 @@ public class MicroserviceFogDevice extends FogDevice {
                     }
 
 
-                    for (int childId : getChildrenIds())
-                        sendDown(tuple, childId);
+                    sendDownToModuleHosts(tuple);
 
                 } else {
                     Logger.error("Routing error", "Destination id -1 for UP tuple");
@@ -311,21 +312,20 @@ public class MicroserviceFogDevice extends FogDevice {
     }
 
     protected void processPlacementRequests() {
-        if (MicroservicePlacementConfig.PR_PROCESSING_MODE == MicroservicePlacementConfig.PERIODIC && placementRequests.size() == 0) {
+        if (MicroservicePlacementConfig.PERIODIC.equals(simulationConfig.getPrProcessingMode()) && placementRequests.size() == 0) {
             send(getId(), MicroservicePlacementConfig.PLACEMENT_INTERVAL, FogEvents.PROCESS_PRS);
             return;
         }
         long startTime = System.nanoTime();
 
-        List<PlacementRequest> placementRequests = new ArrayList<>();
-
-        if (MicroservicePlacementConfig.PR_PROCESSING_MODE == MicroservicePlacementConfig.PERIODIC) {
-            placementRequests.addAll(this.placementRequests);
+        List<PlacementRequest> placementRequests = getPlacementRequestsToProcess();
+        if (MicroservicePlacementConfig.PERIODIC.equals(simulationConfig.getPrProcessingMode()))
             this.placementRequests.clear();
-        } else if (MicroservicePlacementConfig.PR_PROCESSING_MODE == MicroservicePlacementConfig.SEQUENTIAL) {
-            placementRequests.add(this.placementRequests.get(0));
+        else if (MicroservicePlacementConfig.SEQUENTIAL.equals(simulationConfig.getPrProcessingMode()))
             this.placementRequests.remove(0);
-        }
+
+        if (simulationConfig.isParallelBatchPlacement())
+            preparePlacementBatch(placementRequests);
 
         PlacementLogicOutput placementLogicOutput = getControllerComponent().executeApplicationPlacementLogic(placementRequests);
         long endTime = System.nanoTime();
@@ -343,7 +343,7 @@ public class MicroserviceFogDevice extends FogDevice {
                 fogDeviceCount++;
             placementString.append(CloudSim.getEntity(deviceID).getName() + " : ");
             for (Application app : perDevice.get(deviceID).keySet()) {
-                if (MicroservicePlacementConfig.SIMULATION_MODE == "STATIC") {
+                if ("STATIC".equals(simulationConfig.getSimulationMode())) {
                     //ACTIVE_APP_UPDATE
                     sendNow(deviceID, FogEvents.ACTIVE_APP_UPDATE, app);
                     //APP_SUBMIT
@@ -357,7 +357,7 @@ public class MicroserviceFogDevice extends FogDevice {
                     }
                 }
             }
-            if (MicroservicePlacementConfig.SIMULATION_MODE == "DYNAMIC") {
+            if ("DYNAMIC".equals(simulationConfig.getSimulationMode())) {
                 //todo
                 transmitModulesToDeply(deviceID, perDevice.get(deviceID));
             }
@@ -366,9 +366,9 @@ public class MicroserviceFogDevice extends FogDevice {
         System.out.println(placementString.toString());
         for (int clientDevice : serviceDicovery.keySet()) {
             for (Pair serviceData : serviceDicovery.get(clientDevice)) {
-                if (MicroservicePlacementConfig.SIMULATION_MODE == "DYNAMIC") {
+                if ("DYNAMIC".equals(simulationConfig.getSimulationMode())) {
                     transmitServiceDiscoveryData(clientDevice, serviceData);
-                } else if (MicroservicePlacementConfig.SIMULATION_MODE == "STATIC") {
+                } else if ("STATIC".equals(simulationConfig.getSimulationMode())) {
                     JSONObject serviceDiscoveryAdd = new JSONObject();
                     serviceDiscoveryAdd.put("service data", serviceData);
                     serviceDiscoveryAdd.put("action", "ADD");
@@ -379,21 +379,67 @@ public class MicroserviceFogDevice extends FogDevice {
 
         for (PlacementRequest pr : placementRequestStatus.keySet()) {
             if (placementRequestStatus.get(pr) != -1) {
-                if (MicroservicePlacementConfig.SIMULATION_MODE == "DYNAMIC")
+                if ("DYNAMIC".equals(simulationConfig.getSimulationMode()))
                     transmitPR(pr, placementRequestStatus.get(pr));
 
-                else if (MicroservicePlacementConfig.SIMULATION_MODE == "STATIC")
+                else if ("STATIC".equals(simulationConfig.getSimulationMode()))
                     sendNow(placementRequestStatus.get(pr), FogEvents.RECEIVE_PR, pr);
 
             }
         }
 
-        if (MicroservicePlacementConfig.PR_PROCESSING_MODE == MicroservicePlacementConfig.PERIODIC)
+        if (MicroservicePlacementConfig.PERIODIC.equals(simulationConfig.getPrProcessingMode()))
             send(getId(), MicroservicePlacementConfig.PLACEMENT_INTERVAL, FogEvents.PROCESS_PRS);
-        else if (MicroservicePlacementConfig.PR_PROCESSING_MODE == MicroservicePlacementConfig.SEQUENTIAL && !this.placementRequests.isEmpty())
+        else if (MicroservicePlacementConfig.SEQUENTIAL.equals(simulationConfig.getPrProcessingMode()) && !this.placementRequests.isEmpty())
             sendNow(getId(), FogEvents.PROCESS_PRS);
     }
 
+    /**
+     * Gets the pending placement requests that the next placement run processes, all of them in periodic mode and the
+     * oldest one in sequential mode.
+     */
+    private List<PlacementRequest> getPlacementRequestsToProcess() {
+        List<PlacementRequest> placementRequests = new ArrayList<>();
+        if (MicroservicePlacementConfig.PERIODIC.equals(simulationConfig.getPrProcessingMode())) {
+            placementRequests.addAll(this.placementRequests);
+        } else if (MicroservicePlacementConfig.SEQUENTIAL.equals(simulationConfig.getPrProcessingMode())) {
+            placementRequests.add(this.placementRequests.get(0));
+        }
+        return placementRequests;
+    }
+
+    /**
+     * Maps the placement requests of this device together with those of the FONs that process placement requests
+     * later in this clock tick, on the common fork-join pool, so that their placement runs only apply the result. A
+     * FON joins the batch only when processing placement requests is the next event it handles: the devices handle
+     * their events of a tick one after the other and the events they send are handled in a later tick, so its requests
+     * and placement state are then the same as when its turn comes, and the simulation is the same as in serial mode.
+     * The requests of a FON are placed on the FON only, so the FONs of a batch do not share any placement state.
+     */
+    private void preparePlacementBatch(List<PlacementRequest> placementRequests) {
+        if (placementRequests.isEmpty() || !getControllerComponent().canPrepareApplicationPlacement())
+            return;
+        List<MicroserviceFogDevice> batch = new ArrayList<>();
+        List<List<PlacementRequest>> batchRequests = new ArrayList<>();
+        batch.add(this);
+        batchRequests.add(placementRequests);
+        for (int id = getId() + 1; id < CloudSim.getNumEntities(); id++) {
+            if (!(CloudSim.getEntity(id) instanceof MicroserviceFogDevice))
+                continue;
+            MicroserviceFogDevice device = (MicroserviceFogDevice) CloudSim.getEntity(id);
+            SimEvent next = device.findFirstDeferred(CloudSim.SIM_ANY);
+            if (next == null || next.getTag() != FogEvents.PROCESS_PRS || device.getControllerComponent() == null
+                    || device.placementRequests.isEmpty() || !device.getControllerComponent().canPrepareApplicationPlacement())
+                continue;
+            batch.add(device);
+            batchRequests.add(device.getPlacementRequestsToProcess());
+        }
+        if (batch.size() == 1)
+            return;
+        IntStream.range(0, batch.size()).parallel().forEach(i ->
+                batch.get(i).getControllerComponent().prepareApplicationPlacement(batchRequests.get(i)));
+    }
+
     public List<Integer> getClientServiceNodeIds(Application application, String
             microservice, Map<String, Integer> placed, Map<String, Integer> placementPerPr) {
         List<String> clientServices = getClientServices(application, microservice);
@@ -441,6 +487,7 @@ public class MicroserviceFogDevice extends FogDevice {
         }
         if (!appToModulesMap.get(appId).contains(module.getName())) {
             appToModulesMap.get(appId).add(module.getName());
+            downlinkTargets.moduleAdded(appId, module.getName(), getId());
             processVmCreate(ev, false);
             boolean result = getVmAllocationPolicy().allocateHostForVm(module);
             if (result) {
@@ -475,7 +522,7 @@ public class MicroserviceFogDevice extends FogDevice {
         ModuleLaunchConfig moduleLaunchConfig = new ModuleLaunchConfig(appModule, 1);
         sendNow(getId(), FogEvents.LAUNCH_MODULE_INSTANCE, moduleLaunchConfig);
 
-        NetworkUsageMonitor.sendingModule((double) object.get("delay"), appModule.getSize());
+        networkUsageMonitor.moduleSent((double) object.get("delay"), appModule.getSize());
         MigrationDelayMonitor.setMigrationDelay((double) object.get("delay"));
     }
 
@@ -485,7 +532,7 @@ public class MicroserviceFogDevice extends FogDevice {
         JSONObject object = (JSONObject) ev.getData();
         AppModule appModule = (AppModule) object.get("module");
         System.out.println(getName() + " is sending " + appModule.getName());
-        NetworkUsageMonitor.sendingModule((double) object.get("delay"), appModule.getSize());
+        networkUsageMonitor.moduleSent((double) object.get("delay"), appModule.getSize());
         MigrationDelayMonitor.setMigrationDelay((double) object.get("delay"));
 
         if (moduleInstanceCount.containsKey(appModule.getAppId()) && moduleInstanceCount.get(appModule.getAppId()).containsKey(appModule.getName())) {
@@ -555,7 +602,7 @@ public class MicroserviceFogDevice extends FogDevice {
                 sendNow(getId(), FogEvents.UPDATE_RESOURCE_INFO, tuple.getResourceData());
             }
         } else if (tuple.getDestinationDeviceId() != -1) {
-            int nextDeviceToSend = routingTable.get(tuple.getDestinationDeviceId());
+            int nextDeviceToSend = getNextHop(tuple.getDestinationDeviceId());
             if (nextDeviceToSend == parentId)
                 sendUp(tuple);
             else if (childrenIds.contains(nextDeviceToSend))
@@ -577,10 +624,10 @@ public class MicroserviceFogDevice extends FogDevice {
             for (ModuleLaunchConfig moduleLaunchConfig : deployementSet.get(app)) {
                 String microserviceName = moduleLaunchConfig.getModule().getName();
                 //LAUNCH_MODULE
-                if (MicroservicePlacementConfig.SIMULATION_MODE == "STATIC") {
+                if ("STATIC".equals(simulationConfig.getSimulationMode())) {
                     sendNow(getId(), FogEvents.LAUNCH_MODULE, new AppModule(app.getModuleByName(microserviceName)));
-                } else if (MicroservicePlacementConfig.SIMULATION_MODE == "DYNAMIC") {
-                    send(getId(), MicroservicePlacementConfig.MODULE_DEPLOYMENT_TIME, FogEvents.LAUNCH_MODULE, new AppModule(app.getModuleByName(microserviceName)));
+                } else if ("DYNAMIC".equals(simulationConfig.getSimulationMode())) {
+                    send(getId(), simulationConfig.getModuleDeploymentTime(), FogEvents.LAUNCH_MODULE, new AppModule(app.getModuleByName(microserviceName)));
                 }
                 sendNow(getId(), FogEvents.LAUNCH_MODULE_INSTANCE, moduleLaunchConfig);
             }
@@ -616,7 +663,7 @@ public class MicroserviceFogDevice extends FogDevice {
             double storage = getControllerComponent().getAvailableResource(getId(), ControllerComponent.STORAGE) - (config.getModule().getSize() * config.getInstanceCount());
             getControllerComponent().updateResources(getId(), ControllerComponent.STORAGE, storage);
         }
-        if (isInCluster && MicroservicePlacementConfig.ENABLE_RESOURCE_DATA_SHARING) {
+        if (isInCluster && simulationConfig.isResourceDataSharing()) {
             for (Integer deviceId : getClusterMembers()) {
                 ManagementTuple managementTuple = new ManagementTuple(FogUtils.generateTupleId(), ManagementTuple.NONE, ManagementTuple.RESOURCE_UPDATE);
                 Pair<Integer, Map<String, Double>> data = new Pair<>(getId(), getControllerComponent().resourceAvailability.get(getId()));
@@ -627,42 +674,38 @@ public class MicroserviceFogDevice extends FogDevice {
         }
     }
 
-    protected void sendDownFreeLink(Tuple tuple, int childId) {
+    protected void transmitDown(Tuple tuple, int childId, double transmissionDelay) {
         if (tuple instanceof ManagementTuple) {
-            double networkDelay = tuple.getCloudletFileSize() / getDownlinkBandwidth();
-            setSouthLinkBusy(true);
             double latency = getChildToLatencyMap().get(childId);
-            send(getId(), networkDelay, FogEvents.UPDATE_SOUTH_TUPLE_QUEUE);
-            send(childId, networkDelay + latency + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
+            send(childId, transmissionDelay + latency + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
             //todo
 //            if (Config.ENABLE_NETWORK_USAGE_AT_PLACEMENT)
 //                NetworkUsageMonitor.sendingManagementTuple(latency, tuple.getCloudletFileSize());
         } else
-            super.sendDownFreeLink(tuple, childId);
+            super.transmitDown(tuple, childId, transmissionDelay);
     }
 
-    protected void sendUpFreeLink(Tuple tuple) {
+    protected void transmitUp(Tuple tuple, double transmissionDelay) {
         if (tuple instanceof ManagementTuple) {
-            double networkDelay = tuple.getCloudletFileSize() / getUplinkBandwidth();
-            setNorthLinkBusy(true);
-            send(getId(), networkDelay, FogEvents.UPDATE_NORTH_TUPLE_QUEUE);
-            send(parentId, networkDelay + getUplinkLatency() + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
+            send(parentId, transmissionDelay + getUplinkLatency() + ((ManagementTuple) tuple).processingDelay, FogEvents.MANAGEMENT_TUPLE_ARRIVAL, tuple);
             //todo
 //            if (Config.ENABLE_NETWORK_USAGE_AT_PLACEMENT)
 //                NetworkUsageMonitor.sendingManagementTuple(getUplinkLatency(), tuple.getCloudletFileSize());
         } else {
-            super.sendUpFreeLink(tuple);
+            super.transmitUp(tuple, transmissionDelay);
         }
 
     }
 
     public void updateRoutingTable(int destId, int nextId) {
-        routingTable.put(destId, nextId);
+        routingTable.setNextHop(getId(), destId, nextId);
     }
 
     private void updateCLusterConsInRoutingTable() {
+        if (routingTable == null)
+            return;
         for(int deviceId:clusterMembers){
-            routingTable.put(deviceId,deviceId);
+            routingTable.setNextHop(getId(), deviceId, deviceId);
         }
     }
 
@@ -1,13 +1,10 @@
 package org.fog.entities;
 
-import java.util.ArrayList;
 
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.fog.application.AppEdge;
-import org.fog.application.AppLoop;
 import org.fog.application.Application;
 import org.fog.utils.*;
 import org.fog.utils.distribution.Distribution;
@@ -28,6 +25,10 @@ public class Sensor extends SimEntity{
 	private double latency;
 
 	private int transmissionStartDelay = Config.TRANSMISSION_START_DELAY;
+
+	// shared state of the simulation of the sensor, got once when it is created
+	private final TuplePool tuplePool = TuplePool.getInstance();
+	private final TimeKeeper timeKeeper = TimeKeeper.getInstance();
 	
 	public Sensor(String name, int userId, String appId, int gatewayDeviceId, double latency, GeoLocation geoLocation, 
 			Distribution transmitDistribution, int cpuLength, int nwLength, String tupleType, String destModuleName) {
@@ -77,14 +78,14 @@ public class Sensor extends SimEntity{
 		long cpuLength = (long) _edge.getTupleCpuLength();
 		long nwLength = (long) _edge.getTupleNwLength();
 		
-		Tuple tuple = new Tuple(getAppId(), FogUtils.generateTupleId(), Tuple.UP, cpuLength, 1, nwLength, outputSize, 
-				new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+		Tuple tuple = tuplePool.obtain(getAppId(), FogUtils.generateTupleId(), Tuple.UP, cpuLength, 1, nwLength, outputSize, 
+				Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION, Tuple.FULL_UTILIZATION);
 		tuple.setUserId(getUserId());
 		tuple.setTupleType(getTupleType());
 		
 		tuple.setDestModuleName(_edge.getDestination());
 		tuple.setSrcModuleName(getSensorName());
-		Logger.debug(getName(), "Sending tuple with tupleId = "+tuple.getCloudletId());
+		Logger.debug(getName(), () -> "Sending tuple with tupleId = "+tuple.getCloudletId());
 
 		tuple.setDestinationDeviceId(getGatewayDeviceId());
 
@@ -96,18 +97,10 @@ public class Sensor extends SimEntity{
 	
 	protected int updateTimings(String src, String dest){
 		Application application = getApp();
-		for(AppLoop loop : application.getLoops()){
-			if(loop.hasEdge(src, dest)){
-				
-				int tupleId = TimeKeeper.getInstance().getUniqueId();
-				if(!TimeKeeper.getInstance().getLoopIdToTupleIds().containsKey(loop.getLoopId()))
-					TimeKeeper.getInstance().getLoopIdToTupleIds().put(loop.getLoopId(), new ArrayList<Integer>());
-				TimeKeeper.getInstance().getLoopIdToTupleIds().get(loop.getLoopId()).add(tupleId);
-				TimeKeeper.getInstance().getEmitTimes().put(tupleId, CloudSim.clock());
-				return tupleId;
-			}
-		}
-		return -1;
+		int loopId = application.getLoopIndex().getFirstLoopId(src, dest);
+		if(loopId == -1)
+			return -1;
+		return timeKeeper.loopStarted(loopId);
 	}
 	
 	@Override
@@ -120,6 +113,7 @@ public class Sensor extends SimEntity{
 	public void processEvent(SimEvent ev) {
 		switch(ev.getTag()){
 		case FogEvents.TUPLE_ACK:
+			// acknowledgements (see Config.ACKNOWLEDGEMENT_POLICY) are not acted upon
 			//transmit(transmitDistribution.getNextValue());
 			break;
 		case FogEvents.EMIT_TUPLE:
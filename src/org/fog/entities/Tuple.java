@@ -1,16 +1,38 @@
 package org.fog.entities;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.core.Checkpoint;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 public class Tuple extends Cloudlet{
 
 	public static final int UP = 1;
 	public static final int DOWN = 2;
 	public static final int ACTUATOR = 3;
+
+	/** Utilization model of the tuples that use all the resources allocated to them; it has no state, so it is shared. */
+	public static final UtilizationModel FULL_UTILIZATION = new UtilizationModelFull();
+
+	/**
+	 * Ids of the module names, interned once for all the tuples of a simulation. They are part of
+	 * its state, so that the ids held by the tuples of a restored {@link Checkpoint} stay valid.
+	 */
+	static class ModuleIds {
+		final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+		final AtomicInteger nextId = new AtomicInteger();
+
+		static ModuleIds getInstance() {
+			return SimulationContext.current().getOrCreate(ModuleIds.class, ModuleIds::new);
+		}
+	}
 	
 	private String appId;
 	
@@ -23,19 +45,26 @@ public class Tuple extends Cloudlet{
 	private int sourceDeviceId;
 	private int sourceModuleId;
 	/**
-	 * Map to keep track of which module instances has a tuple traversed.
-	 * 
-	 * Map from moduleName to vmId of a module instance
+	 * Keeps track of which module instances has a tuple traversed: pairs of the id of a module
+	 * name and the vmId of a module instance, in the first moduleCopyCount pairs of the array.
 	 */
-	private Map<String, Integer> moduleCopyMap;
+	private int[] moduleCopies;
+	private int moduleCopyCount;
+	/** The module ids of the simulation, set by the {@link TuplePool} or on first use. */
+	ModuleIds moduleIds;
 
 	/**
 	 * For device id based routing used
 	 */
 	protected int destinationDeviceId;
 	/* keep track of traversed microservices by tuples of type UP in microservices architecture UP -> tuple travelling towards service
-	 DOWN -> tuple travelling from service to client microservice.*/
-	protected Map<String, Integer> traversedMicroservices = new HashMap<>();
+	 DOWN -> tuple travelling from service to client microservice. Created when first needed.*/
+	protected Map<String, Integer> traversedMicroservices;
+
+	/** Set when the tuple is sent to several devices, so that it is never recycled (see {@link TuplePool}). */
+	private boolean shared;
+	/** Set while the tuple waits in a {@link TuplePool}. */
+	boolean pooled;
 	
 	public Tuple(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
 			long cloudletFileSize, long cloudletOutputSize,
@@ -48,10 +77,36 @@ public class Tuple extends Cloudlet{
 		setAppId(appId);
 		setDirection(direction);
 		setSourceDeviceId(-1);
-		setModuleCopyMap(new HashMap<String, Integer>());
 		setDestinationDeviceId(-1);
 	}
 
+	/**
+	 * Brings a tuple that finished its execution back to the state of a new one (see
+	 * {@link TuplePool}).
+	 */
+	void recycle(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
+			long cloudletFileSize, long cloudletOutputSize,
+			UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam,
+			UtilizationModel utilizationModelBw) {
+		reinitialize(cloudletId, cloudletLength, pesNumber, cloudletFileSize,
+				cloudletOutputSize, utilizationModelCpu, utilizationModelRam,
+				utilizationModelBw);
+		setAppId(appId);
+		setDirection(direction);
+		tupleType = null;
+		destModuleName = null;
+		srcModuleName = null;
+		actualTupleId = 0;
+		actuatorId = 0;
+		setSourceDeviceId(-1);
+		sourceModuleId = 0;
+		moduleCopyCount = 0;
+		setDestinationDeviceId(-1);
+		traversedMicroservices = null;
+		shared = false;
+	}
+
 	public int getActualTupleId() {
 		return actualTupleId;
 	}
@@ -116,12 +171,92 @@ public class Tuple extends Cloudlet{
 		this.sourceDeviceId = sourceDeviceId;
 	}
 
+	/**
+	 * Gets the module instances the tuple has traversed, by module name. The map is an
+	 * unmodifiable copy; use {@link #setModuleCopy(String, int)} to record an instance.
+	 */
 	public Map<String, Integer> getModuleCopyMap() {
-		return moduleCopyMap;
+		Map<String, Integer> moduleCopyMap = new HashMap<String, Integer>();
+		for (Map.Entry<String, Integer> entry : moduleIds().ids.entrySet()) {
+			int vmId = getModuleCopy(entry.getValue());
+			if (vmId != -1)
+				moduleCopyMap.put(entry.getKey(), vmId);
+		}
+		return Collections.unmodifiableMap(moduleCopyMap);
 	}
 
 	public void setModuleCopyMap(Map<String, Integer> moduleCopyMap) {
-		this.moduleCopyMap = moduleCopyMap;
+		moduleCopyCount = 0;
+		for (Map.Entry<String, Integer> entry : moduleCopyMap.entrySet())
+			setModuleCopy(entry.getKey(), entry.getValue());
+	}
+
+	/**
+	 * Gets the vmId of the instance of a module the tuple has traversed.
+	 * 
+	 * @return the vmId, or -1 if the tuple has not traversed the module
+	 */
+	public int getModuleCopy(String moduleName) {
+		if (moduleCopyCount == 0)
+			return -1;
+		Integer moduleId = moduleIds().ids.get(moduleName);
+		return moduleId != null ? getModuleCopy(moduleId) : -1;
+	}
+
+	private int getModuleCopy(int moduleId) {
+		for (int i = 0; i < moduleCopyCount; i++) {
+			if (moduleCopies[2*i] == moduleId)
+				return moduleCopies[2*i+1];
+		}
+		return -1;
+	}
+
+	/**
+	 * Records the instance of a module the tuple has traversed, replacing the one recorded for
+	 * the module if any.
+	 */
+	public void setModuleCopy(String moduleName, int vmId) {
+		ModuleIds ids = moduleIds();
+		int moduleId = ids.ids.computeIfAbsent(moduleName, name -> ids.nextId.getAndIncrement());
+		for (int i = 0; i < moduleCopyCount; i++) {
+			if (moduleCopies[2*i] == moduleId) {
+				moduleCopies[2*i+1] = vmId;
+				return;
+			}
+		}
+		ensureModuleCopyCapacity(moduleCopyCount + 1);
+		moduleCopies[2*moduleCopyCount] = moduleId;
+		moduleCopies[2*moduleCopyCount+1] = vmId;
+		moduleCopyCount++;
+	}
+
+	/**
+	 * Records the module instances traversed by the tuple whose execution produced this one,
+	 * and the instance that executed it.
+	 */
+	public void inheritModuleCopies(Tuple inputTuple, String moduleName, int vmId) {
+		ensureModuleCopyCapacity(inputTuple.moduleCopyCount + 1);
+		if (inputTuple.moduleCopyCount > 0)
+			System.arraycopy(inputTuple.moduleCopies, 0, moduleCopies, 0, 2*inputTuple.moduleCopyCount);
+		moduleCopyCount = inputTuple.moduleCopyCount;
+		if (moduleIds == null)
+			moduleIds = inputTuple.moduleIds;
+		setModuleCopy(moduleName, vmId);
+	}
+
+	private ModuleIds moduleIds() {
+		if (moduleIds == null)
+			moduleIds = ModuleIds.getInstance();
+		return moduleIds;
+	}
+
+	private void ensureModuleCopyCapacity(int count) {
+		if (moduleCopies == null || moduleCopies.length < 2*count) {
+			int[] copies = new int[2*Math.max(count, 4)];
+			if (moduleCopies != null)
+				System.arraycopy(moduleCopies, 0, copies, 0, 2*moduleCopyCount);
+			moduleCopies = copies;
+		}
 	}
 
 	public int getSourceModuleId() {
@@ -141,18 +276,23 @@ public class Tuple extends Cloudlet{
 	}
 
 	public void addToTraversedMicroservices(Integer deviceID, String microserviceName) {
-		traversedMicroservices.put(microserviceName, deviceID);
+		getTraversed().put(microserviceName, deviceID);
 	}
 
 	public int getDeviceForMicroservice(String microserviceName) {
-		if (!traversedMicroservices.containsKey(microserviceName))
+		if (traversedMicroservices == null || !traversedMicroservices.containsKey(microserviceName))
 			return -1;
 		else {
 			return traversedMicroservices.get(microserviceName);
 		}
 	}
 
+	/**
+	 * Gets the traversed microservices, shared with the tuples this map is given to.
+	 */
 	public Map<String, Integer> getTraversed() {
+		if (traversedMicroservices == null)
+			traversedMicroservices = new HashMap<>();
 		return traversedMicroservices;
 	}
 
@@ -160,4 +300,15 @@ public class Tuple extends Cloudlet{
 		traversedMicroservices = traversed;
 	}
 
+	/**
+	 * Marks the tuple as sent to several devices at once, so that it is never recycled.
+	 */
+	public void markShared() {
+		shared = true;
+	}
+
+	public boolean isShared() {
+		return shared;
+	}
+
 }
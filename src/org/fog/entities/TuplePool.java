@@ -0,0 +1,71 @@
+package org.fog.entities;
+
+import java.util.ArrayDeque;
+
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.utils.Config;
+import org.fog.utils.SimulationConfig;
+
+/**
+ * Tuples that finished their execution, kept to be used again for new tuples when
+ * {@link Config#LIGHTWEIGHT_TUPLES} is set. There is one per simulation, which the entities and
+ * applications creating tuples get once; the tuples it creates share the module ids of the
+ * simulation (see {@link Tuple#getModuleCopy(String)}). A fog device hands an executed tuple back to its
+ * user with a CLOUDLET_RETURN event, after the tuples resulting from it were created, and
+ * {@link FogBroker} then releases it to the pool; nothing else refers to the tuple by then. A
+ * tuple sent to several devices at once may be executed several times and is never released.
+ */
+public class TuplePool {
+
+	/** Largest number of tuples kept; released tuples beyond it are left to the garbage collector. */
+	private static final int CAPACITY = 1 << 14;
+
+	private final ArrayDeque<Tuple> freeTuples = new ArrayDeque<Tuple>();
+
+	private final SimulationConfig config = SimulationConfig.current();
+
+	private final Tuple.ModuleIds moduleIds = Tuple.ModuleIds.getInstance();
+
+	/**
+	 * Gets the pool of the simulation run by the calling thread.
+	 */
+	public static TuplePool getInstance(){
+		return SimulationContext.current().getOrCreate(TuplePool.class, TuplePool::new);
+	}
+
+	/**
+	 * Gets a tuple, recycled from the pool if there is one and {@link Config#LIGHTWEIGHT_TUPLES}
+	 * is set, or new. The arguments are those of the constructor of {@link Tuple}.
+	 */
+	public Tuple obtain(String appId, int cloudletId, int direction, long cloudletLength, int pesNumber,
+			long cloudletFileSize, long cloudletOutputSize,
+			UtilizationModel utilizationModelCpu,
+			UtilizationModel utilizationModelRam,
+			UtilizationModel utilizationModelBw){
+		Tuple tuple = config.isLightweightTuples() ? freeTuples.pollLast() : null;
+		if(tuple != null){
+			tuple.pooled = false;
+			tuple.recycle(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize,
+					cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+		}else{
+			tuple = new Tuple(appId, cloudletId, direction, cloudletLength, pesNumber, cloudletFileSize,
+					cloudletOutputSize, utilizationModelCpu, utilizationModelRam, utilizationModelBw);
+		}
+		tuple.moduleIds = moduleIds;
+		return tuple;
+	}
+
+	/**
+	 * Puts a tuple that finished its execution in the pool, unless it was sent to several devices
+	 * or is of a subclass of {@link Tuple}.
+	 */
+	public void release(Tuple tuple){
+		if(!config.isLightweightTuples() || tuple.getClass() != Tuple.class || tuple.isShared() || tuple.pooled)
+			return;
+		if(freeTuples.size() < CAPACITY){
+			tuple.pooled = true;
+			freeTuples.addLast(tuple);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package org.fog.entities;
+
+/**
+ * FIFO of the tuples waiting for a link of a fog device, each with the id of the device it is
+ * sent to. Kept in a growable ring buffer of parallel arrays, so that queueing a tuple neither
+ * allocates a list node nor boxes the destination id.
+ */
+public class TupleQueue {
+
+    /** The buffers of the queues that have never been used, most queues of large topologies. */
+    private static final Tuple[] NO_TUPLES = new Tuple[0];
+    private static final int[] NO_DESTINATIONS = new int[0];
+
+    private Tuple[] tuples;
+    private int[] destinations;
+    private int head;
+    private int size;
+
+    public TupleQueue() {
+        tuples = NO_TUPLES;
+        destinations = NO_DESTINATIONS;
+    }
+
+    /**
+     * Appends a tuple.
+     *
+     * @param tuple the tuple
+     * @param destinationId id of the device the tuple is sent to over the link
+     */
+    public void add(Tuple tuple, int destinationId) {
+        if (size == tuples.length)
+            grow();
+        int tail = (head + size) & (tuples.length - 1);
+        tuples[tail] = tuple;
+        destinations[tail] = destinationId;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, tuples.length * 2);
+        Tuple[] newTuples = new Tuple[capacity];
+        int[] newDestinations = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) & (tuples.length - 1);
+            newTuples[i] = tuples[index];
+            newDestinations[i] = destinations[index];
+        }
+        tuples = newTuples;
+        destinations = newDestinations;
+        head = 0;
+    }
+
+    /**
+     * Gets the i-th queued tuple, the head being 0.
+     */
+    public Tuple get(int i) {
+        checkIndex(i);
+        return tuples[(head + i) & (tuples.length - 1)];
+    }
+
+    /**
+     * Gets the destination of the i-th queued tuple, the head being 0.
+     */
+    public int getDestination(int i) {
+        checkIndex(i);
+        return destinations[(head + i) & (tuples.length - 1)];
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+    }
+
+    /**
+     * Gets the destination of the tuple at the head of the queue.
+     */
+    public int peekDestination() {
+        return getDestination(0);
+    }
+
+    /**
+     * Removes the tuple at the head of the queue.
+     *
+     * @return the tuple, or null if the queue is empty
+     */
+    public Tuple poll() {
+        if (size == 0)
+            return null;
+        Tuple tuple = tuples[head];
+        tuples[head] = null;
+        head = (head + 1) & (tuples.length - 1);
+        size--;
+        return tuple;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        while (size > 0)
+            poll();
+        head = 0;
+    }
+}
@@ -3,10 +3,11 @@ package org.fog.mobilitydata;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.fog.entities.FogDevice;
 import org.fog.placement.LocationHandler;
-import org.fog.utils.Config;
+import org.fog.utils.SimulationConfig;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,7 +19,6 @@ import java.util.Map;
 public class Clustering {
     public void createClusterMembers(int parentId, int nodeId, JSONObject locatorObject) {
         List<Integer> SiblingListIDs = new ArrayList<>();
-        List<FogDevice> SiblingsList = new ArrayList<FogDevice>();
         List<Integer> clusterMemberList = new ArrayList<>();
         int fogId = nodeId;
         LocationHandler locatorTemp = new LocationHandler();
@@ -33,38 +33,23 @@ public class Clustering {
             return;
         }
 
-        for (int i = 0; i < SiblingListIDs.size(); i++) {
-            int tempId = SiblingListIDs.get(i);
-            FogDevice tempNode = (FogDevice) CloudSim.getEntity(tempId);
-            SiblingsList.add(tempNode);
-        }
-
         double fogNodePositionX = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogId)).latitude;
         double fogNodePositionY = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogId)).longitude;
         Location L1 = new Location(fogNodePositionX, fogNodePositionY, 0);
-        for (FogDevice fogdevice : SiblingsList) {
+        int level = locatorTemp.getDataIdsLevelReferences().get(locatorTemp.instanceToDataId.get(fogId));
 
-            if (fogId == fogdevice.getId()) {
+        //Clustering Policy
+        // the devices of the level in communication range, looked up in its spatial index, that are siblings
+        for (int candidateId : locatorTemp.getResourceInstancesInRange(level, L1, SimulationConfig.current().getNodeCommunicationRange() / 1000)) {
+            if (candidateId == fogId) {
                 continue;
             }
-            // To check all siblings except itself
-            double tempX = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogdevice.getId())).latitude;
-            double tempY = locatorTemp.dataObject.resourceLocationData.get(locatorTemp.instanceToDataId.get(fogdevice.getId())).longitude;
-
-            Location L2 = new Location(tempX, tempY, 0);
-
-            boolean clusterCheck = calculateInRange(L1, L2, Config.Node_Communication_RANGE);
-
-            //Clustering Policy
-            //double x = Math.pow((fogNodePositionX - tempX), 2) + Math.pow((fogNodePositionY - tempY), 2);
-
-            /*if (Math.sqrt(x) <= Config.Node_Communication_RANGE / 1000) {
-                clusterMemberList.add(fogdevice.getId());
-            */
-            if (clusterCheck == true) {
-                clusterMemberList.add(fogdevice.getId());
+            if (((FogDevice) CloudSim.getEntity(candidateId)).getParentId() == parentId) {
+                clusterMemberList.add(candidateId);
             }
         }
+        // in the order of the children of the parent
+        clusterMemberList.sort(Comparator.comparingInt(SiblingListIDs::indexOf));
         // Clustering Policy
 
 
@@ -77,7 +62,7 @@ public class Clustering {
             ((FogDevice) CloudSim.getEntity(fogId)).setClusterMembers(clusterMemberList);
             Map<Integer, Double> latencyMapL2 = new HashMap<>();
             for (int id : clusterMemberList) {
-                latencyMapL2.put(id, Config.clusteringLatency);
+                latencyMapL2.put(id, SimulationConfig.current().getClusteringLatency());
             }
             ((FogDevice) CloudSim.getEntity(fogId)).setClusterMembersToLatencyMap(latencyMapL2);
 
@@ -86,27 +71,4 @@ public class Clustering {
                 " has these cluster members: " + ((FogDevice) CloudSim.getEntity(fogId)).getClusterMembers());
         return;
     }
-
-    private static boolean calculateInRange(Location loc1, Location loc2, double fogRange) {
-
-        final int R = 6371; // Radius of the earth in Kilometers
-
-        double latDistance = Math.toRadians(loc1.latitude - loc2.latitude);
-        double lonDistance = Math.toRadians(loc1.longitude - loc2.longitude);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(loc1.latitude)) * Math.cos(Math.toRadians(loc2.latitude))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c; // kms
-
-
-        distance = Math.pow(distance, 2);
-
-        if (Math.sqrt(distance) <= fogRange / 1000) {
-            return true;
-        } else {
-            return false;
-        }
-
-    }
 }
@@ -8,8 +8,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Properties;
 import java.util.Random;
+import java.util.TreeMap;
 
 
 public class DataParser {
@@ -17,7 +19,8 @@ public class DataParser {
     public Map<String, Integer> levelID = new HashMap<String, Integer>();
     public Map<Integer, ArrayList<String>> levelwiseResources = new HashMap<Integer, ArrayList<String>>();
     public Map<String, Integer> resourceAndUserToLevel = new HashMap<String, Integer>();
-    public Map<String, Map<Double, Location>> usersLocation = new HashMap<String, Map<Double, Location>>();
+    /** Locations of each user, sorted by the time from which the user is there. */
+    public Map<String, NavigableMap<Double, Location>> usersLocation = new HashMap<String, NavigableMap<Double, Location>>();
 
 
     public DataParser() {
@@ -58,42 +61,86 @@ public class DataParser {
 
     }
 
+    /** Mobility traces mapped from a trace file, or null if the traces are all in {@link #usersLocation}. */
+    public MappedTraceFile mappedTraces;
+
     public void parseUserData(Map<Integer, Integer> userMobilityPattern, String datasetReference) throws IOException {
         // TODO Auto-generated method stub
 
         for (int userID : userMobilityPattern.keySet()) {
 
-            Map<Double, Location> tempUserLocationInfo = new HashMap<Double, Location>();
-            BufferedReader csvReader = new BufferedReader(new FileReader(datasetReference + userID + ".csv"));
             System.out.println("The Mobility dataset used in this simulation for user: " + userID + " is: " + datasetReference + userID + ".csv");
-            String row;
-            double eventTime = References.INIT_TIME;
-            while ((row = csvReader.readLine()) != null) {
-                String[] data = row.split(",");
-                try {
-                    Location rl = new Location(Double.parseDouble(data[0]), Double.parseDouble(data[1]), References.NOT_SET);
-                    if (!tempUserLocationInfo.containsKey(eventTime))
-                        tempUserLocationInfo.put(eventTime, rl);
-                    else {
-                        eventTime = nextMobilisationEvent(eventTime, userMobilityPattern.get(userID));
-                        tempUserLocationInfo.put(eventTime, rl);
-                    }
-
-                } catch (NumberFormatException ex) {
-                    //System.out.println("Given String is not parsable to double");
+            usersLocation.put("usr_" + userID, parseUserTrace(userID, userMobilityPattern.get(userID), datasetReference));
+            resourceAndUserToLevel.put("usr_" + userID, levelID.get("User"));
+
+        }
+
+    }
+
+    /**
+     * Reads the CSV trace of a user, giving each record the time from which the user is there.
+     */
+    public NavigableMap<Double, Location> parseUserTrace(int userID, int mobilityPattern, String datasetReference) throws IOException {
+        NavigableMap<Double, Location> tempUserLocationInfo = new TreeMap<Double, Location>();
+        BufferedReader csvReader = new BufferedReader(new FileReader(datasetReference + userID + ".csv"));
+        String row;
+        double eventTime = References.INIT_TIME;
+        while ((row = csvReader.readLine()) != null) {
+            int comma = row.indexOf(',');
+            if (comma < 0)
+                continue;
+            int nextComma = row.indexOf(',', comma + 1);
+            try {
+                Location rl = new Location(Double.parseDouble(row.substring(0, comma)),
+                        Double.parseDouble(nextComma < 0 ? row.substring(comma + 1) : row.substring(comma + 1, nextComma)), References.NOT_SET);
+                if (!tempUserLocationInfo.containsKey(eventTime))
+                    tempUserLocationInfo.put(eventTime, rl);
+                else {
+                    eventTime = nextMobilisationEvent(eventTime, mobilityPattern);
+                    tempUserLocationInfo.put(eventTime, rl);
                 }
+
+            } catch (NumberFormatException ex) {
+                //System.out.println("Given String is not parsable to double");
             }
+        }
 
-            csvReader.close();
-            usersLocation.put("usr_" + userID, tempUserLocationInfo);
+        csvReader.close();
+        return tempUserLocationInfo;
+    }
+
+    /**
+     * Maps the traces of the users in a trace file written by
+     * {@link MappedTraceFile#convert(DataParser, Map, String, String)}, instead of keeping them in
+     * {@link #usersLocation}.
+     */
+    public void loadUserTraces(String traceFile) throws IOException {
+        mappedTraces = new MappedTraceFile(traceFile);
+        for (int userID : mappedTraces.getUserIds())
             resourceAndUserToLevel.put("usr_" + userID, levelID.get("User"));
+    }
 
+    /**
+     * Gets the mapped trace of a user.
+     *
+     * @return the trace, or null if the traces of the user are in {@link #usersLocation}
+     */
+    public UserTrace getMappedTrace(String dataId) {
+        if (mappedTraces == null || usersLocation.containsKey(dataId) || !dataId.startsWith("usr_"))
+            return null;
+        try {
+            return mappedTraces.getTrace(Integer.parseInt(dataId.substring(4)));
+        } catch (NumberFormatException e) {
+            return null;
         }
+    }
 
+    public void parseResourceData() throws NumberFormatException, IOException {
+        parseResourceData(References.resource_dataset);
     }
 
     @SuppressWarnings("unchecked")
-    public void parseResourceData() throws NumberFormatException, IOException {
+    public void parseResourceData(String resourceDataset) throws NumberFormatException, IOException {
 
 
         int numOfLevels = levelID.get("LevelsNum");
@@ -102,7 +149,7 @@ public class DataParser {
             resouresOnLevels[i] = new ArrayList<String>();
 
 
-        BufferedReader csvReader = new BufferedReader(new FileReader("./dataset/edgeResources-melbCBD.csv"));
+        BufferedReader csvReader = new BufferedReader(new FileReader(resourceDataset));
         String row;
         while ((row = csvReader.readLine()) != null) {
             String[] data = row.split(",");
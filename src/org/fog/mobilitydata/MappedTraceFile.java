@@ -0,0 +1,233 @@
+package org.fog.mobilitydata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.stream.IntStream;
+
+/**
+ * Mobility traces of many users in one binary file, memory-mapped and read on demand, so that
+ * the heap does not grow with the length of the traces. The file is written once from the CSV
+ * traces with {@link #convert(DataParser, Map, String, String)}.
+ * <p>
+ * The file holds a header (magic number, version, number of users and offset of the
+ * directory), then the records of each user as three columns of doubles (times, latitudes and
+ * longitudes, sorted by time), then the directory: the id, number of records and offset of each
+ * user. All values are little-endian.
+ */
+public class MappedTraceFile implements Closeable {
+
+    private static final int MAGIC = 0x49465452;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int DIRECTORY_ENTRY_SIZE = 16;
+    private static final int RECORD_SIZE = 3 * Double.BYTES;
+
+    /** Largest region mapped at once; the records of a user are never split across regions. */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /** Number of users whose CSV traces are parsed in parallel before being written. */
+    private static final int CONVERSION_BATCH_SIZE = 256;
+
+    private final FileChannel channel;
+    private final int[] userIds;
+    private final int[] recordCounts;
+    private final Map<Integer, Integer> userIndexes = new HashMap<Integer, Integer>();
+    private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+    /** Segment holding the records of each user, and their offset in it, by user index. */
+    private final int[] userSegments;
+    private final int[] segmentOffsets;
+
+    /**
+     * Maps a trace file.
+     *
+     * @throws IOException if the file cannot be read or is not a trace file
+     */
+    public MappedTraceFile(String traceFile) throws IOException {
+        channel = FileChannel.open(Paths.get(traceFile), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException(traceFile + " is not a mobility trace file");
+            int userCount = header.getInt();
+            long directoryOffset = header.getLong();
+            ByteBuffer directory = read(directoryOffset, (long) userCount * DIRECTORY_ENTRY_SIZE);
+            userIds = new int[userCount];
+            recordCounts = new int[userCount];
+            long[] offsets = new long[userCount];
+            for (int i = 0; i < userCount; i++) {
+                userIds[i] = directory.getInt();
+                recordCounts[i] = directory.getInt();
+                offsets[i] = directory.getLong();
+                userIndexes.put(userIds[i], i);
+            }
+            userSegments = new int[userCount];
+            segmentOffsets = new int[userCount];
+            mapSegments(offsets, directoryOffset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer read(long position, long size) throws IOException {
+        if (position < 0 || position + size > channel.size())
+            throw new IOException("Truncated mobility trace file");
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Maps the records in regions of up to {@link #SEGMENT_SIZE} bytes, in the order they were written. */
+    private void mapSegments(long[] offsets, long end) throws IOException {
+        long segmentStart = HEADER_SIZE;
+        int first = 0;
+        for (int i = 0; i <= offsets.length; i++) {
+            long userEnd = i < offsets.length ? offsets[i] + (long) recordCounts[i] * RECORD_SIZE : end;
+            if (i < offsets.length && (long) recordCounts[i] * RECORD_SIZE > Integer.MAX_VALUE)
+                throw new IOException("The trace of user " + userIds[i] + " is too long to be mapped");
+            if (i == offsets.length || (i > first && userEnd - segmentStart > SEGMENT_SIZE)) {
+                long segmentEnd = i < offsets.length ? offsets[i] : end;
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentEnd - segmentStart);
+                for (int j = first; j < i; j++) {
+                    userSegments[j] = segments.size();
+                    segmentOffsets[j] = (int) (offsets[j] - segmentStart);
+                }
+                segments.add(segment);
+                segmentStart = segmentEnd;
+                first = i;
+            }
+        }
+    }
+
+    /**
+     * Gets the ids of the users in the file, in the order they were written.
+     */
+    public int[] getUserIds() {
+        return userIds.clone();
+    }
+
+    /**
+     * Gets the trace of a user, read from the mapped file as it is queried.
+     *
+     * @return the trace, or null if the user is not in the file
+     */
+    public UserTrace getTrace(int userId) {
+        Integer index = userIndexes.get(userId);
+        if (index == null)
+            return null;
+        int count = recordCounts[index];
+        ByteBuffer records = segments.get(userSegments[index]).duplicate();
+        records.position(segmentOffsets[index]);
+        records.limit(segmentOffsets[index] + count * RECORD_SIZE);
+        DoubleBuffer columns = records.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        return new MappedUserTrace(columns, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static class MappedUserTrace implements UserTrace {
+        private final DoubleBuffer columns;
+        private final int size;
+
+        MappedUserTrace(DoubleBuffer columns, int size) {
+            this.columns = columns;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public double getTime(int index) {
+            return columns.get(index);
+        }
+
+        @Override
+        public Location getLocation(int index) {
+            return new Location(columns.get(size + index), columns.get(2 * size + index), References.NOT_SET);
+        }
+    }
+
+    /**
+     * Writes the CSV traces of users to a trace file, parsing them in parallel. The times of the
+     * records are assigned as {@link DataParser#parseUserData(Map, String)} does.
+     *
+     * @param parser the parser reading the CSV traces
+     * @param userMobilityPattern the mobility pattern of each user
+     * @param datasetReference prefix of the CSV files, followed by the user id and ".csv"
+     * @param traceFile the file to write
+     */
+    public static void convert(DataParser parser, Map<Integer, Integer> userMobilityPattern, String datasetReference, String traceFile) throws IOException {
+        List<Integer> userIds = new ArrayList<Integer>(userMobilityPattern.keySet());
+        int[] recordCounts = new int[userIds.size()];
+        long[] offsets = new long[userIds.size()];
+        try (FileChannel output = FileChannel.open(Paths.get(traceFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = HEADER_SIZE;
+            for (int from = 0; from < userIds.size(); from += CONVERSION_BATCH_SIZE) {
+                List<Integer> batch = userIds.subList(from, Math.min(from + CONVERSION_BATCH_SIZE, userIds.size()));
+                List<NavigableMap<Double, Location>> traces = new ArrayList<NavigableMap<Double, Location>>();
+                for (int i = 0; i < batch.size(); i++)
+                    traces.add(null);
+                try {
+                    IntStream.range(0, batch.size()).parallel().forEach(i -> {
+                        try {
+                            traces.set(i, parser.parseUserTrace(batch.get(i), userMobilityPattern.get(batch.get(i)), datasetReference));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    NavigableMap<Double, Location> trace = traces.get(i);
+                    ByteBuffer records = ByteBuffer.allocate(trace.size() * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                    for (double time : trace.keySet())
+                        records.putDouble(time);
+                    for (Location location : trace.values())
+                        records.putDouble(location.latitude);
+                    for (Location location : trace.values())
+                        records.putDouble(location.longitude);
+                    records.flip();
+                    recordCounts[from + i] = trace.size();
+                    offsets[from + i] = position;
+                    position += write(output, records, position);
+                }
+            }
+            ByteBuffer directory = ByteBuffer.allocate(userIds.size() * DIRECTORY_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < userIds.size(); i++)
+                directory.putInt(userIds.get(i)).putInt(recordCounts[i]).putLong(offsets[i]);
+            directory.flip();
+            long directoryOffset = position;
+            write(output, directory, directoryOffset);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(userIds.size()).putLong(directoryOffset);
+            header.flip();
+            write(output, header, 0);
+        }
+    }
+
+    private static int write(FileChannel output, ByteBuffer buffer, long position) throws IOException {
+        int size = buffer.remaining();
+        while (buffer.hasRemaining())
+            position += output.write(buffer, position);
+        return size;
+    }
+}
@@ -18,6 +18,8 @@ public class References {
 	// ".\\dataset\\usersLocation-melbCBD-random_
 	public static final String dataset_reference = "./dataset/usersLocation-melbCBD_";
 	public static final String dataset_random = "./dataset/random_usersLocation-melbCBD_";
+	// Default dataset of the edge resources
+	public static final String resource_dataset = "./dataset/edgeResources-melbCBD.csv";
 	public static final int random_walk_mobility_model = 1;
 	public static final int random_waypoint_mobility_model = 2;
 	public static double MinMobilitySpeed = 1; //
@@ -0,0 +1,180 @@
+package org.fog.mobilitydata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.fog.placement.LocationHandler;
+
+/**
+ * Index of a fixed list of locations for nearest-neighbour and radius queries by great-circle
+ * distance. The locations are placed on the unit sphere and kept in a k-d tree over their 3D
+ * coordinates, where the straight-line (chord) distance between two points grows with their
+ * great-circle distance, so that a query only visits the subtrees that can hold an answer.
+ * <p>
+ * The candidates are compared with {@link LocationHandler#calculateDistance(Location, Location)},
+ * and ties go to the location listed first, so the answers are those of a scan of the list.
+ */
+public class SpatialIndex {
+
+    /** Radius of the earth in kilometers, as used by {@link LocationHandler#calculateDistance(Location, Location)}. */
+    private static final int R = 6371;
+
+    /** Slack on squared chord lengths, so that rounding errors never prune a candidate. */
+    private static final double RELATIVE_SLACK = 1e-9;
+    private static final double ABSOLUTE_SLACK = 1e-18;
+
+    private final List<Location> locations;
+    /** Unit-sphere coordinates of the locations, by position in the list. */
+    private final double[][] coordinates;
+    /**
+     * Positions of the locations in k-d tree order: the node of a range is at its middle, its left subtree
+     * before and its right subtree after, split along the axis given by its depth.
+     */
+    private final int[] tree;
+
+    public SpatialIndex(List<Location> locations) {
+        this.locations = new ArrayList<Location>(locations);
+        int size = locations.size();
+        coordinates = new double[size][];
+        tree = new int[size];
+        for (int i = 0; i < size; i++) {
+            coordinates[i] = toCoordinates(locations.get(i));
+            tree[i] = i;
+        }
+        build(0, size, 0);
+    }
+
+    public int size() {
+        return tree.length;
+    }
+
+    /**
+     * Gets the location closest to a target.
+     *
+     * @return the position of the location in the indexed list, the first one among equally close
+     * locations, or -1 if the index is empty
+     */
+    public int nearest(Location target) {
+        if (tree.length == 0)
+            return -1;
+        double[] point = toCoordinates(target);
+        double[] best = {Double.POSITIVE_INFINITY};
+        findNearest(point, 0, tree.length, 0, best);
+        // the closest location by chord is the closest by great-circle distance, up to rounding errors
+        List<Integer> candidates = new ArrayList<Integer>();
+        collectWithin(point, withSlack(best[0]), 0, tree.length, 0, candidates);
+        int nearest = -1;
+        double minimumDistance = Double.POSITIVE_INFINITY;
+        for (int position : candidates) {
+            double distance = LocationHandler.calculateDistance(target, locations.get(position));
+            if (distance < minimumDistance || (distance == minimumDistance && position < nearest)) {
+                nearest = position;
+                minimumDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Gets the locations within a distance of a target.
+     *
+     * @param distance the distance, in kilometers
+     * @return the positions of the locations in the indexed list, in ascending order
+     */
+    public List<Integer> withinDistance(Location target, double distance) {
+        List<Integer> candidates = new ArrayList<Integer>();
+        if (tree.length == 0 || distance < 0)
+            return candidates;
+        double chord = 2 * Math.sin(Math.min(distance / R, Math.PI) / 2);
+        collectWithin(toCoordinates(target), withSlack(chord * chord), 0, tree.length, 0, candidates);
+        List<Integer> positions = new ArrayList<Integer>();
+        for (int position : candidates) {
+            if (LocationHandler.calculateDistance(target, locations.get(position)) <= distance)
+                positions.add(position);
+        }
+        Collections.sort(positions);
+        return positions;
+    }
+
+    private static double withSlack(double squaredChord) {
+        return squaredChord * (1 + RELATIVE_SLACK) + ABSOLUTE_SLACK;
+    }
+
+    private static double[] toCoordinates(Location location) {
+        double latitude = Math.toRadians(location.latitude);
+        double longitude = Math.toRadians(location.longitude);
+        return new double[]{Math.cos(latitude) * Math.cos(longitude), Math.cos(latitude) * Math.sin(longitude), Math.sin(latitude)};
+    }
+
+    private double squaredChord(double[] point, int position) {
+        double[] other = coordinates[position];
+        double dx = point[0] - other[0], dy = point[1] - other[1], dz = point[2] - other[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void findNearest(double[] point, int from, int to, int depth, double[] best) {
+        if (from >= to)
+            return;
+        int middle = (from + to) >>> 1;
+        int position = tree[middle];
+        best[0] = Math.min(best[0], squaredChord(point, position));
+        int axis = depth % 3;
+        double offset = point[axis] - coordinates[position][axis];
+        boolean leftFirst = offset < 0;
+        findNearest(point, leftFirst ? from : middle + 1, leftFirst ? middle : to, depth + 1, best);
+        if (offset * offset <= best[0])
+            findNearest(point, leftFirst ? middle + 1 : from, leftFirst ? to : middle, depth + 1, best);
+    }
+
+    private void collectWithin(double[] point, double squaredRadius, int from, int to, int depth, List<Integer> result) {
+        if (from >= to)
+            return;
+        int middle = (from + to) >>> 1;
+        int position = tree[middle];
+        if (squaredChord(point, position) <= squaredRadius)
+            result.add(position);
+        int axis = depth % 3;
+        double offset = point[axis] - coordinates[position][axis];
+        if (offset <= 0 || offset * offset <= squaredRadius)
+            collectWithin(point, squaredRadius, from, middle, depth + 1, result);
+        if (offset >= 0 || offset * offset <= squaredRadius)
+            collectWithin(point, squaredRadius, middle + 1, to, depth + 1, result);
+    }
+
+    private void build(int from, int to, int depth) {
+        if (to - from <= 1)
+            return;
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, depth % 3);
+        build(from, middle, depth + 1);
+        build(middle + 1, to, depth + 1);
+    }
+
+    /** Partially sorts tree[left..right] along an axis so that the k-th position holds its median. */
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = coordinates[tree[(left + right) >>> 1]][axis];
+            int i = left, j = right;
+            while (i <= j) {
+                while (coordinates[tree[i]][axis] < pivot)
+                    i++;
+                while (coordinates[tree[j]][axis] > pivot)
+                    j--;
+                if (i <= j) {
+                    int swap = tree[i];
+                    tree[i] = tree[j];
+                    tree[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j)
+                right = j;
+            else if (k >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+}
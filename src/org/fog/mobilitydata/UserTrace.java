@@ -0,0 +1,41 @@
+package org.fog.mobilitydata;
+
+/**
+ * The location records of a mobile user, sorted by time (see {@link MappedTraceFile}).
+ */
+public interface UserTrace {
+
+    int size();
+
+    /** Gets the time from which the user is at the i-th location. */
+    double getTime(int index);
+
+    Location getLocation(int index);
+
+    /**
+     * Gets the last record at or before a time.
+     *
+     * @return the index of the record, or -1 if the first record is later
+     */
+    default int floorIndex(double time) {
+        int low = 0, high = size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (getTime(middle) <= time)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+        return high;
+    }
+
+    /**
+     * Gets the first record after a time.
+     *
+     * @return the index of the record, or -1 if there is none
+     */
+    default int higherIndex(double time) {
+        int index = floorIndex(time) + 1;
+        return index < size() ? index : -1;
+    }
+}
@@ -37,6 +37,22 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
     Map<Integer, Map<String, Integer>> mappedMicroservices = new HashMap<>();
     ; //mappedMicroservice
 
+    /**
+     * Indexes of a placement round (see {@link #indexDevices()}): the devices by position, id and name, the CPU
+     * capacity and load of each position (copies of resourceAvailability and currentCpuLoad), and the rankings of the
+     * clusters used so far, by the id of the device that identifies the cluster and by member device position
+     */
+    private FogDevice[] devices;
+    private Map<Integer, Integer> deviceIndexes;
+    private Map<String, FogDevice> devicesByName;
+    private double[] cpuCapacity;
+    private double[] cpuLoad;
+    private Map<Integer, ClusterRanking> clusterRankings;
+    private Map<Integer, List<ClusterRanking>> rankingsByDevice;
+    private Set<Integer> completeRequests;
+    private Map<Integer, PlacementRequest> placementRequestsById;
+    private Map<Application, Map<String, AppModule>> modulesByApp;
+
     public ClusteredMicroservicePlacementLogic(int fonID) {
         setFONId(fonID);
     }
@@ -111,11 +127,7 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
         if (placement != null) {
             for (int prID : placement.keySet()) {
                 //retrieve application
-                PlacementRequest placementRequest = null;
-                for (PlacementRequest pr : placementRequests) {
-                    if (pr.getPlacementRequestId() == prID)
-                        placementRequest = pr;
-                }
+                PlacementRequest placementRequest = getPlacementRequest(prID);
                 Application application = applicationInfo.get(placementRequest.getApplicationId());
                 for (String microserviceName : placement.get(prID).keySet()) {
                     int deviceID = placement.get(prID).get(microserviceName);
@@ -164,6 +176,16 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
         return new PlacementLogicOutput(perDevice, serviceDiscoveryInfo, prStatus);
     }
 
+    private PlacementRequest getPlacementRequest(int placementRequestId) {
+        if (placementRequestsById == null) {
+            // the last request with an id wins, as with a scan of the list
+            placementRequestsById = new HashMap<>();
+            for (PlacementRequest pr : placementRequests)
+                placementRequestsById.put(pr.getPlacementRequestId(), pr);
+        }
+        return placementRequestsById.get(placementRequestId);
+    }
+
     public List<Integer> getClientServiceNodeIds(Application application, String
             microservice, Map<String, Integer> placed, Map<String, Integer> placementPerPr) {
         List<String> clientServices = getClientServices(application, microservice);
@@ -209,6 +231,7 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
     }
 
     public void mapModules() {
+        indexDevices();
         Map<PlacementRequest, Integer> deviceToPlace = new HashMap<>();
         //initiate with the  parent of the client device for this
         for (PlacementRequest placementRequest : placementRequests) {
@@ -224,31 +247,9 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
                     FogDevice device = getDeviceByName(deviceName);
                     int deviceId = device.getId();
 
-                    if (getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId) <= resourceAvailability.get(deviceId).get(ControllerComponent.CPU)) {
-                        Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + device.getName() + " successful.");
-                        getCurrentCpuLoad().put(deviceId, getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId));
-                        System.out.println("Placement of operator " + microservice + " on device " + device.getName() + " successful.");
-
-                        moduleToApp.put(microservice, app.getAppId());
-
-                        if (!currentModuleMap.get(deviceId).contains(microservice))
-                            currentModuleMap.get(deviceId).add(microservice);
-
-                        mappedMicroservices.get(placementRequest.getPlacementRequestId()).put(microservice, deviceId);
-
-                        //currentModuleLoad
-                        if (!currentModuleLoadMap.get(deviceId).containsKey(microservice))
-                            currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips());
-                        else
-                            currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips() + currentModuleLoadMap.get(deviceId).get(microservice));
-
-
-                        //currentModuleInstance
-                        if (!currentModuleInstanceNum.get(deviceId).containsKey(microservice))
-                            currentModuleInstanceNum.get(deviceId).put(microservice, 1);
-                        else
-                            currentModuleInstanceNum.get(deviceId).put(microservice, currentModuleInstanceNum.get(deviceId).get(microservice) + 1);
-
+                    if (canPlace(getModule(microservice, app), deviceIndexes.get(deviceId))) {
+                        placeMicroservice(placementRequest, app, microservice, deviceId);
+                        updateRankings(deviceIndexes.get(deviceId));
                         break;
                     }
                 }
@@ -258,182 +259,191 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
         Map<PlacementRequest, Integer> clusterNode = new HashMap<>();
 
         Map<PlacementRequest, List<String>> toPlace = new HashMap<>();
+        // requests with microservices in toPlace, in the order of placementRequests
+        List<PlacementRequest> placing = new ArrayList<>();
+        // a request with nothing left to place never gets anything to place again
+        int completeRequestCount = 0;
 
         int placementCompleteCount = 0;
         while (placementCompleteCount < placementRequests.size()) {
             if (toPlace.isEmpty()) {
+                placing.clear();
+                placementCompleteCount += completeRequestCount;
                 for (PlacementRequest placementRequest : placementRequests) {
+                    if (toPlace.containsKey(placementRequest) || isComplete(placementRequest))
+                        continue;
                     Application app = applicationInfo.get(placementRequest.getApplicationId());
                     List<String> modulesToPlace = getModulesToPlace(mappedMicroservices.get(placementRequest.getPlacementRequestId()).keySet(), app);
-                    if (modulesToPlace.isEmpty())
+                    if (modulesToPlace.isEmpty()) {
                         placementCompleteCount++;
-                    else
+                        completeRequestCount++;
+                        completeRequests.add(placementRequest.getPlacementRequestId());
+                    } else {
                         toPlace.put(placementRequest, modulesToPlace);
+                        placing.add(placementRequest);
+                    }
                 }
             }
-            for (PlacementRequest placementRequest : placementRequests) {
+            for (PlacementRequest placementRequest : new ArrayList<>(placing)) {
                 Application app = applicationInfo.get(placementRequest.getApplicationId());
                 int deviceId = deviceToPlace.get(placementRequest);
                 // if not cluster
                 if (deviceId != -1) {
                     FogDevice device = getDevice(deviceId);
+                    int deviceIndex = deviceIndexes.get(deviceId);
                     List<String> placed = new ArrayList<>();
-                    if (toPlace.containsKey(placementRequest)) {
-                        for (String microservice : toPlace.get(placementRequest)) {
-                            // try to place
-                            if (getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId) <= resourceAvailability.get(deviceId).get(ControllerComponent.CPU)) {
-                                Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + device.getName() + " successful.");
-                                getCurrentCpuLoad().put(deviceId, getModule(microservice, app).getMips() + getCurrentCpuLoad().get(deviceId));
-                                System.out.println("Placement of operator " + microservice + " on device " + device.getName() + " successful.");
-
-                                moduleToApp.put(microservice, app.getAppId());
-
-                                if (!currentModuleMap.get(deviceId).contains(microservice))
-                                    currentModuleMap.get(deviceId).add(microservice);
-
-                                mappedMicroservices.get(placementRequest.getPlacementRequestId()).put(microservice, deviceId);
-
-                                //currentModuleLoad
-                                if (!currentModuleLoadMap.get(deviceId).containsKey(microservice))
-                                    currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips());
-                                else
-                                    currentModuleLoadMap.get(deviceId).put(microservice, getModule(microservice, app).getMips() + currentModuleLoadMap.get(deviceId).get(microservice));
-
-
-                                //currentModuleInstance
-                                if (!currentModuleInstanceNum.get(deviceId).containsKey(microservice))
-                                    currentModuleInstanceNum.get(deviceId).put(microservice, 1);
-                                else
-                                    currentModuleInstanceNum.get(deviceId).put(microservice, currentModuleInstanceNum.get(deviceId).get(microservice) + 1);
-
-                                placed.add(microservice);
-                            }
+                    for (String microservice : toPlace.get(placementRequest)) {
+                        // try to place
+                        if (canPlace(getModule(microservice, app), deviceIndex)) {
+                            placeMicroservice(placementRequest, app, microservice, deviceId);
+                            placed.add(microservice);
                         }
-                        for (String m : placed) {
-                            toPlace.get(placementRequest).remove(m);
-                        }
-                        if (!toPlace.get(placementRequest).isEmpty()) {
-                            if (((MicroserviceFogDevice) device).getIsInCluster()) {
-                                // -1 indicates it's a cluster placement
-                                deviceToPlace.put(placementRequest, -1);
-                                // a device of the cluster to identify the cluster
-                                clusterNode.put(placementRequest, deviceId);
-                            } else {
-                                deviceToPlace.put(placementRequest, device.getParentId());
-                            }
+                    }
+                    if (!placed.isEmpty())
+                        updateRankings(deviceIndex);
+                    for (String m : placed) {
+                        toPlace.get(placementRequest).remove(m);
+                    }
+                    if (!toPlace.get(placementRequest).isEmpty()) {
+                        if (((MicroserviceFogDevice) device).getIsInCluster()) {
+                            // -1 indicates it's a cluster placement
+                            deviceToPlace.put(placementRequest, -1);
+                            // a device of the cluster to identify the cluster
+                            clusterNode.put(placementRequest, deviceId);
+                        } else {
+                            deviceToPlace.put(placementRequest, device.getParentId());
                         }
-                        if (toPlace.get(placementRequest).isEmpty())
-                            toPlace.remove(placementRequest);
                     }
                 } else {
-                    if (toPlace.containsKey(placementRequest)) {
-                        int clusterDeviceId = clusterNode.get(placementRequest);
-                        FogDevice device = getDevice(clusterDeviceId);
-                        List<Integer> clusterDeviceIds = ((MicroserviceFogDevice) device).getClusterMembers();
-                        List<Integer> sortedClusterDevicesActive = new ArrayList<>();
-                        List<Integer> sortedClusterDevicesInactive = new ArrayList<>();
-                        for (Integer id : clusterDeviceIds) {
-                            //sort list from min to max
-                            if (currentModuleMap.get(id).size()>0 && sortedClusterDevicesActive.isEmpty())
-                                sortedClusterDevicesActive.add(id);
-                            else if(currentModuleMap.get(id).size()==0 && sortedClusterDevicesInactive.isEmpty())
-                                sortedClusterDevicesInactive.add(id);
-                            else if(currentModuleMap.get(id).size()>0){
-                                boolean isPlaced = false;
-                                for (int i = 0; i < sortedClusterDevicesActive.size(); i++) {
-                                    double sorted = resourceAvailability.get(sortedClusterDevicesActive.get(i)).get("cpu") -
-                                            getCurrentCpuLoad().get(sortedClusterDevicesActive.get(i));
-                                    double current = resourceAvailability.get(id).get("cpu") -
-                                            getCurrentCpuLoad().get(id);
-                                    if (sorted < current) {sortedClusterDevicesActive.add(i, id);
-                                        isPlaced = true;
-                                        break;
-                                    } else {
-                                        continue;
-                                    }
-                                }
-                                if (!isPlaced)
-                                    sortedClusterDevicesActive.add(id);
-                            }
-                            else{
-                                boolean isPlaced = false;
-                                for (int i = 0; i < sortedClusterDevicesInactive.size(); i++) {
-                                    double sorted = resourceAvailability.get(sortedClusterDevicesInactive.get(i)).get("cpu") -
-                                            getCurrentCpuLoad().get(sortedClusterDevicesInactive.get(i));
-                                    double current = resourceAvailability.get(id).get("cpu") -
-                                            getCurrentCpuLoad().get(id);
-                                    if (sorted < current) {sortedClusterDevicesInactive.add(i, id);
-                                        isPlaced = true;
-                                        break;
-                                    } else {
-                                        continue;
-                                    }
-                                }
-                                if (!isPlaced)
-                                    sortedClusterDevicesInactive.add(id);
-                            }
-                        }
-
-                        List<Integer> sortedClusterDevices = new ArrayList<>(sortedClusterDevicesActive);
-                        sortedClusterDevices.addAll(sortedClusterDevicesInactive);
-                        List<String> placed = new ArrayList<>();
-                        for (String microservice : toPlace.get(placementRequest)) {
-                            for (int id : sortedClusterDevices) {
-                                // try to place
-                                if (getModule(microservice, app).getMips() + getCurrentCpuLoad().get(id) <= resourceAvailability.get(id).get(ControllerComponent.CPU)) {
-                                    FogDevice placedDevice = getDevice(id);
-                                    Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + placedDevice.getName() + " successful.");
-                                    getCurrentCpuLoad().put(id, getModule(microservice, app).getMips() + getCurrentCpuLoad().get(id));
-                                    System.out.println("Placement of operator " + microservice + " on device " + placedDevice.getName() + " successful.");
-
-                                    if (!currentModuleMap.get(id).contains(microservice))
-                                        currentModuleMap.get(id).add(microservice);
-
-                                    mappedMicroservices.get(placementRequest.getPlacementRequestId()).put(microservice, id);
-
-                                    moduleToApp.put(microservice, app.getAppId());
-
-                                    //currentModuleLoad
-                                    if (!currentModuleLoadMap.get(id).containsKey(microservice))
-                                        currentModuleLoadMap.get(id).put(microservice, getModule(microservice, app).getMips());
-                                    else
-                                        currentModuleLoadMap.get(id).put(microservice, getModule(microservice, app).getMips() + currentModuleLoadMap.get(id).get(microservice));
-
-
-                                    //currentModuleInstance
-                                    if (!currentModuleInstanceNum.get(id).containsKey(microservice))
-                                        currentModuleInstanceNum.get(id).put(microservice, 1);
-                                    else
-                                        currentModuleInstanceNum.get(id).put(microservice, currentModuleInstanceNum.get(id).get(microservice) + 1);
-
-                                    placed.add(microservice);
-                                    break;
-                                }
-                            }
+                    int clusterDeviceId = clusterNode.get(placementRequest);
+                    FogDevice device = getDevice(clusterDeviceId);
+                    ClusterRanking ranking = getClusterRanking((MicroserviceFogDevice) device);
+                    // cluster devices are tried in the order they had at the start of this step: the ones already
+                    // hosting microservices first, each group by decreasing free CPU, so the rankings are updated after it
+                    List<Integer> touched = new ArrayList<>();
+                    List<String> placed = new ArrayList<>();
+                    for (String microservice : toPlace.get(placementRequest)) {
+                        int index = ranking.findFirstFit(getModule(microservice, app));
+                        if (index != -1) {
+                            placeMicroservice(placementRequest, app, microservice, devices[index].getId());
+                            touched.add(index);
+                            placed.add(microservice);
                         }
+                    }
+                    for (int index : touched)
+                        updateRankings(index);
 
-                        for (String m : placed) {
-                            toPlace.get(placementRequest).remove(m);
-                        }
-                        if (!toPlace.get(placementRequest).isEmpty()) {
-                            //check
-                            deviceToPlace.put(placementRequest, device.getParentId());
-                        }
-                        if (toPlace.get(placementRequest).isEmpty())
-                            toPlace.remove(placementRequest);
+                    for (String m : placed) {
+                        toPlace.get(placementRequest).remove(m);
+                    }
+                    if (!toPlace.get(placementRequest).isEmpty()) {
+                        //check
+                        deviceToPlace.put(placementRequest, device.getParentId());
                     }
                 }
+                if (toPlace.get(placementRequest).isEmpty()) {
+                    toPlace.remove(placementRequest);
+                    placing.remove(placementRequest);
+                }
             }
         }
 
     }
 
-    private FogDevice getDeviceByName(String deviceName) {
-        for (FogDevice f : fogDevices) {
-            if (f.getName().equals(deviceName))
-                return f;
+    private boolean isComplete(PlacementRequest placementRequest) {
+        return completeRequests.contains(placementRequest.getPlacementRequestId());
+    }
+
+    /**
+     * Checks whether a microservice fits the CPU left on a device.
+     */
+    private boolean canPlace(AppModule module, int deviceIndex) {
+        return module.getMips() + cpuLoad[deviceIndex] <= cpuCapacity[deviceIndex];
+    }
+
+    /**
+     * Records the placement of a microservice of a placement request on a device.
+     */
+    private void placeMicroservice(PlacementRequest placementRequest, Application app, String microservice, int deviceId) {
+        AppModule module = getModule(microservice, app);
+        FogDevice device = getDevice(deviceId);
+        int deviceIndex = deviceIndexes.get(deviceId);
+        Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + device.getName() + " successful.");
+        cpuLoad[deviceIndex] = module.getMips() + cpuLoad[deviceIndex];
+        getCurrentCpuLoad().put(deviceId, cpuLoad[deviceIndex]);
+        System.out.println("Placement of operator " + microservice + " on device " + device.getName() + " successful.");
+
+        moduleToApp.put(microservice, app.getAppId());
+
+        if (!currentModuleMap.get(deviceId).contains(microservice))
+            currentModuleMap.get(deviceId).add(microservice);
+
+        mappedMicroservices.get(placementRequest.getPlacementRequestId()).put(microservice, deviceId);
+
+        //currentModuleLoad
+        if (!currentModuleLoadMap.get(deviceId).containsKey(microservice))
+            currentModuleLoadMap.get(deviceId).put(microservice, module.getMips());
+        else
+            currentModuleLoadMap.get(deviceId).put(microservice, module.getMips() + currentModuleLoadMap.get(deviceId).get(microservice));
+
+        //currentModuleInstance
+        if (!currentModuleInstanceNum.get(deviceId).containsKey(microservice))
+            currentModuleInstanceNum.get(deviceId).put(microservice, 1);
+        else
+            currentModuleInstanceNum.get(deviceId).put(microservice, currentModuleInstanceNum.get(deviceId).get(microservice) + 1);
+    }
+
+    /**
+     * Indexes the fog devices by id and name, and copies their CPU capacity and load into arrays, for a placement
+     * round. The cluster rankings are rebuilt as they are needed.
+     */
+    private void indexDevices() {
+        int size = fogDevices.size();
+        devices = fogDevices.toArray(new FogDevice[size]);
+        deviceIndexes = new HashMap<>();
+        devicesByName = new HashMap<>();
+        cpuCapacity = new double[size];
+        cpuLoad = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            // the first device with an id or name wins, as with a scan of the list
+            deviceIndexes.put(devices[i].getId(), i);
+            devicesByName.put(devices[i].getName(), devices[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            cpuCapacity[i] = resourceAvailability.get(devices[i].getId()).get(ControllerComponent.CPU);
+            cpuLoad[i] = getCurrentCpuLoad().get(devices[i].getId());
         }
-        return null;
+        clusterRankings = new HashMap<>();
+        rankingsByDevice = new HashMap<>();
+        completeRequests = new HashSet<>();
+        placementRequestsById = null;
+        modulesByApp = new HashMap<>();
+    }
+
+    private ClusterRanking getClusterRanking(MicroserviceFogDevice clusterDevice) {
+        ClusterRanking ranking = clusterRankings.get(clusterDevice.getId());
+        if (ranking == null) {
+            ranking = new ClusterRanking(clusterDevice.getClusterMembers());
+            clusterRankings.put(clusterDevice.getId(), ranking);
+            for (int index : ranking.deviceIndexes)
+                rankingsByDevice.computeIfAbsent(index, k -> new ArrayList<>()).add(ranking);
+        }
+        return ranking;
+    }
+
+    /**
+     * Updates the position of a device in the cluster rankings it belongs to after its load changed.
+     */
+    private void updateRankings(int deviceIndex) {
+        List<ClusterRanking> rankings = rankingsByDevice.get(deviceIndex);
+        if (rankings != null) {
+            for (ClusterRanking ranking : rankings)
+                ranking.update(deviceIndex);
+        }
+    }
+
+    private FogDevice getDeviceByName(String deviceName) {
+        return devicesByName.get(deviceName);
     }
 
     public Map<Integer, Double> getCurrentCpuLoad() {
@@ -441,19 +451,201 @@ public class ClusteredMicroservicePlacementLogic implements MicroservicePlacemen
     }
 
     private AppModule getModule(String moduleName, Application app) {
-        for (AppModule appModule : app.getModules()) {
-            if (appModule.getName().equals(moduleName))
-                return appModule;
+        Map<String, AppModule> modules = modulesByApp.get(app);
+        if (modules == null) {
+            modules = new HashMap<>();
+            for (AppModule appModule : app.getModules())
+                modules.putIfAbsent(appModule.getName(), appModule);
+            modulesByApp.put(app, modules);
         }
-        return null;
+        return modules.get(moduleName);
     }
 
     private FogDevice getDevice(int deviceId) {
-        for (FogDevice fogDevice : fogDevices) {
-            if (fogDevice.getId() == deviceId)
-                return fogDevice;
+        Integer index = deviceIndexes.get(deviceId);
+        return index != null ? devices[index] : null;
+    }
+
+    /**
+     * The members of a cluster, ranked as cluster placements try them: the ones hosting microservices (active) before
+     * the others, each group by decreasing free CPU and then in the order of the member list. Each group is an indexed
+     * max-heap, so that a placement only moves the device it changed.
+     */
+    private class ClusterRanking {
+        /** Device indexes of the members, by slot (position in the member list, duplicates dropped). */
+        final int[] deviceIndexes;
+        private final Map<Integer, Integer> slots = new HashMap<>();
+        /** Free CPU of each slot, as of its last update. */
+        private final double[] freeCpu;
+        private final boolean[] active;
+        private final SlotHeap activeHeap;
+        private final SlotHeap inactiveHeap;
+        /** Bound on the rounding errors of the free CPU values. */
+        private double tolerance;
+
+        ClusterRanking(List<Integer> memberIds) {
+            List<Integer> indexes = new ArrayList<>();
+            for (int id : memberIds) {
+                int index = ClusteredMicroservicePlacementLogic.this.deviceIndexes.get(id);
+                if (!slots.containsKey(index)) {
+                    slots.put(index, indexes.size());
+                    indexes.add(index);
+                }
+            }
+            deviceIndexes = new int[indexes.size()];
+            freeCpu = new double[indexes.size()];
+            active = new boolean[indexes.size()];
+            activeHeap = new SlotHeap(indexes.size());
+            inactiveHeap = new SlotHeap(indexes.size());
+            for (int slot = 0; slot < deviceIndexes.length; slot++) {
+                deviceIndexes[slot] = indexes.get(slot);
+                int index = deviceIndexes[slot];
+                tolerance = Math.max(tolerance, 1e-9 * (Math.abs(cpuCapacity[index]) + 1));
+                freeCpu[slot] = cpuCapacity[index] - cpuLoad[index];
+                active[slot] = !currentModuleMap.get(devices[index].getId()).isEmpty();
+                (active[slot] ? activeHeap : inactiveHeap).add(slot);
+            }
+        }
+
+        void update(int deviceIndex) {
+            int slot = slots.get(deviceIndex);
+            boolean nowActive = !currentModuleMap.get(devices[deviceIndex].getId()).isEmpty();
+            (active[slot] ? activeHeap : inactiveHeap).remove(slot);
+            freeCpu[slot] = cpuCapacity[deviceIndex] - cpuLoad[deviceIndex];
+            active[slot] = nowActive;
+            (active[slot] ? activeHeap : inactiveHeap).add(slot);
+        }
+
+        /**
+         * Gets the first device in the ranking that a microservice fits on.
+         *
+         * @return the device index, or -1 if it fits on none
+         */
+        int findFirstFit(AppModule module) {
+            int index = activeHeap.findFirstFit(module);
+            return index != -1 ? index : inactiveHeap.findFirstFit(module);
+        }
+
+        private boolean before(int slot, int other) {
+            return freeCpu[slot] > freeCpu[other] || (freeCpu[slot] == freeCpu[other] && slot < other);
+        }
+
+        private class SlotHeap {
+            private final int[] heap;
+            private final int[] positions;
+            private int size;
+
+            SlotHeap(int capacity) {
+                heap = new int[capacity];
+                positions = new int[capacity];
+                Arrays.fill(positions, -1);
+            }
+
+            void add(int slot) {
+                heap[size] = slot;
+                positions[slot] = size;
+                siftUp(size++);
+            }
+
+            void remove(int slot) {
+                int position = positions[slot];
+                positions[slot] = -1;
+                size--;
+                if (position == size)
+                    return;
+                int moved = heap[size];
+                heap[position] = moved;
+                positions[moved] = position;
+                siftUp(position);
+                if (positions[moved] == position)
+                    siftDown(position);
+            }
+
+            private void siftUp(int position) {
+                int slot = heap[position];
+                while (position > 0) {
+                    int parent = (position - 1) / 2;
+                    if (!before(slot, heap[parent]))
+                        break;
+                    heap[position] = heap[parent];
+                    positions[heap[position]] = position;
+                    position = parent;
+                }
+                heap[position] = slot;
+                positions[slot] = position;
+            }
+
+            private void siftDown(int position) {
+                int slot = heap[position];
+                while (true) {
+                    int child = 2 * position + 1;
+                    if (child >= size)
+                        break;
+                    if (child + 1 < size && before(heap[child + 1], heap[child]))
+                        child++;
+                    if (!before(heap[child], slot))
+                        break;
+                    heap[position] = heap[child];
+                    positions[heap[position]] = position;
+                    position = child;
+                }
+                heap[position] = slot;
+                positions[slot] = position;
+            }
+
+            /**
+             * Visits the slots in ranking order, without modifying the heap, until the microservice fits on one or
+             * the free CPU left is too low for any of the remaining ones.
+             */
+            int findFirstFit(AppModule module) {
+                if (size == 0)
+                    return -1;
+                // frontier of the heap positions still to visit, itself a heap in ranking order
+                int[] frontier = new int[Math.min(size, 16)];
+                int frontierSize = 0;
+                frontier[frontierSize++] = 0;
+                while (frontierSize > 0) {
+                    int position = frontier[0];
+                    frontier[0] = frontier[--frontierSize];
+                    siftDownFrontier(frontier, frontierSize);
+                    int slot = heap[position];
+                    if (freeCpu[slot] < module.getMips() - tolerance)
+                        return -1;
+                    if (canPlace(module, deviceIndexes[slot]))
+                        return deviceIndexes[slot];
+                    for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                        if (frontierSize == frontier.length)
+                            frontier = Arrays.copyOf(frontier, frontierSize * 2);
+                        int i = frontierSize++;
+                        while (i > 0 && before(heap[child], heap[frontier[(i - 1) / 2]])) {
+                            frontier[i] = frontier[(i - 1) / 2];
+                            i = (i - 1) / 2;
+                        }
+                        frontier[i] = child;
+                    }
+                }
+                return -1;
+            }
+
+            private void siftDownFrontier(int[] frontier, int frontierSize) {
+                if (frontierSize == 0)
+                    return;
+                int position = 0;
+                int value = frontier[0];
+                while (true) {
+                    int child = 2 * position + 1;
+                    if (child >= frontierSize)
+                        break;
+                    if (child + 1 < frontierSize && before(heap[frontier[child + 1]], heap[frontier[child]]))
+                        child++;
+                    if (!before(heap[frontier[child]], heap[value]))
+                        break;
+                    frontier[position] = frontier[child];
+                    position = child;
+                }
+                frontier[position] = value;
+            }
         }
-        return null;
     }
 
     private List<String> getModulesToPlace(Set<String> placedModules, Application app) {
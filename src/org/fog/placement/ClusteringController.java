@@ -19,6 +19,9 @@ import java.util.stream.Collectors;
 
 public class ClusteringController extends SimEntity {
 
+    // settings of the simulation of the controller, got once when it is created
+    private final SimulationConfig simulationConfig = SimulationConfig.current();
+
     public static boolean ONLY_CLOUD = false;
 
     private List<FogDevice> fogDevices;
@@ -110,7 +113,7 @@ public class ClusteringController extends SimEntity {
                 continue;
             double latency = fogDevice.getUplinkLatency();
             parent.getChildToLatencyMap().put(fogDevice.getId(), latency);
-            parent.getChildrenIds().add(fogDevice.getId());
+            parent.addChild(fogDevice.getId());
             System.out.println("Child " + fogDevice.getName() + "\t----->\tParent " + parent.getName());
         }
     }
@@ -126,9 +129,9 @@ public class ClusteringController extends SimEntity {
                 send(getId(), getAppLaunchDelays().get(appId), FogEvents.APP_SUBMIT, applications.get(appId));
         }
 
-        send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
+        send(getId(), simulationConfig.getResourceManageInterval(), FogEvents.CONTROLLER_RESOURCE_MANAGE);
 
-        send(getId(), Config.MAX_SIMULATION_TIME, FogEvents.STOP_SIMULATION);
+        send(getId(), simulationConfig.getMaxSimulationTime(), FogEvents.STOP_SIMULATION);
 
         sendNow(getId(), FogEvents.MOBILITY_SUBMIT);
 
@@ -159,12 +162,14 @@ public class ClusteringController extends SimEntity {
                 break;
             case FogEvents.STOP_SIMULATION:
                 CloudSim.stopSimulation();
-                printTimeDetails();
-                printPowerDetails();
-                printCostDetails();
-                printNetworkUsageDetails();
-                printMigrationDelayDetails();
-                System.exit(0);
+                if(FogUtils.isStandaloneRun()){
+                    printTimeDetails();
+                    printPowerDetails();
+                    printCostDetails();
+                    printNetworkUsageDetails();
+                    printMigrationDelayDetails();
+                }
+                FogUtils.endSimulation();
                 break;
 
             default:
@@ -206,6 +211,8 @@ public class ClusteringController extends SimEntity {
     private void processMobility(SimEvent ev) {
         // TODO Auto-generated method stub
         FogDevice fogDevice = (FogDevice) ev.getData();
+        if (simulationConfig.isRollingMobilityEvents())
+            scheduleNextMobility(fogDevice);
         FogDevice prevParent = getFogDeviceById(parentReference.get(fogDevice.getId()));
         FogDevice newParent = getFogDeviceById(locator.determineParent(fogDevice.getId(), CloudSim.clock()));
         System.out.println(CloudSim.clock() + " Starting Mobility Management for " + fogDevice.getName());
@@ -307,7 +314,17 @@ public class ClusteringController extends SimEntity {
     }
 
     private void processMobilityData() {
-        // TODO Auto-generated method stub
+        if (simulationConfig.isRollingMobilityEvents()) {
+            // only the first mobility event of each device is pending, each one schedules the next
+            for (FogDevice fogDevice : getFogDevices()) {
+                if (locator.isAMobileDevice(fogDevice.getId())) {
+                    double firstTimeEntry = locator.getFirstTimeEntry(fogDevice.getId());
+                    if (firstTimeEntry >= 0)
+                        send(getId(), firstTimeEntry - CloudSim.clock(), FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+                }
+            }
+            return;
+        }
         List<Double> timeSheet = new ArrayList<Double>();
         for (FogDevice fogDevice : getFogDevices()) {
             if (locator.isAMobileDevice(fogDevice.getId())) {
@@ -318,8 +335,17 @@ public class ClusteringController extends SimEntity {
         }
     }
 
+    /**
+     * Schedules the mobility event of a device at its next location record, with {@link Config#ROLLING_MOBILITY_EVENTS}.
+     */
+    private void scheduleNextMobility(FogDevice fogDevice) {
+        double nextTimeEntry = locator.getNextTimeEntry(fogDevice.getId(), CloudSim.clock());
+        if (nextTimeEntry >= 0)
+            send(getId(), nextTimeEntry - CloudSim.clock(), FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+    }
+
     private void printNetworkUsageDetails() {
-        System.out.println("Total network usage = " + NetworkUsageMonitor.getNetworkUsage() / Config.MAX_SIMULATION_TIME);
+        System.out.println("Total network usage = " + NetworkUsageMonitor.getNetworkUsage() / simulationConfig.getMaxSimulationTime());
     }
 
     private FogDevice getCloud() {
@@ -370,7 +396,7 @@ public class ClusteringController extends SimEntity {
 				count += 1;
 			}
 			System.out.println(getStringForLoopId(loopId) + " ---> "+(average/count));*/
-        //System.out.println(getStringForLoopId(loopId) + " ---> "+TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loopId));
+        //System.out.println(getStringForLoopId(loopId) + " ---> "+TimeKeeper.getInstance().getLoopDelay(loopId).getAverage());
         //}
         System.out.println("=========================================");
         System.out.println("TUPLE CPU EXECUTION DELAY");
@@ -378,13 +404,16 @@ public class ClusteringController extends SimEntity {
 
         for (String tupleType : TimeKeeper.getInstance().getTupleTypeToAverageCpuTime().keySet()) {
             System.out.println(tupleType + " ---> " + TimeKeeper.getInstance().getTupleTypeToAverageCpuTime().get(tupleType));
+            LatencyHistogram cpuTimes = TimeKeeper.getInstance().getTupleTypeToCpuTimeHistogram().get(tupleType);
+            if (cpuTimes != null)
+                System.out.println("\t" + cpuTimes.getPercentileSummary());
         }
 
         System.out.println("=========================================");
     }
 
     protected void manageResources() {
-        send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
+        send(getId(), simulationConfig.getResourceManageInterval(), FogEvents.CONTROLLER_RESOURCE_MANAGE);
     }
 
     private void processTupleFinished(SimEvent ev) {
@@ -395,7 +424,7 @@ public class ClusteringController extends SimEntity {
     }
 
     public void submitApplication(Application application, int delay, ModulePlacement modulePlacement) {
-        FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+        FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
         getApplications().put(application.getAppId(), application);
         getAppLaunchDelays().put(application.getAppId(), delay);
         getAppModulePlacementPolicy().put(application.getAppId(), modulePlacement);
@@ -430,7 +459,7 @@ public class ClusteringController extends SimEntity {
 
     private void processAppSubmit(Application application) {
         System.out.println(CloudSim.clock() + " Submitted application " + application.getAppId());
-        FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+        FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
         getApplications().put(application.getAppId(), application);
 
         ModulePlacement modulePlacement = getAppModulePlacementPolicy().get(application.getAppId());
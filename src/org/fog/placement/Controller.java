@@ -15,13 +15,18 @@ import org.fog.application.Application;
 import org.fog.entities.Actuator;
 import org.fog.entities.FogDevice;
 import org.fog.entities.Sensor;
-import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
 import org.fog.utils.FogUtils;
+import org.fog.utils.LatencyHistogram;
+import org.fog.utils.LoopDelayStatistics;
 import org.fog.utils.NetworkUsageMonitor;
+import org.fog.utils.SimulationConfig;
 import org.fog.utils.TimeKeeper;
 
 public class Controller extends SimEntity{
+
+	// settings of the simulation of the controller, got once when it is created
+	private final SimulationConfig simulationConfig = SimulationConfig.current();
 	
 	public static boolean ONLY_CLOUD = false;
 		
@@ -63,7 +68,7 @@ public class Controller extends SimEntity{
 				continue;
 			double latency = fogDevice.getUplinkLatency();
 			parent.getChildToLatencyMap().put(fogDevice.getId(), latency);
-			parent.getChildrenIds().add(fogDevice.getId());
+			parent.addChild(fogDevice.getId());
 		}
 	}
 	
@@ -76,9 +81,9 @@ public class Controller extends SimEntity{
 				send(getId(), getAppLaunchDelays().get(appId), FogEvents.APP_SUBMIT, applications.get(appId));
 		}
 
-		send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
+		send(getId(), simulationConfig.getResourceManageInterval(), FogEvents.CONTROLLER_RESOURCE_MANAGE);
 		
-		send(getId(), Config.MAX_SIMULATION_TIME, FogEvents.STOP_SIMULATION);
+		send(getId(), simulationConfig.getMaxSimulationTime(), FogEvents.STOP_SIMULATION);
 		
 		for(FogDevice dev : getFogDevices())
 			sendNow(dev.getId(), FogEvents.RESOURCE_MGMT);
@@ -99,11 +104,13 @@ public class Controller extends SimEntity{
 			break;
 		case FogEvents.STOP_SIMULATION:
 			CloudSim.stopSimulation();
-			printTimeDetails();
-			printPowerDetails();
-			printCostDetails();
-			printNetworkUsageDetails();
-			System.exit(0);
+			if(FogUtils.isStandaloneRun()){
+				printTimeDetails();
+				printPowerDetails();
+				printCostDetails();
+				printNetworkUsageDetails();
+			}
+			FogUtils.endSimulation();
 			break;
 
             default:
@@ -112,7 +119,7 @@ public class Controller extends SimEntity{
 	}
 	
 	private void printNetworkUsageDetails() {
-		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/Config.MAX_SIMULATION_TIME);		
+		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/simulationConfig.getMaxSimulationTime());		
 	}
 
 	private FogDevice getCloud(){
@@ -150,7 +157,7 @@ public class Controller extends SimEntity{
 		System.out.println("=========================================");
 		System.out.println("APPLICATION LOOP DELAYS");
 		System.out.println("=========================================");
-		for(Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()){
+		for(int loopId : TimeKeeper.getInstance().getLoopDelays().keySet()){
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -161,7 +168,11 @@ public class Controller extends SimEntity{
 				count += 1;
 			}
 			System.out.println(getStringForLoopId(loopId) + " ---> "+(average/count));*/
-			System.out.println(getStringForLoopId(loopId) + " ---> "+TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loopId));
+			LoopDelayStatistics delays = TimeKeeper.getInstance().getLoopDelay(loopId);
+			// no average yet (null) if none of the executions of the loop has ended
+			System.out.println(getStringForLoopId(loopId) + " ---> " + (delays.getCount() > 0 ? (Double) delays.getAverage() : null));
+			if(delays.getCount() > 0)
+				System.out.println("\t" + delays.getHistogram().getPercentileSummary());
 		}
 		System.out.println("=========================================");
 		System.out.println("TUPLE CPU EXECUTION DELAY");
@@ -169,13 +180,16 @@ public class Controller extends SimEntity{
 		
 		for(String tupleType : TimeKeeper.getInstance().getTupleTypeToAverageCpuTime().keySet()){
 			System.out.println(tupleType + " ---> "+TimeKeeper.getInstance().getTupleTypeToAverageCpuTime().get(tupleType));
+			LatencyHistogram cpuTimes = TimeKeeper.getInstance().getTupleTypeToCpuTimeHistogram().get(tupleType);
+			if(cpuTimes != null)
+				System.out.println("\t" + cpuTimes.getPercentileSummary());
 		}
 		
 		System.out.println("=========================================");
 	}
 
 	protected void manageResources(){
-		send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
+		send(getId(), simulationConfig.getResourceManageInterval(), FogEvents.CONTROLLER_RESOURCE_MANAGE);
 	}
 	
 	private void processTupleFinished(SimEvent ev) {
@@ -186,7 +200,7 @@ public class Controller extends SimEntity{
 	}
 	
 	public void submitApplication(Application application, int delay, ModulePlacement modulePlacement){
-		FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+		FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
 		getApplications().put(application.getAppId(), application);
 		getAppLaunchDelays().put(application.getAppId(), delay);
 		getAppModulePlacementPolicy().put(application.getAppId(), modulePlacement);
@@ -221,7 +235,7 @@ public class Controller extends SimEntity{
 	
 	private void processAppSubmit(Application application){
 		System.out.println(CloudSim.clock()+" Submitted application "+ application.getAppId());
-		FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+		FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
 		getApplications().put(application.getAppId(), application);
 		
 		ModulePlacement modulePlacement = getAppModulePlacementPolicy().get(application.getAppId());
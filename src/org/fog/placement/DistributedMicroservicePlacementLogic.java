@@ -37,6 +37,15 @@ public class DistributedMicroservicePlacementLogic implements MicroservicePlacem
 
     protected Map<PlacementRequest, Integer> prStatus = new HashMap<>();
 
+    /**
+     * Requests mapped by {@link #prepare(List, Map, Map, List)} for the next run, or null
+     */
+    private List<PlacementRequest> preparedRequests = null;
+    /**
+     * Microservices placed by mapModules and not yet reported
+     */
+    private List<String> placementLog = new ArrayList<>();
+
 
     public DistributedMicroservicePlacementLogic(int fonID) {
         setFONId(fonID);
@@ -58,13 +67,47 @@ public class DistributedMicroservicePlacementLogic implements MicroservicePlacem
         this.resourceAvailability = resourceAvailability;
         this.applicationInfo = applicationInfo;
 
-        mapModules();
+        if (preparedRequests != null) {
+            if (!preparedRequests.equals(prs))
+                throw new IllegalStateException("Placement requests of " + fogDevice.getName() + " changed after their placement was prepared");
+            preparedRequests = null;
+        } else {
+            mapModules();
+        }
+        reportPlacements();
         PlacementLogicOutput placement = generatePlacementMap();
         updateResources(resourceAvailability);
         postProcessing();
         return placement;
     }
 
+    /**
+     * Maps the microservices of placement requests ahead of the run that places them, so that the FONs processing
+     * requests at the same time can map them in parallel. The run must be given the same requests, and nothing else
+     * may change the requests or the resources known to this logic in between.
+     */
+    public void prepare(List<FogDevice> fogDevices, Map<String, Application> applicationInfo, Map<Integer, Map<String, Double>> resourceAvailability, List<PlacementRequest> prs) {
+        this.fogDevice = fogDevices.get(0);
+        this.placementRequests = prs;
+        this.resourceAvailability = resourceAvailability;
+        this.applicationInfo = applicationInfo;
+
+        mapModules();
+        preparedRequests = new ArrayList<>(prs);
+    }
+
+    public boolean isPrepared() {
+        return preparedRequests != null;
+    }
+
+    private void reportPlacements() {
+        for (String microservice : placementLog) {
+            Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + fogDevice.getName() + " successful.");
+            System.out.println("Placement of operator " + microservice + " on device " + fogDevice.getName() + " successful.");
+        }
+        placementLog.clear();
+    }
+
     @Override
     public void updateResources(Map<Integer, Map<String, Double>> resourceAvailability) {
         int deviceId = fogDevice.getId();
@@ -83,8 +126,11 @@ public class DistributedMicroservicePlacementLogic implements MicroservicePlacem
 
     private PlacementLogicOutput generatePlacementMap() {
         Map<Integer, Map<String, Integer>> placement = new HashMap<>();
+        Map<Integer, PlacementRequest> placementRequestsById = new HashMap<>();
         for (PlacementRequest placementRequest : placementRequests) {
             placement.put(placementRequest.getPlacementRequestId(), placementRequest.getPlacedMicroservices());
+            // the last request with an id wins, as with a scan of the list
+            placementRequestsById.put(placementRequest.getPlacementRequestId(), placementRequest);
         }
 
         Map<Integer, Map<Application, List<ModuleLaunchConfig>>> perDevice = new HashMap<>();
@@ -92,11 +138,7 @@ public class DistributedMicroservicePlacementLogic implements MicroservicePlacem
         if (placement != null) {
             for (int prID : placement.keySet()) {
                 //retrieve application
-                PlacementRequest placementRequest = null;
-                for (PlacementRequest pr : placementRequests) {
-                    if (pr.getPlacementRequestId() == prID)
-                        placementRequest = pr;
-                }
+                PlacementRequest placementRequest = placementRequestsById.get(prID);
                 Application application = applicationInfo.get(placementRequest.getApplicationId());
                 for (String microserviceName : placement.get(prID).keySet()) {
                     int deviceID = placement.get(prID).get(microserviceName);
@@ -154,9 +196,8 @@ public class DistributedMicroservicePlacementLogic implements MicroservicePlacem
                             !app.getSpecialPlacementInfo().get(microservice).contains(fogDevice.getName())) {
                         failedMicroservices.add(microservice);
                     } else if (getModule(microservice, app).getMips() + currentCpuLoad <= resourceAvailability.get(fogDevice.getId()).get(ControllerComponent.CPU)) {
-                        Logger.debug("ModulePlacementEdgeward", "Placement of operator " + microservice + " on device " + fogDevice.getName() + " successful.");
                         currentCpuLoad = getModule(microservice, app).getMips() + currentCpuLoad;
-                        System.out.println("Placement of operator " + microservice + " on device " + fogDevice.getName() + " successful.");
+                        placementLog.add(microservice);
 
                         moduleToApp.put(microservice, app.getAppId());
 
@@ -4,16 +4,23 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 
 import org.fog.mobilitydata.Location;
 import org.fog.mobilitydata.DataParser;
 import org.fog.mobilitydata.References;
+import org.fog.mobilitydata.SpatialIndex;
+import org.fog.mobilitydata.UserTrace;
 import org.fog.utils.Config;
 
 public class LocationHandler {
 	
 	public DataParser dataObject;
 	public Map<Integer, String> instanceToDataId;
+	/** Instance id of each data id, kept by {@link #linkDataWithInstance(int, String)}. */
+	private Map<String, Integer> dataIdToInstance = new HashMap<String, Integer>();
+	/** Spatial index of the resources of each level, built on first use. */
+	private Map<Integer, SpatialIndex> levelIndexes = new HashMap<Integer, SpatialIndex>();
 	
 
 	public LocationHandler(DataParser dataObject) {
@@ -71,45 +78,41 @@ public class LocationHandler {
 				Location potentialParentLoc = getResourceLocationInfo(getLevelWiseResources(parentLevel).get(i));
 				if(potentialParentLoc.block==resourceLoc.block) {
 					parentDataId = getLevelWiseResources(parentLevel).get(i);
-					for(int parentIdIterator: instanceToDataId.keySet())
-					{
-						if(instanceToDataId.get(parentIdIterator).equals(parentDataId))
-						{
-							parentInstanceId = parentIdIterator;
-						}
-					}
+					if(dataIdToInstance.containsKey(parentDataId))
+						parentInstanceId = dataIdToInstance.get(parentDataId);
 				}	
 			}
 		}
 		else
 		{
-			double minmumDistance = Config.MAX_VALUE;
-			for(int i=0; i<getLevelWiseResources(parentLevel).size();i++){
-				Location potentialParentLoc = getResourceLocationInfo(getLevelWiseResources(parentLevel).get(i));
-				
-				double distance = calculateDistance(resourceLoc, potentialParentLoc);
-					if(distance<minmumDistance){
-						parentDataId = getLevelWiseResources(parentLevel).get(i);
-						minmumDistance = distance;
-					}
+			int nearest = getLevelIndex(parentLevel).nearest(resourceLoc);
+			if(nearest != -1) {
+				String nearestDataId = getLevelWiseResources(parentLevel).get(nearest);
+				if(calculateDistance(resourceLoc, getResourceLocationInfo(nearestDataId))<Config.MAX_VALUE)
+					parentDataId = nearestDataId;
 			}
 			
-			for(int parentIdIterator: instanceToDataId.keySet())
-			{
-				if(instanceToDataId.get(parentIdIterator).equals(parentDataId))
-				{
-					parentInstanceId = parentIdIterator;
-				}
-			}
+			if(dataIdToInstance.containsKey(parentDataId))
+				parentInstanceId = dataIdToInstance.get(parentDataId);
 			
 		}
 		
 		return parentInstanceId;	
 	}	
 
+	/** Tolerance on the times of the location records, which events may reach with rounding errors. */
+	private static final double TIME_TOLERANCE = 1e-9;
+
 	private Location getUserLocationInfo(String dataId, double time) {
-		// TODO Auto-generated method stub
-		return getDataObject().usersLocation.get(dataId).get(time);
+		// the last location recorded by the given time, a record a rounding error later included
+		double tolerantTime = time + TIME_TOLERANCE * Math.max(1, Math.abs(time));
+		UserTrace trace = getDataObject().getMappedTrace(dataId);
+		if(trace != null) {
+			int index = trace.floorIndex(tolerantTime);
+			return index >= 0 ? trace.getLocation(index) : null;
+		}
+		Map.Entry<Double, Location> entry = getDataObject().usersLocation.get(dataId).floorEntry(tolerantTime);
+		return entry != null ? entry.getValue() : null;
 	}
 
 	private Location getResourceLocationInfo(String dataId) {
@@ -121,13 +124,84 @@ public class LocationHandler {
 	public List<Double> getTimeSheet(int instanceId) {
 		
 		String dataId = getDataIdByInstanceID(instanceId);
+		UserTrace trace = getDataObject().getMappedTrace(dataId);
+		if(trace != null) {
+			List<Double> timeSheet = new ArrayList<Double>(trace.size());
+			for(int i=0;i<trace.size();i++)
+				timeSheet.add(trace.getTime(i));
+			return timeSheet;
+		}
 		List<Double>timeSheet = new ArrayList<Double>(getDataObject().usersLocation.get(dataId).keySet());
 		return timeSheet;
 	}
 
+	/**
+	 * Gets the time of the first location record of a mobile device.
+	 * @return the time, or -1 if the device has no record
+	 */
+	public double getFirstTimeEntry(int instanceId) {
+		String dataId = getDataIdByInstanceID(instanceId);
+		UserTrace trace = getDataObject().getMappedTrace(dataId);
+		if(trace != null)
+			return trace.size() == 0 ? -1 : trace.getTime(0);
+		NavigableMap<Double, Location> locations = getDataObject().usersLocation.get(dataId);
+		return locations.isEmpty() ? -1 : locations.firstKey();
+	}
+
+	/**
+	 * Gets the time of the first location record of a mobile device after a given time, a record
+	 * a rounding error later excluded.
+	 * @return the time, or -1 if there is no later record
+	 */
+	public double getNextTimeEntry(int instanceId, double time) {
+		String dataId = getDataIdByInstanceID(instanceId);
+		double tolerantTime = time + TIME_TOLERANCE * Math.max(1, Math.abs(time));
+		UserTrace trace = getDataObject().getMappedTrace(dataId);
+		if(trace != null) {
+			int index = trace.higherIndex(tolerantTime);
+			return index >= 0 ? trace.getTime(index) : -1;
+		}
+		NavigableMap<Double, Location> locations = getDataObject().usersLocation.get(dataId);
+		Double next = locations.higherKey(tolerantTime);
+		return next != null ? next : -1;
+	}
+
 	public void linkDataWithInstance(int instanceId, String dataID) {
 		// TODO Auto-generated method stub
-		instanceToDataId.put(instanceId, dataID);
+		String previousDataId = instanceToDataId.put(instanceId, dataID);
+		if(previousDataId != null && dataIdToInstance.get(previousDataId) == instanceId)
+			dataIdToInstance.remove(previousDataId);
+		dataIdToInstance.put(dataID, instanceId);
+	}
+
+	/**
+	 * Gets the spatial index of the resources of a level, in the order of {@link #getLevelWiseResources(int)}.
+	 */
+	public SpatialIndex getLevelIndex(int levelNo) {
+		SpatialIndex index = levelIndexes.get(levelNo);
+		if(index == null) {
+			List<Location> locations = new ArrayList<Location>();
+			for(String dataId : getLevelWiseResources(levelNo))
+				locations.add(getResourceLocationInfo(dataId));
+			index = new SpatialIndex(locations);
+			levelIndexes.put(levelNo, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the instances of the resources of a level that lie within a distance of a location.
+	 * @param distance the distance, in kilometers
+	 * @return the instance ids, in the order of {@link #getLevelWiseResources(int)}
+	 */
+	public List<Integer> getResourceInstancesInRange(int levelNo, Location location, double distance) {
+		List<Integer> instanceIds = new ArrayList<Integer>();
+		for(int position : getLevelIndex(levelNo).withinDistance(location, distance)) {
+			Integer instanceId = dataIdToInstance.get(getLevelWiseResources(levelNo).get(position));
+			if(instanceId != null)
+				instanceIds.add(instanceId);
+		}
+		return instanceIds;
 	}
 
 	public int getLevelID(String resourceType) {
@@ -145,6 +219,14 @@ public class LocationHandler {
 		getDataObject().parseUserData(userMobilityPattern, datasetReference);
 	}
 
+	/**
+	 * Maps the mobility traces of a trace file instead of parsing CSV traces into memory (see
+	 * {@link org.fog.mobilitydata.MappedTraceFile}).
+	 */
+	public void loadUserTraces(String traceFile) throws IOException {
+		getDataObject().loadUserTraces(traceFile);
+	}
+
 	public void parseResourceInfo() throws NumberFormatException, IOException {
 		// TODO Auto-generated method stub
 		getDataObject().parseResourceData();
@@ -153,6 +235,12 @@ public class LocationHandler {
 	public List<String> getMobileUserDataId() {
 		// TODO Auto-generated method stub
 		List<String> userDataIds = new ArrayList<>(getDataObject().usersLocation.keySet());
+		if(getDataObject().mappedTraces != null) {
+			for(int userId : getDataObject().mappedTraces.getUserIds()) {
+				if(!getDataObject().usersLocation.containsKey("usr_" + userId))
+					userDataIds.add("usr_" + userId);
+			}
+		}
 		return userDataIds;
 		
 	}
@@ -176,6 +264,15 @@ public class LocationHandler {
 		// TODO Auto-generated method stub
 		return instanceToDataId.get(instanceID);
 	}
+
+	/**
+	 * Gets the instance linked with a data id.
+	 * @return the instance id, or {@link References#NOT_SET} if no instance is linked with it
+	 */
+	public int getInstanceIdByDataId(String dataId) {
+		Integer instanceId = dataIdToInstance.get(dataId);
+		return instanceId != null ? instanceId : References.NOT_SET;
+	}
 	
 	public Map<Integer, String> getInstenceDataIdReferences() {
 		// TODO Auto-generated method stub
@@ -17,6 +17,9 @@ import java.util.*;
  */
 public class MicroservicesController extends SimEntity {
 
+    // settings of the simulation of the controller, got once when it is created
+    protected final SimulationConfig simulationConfig = SimulationConfig.current();
+
     protected List<FogDevice> fogDevices;
     protected List<Sensor> sensors;
     protected Map<String, Application> applications = new HashMap<>();
@@ -61,9 +64,9 @@ public class MicroservicesController extends SimEntity {
     protected void init() {
         connectWithLatencies();
 
-        if (Config.ENABLE_STATIC_CLUSTERING) {
+        if (simulationConfig.isStaticClustering()) {
             for (Integer id : clustering_levels)
-                createClusterConnections(id, fogDevices, Config.clusteringLatency);
+                createClusterConnections(id, fogDevices, simulationConfig.getClusteringLatency());
         }
         printClusterConnections();
 
@@ -74,9 +77,9 @@ public class MicroservicesController extends SimEntity {
     protected void init(Map<Integer, List<FogDevice>> monitored) {
         connectWithLatencies();
 
-        if (!Config.ENABLE_STATIC_CLUSTERING) {
+        if (!simulationConfig.isStaticClustering()) {
             for (Integer id : clustering_levels)
-                createClusterConnections(id, fogDevices, Config.clusteringLatency);
+                createClusterConnections(id, fogDevices, simulationConfig.getClusteringLatency());
         }
         printClusterConnections();
 
@@ -117,35 +120,34 @@ public class MicroservicesController extends SimEntity {
     }
 
     protected FogDevice getFogDeviceById(int id) {
-        for (FogDevice f : fogDevices) {
-            if (f.getId() == id)
-                return f;
-        }
-        return null;
+        if (id < 0 || id >= CloudSim.getNumEntities())
+            return null;
+        SimEntity entity = CloudSim.getEntity(id);
+        return entity instanceof FogDevice ? (FogDevice) entity : null;
     }
 
     protected void generateRoutingTable() {
-        Map<Integer, Map<Integer, Integer>> routing = ShortestPathRoutingGenerator.generateRoutingTable(fogDevices);
+        NextHopTable routing = ShortestPathRoutingGenerator.generateRoutingTable(fogDevices);
 
         for (FogDevice f : fogDevices) {
-            ((MicroserviceFogDevice) f).addRoutingTable(routing.get(f.getId()));
+            ((MicroserviceFogDevice) f).addRoutingTable(routing);
         }
 
     }
 
     public void startEntity() {
-        if (MicroservicePlacementConfig.SIMULATION_MODE == "STATIC")
+        if ("STATIC".equals(simulationConfig.getSimulationMode()))
             initiatePlacementRequestProcessing();
-        if (MicroservicePlacementConfig.SIMULATION_MODE == "DYNAMIC")
+        if ("DYNAMIC".equals(simulationConfig.getSimulationMode()))
             initiatePlacementRequestProcessingDynamic();
 
-        if (MicroservicePlacementConfig.ENABLE_RESOURCE_DATA_SHARING) {
+        if (simulationConfig.isResourceDataSharing()) {
             shareResourceDataAmongClusterNodes();
         }
 
-        send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
+        send(getId(), simulationConfig.getResourceManageInterval(), FogEvents.CONTROLLER_RESOURCE_MANAGE);
 
-        send(getId(), Config.MAX_SIMULATION_TIME, FogEvents.STOP_SIMULATION);
+        send(getId(), simulationConfig.getMaxSimulationTime(), FogEvents.STOP_SIMULATION);
     }
 
     protected void shareResourceDataAmongClusterNodes() {
@@ -167,7 +169,7 @@ public class MicroservicesController extends SimEntity {
             } else
                 send(p.getGatewayDeviceId(), placementRequestDelayMap.get(p), FogEvents.TRANSMIT_PR, p);
         }
-        if (MicroservicePlacementConfig.PR_PROCESSING_MODE == MicroservicePlacementConfig.PERIODIC) {
+        if (MicroservicePlacementConfig.PERIODIC.equals(simulationConfig.getPrProcessingMode())) {
             for (FogDevice f : fogDevices) {
                 if (((MicroserviceFogDevice) f).getDeviceType() == MicroserviceFogDevice.FON) {
                     sendNow(f.getId(), FogEvents.PROCESS_PRS);
@@ -185,7 +187,7 @@ public class MicroservicesController extends SimEntity {
             } else
                 send(getId(), placementRequestDelayMap.get(p), FogEvents.TRANSMIT_PR, p);
         }
-        if (MicroservicePlacementConfig.PR_PROCESSING_MODE == MicroservicePlacementConfig.PERIODIC) {
+        if (MicroservicePlacementConfig.PERIODIC.equals(simulationConfig.getPrProcessingMode())) {
             for (FogDevice f : fogDevices) {
                 if (((MicroserviceFogDevice) f).getDeviceType() == MicroserviceFogDevice.FON) {
                     sendNow(f.getId(), FogEvents.PROCESS_PRS);
@@ -214,12 +216,14 @@ public class MicroservicesController extends SimEntity {
                 break;
             case FogEvents.STOP_SIMULATION:
                 CloudSim.stopSimulation();
-                printTimeDetails();
-                printPowerDetails();
-                printCostDetails();
-                printNetworkUsageDetails();
-                printQoSDetails();
-                System.exit(0);
+                if(FogUtils.isStandaloneRun()){
+                    printTimeDetails();
+                    printPowerDetails();
+                    printCostDetails();
+                    printNetworkUsageDetails();
+                    printQoSDetails();
+                }
+                FogUtils.endSimulation();
                 break;
             default:
                 throw new IllegalStateException("Unexpected value: " + ev.getTag());
@@ -242,7 +246,7 @@ public class MicroservicesController extends SimEntity {
         double total = 0;
         for (Integer loopId : TimeKeeper.getInstance().getLoopIdToLatencyQoSSuccessCount().keySet()) {
             success += TimeKeeper.getInstance().getLoopIdToLatencyQoSSuccessCount().get(loopId);
-            total += TimeKeeper.getInstance().getLoopIdToCurrentNum().get(loopId);
+            total += TimeKeeper.getInstance().getLoopDelay(loopId).getCount();
         }
 
         double successPercentage = success / total * 100;
@@ -258,11 +262,11 @@ public class MicroservicesController extends SimEntity {
     }
 
     protected void manageResources() {
-        send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
+        send(getId(), simulationConfig.getResourceManageInterval(), FogEvents.CONTROLLER_RESOURCE_MANAGE);
     }
 
     protected void printNetworkUsageDetails() {
-        System.out.println("Total network usage = " + NetworkUsageMonitor.getNetworkUsage() / Config.MAX_SIMULATION_TIME);
+        System.out.println("Total network usage = " + NetworkUsageMonitor.getNetworkUsage() / simulationConfig.getMaxSimulationTime());
     }
 
     protected FogDevice getCloud() {
@@ -300,7 +304,7 @@ public class MicroservicesController extends SimEntity {
         System.out.println("=========================================");
         System.out.println("APPLICATION LOOP DELAYS");
         System.out.println("=========================================");
-        for (Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()) {
+        for (int loopId : TimeKeeper.getInstance().getLoopDelays().keySet()) {
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -311,7 +315,11 @@ public class MicroservicesController extends SimEntity {
 				count += 1;
 			}
 			System.out.println(getStringForLoopId(loopId) + " ---> "+(average/count));*/
-            System.out.println(getStringForLoopId(loopId) + " ---> " + TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loopId));
+            LoopDelayStatistics delays = TimeKeeper.getInstance().getLoopDelay(loopId);
+            // no average yet (null) if none of the executions of the loop has ended
+            System.out.println(getStringForLoopId(loopId) + " ---> " + (delays.getCount() > 0 ? (Double) delays.getAverage() : null));
+            if (delays.getCount() > 0)
+                System.out.println("\t" + delays.getHistogram().getPercentileSummary());
         }
         System.out.println("=========================================");
         System.out.println("TUPLE CPU EXECUTION DELAY");
@@ -319,6 +327,9 @@ public class MicroservicesController extends SimEntity {
 
         for (String tupleType : TimeKeeper.getInstance().getTupleTypeToAverageCpuTime().keySet()) {
             System.out.println(tupleType + " ---> " + TimeKeeper.getInstance().getTupleTypeToAverageCpuTime().get(tupleType));
+            LatencyHistogram cpuTimes = TimeKeeper.getInstance().getTupleTypeToCpuTimeHistogram().get(tupleType);
+            if (cpuTimes != null)
+                System.out.println("\t" + cpuTimes.getPercentileSummary());
         }
 
         System.out.println("=========================================");
@@ -351,7 +362,7 @@ public class MicroservicesController extends SimEntity {
                     continue;
                 double latency = fogDevice.getUplinkLatency();
                 parent.getChildToLatencyMap().put(fogDevice.getId(), latency);
-                parent.getChildrenIds().add(fogDevice.getId());
+                parent.addChild(fogDevice.getId());
             }
         }
     }
@@ -14,7 +14,9 @@ import org.fog.entities.PlacementRequest;
 import org.fog.mobilitydata.References;
 import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
+import org.fog.utils.FogUtils;
 import org.fog.utils.MigrationDelayMonitor;
+import org.fog.utils.SimulationConfig;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
@@ -77,7 +79,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
 
     @Override
     public void startEntity() {
-        if (Config.ENABLE_DYNAMIC_CLUSTERING)
+        if (simulationConfig.isDynamicClustering())
             clusteringSubmit(clustering_levels);
 
         super.startEntity();
@@ -96,12 +98,14 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
                 break;
             case FogEvents.STOP_SIMULATION:
                 CloudSim.stopSimulation();
-                printTimeDetails();
-                printPowerDetails();
-                printCostDetails();
-                printNetworkUsageDetails();
-                printMigrationDelayDetails();
-                System.exit(0);
+                if(FogUtils.isStandaloneRun()){
+                    printTimeDetails();
+                    printPowerDetails();
+                    printCostDetails();
+                    printNetworkUsageDetails();
+                    printMigrationDelayDetails();
+                }
+                FogUtils.endSimulation();
                 break;
             default:
                 super.processEvent(ev);
@@ -133,18 +137,17 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
 
     @Override
     protected void connectWithLatencies() {
-        for (String dataId : locator.getDataIdsLevelReferences().keySet()) {
-            for (int instenceId : locator.getInstenceDataIdReferences().keySet()) {
-                if (locator.getInstenceDataIdReferences().get(instenceId).equals(dataId)) {
-                    FogDevice fogDevice = getFogDeviceById(instenceId);
-                    if (locator.getDataIdsLevelReferences().get(dataId) == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
-                        int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
-                        parentReference.put(fogDevice.getId(), parentID);
-                        fogDevice.setParentId(parentID);
-                    } else
-                        parentReference.put(fogDevice.getId(), fogDevice.getParentId());
-                }
-            }
+        for (Map.Entry<Integer, String> instanceData : locator.getInstenceDataIdReferences().entrySet()) {
+            Integer level = locator.getDataIdsLevelReferences().get(instanceData.getValue());
+            if (level == null)
+                continue;
+            FogDevice fogDevice = getFogDeviceById(instanceData.getKey());
+            if (level == locator.getLevelID("User") && fogDevice.getParentId() == References.NOT_SET) {
+                int parentID = locator.determineParent(fogDevice.getId(), References.INIT_TIME);
+                parentReference.put(fogDevice.getId(), parentID);
+                fogDevice.setParentId(parentID);
+            } else
+                parentReference.put(fogDevice.getId(), fogDevice.getParentId());
         }
 
 
@@ -157,7 +160,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
                 continue;
             double latency = fogDevice.getUplinkLatency();
             parent.getChildToLatencyMap().put(fogDevice.getId(), latency);
-            parent.getChildrenIds().add(fogDevice.getId());
+            parent.addChild(fogDevice.getId());
             System.out.println("Child " + fogDevice.getName() + "\t----->\tParent " + parent.getName());
         }
     }
@@ -166,6 +169,8 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
 
         // TODO Auto-generated method stub
         FogDevice fogDevice = (FogDevice) ev.getData();
+        if (simulationConfig.isRollingMobilityEvents())
+            scheduleNextMobility(fogDevice);
         FogDevice prevParent = getFogDeviceById(parentReference.get(fogDevice.getId()));
         FogDevice newParent = getFogDeviceById(locator.determineParent(fogDevice.getId(), CloudSim.clock()));
         System.out.println(CloudSim.clock() + " Starting Mobility Management for " + fogDevice.getName());
@@ -260,7 +265,7 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
                 ((MicroserviceFogDevice) fogDevice).updateRoutingTable(f.getId(), fogDevice.getParentId());
 
                 ////for other update route to mobile based on route to parent
-                int nextId = ((MicroserviceFogDevice) f).getRoutingTable().get(fogDevice.getParentId());
+                int nextId = ((MicroserviceFogDevice) f).getNextHop(fogDevice.getParentId());
                 if (f.getId() != nextId)
                     ((MicroserviceFogDevice) f).updateRoutingTable(fogDevice.getId(), nextId);
                 else
@@ -403,7 +408,17 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
     }
 
     private void processMobilityData() {
-        // TODO Auto-generated method stub
+        if (simulationConfig.isRollingMobilityEvents()) {
+            // only the first mobility event of each device is pending, each one schedules the next
+            for (FogDevice fogDevice : fogDevices) {
+                if (locator.isAMobileDevice(fogDevice.getId())) {
+                    double firstTimeEntry = locator.getFirstTimeEntry(fogDevice.getId());
+                    if (firstTimeEntry >= 0)
+                        send(getId(), firstTimeEntry - CloudSim.clock(), FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+                }
+            }
+            return;
+        }
         List<Double> timeSheet = new ArrayList<Double>();
         for (FogDevice fogDevice : fogDevices) {
             if (locator.isAMobileDevice(fogDevice.getId())) {
@@ -414,6 +429,15 @@ public class MicroservicesMobilityClusteringController extends MicroservicesCont
         }
     }
 
+    /**
+     * Schedules the mobility event of a device at its next location record, with {@link Config#ROLLING_MOBILITY_EVENTS}.
+     */
+    private void scheduleNextMobility(FogDevice fogDevice) {
+        double nextTimeEntry = locator.getNextTimeEntry(fogDevice.getId(), CloudSim.clock());
+        if (nextTimeEntry >= 0)
+            send(getId(), nextTimeEntry - CloudSim.clock(), FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+    }
+
 
     public void clusteringSubmit(List Levels) {
         System.out.println(CloudSim.clock() + " Start sending Clustering Request to Fog Devices in level: " + Levels);
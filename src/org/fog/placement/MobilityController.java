@@ -11,6 +11,7 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
 import org.fog.application.AppModule;
 import org.fog.application.Application;
 import org.fog.entities.Actuator;
@@ -20,13 +21,19 @@ import org.fog.mobilitydata.References;
 import org.fog.utils.Config;
 import org.fog.utils.FogEvents;
 import org.fog.utils.FogUtils;
+import org.fog.utils.LatencyHistogram;
+import org.fog.utils.LoopDelayStatistics;
 import org.fog.utils.MigrationDelayMonitor;
 import org.fog.utils.NetworkUsageMonitor;
+import org.fog.utils.SimulationConfig;
 import org.fog.utils.TimeKeeper;
 import org.json.simple.JSONObject;
 
 
 public class MobilityController extends SimEntity{
+
+	// settings of the simulation of the controller, got once when it is created
+	private final SimulationConfig simulationConfig = SimulationConfig.current();
 	
 	public static boolean ONLY_CLOUD = false;
 		
@@ -102,7 +109,7 @@ public class MobilityController extends SimEntity{
 				continue;
 			double latency = fogDevice.getUplinkLatency();
 			parent.getChildToLatencyMap().put(fogDevice.getId(), latency);
-			parent.getChildrenIds().add(fogDevice.getId());
+			parent.addChild(fogDevice.getId());
 			System.out.println("Child "+fogDevice.getName()+"\t----->\tParent "+parent.getName());
 		}
 	}
@@ -116,9 +123,9 @@ public class MobilityController extends SimEntity{
 				send(getId(), getAppLaunchDelays().get(appId), FogEvents.APP_SUBMIT, applications.get(appId));
 		}
 
-		send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
+		send(getId(), simulationConfig.getResourceManageInterval(), FogEvents.CONTROLLER_RESOURCE_MANAGE);
 		
-		send(getId(), Config.MAX_SIMULATION_TIME, FogEvents.STOP_SIMULATION);
+		send(getId(), simulationConfig.getMaxSimulationTime(), FogEvents.STOP_SIMULATION);
 		
 		sendNow(getId(), FogEvents.MOBILITY_SUBMIT);
 		
@@ -147,12 +154,14 @@ public class MobilityController extends SimEntity{
 			break;
 		case FogEvents.STOP_SIMULATION:
 			CloudSim.stopSimulation();
-			printTimeDetails();
-			printPowerDetails();
-			printCostDetails();
-			printNetworkUsageDetails();
-			printMigrationDelayDetails();
-			System.exit(0);
+			if(FogUtils.isStandaloneRun()){
+				printTimeDetails();
+				printPowerDetails();
+				printCostDetails();
+				printNetworkUsageDetails();
+				printMigrationDelayDetails();
+			}
+			FogUtils.endSimulation();
 			break;
 
             default:
@@ -177,6 +186,8 @@ public class MobilityController extends SimEntity{
 	private void processMobility(SimEvent ev) {
 		// TODO Auto-generated method stub
 		FogDevice fogDevice = (FogDevice) ev.getData();
+		if (simulationConfig.isRollingMobilityEvents())
+			scheduleNextMobility(fogDevice);
 		FogDevice prevParent = getFogDeviceById(parentReference.get(fogDevice.getId()));
 		FogDevice newParent = getFogDeviceById(locator.determineParent(fogDevice.getId(),CloudSim.clock()));
 		System.out.println(CloudSim.clock()+" Starting Mobility Management for "+fogDevice.getName());
@@ -266,7 +277,17 @@ public class MobilityController extends SimEntity{
 	}
 
 	private void processMobilityData() {
-		// TODO Auto-generated method stub
+		if (simulationConfig.isRollingMobilityEvents()) {
+			// only the first mobility event of each device is pending, each one schedules the next
+			for (FogDevice fogDevice : getFogDevices()) {
+				if (locator.isAMobileDevice(fogDevice.getId())) {
+					double firstTimeEntry = locator.getFirstTimeEntry(fogDevice.getId());
+					if (firstTimeEntry >= 0)
+						send(getId(), firstTimeEntry - CloudSim.clock(), FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+				}
+			}
+			return;
+		}
 		List<Double>timeSheet = new ArrayList<Double>();
 		for(FogDevice fogDevice : getFogDevices()){
 			if(locator.isAMobileDevice(fogDevice.getId())) {
@@ -277,8 +298,17 @@ public class MobilityController extends SimEntity{
 		}
 	}
 
+	/**
+	 * Schedules the mobility event of a device at its next location record, with {@link Config#ROLLING_MOBILITY_EVENTS}.
+	 */
+	private void scheduleNextMobility(FogDevice fogDevice) {
+		double nextTimeEntry = locator.getNextTimeEntry(fogDevice.getId(), CloudSim.clock());
+		if (nextTimeEntry >= 0)
+			send(getId(), nextTimeEntry - CloudSim.clock(), FogEvents.MOBILITY_MANAGEMENT, fogDevice);
+	}
+
 	private void printNetworkUsageDetails() {
-		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/Config.MAX_SIMULATION_TIME);		
+		System.out.println("Total network usage = "+NetworkUsageMonitor.getNetworkUsage()/simulationConfig.getMaxSimulationTime());		
 	}
 
 	private FogDevice getCloud(){
@@ -298,7 +328,6 @@ public class MobilityController extends SimEntity{
 		}
 	}
 
-	/*
 	private String getStringForLoopId(int loopId){
 		for(String appId : getApplications().keySet()){
 			Application app = getApplications().get(appId);
@@ -309,16 +338,16 @@ public class MobilityController extends SimEntity{
 		}
 		return null;
 	}
-	*/
+	
 	private void printTimeDetails() {
 		System.out.println("=========================================");
 		System.out.println("============== RESULTS ==================");
 		System.out.println("=========================================");
 		System.out.println("EXECUTION TIME : "+ (Calendar.getInstance().getTimeInMillis() - TimeKeeper.getInstance().getSimulationStartTime()));
 		System.out.println("=========================================");
-		//System.out.println("APPLICATION LOOP DELAYS");
-		//System.out.println("=========================================");
-		//for(Integer loopId : TimeKeeper.getInstance().getLoopIdToTupleIds().keySet()){
+		System.out.println("APPLICATION LOOP DELAYS");
+		System.out.println("=========================================");
+		for(int loopId : TimeKeeper.getInstance().getLoopDelays().keySet()){
 			/*double average = 0, count = 0;
 			for(int tupleId : TimeKeeper.getInstance().getLoopIdToTupleIds().get(loopId)){
 				Double startTime = 	TimeKeeper.getInstance().getEmitTimes().get(tupleId);
@@ -329,21 +358,28 @@ public class MobilityController extends SimEntity{
 				count += 1;
 			}
 			System.out.println(getStringForLoopId(loopId) + " ---> "+(average/count));*/
-			//System.out.println(getStringForLoopId(loopId) + " ---> "+TimeKeeper.getInstance().getLoopIdToCurrentAverage().get(loopId));
-		//}
+			LoopDelayStatistics delays = TimeKeeper.getInstance().getLoopDelay(loopId);
+			// no average yet (null) if none of the executions of the loop has ended
+			System.out.println(getStringForLoopId(loopId) + " ---> " + (delays.getCount() > 0 ? (Double) delays.getAverage() : null));
+			if(delays.getCount() > 0)
+				System.out.println("\t" + delays.getHistogram().getPercentileSummary());
+		}
 		System.out.println("=========================================");
 		System.out.println("TUPLE CPU EXECUTION DELAY");
 		System.out.println("=========================================");
 		
 		for(String tupleType : TimeKeeper.getInstance().getTupleTypeToAverageCpuTime().keySet()){
 			System.out.println(tupleType + " ---> "+TimeKeeper.getInstance().getTupleTypeToAverageCpuTime().get(tupleType));
+			LatencyHistogram cpuTimes = TimeKeeper.getInstance().getTupleTypeToCpuTimeHistogram().get(tupleType);
+			if(cpuTimes != null)
+				System.out.println("\t" + cpuTimes.getPercentileSummary());
 		}
 		
 		System.out.println("=========================================");
 	}
 
 	protected void manageResources(){
-		send(getId(), Config.RESOURCE_MANAGE_INTERVAL, FogEvents.CONTROLLER_RESOURCE_MANAGE);
+		send(getId(), simulationConfig.getResourceManageInterval(), FogEvents.CONTROLLER_RESOURCE_MANAGE);
 	}
 	
 	private void processTupleFinished(SimEvent ev) {
@@ -354,7 +390,7 @@ public class MobilityController extends SimEntity{
 	}
 	
 	public void submitApplication(Application application, int delay, ModulePlacement modulePlacement){
-		FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+		FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
 		getApplications().put(application.getAppId(), application);
 		getAppLaunchDelays().put(application.getAppId(), delay);
 		getAppModulePlacementPolicy().put(application.getAppId(), modulePlacement);
@@ -389,7 +425,7 @@ public class MobilityController extends SimEntity{
 	
 	private void processAppSubmit(Application application){
 		System.out.println(CloudSim.clock()+" Submitted application "+ application.getAppId());
-		FogUtils.appIdToGeoCoverageMap.put(application.getAppId(), application.getGeoCoverage());
+		FogUtils.getAppIdToGeoCoverageMap().put(application.getAppId(), application.getGeoCoverage());
 		getApplications().put(application.getAppId(), application);
 		
 		ModulePlacement modulePlacement = getAppModulePlacementPolicy().get(application.getAppId());
@@ -8,6 +8,7 @@ import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.GuestEntity;
 import org.cloudbus.cloudsim.core.HostEntity;
+import org.fog.entities.FogDevice;
 
 public class AppModuleAllocationPolicy extends VmAllocationPolicy{
 
@@ -28,6 +29,7 @@ public class AppModuleAllocationPolicy extends VmAllocationPolicy{
 		boolean result = host.vmCreate(vm);
 		if (result) { // if vm were succesfully created in the host
 			getAppModuleIdsIds().add(vm.getId());
+			updateModuleIndex(host);
 		}
 		
 		return result;
@@ -38,11 +40,34 @@ public class AppModuleAllocationPolicy extends VmAllocationPolicy{
 		boolean result = host.vmCreate(vm);
 		if (result) { // if vm were succesfully created in the host
 			getAppModuleIdsIds().add(vm.getId());
+			updateModuleIndex(host);
 		}
 		
 		return result;
 	}
 
+	@Override
+	public boolean allocateHostForGuest(GuestEntity guest, HostEntity host) {
+		boolean result = super.allocateHostForGuest(guest, host);
+		if (result)
+			updateModuleIndex(host);
+		return result;
+	}
+
+	@Override
+	public void deallocateHostForGuest(GuestEntity guest) {
+		super.deallocateHostForGuest(guest);
+		updateModuleIndex(fogHost);
+	}
+
+	/**
+	 * Keeps the module lookup tables of the fog device in step with the VMs of its host.
+	 */
+	private void updateModuleIndex(HostEntity host) {
+		if (host != null && host.getDatacenter() instanceof FogDevice fogDevice)
+			fogDevice.updateModuleIndex();
+	}
+
 
 	public List<GuestMapping> optimizeAllocation(
 			List<? extends GuestEntity> vmList) {
@@ -54,6 +79,7 @@ public class AppModuleAllocationPolicy extends VmAllocationPolicy{
 	public void deallocateHostForVm(Vm vm) {
 		if (fogHost != null) {
 			fogHost.vmDestroy(vm);
+			updateModuleIndex(fogHost);
 		}
 	}
 
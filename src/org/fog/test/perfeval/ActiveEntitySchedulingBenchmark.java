@@ -0,0 +1,202 @@
+package org.fog.test.perfeval;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogBroker;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.Sensor;
+import org.fog.entities.Tuple;
+import org.fog.placement.Controller;
+import org.fog.placement.ModuleMapping;
+import org.fog.placement.ModulePlacementMapping;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+import org.fog.utils.NetworkUsageMonitor;
+import org.fog.utils.distribution.DeterministicDistribution;
+
+/**
+ * Compares the wall-clock time of the two CloudSim dispatch modes (scanning every entity on each
+ * clock tick vs. running only the entities with pending events) on a large VRGame-like hierarchy.
+ * Usage: <tt>ActiveEntitySchedulingBenchmark [numOfGateways] [numOfMobilesPerGateway] [simulationTime]</tt>
+ *
+ * The simulation is cut off before the controller's STOP_SIMULATION event so that both runs can
+ * execute in the same JVM.
+ */
+public class ActiveEntitySchedulingBenchmark {
+	static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+	static List<Sensor> sensors = new ArrayList<Sensor>();
+	static List<Actuator> actuators = new ArrayList<Actuator>();
+
+	static int numOfGateways = 50;
+	static int numOfMobilesPerGateway = 40;
+	static double simulationTime = 300;
+
+	public static void main(String[] args) {
+		if(args.length > 0)
+			numOfGateways = Integer.parseInt(args[0]);
+		if(args.length > 1)
+			numOfMobilesPerGateway = Integer.parseInt(args[1]);
+		if(args.length > 2)
+			simulationTime = Double.parseDouble(args[2]);
+
+		try {
+			Log.disable();
+
+			// warm-up run so that class loading and JIT are not charged to the first mode
+			runSimulation(false);
+
+			for(boolean activeEntityScheduling : new boolean[]{false, true}){
+				double networkUsageBefore = NetworkUsageMonitor.getNetworkUsage();
+				long start = System.nanoTime();
+				int numOfEntities = runSimulation(activeEntityScheduling);
+				long elapsed = System.nanoTime() - start;
+				System.out.println((activeEntityScheduling ? "active-entity" : "scan-all") + " scheduling : "
+						+ numOfEntities + " entities, " + (elapsed / 1000000) + " ms, network usage = "
+						+ (NetworkUsageMonitor.getNetworkUsage() - networkUsageBefore));
+			}
+			CloudSim.setActiveEntityScheduling(false);
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.println("Unwanted errors happen");
+		}
+	}
+
+	private static int runSimulation(boolean activeEntityScheduling) throws Exception {
+		fogDevices.clear();
+		sensors.clear();
+		actuators.clear();
+
+		CloudSim.init(1, Calendar.getInstance(), false);
+		CloudSim.setActiveEntityScheduling(activeEntityScheduling);
+
+		String appId = "vr_game";
+		FogBroker broker = new FogBroker("broker");
+		Application application = createApplication(appId, broker.getId());
+		application.setUserId(broker.getId());
+		createFogDevices(broker.getId(), appId);
+
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping();
+		moduleMapping.addModuleToDevice("connector", "cloud");
+		moduleMapping.addModuleToDevice("concentration_calculator", "cloud");
+		for(FogDevice device : fogDevices){
+			if(device.getName().startsWith("m"))
+				moduleMapping.addModuleToDevice("client", device.getName());
+		}
+
+		Controller controller = new Controller("master-controller", fogDevices, sensors, actuators);
+		controller.submitApplication(application, 0, new ModulePlacementMapping(fogDevices, application, moduleMapping));
+
+		int numOfEntities = CloudSim.getNumEntities();
+		CloudSim.terminateSimulation(simulationTime);
+		CloudSim.startSimulation();
+		return numOfEntities;
+	}
+
+	private static void createFogDevices(int userId, String appId) {
+		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16*103, 16*83.25);
+		cloud.setParentId(-1);
+		FogDevice proxy = createFogDevice("proxy-server", 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
+		proxy.setParentId(cloud.getId());
+		proxy.setUplinkLatency(100);
+		fogDevices.add(cloud);
+		fogDevices.add(proxy);
+		for(int i=0;i<numOfGateways;i++){
+			FogDevice gateway = createFogDevice("d-"+i, 2800, 4000, 10000, 10000, 2, 0.0, 107.339, 83.4333);
+			gateway.setParentId(proxy.getId());
+			gateway.setUplinkLatency(4);
+			fogDevices.add(gateway);
+			for(int j=0;j<numOfMobilesPerGateway;j++){
+				String id = i+"-"+j;
+				FogDevice mobile = createFogDevice("m-"+id, 1000, 1000, 10000, 270, 3, 0, 87.53, 82.44);
+				mobile.setParentId(gateway.getId());
+				mobile.setUplinkLatency(2);
+				fogDevices.add(mobile);
+				Sensor eegSensor = new Sensor("s-"+id, "EEG", userId, appId, new DeterministicDistribution(5));
+				eegSensor.setGatewayDeviceId(mobile.getId());
+				eegSensor.setLatency(6.0);
+				sensors.add(eegSensor);
+				Actuator display = new Actuator("a-"+id, userId, appId, "DISPLAY");
+				display.setGatewayDeviceId(mobile.getId());
+				display.setLatency(1.0);
+				actuators.add(display);
+			}
+		}
+	}
+
+	private static FogDevice createFogDevice(String nodeName, long mips,
+			int ram, long upBw, long downBw, int level, double ratePerMips, double busyPower, double idlePower) {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		PowerHost host = new PowerHost(
+				FogUtils.generateEntityId(),
+				new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(10000),
+				1000000,
+				peList,
+				new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(busyPower, idlePower)
+			);
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
+				"x86", "Linux", "Xen", host, 10.0, 3.0, 0.05, 0.001, 0.0);
+
+		FogDevice fogdevice = null;
+		try {
+			fogdevice = new FogDevice(nodeName, characteristics,
+					new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), 10, upBw, downBw, 0, ratePerMips);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		fogdevice.setLevel(level);
+		return fogdevice;
+	}
+
+	@SuppressWarnings({"serial" })
+	private static Application createApplication(String appId, int userId){
+		Application application = Application.createApplication(appId, userId);
+		application.addAppModule("client", 10);
+		application.addAppModule("concentration_calculator", 10);
+		application.addAppModule("connector", 10);
+
+		application.addAppEdge("EEG", "client", 3000, 500, "EEG", Tuple.UP, AppEdge.SENSOR);
+		application.addAppEdge("client", "concentration_calculator", 3500, 500, "_SENSOR", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("concentration_calculator", "connector", 100, 1000, 1000, "PLAYER_GAME_STATE", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("concentration_calculator", "client", 14, 500, "CONCENTRATION", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("connector", "client", 100, 28, 1000, "GLOBAL_GAME_STATE", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("client", "DISPLAY", 1000, 500, "SELF_STATE_UPDATE", Tuple.DOWN, AppEdge.ACTUATOR);
+		application.addAppEdge("client", "DISPLAY", 1000, 500, "GLOBAL_STATE_UPDATE", Tuple.DOWN, AppEdge.ACTUATOR);
+
+		application.addTupleMapping("client", "EEG", "_SENSOR", new FractionalSelectivity(1.0));
+		application.addTupleMapping("client", "CONCENTRATION", "SELF_STATE_UPDATE", new FractionalSelectivity(1.0));
+		application.addTupleMapping("concentration_calculator", "_SENSOR", "CONCENTRATION", new FractionalSelectivity(1.0));
+		application.addTupleMapping("client", "GLOBAL_GAME_STATE", "GLOBAL_STATE_UPDATE", new FractionalSelectivity(1.0));
+
+		final AppLoop loop1 = new AppLoop(new ArrayList<String>(){{add("EEG");add("client");add("concentration_calculator");add("client");add("DISPLAY");}});
+		List<AppLoop> loops = new ArrayList<AppLoop>(){{add(loop1);}};
+		application.setLoops(loops);
+		return application;
+	}
+}
@@ -0,0 +1,221 @@
+package org.fog.test.perfeval;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogBroker;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.Sensor;
+import org.fog.entities.Tuple;
+import org.fog.placement.Controller;
+import org.fog.placement.ModuleMapping;
+import org.fog.placement.ModulePlacementEdgewards;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.Config;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+import org.fog.utils.SimulationConfig;
+import org.fog.utils.SimulationRandom;
+import org.fog.utils.SimulationResult;
+import org.fog.utils.SimulationSweep;
+import org.fog.utils.distribution.DeterministicDistribution;
+
+/**
+ * Checks {@link org.fog.entities.AnalyticTupleExecutor} against the cloudlets of the module VMs on
+ * the Intelligent Surveillance case study (see {@link DCNSFog}): the same edgewards deployment
+ * runs once with each way of executing tuples, and the average CPU times of the tuple types and
+ * the energy consumptions of the devices must agree. The cloudlet path only sees that a tuple has
+ * finished at the next update of its device, so the devices update every
+ * <tt>schedulingInterval</tt> ms, and the CPU times may differ by twice that.
+ * Usage: <tt>DCNSFogAnalyticCheck [schedulingInterval]</tt>
+ */
+public class DCNSFogAnalyticCheck implements SimulationSweep.Scenario<Boolean> {
+
+	static final long SEED = 42;
+	static final int numOfAreas = 1;
+	static final int numOfCamerasPerArea = 4;
+	static final double ENERGY_TOLERANCE = 1e-3;
+
+	/** The interval between two updates of the cloudlets of a fog device, in ms. */
+	private final double schedulingInterval;
+
+	public DCNSFogAnalyticCheck(double schedulingInterval){
+		this.schedulingInterval = schedulingInterval;
+	}
+
+	public static void main(String[] args) {
+		double schedulingInterval = args.length > 0 ? Double.parseDouble(args[0]) : 0.01;
+
+		try {
+			Log.disable();
+			Config.MAX_SIMULATION_TIME = 1000;
+			SimulationSweep<Boolean> sweep = new SimulationSweep<Boolean>(new DCNSFogAnalyticCheck(schedulingInterval), 1);
+			SimulationResult<Boolean> cloudlets = sweep.runOne(false);
+			SimulationResult<Boolean> analytic = sweep.runOne(true);
+			if(!cloudlets.isSuccessful())
+				throw new IllegalStateException("The run with cloudlets failed", cloudlets.getError());
+			if(!analytic.isSuccessful())
+				throw new IllegalStateException("The analytic run failed", analytic.getError());
+
+			System.out.println("tuple CPU times : cloudlets = " + cloudlets.getTupleCpuTimes() + ", analytic = " + analytic.getTupleCpuTimes());
+			System.out.println("energy consumptions : cloudlets = " + cloudlets.getEnergyConsumptions() + ", analytic = " + analytic.getEnergyConsumptions());
+			List<String> differences = new ArrayList<String>();
+			differences.addAll(differences(cloudlets.getTupleCpuTimes(), analytic.getTupleCpuTimes(), 2*schedulingInterval, 0));
+			differences.addAll(differences(cloudlets.getEnergyConsumptions(), analytic.getEnergyConsumptions(), 0, ENERGY_TOLERANCE));
+			if(!differences.isEmpty()){
+				System.out.println("the analytic run differs from the run with cloudlets in: " + differences);
+				System.exit(1);
+			}
+			System.out.println("the analytic run agrees with the run with cloudlets");
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.println("Unwanted errors happen");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Lists the keys whose values differ by more than <tt>absoluteTolerance</tt> plus
+	 * <tt>relativeTolerance</tt> times the expected value, or that only one of the maps has.
+	 */
+	private static List<String> differences(Map<String, Double> expected, Map<String, Double> actual,
+			double absoluteTolerance, double relativeTolerance){
+		List<String> differences = new ArrayList<String>();
+		for(String key : expected.keySet()){
+			Double value = actual.get(key);
+			if(value == null || Math.abs(value - expected.get(key)) > absoluteTolerance + relativeTolerance*Math.abs(expected.get(key)))
+				differences.add(key);
+		}
+		for(String key : actual.keySet()){
+			if(!expected.containsKey(key))
+				differences.add(key);
+		}
+		return differences;
+	}
+
+	@Override
+	public List<FogDevice> build(Boolean analyticExecution) throws Exception {
+		List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+		List<Sensor> sensors = new ArrayList<Sensor>();
+		List<Actuator> actuators = new ArrayList<Actuator>();
+
+		CloudSim.init(1, Calendar.getInstance(), false);
+		SimulationConfig.current().setAnalyticTupleExecution(analyticExecution);
+		SimulationRandom.current().setSeed(SEED);
+
+		String appId = "dcns";
+		FogBroker broker = new FogBroker("broker");
+		Application application = createApplication(appId, broker.getId());
+		application.setUserId(broker.getId());
+
+		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16*103, 16*83.25);
+		cloud.setParentId(-1);
+		fogDevices.add(cloud);
+		FogDevice proxy = createFogDevice("proxy-server", 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
+		proxy.setParentId(cloud.getId());
+		proxy.setUplinkLatency(100);
+		fogDevices.add(proxy);
+		for(int i=0;i<numOfAreas;i++){
+			FogDevice router = createFogDevice("d-"+i, 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
+			router.setUplinkLatency(2);
+			fogDevices.add(router);
+			for(int j=0;j<numOfCamerasPerArea;j++){
+				String id = i+"-"+j;
+				FogDevice camera = createFogDevice("m-"+id, 500, 1000, 10000, 10000, 3, 0, 87.53, 82.44);
+				camera.setParentId(router.getId());
+				camera.setUplinkLatency(2);
+				fogDevices.add(camera);
+				Sensor sensor = new Sensor("s-"+id, "CAMERA", broker.getId(), appId, new DeterministicDistribution(5));
+				sensor.setGatewayDeviceId(camera.getId());
+				sensor.setLatency(1.0);
+				sensors.add(sensor);
+				Actuator ptz = new Actuator("ptz-"+id, broker.getId(), appId, "PTZ_CONTROL");
+				ptz.setGatewayDeviceId(camera.getId());
+				ptz.setLatency(1.0);
+				actuators.add(ptz);
+			}
+			router.setParentId(proxy.getId());
+		}
+
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping();
+		for(FogDevice device : fogDevices){
+			if(device.getName().startsWith("m"))
+				moduleMapping.addModuleToDevice("motion_detector", device.getName());
+		}
+		moduleMapping.addModuleToDevice("user_interface", "cloud");
+
+		Controller controller = new Controller("master-controller", fogDevices, sensors, actuators);
+		controller.submitApplication(application, new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping));
+		return fogDevices;
+	}
+
+	private FogDevice createFogDevice(String nodeName, long mips,
+			int ram, long upBw, long downBw, int level, double ratePerMips, double busyPower, double idlePower) throws Exception {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		PowerHost host = new PowerHost(
+				FogUtils.generateEntityId(),
+				new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(10000),
+				1000000,
+				peList,
+				new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(busyPower, idlePower)
+			);
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
+				"x86", "Linux", "Xen", host, 10.0, 3.0, 0.05, 0.001, 0.0);
+
+		FogDevice fogdevice = new FogDevice(nodeName, characteristics,
+				new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), schedulingInterval, upBw, downBw, 0, ratePerMips);
+		fogdevice.setLevel(level);
+		return fogdevice;
+	}
+
+	@SuppressWarnings({"serial" })
+	private static Application createApplication(String appId, int userId){
+		Application application = Application.createApplication(appId, userId);
+		application.addAppModule("object_detector", 10);
+		application.addAppModule("motion_detector", 10);
+		application.addAppModule("object_tracker", 10);
+		application.addAppModule("user_interface", 10);
+
+		application.addAppEdge("CAMERA", "motion_detector", 1000, 20000, "CAMERA", Tuple.UP, AppEdge.SENSOR);
+		application.addAppEdge("motion_detector", "object_detector", 2000, 2000, "MOTION_VIDEO_STREAM", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("object_detector", "user_interface", 500, 2000, "DETECTED_OBJECT", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("object_detector", "object_tracker", 1000, 100, "OBJECT_LOCATION", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("object_tracker", "PTZ_CONTROL", 100, 28, 100, "PTZ_PARAMS", Tuple.DOWN, AppEdge.ACTUATOR);
+
+		application.addTupleMapping("motion_detector", "CAMERA", "MOTION_VIDEO_STREAM", new FractionalSelectivity(1.0));
+		application.addTupleMapping("object_detector", "MOTION_VIDEO_STREAM", "OBJECT_LOCATION", new FractionalSelectivity(1.0));
+		application.addTupleMapping("object_detector", "MOTION_VIDEO_STREAM", "DETECTED_OBJECT", new FractionalSelectivity(0.05));
+
+		final AppLoop loop1 = new AppLoop(new ArrayList<String>(){{add("motion_detector");add("object_detector");add("object_tracker");}});
+		final AppLoop loop2 = new AppLoop(new ArrayList<String>(){{add("object_tracker");add("PTZ_CONTROL");}});
+		List<AppLoop> loops = new ArrayList<AppLoop>(){{add(loop1);add(loop2);}};
+		application.setLoops(loops);
+		return application;
+	}
+}
@@ -0,0 +1,92 @@
+package org.fog.test.perfeval;
+
+import java.lang.management.ManagementFactory;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.fog.entities.Tuple;
+import org.fog.utils.Logger;
+
+/**
+ * Measures the cost of the per-tuple debug messages of the fog entities while logging is
+ * disabled: the message concatenated eagerly (as {@link Logger#debug(String, String)} call sites
+ * do) against the same message passed as a supplier, and the per-host utilisation line of the
+ * fog device energy update through {@link Log#formatLine(String, Object...)} against
+ * {@link Log#println(java.util.function.Supplier)}. Reports nanoseconds and bytes allocated
+ * per call, the latter read from the HotSpot per-thread allocation counter.
+ * Usage: <tt>LoggingOverheadBenchmark [iterations]</tt>
+ */
+public class LoggingOverheadBenchmark {
+
+	static int iterations = 20000000;
+
+	/** Consumed by the benchmarked loops so that they cannot be removed. */
+	static long sink;
+
+	public static void main(String[] args) {
+		if(args.length > 0)
+			iterations = Integer.parseInt(args[0]);
+
+		Logger.ENABLED = false;
+		Log.disable();
+		Tuple tuple = new Tuple("app", 123456, Tuple.UP, 1000, 1, 100, 100,
+				new UtilizationModelFull(), new UtilizationModelFull(), new UtilizationModelFull());
+		tuple.setTupleType("SENSOR_DATA");
+		tuple.setDestModuleName("client");
+
+		// the first round warms up the JIT and is not reported
+		for(int round=0;round<2;round++){
+			boolean report = round == 1;
+			measure("Logger.debug, eager message", report, () -> {
+				for(int i=0;i<iterations;i++){
+					tuple.setActualTupleId(i);
+					Logger.debug("m-0-0", "Received tuple "+tuple.getCloudletId()+" with tupleType = "+tuple.getTupleType()
+							+ " actual id = "+tuple.getActualTupleId()+" on "+tuple.getDestModuleName());
+					sink += tuple.getActualTupleId();
+				}
+			});
+			measure("Logger.debug, supplied message", report, () -> {
+				for(int i=0;i<iterations;i++){
+					tuple.setActualTupleId(i);
+					Logger.debug("m-0-0", () -> "Received tuple "+tuple.getCloudletId()+" with tupleType = "+tuple.getTupleType()
+							+ " actual id = "+tuple.getActualTupleId()+" on "+tuple.getDestModuleName());
+					sink += tuple.getActualTupleId();
+				}
+			});
+			measure("Log.formatLine, eager arguments", report, () -> {
+				for(int i=0;i<iterations;i++){
+					double currentTime = i * 0.1;
+					Log.formatLine("%.2f: [Host #%d] utilization is %.2f%%", currentTime, i, currentTime / iterations * 100);
+					sink += i;
+				}
+			});
+			measure("Log.println, supplied message", report, () -> {
+				for(int i=0;i<iterations;i++){
+					double currentTime = i * 0.1;
+					int hostId = i;
+					Log.println(() -> String.format("%.2f: [Host #%d] utilization is %.2f%%", currentTime, hostId, currentTime / iterations * 100));
+					sink += i;
+				}
+			});
+		}
+		System.out.println("(sink = " + sink + ")");
+	}
+
+	private static void measure(String name, boolean report, Runnable loop){
+		long bytesBefore = allocatedBytes();
+		long start = System.nanoTime();
+		loop.run();
+		long elapsed = System.nanoTime() - start;
+		long bytes = allocatedBytes() - bytesBefore;
+		if(report)
+			System.out.println(String.format("%-35s : %6.2f ns/call, %8.2f bytes/call", name,
+					(double) elapsed / iterations, (double) bytes / iterations));
+	}
+
+	private static long allocatedBytes(){
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+		return 0;
+	}
+}
@@ -0,0 +1,157 @@
+package org.fog.test.perfeval;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogBroker;
+import org.fog.entities.PhysicalTopology;
+import org.fog.entities.PlacementRequest;
+import org.fog.entities.Sensor;
+import org.fog.entities.Tuple;
+import org.fog.placement.MicroservicesMobilityClusteringController;
+import org.fog.placement.PlacementLogicFactory;
+import org.fog.utils.TimeKeeper;
+import org.fog.utils.TopologyGenerator;
+
+/**
+ * The microservices application of {@link MicroserviceApp_RandomMobility_Clustering} on a
+ * hierarchy from {@link TopologyGenerator} instead of the Melbourne datasets: the cloud, proxy
+ * servers (FONs), gateways (FCNs) clustered together, and clients of which a share are mobile,
+ * moving between the gateways. The same seed and fan-outs give the same simulation.
+ * Usage: <tt>MicroserviceApp_SyntheticTopology [seed] [mobileShare] [fanOut of level 0] [fanOut of level 1] ...</tt>
+ * <p>
+ * With <tt>-json file</tt> as first arguments, the hierarchy is written to the file in the format of
+ * {@link org.fog.utils.JsonToTopology} instead of being simulated.
+ */
+public class MicroserviceApp_SyntheticTopology {
+
+	static long seed = 1;
+	static double mobileShare = 0.2;
+	static int[] fanOuts = {4, 10, 10};
+
+	static double SENSOR_TRANSMISSION_TIME = 10;
+
+	public static void main(String[] args) {
+
+		try {
+			String jsonFile = null;
+			int arg = 0;
+			if (args.length >= 2 && args[0].equals("-json")) {
+				jsonFile = args[1];
+				arg = 2;
+			}
+			if (args.length > arg)
+				seed = Long.parseLong(args[arg]);
+			if (args.length > arg + 1)
+				mobileShare = Double.parseDouble(args[arg + 1]);
+			if (args.length > arg + 2) {
+				fanOuts = new int[args.length - arg - 2];
+				for (int i = 0; i < fanOuts.length; i++)
+					fanOuts[i] = Integer.parseInt(args[arg + 2 + i]);
+			}
+
+			TopologyGenerator generator = new TopologyGenerator(seed)
+					.setFanOuts(fanOuts)
+					.setUplinkLatencies(100, 4, 2)
+					.setEndpoints("M-SENSOR", 1, 6.0, "M-DISPLAY", 1, 1.0)
+					.setSensorPeriod(SENSOR_TRANSMISSION_TIME, SENSOR_TRANSMISSION_TIME)
+					.setMobility(mobileShare, 20, 0.5)
+					.setMicroservices(true);
+			if (jsonFile != null) {
+				generator.writeJson(jsonFile);
+				return;
+			}
+
+			Log.disable();
+			CloudSim.init(1, Calendar.getInstance(), false);
+
+			FogBroker broker = new FogBroker("broker");
+			Application application = createApplication("example", broker.getId());
+			List<Application> appList = new ArrayList<>();
+			appList.add(application);
+
+			PhysicalTopology topology = generator.build(broker.getId(), application.getAppId());
+			List<Sensor> sensors = topology.getSensors();
+			for (Sensor sensor : sensors)
+				sensor.setApp(application);
+			for (Actuator actuator : topology.getActuators())
+				actuator.setApp(application);
+
+			// clusters the parents of the clients
+			List<Integer> clusterLevelIdentifier = new ArrayList<>();
+			clusterLevelIdentifier.add(generator.getDepth() - 2);
+
+			int placementAlgo = PlacementLogicFactory.CLUSTERED_MICROSERVICES_PLACEMENT;
+			MicroservicesMobilityClusteringController microservicesController = new MicroservicesMobilityClusteringController("controller",
+					topology.getFogDevices(), sensors, appList, clusterLevelIdentifier, 2.0, placementAlgo, generator.getLocationHandler());
+
+			// generate placement requests
+			List<PlacementRequest> placementRequests = new ArrayList<>();
+			for (Sensor s : sensors) {
+				Map<String, Integer> placedMicroservicesMap = new HashMap<>();
+				placedMicroservicesMap.put("clientModule", s.getGatewayDeviceId());
+				PlacementRequest p = new PlacementRequest(s.getAppId(), s.getId(), s.getGatewayDeviceId(), placedMicroservicesMap);
+				placementRequests.add(p);
+			}
+
+			microservicesController.submitPlacementRequests(placementRequests, 0);
+
+			TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+
+			CloudSim.startSimulation();
+
+			CloudSim.stopSimulation();
+
+			Log.println("Synthetic topology finished!");
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.println("Unwanted errors happen");
+		}
+	}
+
+	@SuppressWarnings({"serial"})
+	private static Application createApplication(String appId, int userId) {
+		Application application = Application.createApplication(appId, userId);
+
+		application.addAppModule("clientModule", 10);
+		application.addAppModule("processingModule", 10);
+		application.addAppModule("storageModule", 10);
+
+		application.addAppEdge("M-SENSOR", "clientModule", 3000, 500, "M-SENSOR", Tuple.UP, AppEdge.SENSOR);
+		application.addAppEdge("clientModule", "processingModule", 3500, 500, "RAW_DATA", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("processingModule", "storageModule", 1000, 1000, "PROCESSED_DATA", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("processingModule", "clientModule", 14, 500, "ACTION_COMMAND", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("clientModule", "M-DISPLAY", 1000, 500, "ACTUATION_SIGNAL", Tuple.DOWN, AppEdge.ACTUATOR);
+
+		application.addTupleMapping("clientModule", "M-SENSOR", "RAW_DATA", new FractionalSelectivity(1.0));
+		application.addTupleMapping("processingModule", "RAW_DATA", "PROCESSED_DATA", new FractionalSelectivity(1.0));
+		application.addTupleMapping("processingModule", "RAW_DATA", "ACTION_COMMAND", new FractionalSelectivity(1.0));
+		application.addTupleMapping("clientModule", "ACTION_COMMAND", "ACTUATION_SIGNAL", new FractionalSelectivity(1.0));
+
+		application.setSpecialPlacementInfo("storageModule", "cloud");
+
+		final AppLoop loop1 = new AppLoop(new ArrayList<String>() {{
+			add("M-SENSOR");
+			add("clientModule");
+			add("processingModule");
+			add("clientModule");
+			add("M-DISPLAY");
+		}});
+		List<AppLoop> loops = new ArrayList<AppLoop>() {{
+			add(loop1);
+		}};
+		application.setLoops(loops);
+
+		return application;
+	}
+}
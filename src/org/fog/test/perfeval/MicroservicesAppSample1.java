@@ -327,7 +327,7 @@ public class MicroservicesAppSample1 {
                     continue;
                 double latency = fogDevice.getUplinkLatency();
                 parent.getChildToLatencyMap().put(fogDevice.getId(), latency);
-                parent.getChildrenIds().add(fogDevice.getId());
+                parent.addChild(fogDevice.getId());
             }
         }
     }
@@ -24,9 +24,9 @@ import org.fog.placement.ModulePlacementMobileEdgewards;
 import org.fog.placement.ModulePlacementMobileEdgewardsCluster;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
-import org.fog.utils.Config;
 import org.fog.utils.FogLinearPowerModel;
 import org.fog.utils.FogUtils;
+import org.fog.utils.SimulationConfig;
 import org.fog.utils.TimeKeeper;
 import org.fog.utils.distribution.DeterministicDistribution;
 import org.json.simple.parser.ParseException;
@@ -98,7 +98,7 @@ public class TranslationServiceFog_Clustering {
             moduleMapping.addModuleToDevice("storageModule", "cloud");
 
             ClusteringController controller;
-            if (Config.ENABLE_DYNAMIC_CLUSTERING) {
+            if (SimulationConfig.current().isDynamicClustering()) {
                 clusteringLevels.add(2);
                 controller = new ClusteringController("master-controller", fogDevices, sensors,
                         actuators, locator, clusteringLevels);
@@ -20,9 +20,9 @@ import org.fog.mobilitydata.References;
 import org.fog.placement.*;
 import org.fog.policy.AppModuleAllocationPolicy;
 import org.fog.scheduler.StreamOperatorScheduler;
-import org.fog.utils.Config;
 import org.fog.utils.FogLinearPowerModel;
 import org.fog.utils.FogUtils;
+import org.fog.utils.SimulationConfig;
 import org.fog.utils.TimeKeeper;
 import org.fog.utils.distribution.DeterministicDistribution;
 import org.json.simple.parser.ParseException;
@@ -93,7 +93,7 @@ public class TranslationServiceFog_RandomMobility_Clustering {
             moduleMapping.addModuleToDevice("storageModule", "cloud");
 
             ClusteringController controller;
-            if (Config.ENABLE_DYNAMIC_CLUSTERING) {
+            if (SimulationConfig.current().isDynamicClustering()) {
                 clusteringLevels.add(2);
                 controller = new ClusteringController("master-controller", fogDevices, sensors,
                         actuators, locator, clusteringLevels);
@@ -0,0 +1,99 @@
+package org.fog.test.perfeval;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.Checkpoint;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.entities.FogDevice;
+import org.fog.utils.Config;
+import org.fog.utils.SimulationRandom;
+import org.fog.utils.SimulationResult;
+import org.fog.utils.SimulationSweep;
+
+/**
+ * Checks that a {@link Checkpoint} does not change the results of the EEG Beam Tractor Game (see
+ * {@link VRGameFogSweep}): the game runs once without interruption, and once up to a given time,
+ * is saved, restored into a new simulation context and continued there. The clients forward only
+ * part of the EEG readings, drawn from the seeded {@link SimulationRandom} of the simulation, so
+ * that the generator has to be restored too. The results of the two runs must be identical.
+ * Usage: <tt>VRGameFogCheckpoint [numOfMobilesPerDept] [checkpointTime]</tt>
+ */
+public class VRGameFogCheckpoint {
+
+	static final long SEED = 42;
+	static final double EEG_SELECTIVITY = 0.9;
+
+	public static void main(String[] args) {
+		int numOfMobilesPerDept = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		double checkpointTime = args.length > 1 ? Double.parseDouble(args[1]) : 400;
+
+		try {
+			Log.disable();
+			Config.MAX_SIMULATION_TIME = 1000;
+			SimulationSweep.Scenario<Integer> scenario = numOfMobiles -> {
+				List<FogDevice> fogDevices = new VRGameFogSweep(EEG_SELECTIVITY).build(numOfMobiles);
+				SimulationRandom.current().setSeed(SEED);
+				return fogDevices;
+			};
+
+			SimulationResult<Integer> uninterrupted = new SimulationSweep<Integer>(scenario, 1).runOne(numOfMobilesPerDept);
+			if(!uninterrupted.isSuccessful())
+				throw new IllegalStateException("The uninterrupted run failed", uninterrupted.getError());
+
+			byte[] snapshot = new SimulationContext().call(() -> {
+				scenario.build(numOfMobilesPerDept);
+				CloudSim.runUntil(checkpointTime);
+				return Checkpoint.toByteArray();
+			});
+			SimulationResult<Integer> restored = new SimulationResult<Integer>(numOfMobilesPerDept);
+			new SimulationContext().call(() -> {
+				Checkpoint.restore(snapshot);
+				List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+				for(SimEntity entity : CloudSim.getEntityList()){
+					if(entity instanceof FogDevice)
+						fogDevices.add((FogDevice) entity);
+				}
+				restored.setSimulationTime(CloudSim.run());
+				SimulationSweep.collect(restored, fogDevices);
+				return null;
+			});
+
+			System.out.println("checkpoint at " + checkpointTime + " : " + snapshot.length + " bytes");
+			System.out.println("network usage = " + restored.getNetworkUsage()/Config.MAX_SIMULATION_TIME
+					+ ", loop delays = " + restored.getLoopDelays());
+			List<String> differences = differences(uninterrupted, restored);
+			if(!differences.isEmpty()){
+				System.out.println("the restored run differs from the uninterrupted one in: " + differences);
+				System.exit(1);
+			}
+			System.out.println("the restored run is identical to the uninterrupted one");
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.println("Unwanted errors happen");
+			System.exit(1);
+		}
+	}
+
+	private static List<String> differences(SimulationResult<Integer> expected, SimulationResult<Integer> actual){
+		List<String> differences = new ArrayList<String>();
+		if(expected.getSimulationTime() != actual.getSimulationTime())
+			differences.add("simulation time");
+		if(expected.getNetworkUsage() != actual.getNetworkUsage())
+			differences.add("network usage");
+		if(!expected.getEnergyConsumptions().equals(actual.getEnergyConsumptions()))
+			differences.add("energy consumptions");
+		if(!expected.getCosts().equals(actual.getCosts()))
+			differences.add("costs");
+		if(!expected.getLoopDelays().equals(actual.getLoopDelays()))
+			differences.add("loop delays");
+		if(!expected.getTupleCpuTimes().equals(actual.getTupleCpuTimes()))
+			differences.add("tuple CPU times");
+		if(!expected.getLoopQoSSuccessCounts().equals(actual.getLoopQoSSuccessCounts()))
+			differences.add("loop QoS success counts");
+		return differences;
+	}
+}
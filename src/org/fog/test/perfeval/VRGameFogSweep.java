@@ -0,0 +1,210 @@
+package org.fog.test.perfeval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.application.AppEdge;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.application.selectivity.FractionalSelectivity;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogBroker;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.Sensor;
+import org.fog.entities.Tuple;
+import org.fog.placement.Controller;
+import org.fog.placement.ModuleMapping;
+import org.fog.placement.ModulePlacementEdgewards;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.Config;
+import org.fog.utils.FogLinearPowerModel;
+import org.fog.utils.FogUtils;
+import org.fog.utils.SimulationResult;
+import org.fog.utils.SimulationSweep;
+import org.fog.utils.distribution.DeterministicDistribution;
+
+/**
+ * Sweeps the number of mobiles per department of the EEG Beam Tractor Game (see {@link VRGameFog})
+ * in a single JVM, first one run at a time and then with several runs in parallel.
+ * Usage: <tt>VRGameFogSweep [parallelism] [numOfMobilesPerDept...]</tt>
+ */
+public class VRGameFogSweep implements SimulationSweep.Scenario<Integer> {
+
+	static int numOfDepts = 4;
+	static double EEG_TRANSMISSION_TIME = 5;
+
+	/** The fraction of the EEG readings the client forwards to the concentration calculator. */
+	private final double eegSelectivity;
+
+	public VRGameFogSweep(){
+		this(1.0);
+	}
+
+	/**
+	 * @param eegSelectivity the fraction of the EEG readings the client forwards, drawn from the
+	 *            {@link org.fog.utils.SimulationRandom} of each run
+	 */
+	public VRGameFogSweep(double eegSelectivity){
+		this.eegSelectivity = eegSelectivity;
+	}
+
+	public static void main(String[] args) {
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		List<Integer> points = new ArrayList<Integer>(Arrays.asList(2, 4, 6, 8, 10, 12, 14, 16));
+		if(args.length > 0)
+			parallelism = Integer.parseInt(args[0]);
+		if(args.length > 1){
+			points.clear();
+			for(int i=1;i<args.length;i++)
+				points.add(Integer.parseInt(args[i]));
+		}
+
+		try {
+			Log.disable();
+			Config.MAX_SIMULATION_TIME = 1000;
+			SimulationSweep<Integer> sequential = new SimulationSweep<Integer>(new VRGameFogSweep(), 1);
+			SimulationSweep<Integer> parallel = new SimulationSweep<Integer>(new VRGameFogSweep(), parallelism);
+
+			long start = System.currentTimeMillis();
+			List<SimulationResult<Integer>> sequentialResults = sequential.run(points);
+			long sequentialTime = System.currentTimeMillis() - start;
+
+			start = System.currentTimeMillis();
+			List<SimulationResult<Integer>> parallelResults = parallel.run(points);
+			long parallelTime = System.currentTimeMillis() - start;
+
+			for(int i=0;i<points.size();i++){
+				SimulationResult<Integer> result = parallelResults.get(i);
+				if(!result.isSuccessful()){
+					System.out.println(points.get(i) + " mobiles/dept : failed with " + result.getError());
+					continue;
+				}
+				boolean same = result.getNetworkUsage() == sequentialResults.get(i).getNetworkUsage()
+						&& result.getLoopDelays().equals(sequentialResults.get(i).getLoopDelays());
+				System.out.println(points.get(i) + " mobiles/dept : network usage = " + result.getNetworkUsage()/Config.MAX_SIMULATION_TIME
+						+ ", loop delays = " + result.getLoopDelays() + (same ? "" : " (differs from the sequential run)"));
+			}
+			System.out.println("sequential sweep : " + sequentialTime + " ms");
+			System.out.println("parallel sweep (" + parallelism + " threads) : " + parallelTime + " ms");
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.println("Unwanted errors happen");
+		}
+	}
+
+	@Override
+	public List<FogDevice> build(Integer numOfMobilesPerDept) throws Exception {
+		List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+		List<Sensor> sensors = new ArrayList<Sensor>();
+		List<Actuator> actuators = new ArrayList<Actuator>();
+
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		String appId = "vr_game";
+		FogBroker broker = new FogBroker("broker");
+		Application application = createApplication(appId, broker.getId(), eegSelectivity);
+		application.setUserId(broker.getId());
+
+		FogDevice cloud = createFogDevice("cloud", 44800, 40000, 100, 10000, 0, 0.01, 16*103, 16*83.25);
+		cloud.setParentId(-1);
+		FogDevice proxy = createFogDevice("proxy-server", 2800, 4000, 10000, 10000, 1, 0.0, 107.339, 83.4333);
+		proxy.setParentId(cloud.getId());
+		proxy.setUplinkLatency(100);
+		fogDevices.add(cloud);
+		fogDevices.add(proxy);
+		for(int i=0;i<numOfDepts;i++){
+			FogDevice dept = createFogDevice("d-"+i, 2800, 4000, 10000, 10000, 2, 0.0, 107.339, 83.4333);
+			dept.setParentId(proxy.getId());
+			dept.setUplinkLatency(4);
+			fogDevices.add(dept);
+			for(int j=0;j<numOfMobilesPerDept;j++){
+				String id = i+"-"+j;
+				FogDevice mobile = createFogDevice("m-"+id, 1000, 1000, 10000, 270, 3, 0, 87.53, 82.44);
+				mobile.setParentId(dept.getId());
+				mobile.setUplinkLatency(2);
+				fogDevices.add(mobile);
+				Sensor eegSensor = new Sensor("s-"+id, "EEG", broker.getId(), appId, new DeterministicDistribution(EEG_TRANSMISSION_TIME));
+				eegSensor.setGatewayDeviceId(mobile.getId());
+				eegSensor.setLatency(6.0);
+				sensors.add(eegSensor);
+				Actuator display = new Actuator("a-"+id, broker.getId(), appId, "DISPLAY");
+				display.setGatewayDeviceId(mobile.getId());
+				display.setLatency(1.0);
+				actuators.add(display);
+			}
+		}
+
+		ModuleMapping moduleMapping = ModuleMapping.createModuleMapping();
+		moduleMapping.addModuleToDevice("connector", "cloud");
+
+		Controller controller = new Controller("master-controller", fogDevices, sensors, actuators);
+		controller.submitApplication(application, 0, new ModulePlacementEdgewards(fogDevices, sensors, actuators, application, moduleMapping));
+		return fogDevices;
+	}
+
+	private static FogDevice createFogDevice(String nodeName, long mips,
+			int ram, long upBw, long downBw, int level, double ratePerMips, double busyPower, double idlePower) throws Exception {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		PowerHost host = new PowerHost(
+				FogUtils.generateEntityId(),
+				new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(10000),
+				1000000,
+				peList,
+				new StreamOperatorScheduler(peList),
+				new FogLinearPowerModel(busyPower, idlePower)
+			);
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
+				"x86", "Linux", "Xen", host, 10.0, 3.0, 0.05, 0.001, 0.0);
+
+		FogDevice fogdevice = new FogDevice(nodeName, characteristics,
+				new AppModuleAllocationPolicy(hostList), new LinkedList<Storage>(), 10, upBw, downBw, 0, ratePerMips);
+		fogdevice.setLevel(level);
+		return fogdevice;
+	}
+
+	@SuppressWarnings({"serial" })
+	private static Application createApplication(String appId, int userId, double eegSelectivity){
+		Application application = Application.createApplication(appId, userId);
+		application.addAppModule("client", 10);
+		application.addAppModule("concentration_calculator", 10);
+		application.addAppModule("connector", 10);
+
+		application.addAppEdge("EEG", "client", 3000, 500, "EEG", Tuple.UP, AppEdge.SENSOR);
+		application.addAppEdge("client", "concentration_calculator", 3500, 500, "_SENSOR", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("concentration_calculator", "connector", 100, 1000, 1000, "PLAYER_GAME_STATE", Tuple.UP, AppEdge.MODULE);
+		application.addAppEdge("concentration_calculator", "client", 14, 500, "CONCENTRATION", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("connector", "client", 100, 28, 1000, "GLOBAL_GAME_STATE", Tuple.DOWN, AppEdge.MODULE);
+		application.addAppEdge("client", "DISPLAY", 1000, 500, "SELF_STATE_UPDATE", Tuple.DOWN, AppEdge.ACTUATOR);
+		application.addAppEdge("client", "DISPLAY", 1000, 500, "GLOBAL_STATE_UPDATE", Tuple.DOWN, AppEdge.ACTUATOR);
+
+		application.addTupleMapping("client", "EEG", "_SENSOR", new FractionalSelectivity(eegSelectivity));
+		application.addTupleMapping("client", "CONCENTRATION", "SELF_STATE_UPDATE", new FractionalSelectivity(1.0));
+		application.addTupleMapping("concentration_calculator", "_SENSOR", "CONCENTRATION", new FractionalSelectivity(1.0));
+		application.addTupleMapping("client", "GLOBAL_GAME_STATE", "GLOBAL_STATE_UPDATE", new FractionalSelectivity(1.0));
+
+		final AppLoop loop1 = new AppLoop(new ArrayList<String>(){{add("EEG");add("client");add("concentration_calculator");add("client");add("DISPLAY");}});
+		List<AppLoop> loops = new ArrayList<AppLoop>(){{add(loop1);}};
+		application.setLoops(loops);
+		return application;
+	}
+}
@@ -0,0 +1,15 @@
+package org.fog.utils;
+
+/**
+ * Which receipts fog devices acknowledge to the sender with a {@link FogEvents#TUPLE_ACK} event
+ * (see {@link Config#ACKNOWLEDGEMENT_POLICY}). The fog entities do not act on acknowledgements,
+ * so they only matter to entities written to react to them.
+ */
+public enum AcknowledgementPolicy {
+	/** No tuple arrival or sensor joining is acknowledged. */
+	NONE,
+	/** One in every {@link Config#ACKNOWLEDGEMENT_SAMPLING_INTERVAL} tuples received by a device is acknowledged, as are sensor joinings. */
+	SAMPLED,
+	/** Every tuple arrival and sensor joining is acknowledged. */
+	FULL
+}
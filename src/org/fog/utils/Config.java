@@ -1,5 +1,9 @@
 package org.fog.utils;
 
+/**
+ * The settings new simulations start with; a running simulation reads its own copy (see
+ * {@link SimulationConfig}).
+ */
 public class Config {
 
 	public static final double RESOURCE_MGMT_INTERVAL = 100;
@@ -23,4 +27,24 @@ public class Config {
 	public static double clusteringLatency = 2.0; //milisecond
 
 	public static final int TRANSMISSION_START_DELAY = 50;
+
+	// Send the whole backlog of a busy fog device link in one step when the link frees up, instead of one tuple per link event
+	public static boolean BATCH_LINK_TRANSMISSION = false;
+
+	// Send DOWN and actuator tuples to every child, as earlier versions did, instead of only towards the devices hosting their destination
+	public static boolean FLOOD_DOWN_TUPLES = false;
+
+	// Execute tuples with computed processor-sharing finish times (see AnalyticTupleExecutor) instead of as cloudlets of the module VMs
+	public static boolean ANALYTIC_TUPLE_EXECUTION = false;
+
+	// Which tuple arrivals and sensor joinings fog devices acknowledge with a TUPLE_ACK event
+	public static AcknowledgementPolicy ACKNOWLEDGEMENT_POLICY = AcknowledgementPolicy.FULL;
+	// With AcknowledgementPolicy.SAMPLED, the number of tuples a fog device receives per acknowledgement
+	public static int ACKNOWLEDGEMENT_SAMPLING_INTERVAL = 100;
+
+	// Keep only the next mobility event of each mobile device pending, instead of scheduling the events of all its location records up front
+	public static boolean ROLLING_MOBILITY_EVENTS = false;
+
+	// Recycle the tuples that finished their execution (see TuplePool) instead of allocating a new tuple for each one sent
+	public static boolean LIGHTWEIGHT_TUPLES = false;
 }
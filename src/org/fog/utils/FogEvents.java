@@ -40,5 +40,6 @@ public enum FogEvents implements CloudSimTags {
     TRANSMIT_PR,
     MANAGEMENT_TUPLE_ARRIVAL,
     UPDATE_RESOURCE_INFO,
-    START_DYNAMIC_CLUSTERING;
+    START_DYNAMIC_CLUSTERING,
+    TUPLE_EXECUTION_COMPLETE;
 }
\ No newline at end of file
@@ -3,13 +3,27 @@ package org.fog.utils;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class FogUtils {
-	private static int TUPLE_ID = 1;
-	private static int ENTITY_ID = 1;
-	private static int ACTUAL_TUPLE_ID = 1;
+	
+	/**
+	 * The id counters and lookup tables of one simulation.
+	 */
+	private static class State {
+		int tupleId = 1;
+		int entityId = 1;
+		int actualTupleId = 1;
+		Map<String, GeoCoverage> appIdToGeoCoverageMap = new HashMap<String, GeoCoverage>();
+	}
+	
+	private static State state(){
+		return SimulationContext.current().getOrCreate(State.class, State::new);
+	}
 	
 	public static int generateTupleId(){
-		return TUPLE_ID++;
+		return state().tupleId++;
 	}
 	
 	public static String getSensorTypeFromSensorName(String sensorName){
@@ -17,11 +31,11 @@ public class FogUtils {
 	}
 	
 	public static int generateEntityId(){
-		return ENTITY_ID++;
+		return state().entityId++;
 	}
 	
 	public static int generateActualTupleId(){
-		return ACTUAL_TUPLE_ID++;
+		return state().actualTupleId++;
 	}
 	
 	public static int USER_ID = 1;
@@ -29,5 +43,26 @@ public class FogUtils {
 	//public static int MAX = 10000000;
 	public static int MAX = 10000000;
 	
-	public static Map<String, GeoCoverage> appIdToGeoCoverageMap = new HashMap<String, GeoCoverage>();
+	public static Map<String, GeoCoverage> getAppIdToGeoCoverageMap(){
+		return state().appIdToGeoCoverageMap;
+	}
+	
+	/**
+	 * Ends the simulation once a controller has reached STOP_SIMULATION. A standalone run exits
+	 * the JVM as before; a run executed in its own {@link SimulationContext} (see
+	 * {@link SimulationSweep}) only stops its own simulation.
+	 */
+	public static void endSimulation(){
+		if(SimulationContext.current().isDefault())
+			System.exit(0);
+		CloudSim.abruptallyTerminate();
+	}
+	
+	/**
+	 * Checks whether the simulation owns the JVM, in which case controllers print their results
+	 * on STOP_SIMULATION.
+	 */
+	public static boolean isStandaloneRun(){
+		return SimulationContext.current().isDefault();
+	}
 }
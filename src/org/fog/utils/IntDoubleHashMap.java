@@ -0,0 +1,159 @@
+package org.fog.utils;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to double values stored in two primitive arrays with open addressing
+ * (linear probing), so that neither the keys nor the values are boxed. Used for the per-tuple
+ * timestamps and the counts of tuple copies kept by {@link TimeKeeper}, which see one insertion
+ * and one removal per tuple.
+ */
+public class IntDoubleHashMap {
+
+	private static final int FREE = Integer.MIN_VALUE;
+	private static final int REMOVED = Integer.MIN_VALUE + 1;
+
+	private int[] keys;
+	private double[] values;
+	/** Number of live entries. */
+	private int size;
+	/** Number of slots that are not free, i.e. live entries plus removed markers. */
+	private int used;
+
+	public IntDoubleHashMap(){
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize the number of entries the map should hold without resizing
+	 */
+	public IntDoubleHashMap(int expectedSize){
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize*2-1)) << 1;
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity){
+		keys = new int[capacity];
+		Arrays.fill(keys, FREE);
+		values = new double[capacity];
+		size = 0;
+		used = 0;
+	}
+
+	private static void checkKey(int key){
+		if(key == FREE || key == REMOVED)
+			throw new IllegalArgumentException("Unsupported key: " + key);
+	}
+
+	private static int hash(int key){
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/** Gets the slot holding a key, or -1. */
+	private int indexOf(int key){
+		int mask = keys.length - 1;
+		for(int i = hash(key) & mask; ; i = (i+1) & mask){
+			int k = keys[i];
+			if(k == key)
+				return i;
+			if(k == FREE)
+				return -1;
+		}
+	}
+
+	public boolean containsKey(int key){
+		checkKey(key);
+		return indexOf(key) != -1;
+	}
+
+	/**
+	 * Gets the value of a key.
+	 * @return the value, or <tt>missingValue</tt> if the key is not in the map
+	 */
+	public double get(int key, double missingValue){
+		checkKey(key);
+		int i = indexOf(key);
+		return i == -1 ? missingValue : values[i];
+	}
+
+	/**
+	 * Associates a value with a key, replacing the previous value if any.
+	 */
+	public void put(int key, double value){
+		checkKey(key);
+		int mask = keys.length - 1;
+		int removed = -1;
+		int i = hash(key) & mask;
+		for(; ; i = (i+1) & mask){
+			int k = keys[i];
+			if(k == key){
+				values[i] = value;
+				return;
+			}
+			if(k == FREE)
+				break;
+			if(k == REMOVED && removed == -1)
+				removed = i;
+		}
+		if(removed != -1){
+			i = removed;
+		} else {
+			used++;
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		if(used*4 >= keys.length*3)
+			rehash(size*2 >= keys.length/2 ? keys.length*2 : keys.length);
+	}
+
+	/**
+	 * Removes a key.
+	 * @return the value the key had, or <tt>missingValue</tt> if the key was not in the map
+	 */
+	public double remove(int key, double missingValue){
+		checkKey(key);
+		int i = indexOf(key);
+		if(i == -1)
+			return missingValue;
+		double value = values[i];
+		keys[i] = REMOVED;
+		size--;
+		return value;
+	}
+
+	/** Rebuilds the table, dropping the removed markers. */
+	private void rehash(int capacity){
+		int[] oldKeys = keys;
+		double[] oldValues = values;
+		allocate(capacity);
+		int mask = capacity - 1;
+		for(int j=0;j<oldKeys.length;j++){
+			int key = oldKeys[j];
+			if(key == FREE || key == REMOVED)
+				continue;
+			int i = hash(key) & mask;
+			while(keys[i] != FREE)
+				i = (i+1) & mask;
+			keys[i] = key;
+			values[i] = oldValues[j];
+			size++;
+			used++;
+		}
+	}
+
+	public int size(){
+		return size;
+	}
+
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	public void clear(){
+		Arrays.fill(keys, FREE);
+		size = 0;
+		used = 0;
+	}
+}
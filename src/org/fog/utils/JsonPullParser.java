@@ -0,0 +1,279 @@
+package org.fog.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads a JSON document one token at a time, for documents too large to be parsed into a tree
+ * (see {@link JsonToTopology}). The caller pulls the tokens with {@link #next()} and gets the
+ * value of the current one from the getters; the structure of the document is checked as it
+ * goes, and a malformed document ends with an {@link IOException}.
+ */
+public class JsonPullParser {
+
+	public enum Token {
+		START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY,
+		/** The name of an entry of an object, followed by its value. */
+		NAME,
+		STRING, NUMBER, TRUE, FALSE, NULL,
+		END_DOCUMENT
+	}
+
+	private final Reader reader;
+	private final char[] buffer = new char[1 << 14];
+	private int position;
+	private int limit;
+	/** Characters read before the buffer, for the error messages. */
+	private long offset;
+
+	/** Whether each enclosing container is an object, outermost first. */
+	private boolean[] objects = new boolean[16];
+	private int depth;
+	/** Whether the current container has had a value, or a name for an object. */
+	private boolean hasElement;
+	/** Whether the last token was a name, whose value comes next. */
+	private boolean afterName;
+	private boolean ended;
+
+	private final StringBuilder text = new StringBuilder();
+	private boolean integral;
+
+	public JsonPullParser(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the next token.
+	 */
+	public Token next() throws IOException {
+		if(ended)
+			return Token.END_DOCUMENT;
+		int c = skipWhitespace();
+		if(c == -1){
+			if(depth > 0 || !hasElement)
+				throw error("Unexpected end of document");
+			ended = true;
+			return Token.END_DOCUMENT;
+		}
+		if(afterName){
+			afterName = false;
+			return readValue(c);
+		}
+		if(depth == 0){
+			if(hasElement)
+				throw error("Unexpected character after the document: " + (char) c);
+			return readValue(c);
+		}
+		boolean inObject = objects[depth-1];
+		if(c == (inObject ? '}' : ']')){
+			position++;
+			depth--;
+			hasElement = true;
+			return inObject ? Token.END_OBJECT : Token.END_ARRAY;
+		}
+		if(hasElement){
+			if(c != ',')
+				throw error("Expected ',' but found: " + (char) c);
+			position++;
+			c = skipWhitespace();
+		}
+		if(!inObject)
+			return readValue(c);
+		if(c != '"')
+			throw error("Expected a name but found: " + (c == -1 ? "the end" : String.valueOf((char) c)));
+		position++;
+		readString();
+		if(skipWhitespace() != ':')
+			throw error("Expected ':' after the name " + text);
+		position++;
+		hasElement = true;
+		afterName = true;
+		return Token.NAME;
+	}
+
+	/**
+	 * Skips the value that comes next, with its content if it is an object or array.
+	 */
+	public void skipValue() throws IOException {
+		int level = 0;
+		do {
+			Token token = next();
+			if(token == Token.START_OBJECT || token == Token.START_ARRAY)
+				level++;
+			else if(token == Token.END_OBJECT || token == Token.END_ARRAY)
+				level--;
+			else if((token == Token.NAME && level == 0) || token == Token.END_DOCUMENT)
+				throw error("Expected a value but found " + token);
+		} while(level > 0);
+	}
+
+	/**
+	 * Gets the text of the current name, string or number.
+	 */
+	public String getString() {
+		return text.toString();
+	}
+
+	/**
+	 * Whether the current number has neither a fraction nor an exponent.
+	 */
+	public boolean isIntegral() {
+		return integral;
+	}
+
+	public long getLong() {
+		return Long.parseLong(text, 0, text.length(), 10);
+	}
+
+	public double getDouble() {
+		return Double.parseDouble(text.toString());
+	}
+
+	private Token readValue(int c) throws IOException {
+		hasElement = true;
+		switch(c){
+		case '{':
+		case '[':
+			position++;
+			if(depth == objects.length)
+				objects = Arrays.copyOf(objects, depth * 2);
+			objects[depth++] = c == '{';
+			hasElement = false;
+			return c == '{' ? Token.START_OBJECT : Token.START_ARRAY;
+		case '"':
+			position++;
+			readString();
+			return Token.STRING;
+		case 't':
+			readLiteral("true");
+			return Token.TRUE;
+		case 'f':
+			readLiteral("false");
+			return Token.FALSE;
+		case 'n':
+			readLiteral("null");
+			return Token.NULL;
+		default:
+			if(c == '-' || (c >= '0' && c <= '9')){
+				readNumber();
+				return Token.NUMBER;
+			}
+			throw error("Expected a value but found: " + (c == -1 ? "the end" : String.valueOf((char) c)));
+		}
+	}
+
+	private void readString() throws IOException {
+		text.setLength(0);
+		while(true){
+			int start = position;
+			while(position < limit){
+				char c = buffer[position];
+				if(c == '"' || c == '\\')
+					break;
+				position++;
+			}
+			text.append(buffer, start, position - start);
+			if(position == limit){
+				if(!fill())
+					throw error("Unterminated string");
+				continue;
+			}
+			char c = buffer[position++];
+			if(c == '"')
+				return;
+			text.append(readEscape());
+		}
+	}
+
+	private char readEscape() throws IOException {
+		int c = read();
+		switch(c){
+		case '"': return '"';
+		case '\\': return '\\';
+		case '/': return '/';
+		case 'b': return '\b';
+		case 'f': return '\f';
+		case 'n': return '\n';
+		case 'r': return '\r';
+		case 't': return '\t';
+		case 'u':
+			int value = 0;
+			for(int i=0;i<4;i++){
+				int digit = Character.digit(read(), 16);
+				if(digit < 0)
+					throw error("Invalid unicode escape");
+				value = value * 16 + digit;
+			}
+			return (char) value;
+		default:
+			throw error("Invalid escape: \\" + (c == -1 ? "" : String.valueOf((char) c)));
+		}
+	}
+
+	private void readNumber() throws IOException {
+		text.setLength(0);
+		integral = true;
+		while(true){
+			if(position == limit && !fill())
+				break;
+			char c = buffer[position];
+			if(c == '.' || c == 'e' || c == 'E')
+				integral = false;
+			else if(!(c >= '0' && c <= '9') && c != '-' && c != '+')
+				break;
+			text.append(c);
+			position++;
+		}
+		char last = text.charAt(text.length()-1);
+		if(last < '0' || last > '9')
+			throw error("Invalid number: " + text);
+		// integers too large for a long are read as doubles
+		if(integral && text.length() > 18){
+			try {
+				getLong();
+			} catch (NumberFormatException e) {
+				integral = false;
+			}
+		}
+	}
+
+	private void readLiteral(String literal) throws IOException {
+		for(int i=0;i<literal.length();i++){
+			if(read() != literal.charAt(i))
+				throw error("Expected " + literal);
+		}
+	}
+
+	private int read() throws IOException {
+		if(position == limit && !fill())
+			return -1;
+		return buffer[position++];
+	}
+
+	private int skipWhitespace() throws IOException {
+		while(true){
+			if(position == limit && !fill())
+				return -1;
+			char c = buffer[position];
+			if(c != ' ' && c != '\n' && c != '\r' && c != '\t')
+				return c;
+			position++;
+		}
+	}
+
+	private boolean fill() throws IOException {
+		offset += limit;
+		position = 0;
+		limit = 0;
+		int count = reader.read(buffer);
+		if(count <= 0)
+			return false;
+		limit = count;
+		return true;
+	}
+
+	private IOException error(String message) {
+		return new IOException(message + " at character " + (offset + position));
+	}
+}
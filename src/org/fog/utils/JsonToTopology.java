@@ -1,17 +1,23 @@
 package org.fog.utils;
 
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Pe;
 import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.power.models.PowerModelLinear;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
 import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
@@ -27,139 +33,278 @@ import org.fog.utils.distribution.DeterministicDistribution;
 import org.fog.utils.distribution.Distribution;
 import org.fog.utils.distribution.NormalDistribution;
 import org.fog.utils.distribution.UniformDistribution;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 
+/**
+ * Loads a physical topology from JSON: the <tt>nodes</tt> (fog devices, sensors and actuators)
+ * and the <tt>links</tt> between them. The document is pulled from a {@link JsonPullParser} one
+ * node or link at a time, so that only the entities created are kept in memory; the entities
+ * are looked up by name, ignoring case, in hash maps.
+ * <p>
+ * A fog device may give the power it draws when busy and idle (<tt>busyPower</tt> and
+ * <tt>idlePower</tt>); the devices drawing the same powers share one power model, as they share
+ * the empty list of storage elements.
+ */
 public class JsonToTopology {
 
-	private static List<FogDevice> fogDevices = new ArrayList<FogDevice>();
-	private static List<Sensor> sensors = new ArrayList<Sensor>();
-	private static List<Actuator> actuators = new ArrayList<Actuator>();
- 
-	private static boolean isFogDevice(String name){
-		for(FogDevice fogDevice : fogDevices){
-			if(fogDevice.getName().equalsIgnoreCase(name))
-				return true;
-		}
-		return false;
-		
-	}
-	
-	private static FogDevice getFogDevice(String name){
-		for(FogDevice fogDevice : fogDevices){
-			if(fogDevice.getName().equalsIgnoreCase(name))
-				return fogDevice;
+	private static final double DEFAULT_MAX_POWER = 107.339;
+	private static final double DEFAULT_STATIC_POWER = 83.4333;
+
+	/** The storage of every fog device, which is never changed. */
+	private static final List<Storage> NO_STORAGE = Collections.emptyList();
+
+	public static PhysicalTopology getPhysicalTopology(int userId, String appId, String physicalTopologyFile) throws Exception{
+		try {
+			Reader reader = new BufferedReader(new FileReader(physicalTopologyFile), 1 << 16);
+			try {
+				return getPhysicalTopology(userId, appId, reader);
+			} finally {
+				reader.close();
+			}
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
 		}
-		return null;
+		return new TopologyLoader(userId, appId).getPhysicalTopology();
 	}
-	
-	private static boolean isActuator(String name){
-		for(Actuator actuator : actuators){
-			if(actuator.getName().equalsIgnoreCase(name))
-				return true;
-		}
-		return false;
+
+	/**
+	 * Loads a physical topology from a JSON document.
+	 */
+	public static PhysicalTopology getPhysicalTopology(int userId, String appId, Reader physicalTopology) throws IOException{
+		TopologyLoader loader = new TopologyLoader(userId, appId);
+		loader.load(new JsonPullParser(physicalTopology));
+		return loader.getPhysicalTopology();
 	}
-	
-	private static Actuator getActuator(String name){
-		for(Actuator actuator : actuators){
-			if(actuator.getName().equalsIgnoreCase(name))
-				return actuator;
+
+	/**
+	 * Creates the entities of the topology as it pulls the nodes and links from the document.
+	 * The fields of each node or link are gathered, then the node or link is created. The links
+	 * met before the nodes are kept until the nodes have been created.
+	 */
+	private static class TopologyLoader {
+
+		private final int userId;
+		private final String appId;
+
+		private final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+		private final List<Sensor> sensors = new ArrayList<Sensor>();
+		private final List<Actuator> actuators = new ArrayList<Actuator>();
+		/** The entities by lower-case name, the first one of each name. */
+		private final Map<String, FogDevice> fogDevicesByName = new HashMap<String, FogDevice>();
+		private final Map<String, Sensor> sensorsByName = new HashMap<String, Sensor>();
+		private final Map<String, Actuator> actuatorsByName = new HashMap<String, Actuator>();
+		/** The power models of the fog devices, by maximum and static power. */
+		private final Map<List<Double>, PowerModel> powerModels = new HashMap<List<Double>, PowerModel>();
+
+		/** The fields of the node or link being read, numbers as Long or Double. */
+		private final Map<String, Object> fields = new HashMap<String, Object>();
+		private boolean nodesLoaded;
+		private final List<Object[]> pendingLinks = new ArrayList<Object[]>();
+
+		TopologyLoader(int userId, String appId) {
+			this.userId = userId;
+			this.appId = appId;
 		}
-		return null;
-	}
-	
-	private static boolean isSensor(String name){
-		for(Sensor sensor : sensors){
-			if(sensor.getName().equalsIgnoreCase(name))
-				return true;
+
+		PhysicalTopology getPhysicalTopology() {
+			PhysicalTopology physicalTopology = new PhysicalTopology();
+			physicalTopology.setFogDevices(fogDevices);
+			physicalTopology.setActuators(actuators);
+			physicalTopology.setSensors(sensors);
+			return physicalTopology;
 		}
-		return false;
-	}
-	
-	private static Sensor getSensor(String name){
-		for(Sensor sensor : sensors){
-			if(sensor.getName().equalsIgnoreCase(name))
-				return sensor;
+
+		void load(JsonPullParser parser) throws IOException {
+			if(parser.next() != JsonPullParser.Token.START_OBJECT)
+				throw new IOException("The topology should be a JSON object");
+			while(parser.next() == JsonPullParser.Token.NAME){
+				String section = parser.getString();
+				if(section.equals("nodes")){
+					loadElements(parser, true);
+					nodesLoaded = true;
+					connectPendingLinks();
+				} else if(section.equals("links")){
+					loadElements(parser, false);
+				} else {
+					parser.skipValue();
+				}
+			}
+			connectPendingLinks();
 		}
-		return null;
-	}
-	
-	public static PhysicalTopology getPhysicalTopology(int userId, String appId, String physicalTopologyFile) throws Exception{
-				
-		fogDevices = new ArrayList<FogDevice>();
-		sensors = new ArrayList<Sensor>();
-		actuators = new ArrayList<Actuator>();
-		
-		
-		try {
-			JSONObject doc = (JSONObject) JSONValue.parse(new FileReader(physicalTopologyFile));
-    		JSONArray nodes = (JSONArray) doc.get("nodes");
-    		@SuppressWarnings("unchecked")
-			Iterator<JSONObject> iter =nodes.iterator(); 
-			while(iter.hasNext()){
-				JSONObject node = iter.next();
-				String nodeType = (String) node.get("type");
-				String nodeName = (String) node.get("name");
-				
-				if(nodeType.equalsIgnoreCase("FOG_DEVICE")){
-					long mips = (Long) node.get("mips");
-					int ram = new BigDecimal((Long)node.get("ram")).intValueExact();
-					long upBw = new BigDecimal((Long)node.get("upBw")).intValueExact();
-					long downBw = new BigDecimal((Long)node.get("downBw")).intValueExact();
-					int level = new BigDecimal((Long)node.get("level")).intValue();
-					double ratePerMips = new BigDecimal((Double)node.get("ratePerMips")).doubleValue();
-					
-					FogDevice fogDevice = createFogDevice(nodeName, mips, ram, upBw, downBw, level, ratePerMips);
-					fogDevice.setParentId(-1);
-					
-					fogDevices.add(fogDevice);
-
-				} else if(nodeType.equals("SENSOR")){
-					String sensorType = node.get("sensorType").toString();
-					int distType = new BigDecimal((Long)node.get("distribution")).intValue();
-					Distribution distribution = null;
-					if(distType == Distribution.DETERMINISTIC)
-						distribution = new DeterministicDistribution(new BigDecimal((Double)node.get("value")).doubleValue());
-					else if(distType == Distribution.NORMAL){
-						distribution = new NormalDistribution(new BigDecimal((Double)node.get("mean")).doubleValue(), 
-								new BigDecimal((Double)node.get("stdDev")).doubleValue());
-					} else if(distType == Distribution.UNIFORM){
-						distribution = new UniformDistribution(new BigDecimal((Double)node.get("min")).doubleValue(), 
-								new BigDecimal((Double)node.get("max")).doubleValue());
+
+		private void loadElements(JsonPullParser parser, boolean nodes) throws IOException {
+			if(parser.next() != JsonPullParser.Token.START_ARRAY)
+				throw new IOException("The " + (nodes ? "nodes" : "links") + " should be a JSON array");
+			JsonPullParser.Token token;
+			while((token = parser.next()) != JsonPullParser.Token.END_ARRAY){
+				if(token != JsonPullParser.Token.START_OBJECT)
+					throw new IOException("The " + (nodes ? "nodes" : "links") + " should be JSON objects");
+				fields.clear();
+				while(parser.next() == JsonPullParser.Token.NAME){
+					String name = parser.getString();
+					switch(parser.next()){
+					case STRING:
+						fields.put(name, parser.getString());
+						break;
+					case NUMBER:
+						fields.put(name, parser.isIntegral() ? (Object) parser.getLong() : (Object) parser.getDouble());
+						break;
+					case TRUE:
+						fields.put(name, Boolean.TRUE);
+						break;
+					case FALSE:
+						fields.put(name, Boolean.FALSE);
+						break;
+					case NULL:
+						break;
+					default:
+						// the nested objects and arrays are not part of the topology
+						skipRest(parser);
+						break;
 					}
-					System.out.println("Sensor type : "+sensorType);
-					sensors.add(new Sensor(nodeName, sensorType, userId, appId, distribution));
-				} else if(nodeType.equals("ACTUATOR")){
-					String actuatorType = node.get("actuatorType").toString();
-					actuators.add(new Actuator(nodeName, userId, appId, actuatorType));
+				}
+				if(nodes)
+					createNode();
+				else
+					createLink();
+			}
+		}
+
+		/**
+		 * Skips the rest of the object or array just started.
+		 */
+		private static void skipRest(JsonPullParser parser) throws IOException {
+			int level = 1;
+			while(level > 0){
+				switch(parser.next()){
+				case START_OBJECT:
+				case START_ARRAY:
+					level++;
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+					level--;
+					break;
+				default:
+					break;
 				}
 			}
-				
-			JSONArray links = (JSONArray) doc.get("links");
-			@SuppressWarnings("unchecked")
-			Iterator<JSONObject> linksIter =links.iterator(); 
-			while(linksIter.hasNext()){
-				JSONObject link = linksIter.next();
-				String src = (String) link.get("source");  
-				String dst = (String) link.get("destination");
-				double lat = (Double) link.get("latency");
-				
+		}
+
+		private long getLong(String field) {
+			return ((Number) fields.get(field)).longValue();
+		}
+
+		private double getDouble(String field) {
+			return ((Number) fields.get(field)).doubleValue();
+		}
+
+		private void createNode() {
+			String nodeType = (String) fields.get("type");
+			String nodeName = (String) fields.get("name");
+
+			if(nodeType.equalsIgnoreCase("FOG_DEVICE")){
+				long mips = getLong("mips");
+				int ram = Math.toIntExact(getLong("ram"));
+				long upBw = Math.toIntExact(getLong("upBw"));
+				long downBw = Math.toIntExact(getLong("downBw"));
+				int level = (int) getLong("level");
+				double ratePerMips = getDouble("ratePerMips");
+
+				FogDevice fogDevice = createFogDevice(nodeName, mips, ram, upBw, downBw, level, ratePerMips, getPowerModel());
+				fogDevice.setParentId(-1);
+
+				fogDevices.add(fogDevice);
+				fogDevicesByName.putIfAbsent(nodeName.toLowerCase(Locale.ROOT), fogDevice);
+
+			} else if(nodeType.equals("SENSOR")){
+				final String sensorType = fields.get("sensorType").toString();
+				int distType = (int) getLong("distribution");
+				Distribution distribution = null;
+				if(distType == Distribution.DETERMINISTIC)
+					distribution = new DeterministicDistribution(getDouble("value"));
+				else if(distType == Distribution.NORMAL){
+					distribution = new NormalDistribution(getDouble("mean"), getDouble("stdDev"));
+				} else if(distType == Distribution.UNIFORM){
+					distribution = new UniformDistribution(getDouble("min"), getDouble("max"));
+				}
+				Logger.debug("JsonToTopology", () -> "Sensor type : "+sensorType);
+				Sensor sensor = new Sensor(nodeName, sensorType, userId, appId, distribution);
+				sensors.add(sensor);
+				sensorsByName.putIfAbsent(nodeName.toLowerCase(Locale.ROOT), sensor);
+			} else if(nodeType.equals("ACTUATOR")){
+				String actuatorType = fields.get("actuatorType").toString();
+				Actuator actuator = new Actuator(nodeName, userId, appId, actuatorType);
+				actuators.add(actuator);
+				actuatorsByName.putIfAbsent(nodeName.toLowerCase(Locale.ROOT), actuator);
+			}
+		}
+
+		/**
+		 * Gets the power model of the fog device being created, shared with the devices drawing
+		 * the same powers. The devices without powers keep the power model they always had.
+		 */
+		private PowerModel getPowerModel() {
+			boolean givenPowers = fields.containsKey("busyPower") && fields.containsKey("idlePower");
+			double maxPower = givenPowers ? getDouble("busyPower") : DEFAULT_MAX_POWER;
+			double staticPower = givenPowers ? getDouble("idlePower") : DEFAULT_STATIC_POWER;
+			List<Double> powers = Arrays.asList(givenPowers ? 1.0 : 0.0, maxPower, staticPower);
+			PowerModel powerModel = powerModels.get(powers);
+			if(powerModel == null){
+				powerModel = givenPowers ? new FogLinearPowerModel(maxPower, staticPower) : new PowerModelLinear(maxPower, staticPower);
+				powerModels.put(powers, powerModel);
+			}
+			return powerModel;
+		}
+
+		private void createLink() {
+			String src = (String) fields.get("source");
+			String dst = (String) fields.get("destination");
+			double lat = getDouble("latency");
+			if(nodesLoaded)
 				connectEntities(src, dst, lat);
+			else
+				pendingLinks.add(new Object[]{src, dst, lat});
+		}
+
+		private void connectPendingLinks() {
+			for(Object[] link : pendingLinks)
+				connectEntities((String) link[0], (String) link[1], (Double) link[2]);
+			pendingLinks.clear();
+		}
+
+		private void connectEntities(String src, String dst, double lat) {
+			String srcName = src.toLowerCase(Locale.ROOT);
+			String dstName = dst.toLowerCase(Locale.ROOT);
+			FogDevice srcDev = fogDevicesByName.get(srcName);
+			FogDevice destDev = fogDevicesByName.get(dstName);
+			if(srcDev != null && destDev != null){
+				FogDevice southernDev = (srcDev.getLevel() > destDev.getLevel())?srcDev:destDev;
+				FogDevice northernDev = (srcDev.getLevel() > destDev.getLevel())?destDev:srcDev;
+				southernDev.setUplinkLatency(lat);
+				southernDev.setParentId(northernDev.getId());
+			} else if(srcDev != null && sensorsByName.containsKey(dstName)){
+				Sensor sensor = sensorsByName.get(dstName);
+				sensor.setLatency(lat);
+				sensor.setGatewayDeviceId(srcDev.getId());
+			} else if(sensorsByName.containsKey(srcName) && destDev != null){
+				Sensor sensor = sensorsByName.get(srcName);
+				sensor.setLatency(lat);
+				sensor.setGatewayDeviceId(destDev.getId());
+			} else if(srcDev != null && actuatorsByName.containsKey(dstName)){
+				Actuator actuator = actuatorsByName.get(dstName);
+				actuator.setLatency(lat);
+				actuator.setGatewayDeviceId(srcDev.getId());
+			} else if(actuatorsByName.containsKey(srcName) && destDev != null){
+				Actuator actuator = actuatorsByName.get(srcName);
+				actuator.setLatency(lat);
+				actuator.setGatewayDeviceId(destDev.getId());
 			}
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
 		}
-		PhysicalTopology physicalTopology = new PhysicalTopology();
-		physicalTopology.setFogDevices(fogDevices);
-		physicalTopology.setActuators(actuators);
-		physicalTopology.setSensors(sensors);
-		return physicalTopology;
 	}
+
 	private static FogDevice createFogDevice(String nodeName, long mips,
-			int ram, long upBw, long downBw, int level, double ratePerMips) {
-		
+			int ram, long upBw, long downBw, int level, double ratePerMips, PowerModel powerModel) {
+
 		List<Pe> peList = new ArrayList<Pe>();
 
 		// 3. Create PEs and add these into a list.
@@ -176,7 +321,7 @@ public class JsonToTopology {
 				storage,
 				peList,
 				new StreamOperatorScheduler(peList),
-				new PowerModelLinear(107.339, 83.4333)
+				powerModel
 			);
 
 		List<Host> hostList = new ArrayList<Host>();
@@ -191,8 +336,6 @@ public class JsonToTopology {
 		double costPerStorage = 0.001; // the cost of using storage in this
 										// resource
 		double costPerBw = 0.0; // the cost of using bw in this resource
-		LinkedList<Storage> storageList = new LinkedList<Storage>(); // we are not adding SAN
-													// devices by now
 
 		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
 				arch, os, vmm, host, time_zone, cost, costPerMem,
@@ -200,45 +343,13 @@ public class JsonToTopology {
 
 		FogDevice fogdevice = null;
 		try {
-			fogdevice = new FogDevice(nodeName, characteristics, 
-					new AppModuleAllocationPolicy(hostList), storageList, 10, upBw, downBw, 0, ratePerMips);
+			fogdevice = new FogDevice(nodeName, characteristics,
+					new AppModuleAllocationPolicy(hostList), NO_STORAGE, 10, upBw, downBw, 0, ratePerMips);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
-		
+
 		fogdevice.setLevel(level);
 		return fogdevice;
 	}
-
-	private static void connectEntities(String src, String dst, double lat) {
-		if(isFogDevice(src) && isFogDevice(dst)){
-			FogDevice srcDev = getFogDevice(src);
-			FogDevice destDev = getFogDevice(dst);
-			FogDevice southernDev = (srcDev.getLevel() > destDev.getLevel())?srcDev:destDev;
-			FogDevice northernDev = (srcDev.getLevel() > destDev.getLevel())?destDev:srcDev;
-			southernDev.setUplinkLatency(lat);
-			southernDev.setParentId(northernDev.getId());
-		} else if(isFogDevice(src) && isSensor(dst)){
-			FogDevice srcDev = getFogDevice(src);
-			Sensor sensor = getSensor(dst);
-			sensor.setLatency(lat);
-			sensor.setGatewayDeviceId(srcDev.getId());
-		} else if(isSensor(src) && isFogDevice(dst)){
-			FogDevice fogDevice = getFogDevice(dst);
-			Sensor sensor = getSensor(src);
-			sensor.setLatency(lat);
-			sensor.setGatewayDeviceId(fogDevice.getId());
-		} else if(isFogDevice(src) && isActuator(dst)){
-			FogDevice fogDevice = getFogDevice(src);
-			Actuator actuator = getActuator(dst);
-			actuator.setLatency(lat);
-			actuator.setGatewayDeviceId(fogDevice.getId());
-		} else if(isActuator(src) && isFogDevice(dst)){
-			FogDevice fogDevice = getFogDevice(dst);
-			Actuator actuator = getActuator(src);
-			actuator.setLatency(lat);
-			actuator.setGatewayDeviceId(fogDevice.getId());
-		}
-		
-	}	
 }
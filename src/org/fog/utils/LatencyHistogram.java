@@ -0,0 +1,124 @@
+package org.fog.utils;
+
+/**
+ * Streaming distribution of non-negative delays in bounded memory, in the manner of an HDR
+ * histogram: each power of two is split into {@value #SUB_BUCKETS} linear sub-buckets, so a
+ * percentile is reported with a relative error below 1% whatever the number of recorded values.
+ * Count, mean, minimum and maximum are exact.
+ * <p>
+ * Values from 2<sup>{@value #MIN_EXPONENT}</sup> to 2<sup>{@value #MAX_EXPONENT}</sup> are
+ * bucketed; smaller values are counted as the minimum and larger ones as the maximum. A bucket
+ * row is only allocated when a value falls into its power of two.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	public static final int MIN_EXPONENT = -30;
+	public static final int MAX_EXPONENT = 40;
+
+	/** Counts by power of two (from MIN_EXPONENT) and sub-bucket. */
+	private long[][] counts = new long[MAX_EXPONENT - MIN_EXPONENT + 1][];
+	/** Values below 2^MIN_EXPONENT. */
+	private long underflowCount;
+	/** Values at or above 2^(MAX_EXPONENT+1). */
+	private long overflowCount;
+
+	private long count;
+	private double sum;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Records a value.
+	 * @param value the delay, which should be non-negative
+	 */
+	public void record(double value){
+		if(!(value >= 0))
+			throw new IllegalArgumentException("Delays should be non-negative, but got: " + value);
+		count++;
+		sum += value;
+		if(value < min)
+			min = value;
+		if(value > max)
+			max = value;
+		int exponent = Math.getExponent(value);
+		if(exponent < MIN_EXPONENT){
+			underflowCount++;
+			return;
+		}
+		if(exponent > MAX_EXPONENT){
+			overflowCount++;
+			return;
+		}
+		int row = exponent - MIN_EXPONENT;
+		if(counts[row] == null)
+			counts[row] = new long[SUB_BUCKETS];
+		int subBucket = (int) ((Double.doubleToRawLongBits(value) >>> (52 - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+		counts[row][subBucket]++;
+	}
+
+	/**
+	 * Gets the value below which a given percentage of the recorded values fall.
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the middle of the bucket holding the value of that rank (bounded by the exact
+	 * minimum and maximum), or <tt>NaN</tt> if nothing was recorded
+	 */
+	public double getValueAtPercentile(double percentile){
+		if(percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("The percentile should be between 0 and 100, but is: " + percentile);
+		if(count == 0)
+			return Double.NaN;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = underflowCount;
+		if(seen >= rank)
+			return min;
+		for(int row=0;row<counts.length;row++){
+			if(counts[row] == null)
+				continue;
+			for(int subBucket=0;subBucket<SUB_BUCKETS;subBucket++){
+				seen += counts[row][subBucket];
+				if(seen >= rank){
+					double width = Math.scalb(1.0, row + MIN_EXPONENT - SUB_BUCKET_BITS);
+					double middle = Math.scalb(1.0, row + MIN_EXPONENT) + width * (subBucket + 0.5);
+					return Math.min(max, Math.max(min, middle));
+				}
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Gets the median, 95th and 99th percentiles and the maximum, formatted for the reports of
+	 * the controllers.
+	 */
+	public String getPercentileSummary(){
+		return "p50 = " + getValueAtPercentile(50) + ", p95 = " + getValueAtPercentile(95)
+				+ ", p99 = " + getValueAtPercentile(99) + ", max = " + getMax();
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the mean of the recorded values, or <tt>NaN</tt> if nothing was recorded
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : sum / count;
+	}
+
+	/**
+	 * @return the smallest recorded value, or <tt>NaN</tt> if nothing was recorded
+	 */
+	public double getMin() {
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * @return the largest recorded value, or <tt>NaN</tt> if nothing was recorded
+	 */
+	public double getMax() {
+		return count == 0 ? Double.NaN : max;
+	}
+}
@@ -1,6 +1,7 @@
 package org.fog.utils;
 
 import java.text.DecimalFormat;
+import java.util.function.Supplier;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 
@@ -10,7 +11,8 @@ public class Logger {
 	public static final int DEBUG = 0;
 	
 	public static int LOG_LEVEL = Logger.DEBUG;
-	private static DecimalFormat df = new DecimalFormat("#.00"); 
+	// DecimalFormat is not thread-safe, and simulations of different contexts may log concurrently
+	private static final ThreadLocal<DecimalFormat> df = ThreadLocal.withInitial(() -> new DecimalFormat("#.00"));
 
 	public static boolean ENABLED = false;;
 	
@@ -22,13 +24,48 @@ public class Logger {
 		if(!ENABLED)
 			return;
 		if(Logger.LOG_LEVEL <= Logger.DEBUG)
-			System.out.println(df.format(CloudSim.clock())+" : "+name+" : "+message);
+			System.out.println(df.get().format(CloudSim.clock())+" : "+name+" : "+message);
 	}
 	public static void error(String name, String message){
 		if(!ENABLED)
 			return;
 		if(Logger.LOG_LEVEL <= Logger.ERROR)
-			System.out.println(df.format(CloudSim.clock())+" : "+name+" : "+message);
+			System.out.println(df.get().format(CloudSim.clock())+" : "+name+" : "+message);
+	}
+	
+	/**
+	 * Checks whether debug messages are printed, so that callers can skip preparing them.
+	 */
+	public static boolean isDebugEnabled(){
+		return ENABLED && Logger.LOG_LEVEL <= Logger.DEBUG;
+	}
+	
+	/**
+	 * Checks whether error messages are printed, so that callers can skip preparing them.
+	 */
+	public static boolean isErrorEnabled(){
+		return ENABLED && Logger.LOG_LEVEL <= Logger.ERROR;
+	}
+	
+	/**
+	 * Prints a debug message built only if debug messages are printed. Use this instead of
+	 * {@link #debug(String, String)} on paths executed for every tuple or event, where building
+	 * the message would otherwise be paid even with logging disabled.
+	 */
+	public static void debug(String name, Supplier<String> message){
+		if(!isDebugEnabled())
+			return;
+		System.out.println(df.get().format(CloudSim.clock())+" : "+name+" : "+message.get());
+	}
+	
+	/**
+	 * Prints an error message built only if error messages are printed.
+	 * @see #debug(String, Supplier)
+	 */
+	public static void error(String name, Supplier<String> message){
+		if(!isErrorEnabled())
+			return;
+		System.out.println(df.get().format(CloudSim.clock())+" : "+name+" : "+message.get());
 	}
 	
 }
@@ -0,0 +1,43 @@
+package org.fog.utils;
+
+/**
+ * The delays of the executions of an application loop, kept by {@link TimeKeeper}: the running
+ * average and the number of executions that have ended, and their distribution. All three are
+ * updated together, so that an execution ending costs a single lookup of this record.
+ */
+public class LoopDelayStatistics {
+
+	private double average;
+	private int count;
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	/**
+	 * Records the delay of an execution of the loop.
+	 */
+	public void record(double delay){
+		average = (average*count + delay)/(count+1);
+		count++;
+		histogram.record(delay);
+	}
+
+	/**
+	 * @return the average delay, computed as a running mean, or 0 if no execution has ended
+	 */
+	public double getAverage() {
+		return average;
+	}
+
+	/**
+	 * @return the number of executions that have ended
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the distribution of the delay.
+	 */
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+}
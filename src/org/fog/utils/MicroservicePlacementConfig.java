@@ -1,5 +1,9 @@
 package org.fog.utils;
 
+/**
+ * The placement settings new simulations start with; a running simulation reads its own copy (see
+ * {@link SimulationConfig}).
+ */
 public class MicroservicePlacementConfig {
 
     // simulation modes - STATIC - 1(initial placement happens before simulation start and placement related delays are not simulated)
@@ -14,6 +18,9 @@ public class MicroservicePlacementConfig {
     // For periodic placement
     public static final double PLACEMENT_INTERVAL = 1;
 
+    // Distributed placement: FONs processing placement requests in the same clock tick map them in parallel
+    public static boolean PARALLEL_BATCH_PLACEMENT = false;
+
     //Resource info sharing among cluster nodes
     public static Boolean ENABLE_RESOURCE_DATA_SHARING = false;
     public static double MODULE_DEPLOYMENT_TIME = 0.0;
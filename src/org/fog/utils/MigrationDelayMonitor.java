@@ -1,14 +1,20 @@
 package org.fog.utils;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class MigrationDelayMonitor {
 	
-	private static double migrationDelay = 0.0;
+	private double migrationDelay = 0.0;
+	
+	private static MigrationDelayMonitor getInstance() {
+		return SimulationContext.current().getOrCreate(MigrationDelayMonitor.class, MigrationDelayMonitor::new);
+	}
 	
 	public static double getMigrationDelay() {
-		return migrationDelay;
+		return getInstance().migrationDelay;
 	}
 
 	public static void setMigrationDelay(double migrationDelayReceived) {
-		migrationDelay += migrationDelayReceived;
+		getInstance().migrationDelay += migrationDelayReceived;
 	}
 }
@@ -1,18 +1,36 @@
 package org.fog.utils;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 public class NetworkUsageMonitor {
 
-	private static double networkUsage = 0.0;
+	private double networkUsage = 0.0;
+	
+	/**
+	 * Gets the monitor of the simulation run by the calling thread. Entities that send tuples keep
+	 * it, and use {@link #tupleSent(double, double)} rather than the static methods.
+	 */
+	public static NetworkUsageMonitor getInstance(){
+		return SimulationContext.current().getOrCreate(NetworkUsageMonitor.class, NetworkUsageMonitor::new);
+	}
 	
 	public static void sendingTuple(double latency, double tupleNwSize){
-		networkUsage += latency*tupleNwSize;
+		getInstance().tupleSent(latency, tupleNwSize);
 	}
 	
 	public static void sendingModule(double latency, long moduleSize){
+		getInstance().moduleSent(latency, moduleSize);
+	}
+
+	public void tupleSent(double latency, double tupleNwSize){
+		networkUsage += latency*tupleNwSize;
+	}
+
+	public void moduleSent(double latency, long moduleSize){
 		networkUsage += latency*moduleSize;
 	}
 	
 	public static double getNetworkUsage(){
-		return networkUsage;
+		return getInstance().networkUsage;
 	}
 }
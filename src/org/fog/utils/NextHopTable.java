@@ -0,0 +1,175 @@
+package org.fog.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.fog.entities.FogDevice;
+
+/**
+ * Next hops between all pairs of fog devices along the lowest-latency paths of a topology.
+ * The links (parent, children and cluster members of each device, see
+ * {@link ShortestPathRoutingGenerator}) are captured when the table is built; the next hops of a
+ * source device are computed from them with Dijkstra's algorithm the first time the device is
+ * looked up, and stored as one int row indexed by the position of the destination, so devices
+ * that never route a tuple cost nothing.
+ * <p>
+ * Rows can be amended with {@link #setNextHop(int, int, int)}, e.g. when a mobile device changes
+ * its parent.
+ */
+public class NextHopTable {
+
+	/** Device ids, by position. */
+	private final int[] deviceIds;
+	/** Position of each device, by device id; -1 for ids that are not fog devices. */
+	private final int[] positions;
+	/** Neighbour positions and link latencies of each device, by position. */
+	private final int[][] neighbours;
+	private final double[][] latencies;
+	/** Next hop ids, by source and destination position; a row is null until it is needed. */
+	private final int[][] nextHops;
+
+	NextHopTable(List<FogDevice> fogDevices, int[][] neighbours, double[][] latencies){
+		int size = fogDevices.size();
+		deviceIds = new int[size];
+		int maxId = -1;
+		for(int i=0;i<size;i++){
+			deviceIds[i] = fogDevices.get(i).getId();
+			maxId = Math.max(maxId, deviceIds[i]);
+		}
+		positions = new int[maxId+1];
+		Arrays.fill(positions, -1);
+		for(int i=0;i<size;i++)
+			positions[deviceIds[i]] = i;
+		this.neighbours = neighbours;
+		this.latencies = latencies;
+		nextHops = new int[size][];
+	}
+
+	/**
+	 * Gets the position of a device in the table.
+	 * @return the position, or -1 if the device is not in the table
+	 */
+	private int positionOf(int deviceId){
+		return deviceId >= 0 && deviceId < positions.length ? positions[deviceId] : -1;
+	}
+
+	/**
+	 * Gets the device to which a source device forwards what it sends to a destination.
+	 * @param sourceId id of the source device
+	 * @param destinationId id of the destination device
+	 * @return the id of the next device, the source itself if it is the destination, or -1 if
+	 * the destination cannot be reached or either device is not in the table
+	 */
+	public int getNextHop(int sourceId, int destinationId){
+		int source = positionOf(sourceId);
+		int destination = positionOf(destinationId);
+		if(source == -1 || destination == -1)
+			return -1;
+		return getRow(source)[destination];
+	}
+
+	/**
+	 * Overrides the device to which a source device forwards what it sends to a destination.
+	 * @throws IllegalArgumentException if either device is not in the table
+	 */
+	public void setNextHop(int sourceId, int destinationId, int nextHopId){
+		int source = positionOf(sourceId);
+		int destination = positionOf(destinationId);
+		if(source == -1 || destination == -1)
+			throw new IllegalArgumentException("No route from device " + sourceId + " to device " + destinationId + " in the routing table");
+		getRow(source)[destination] = nextHopId;
+	}
+
+	/**
+	 * Gets the ids of the devices in the table.
+	 */
+	public int[] getDeviceIds(){
+		return deviceIds.clone();
+	}
+
+	private int[] getRow(int source){
+		int[] row = nextHops[source];
+		if(row == null){
+			row = computeRow(source);
+			nextHops[source] = row;
+		}
+		return row;
+	}
+
+	/**
+	 * Dijkstra's algorithm from one device, tracking the first hop of the path to each device.
+	 * Ties are broken in favour of the path found first, exploring neighbours in position order.
+	 */
+	private int[] computeRow(int source){
+		int size = deviceIds.length;
+		double[] distances = new double[size];
+		int[] firstHops = new int[size];
+		boolean[] settled = new boolean[size];
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		Arrays.fill(firstHops, -1);
+		distances[source] = 0;
+		firstHops[source] = source;
+
+		// binary heap of positions keyed by distance, with lazy deletion of stale entries
+		int[] heap = new int[Math.max(16, size)];
+		double[] keys = new double[heap.length];
+		int heapSize = 0;
+		heap[heapSize] = source;
+		keys[heapSize++] = 0;
+		while(heapSize > 0){
+			int current = heap[0];
+			double distance = keys[0];
+			heapSize--;
+			if(heapSize > 0){
+				int last = heap[heapSize];
+				double lastKey = keys[heapSize];
+				int i = 0;
+				while(true){
+					int child = 2*i + 1;
+					if(child >= heapSize)
+						break;
+					if(child+1 < heapSize && keys[child+1] < keys[child])
+						child++;
+					if(keys[child] >= lastKey)
+						break;
+					heap[i] = heap[child];
+					keys[i] = keys[child];
+					i = child;
+				}
+				heap[i] = last;
+				keys[i] = lastKey;
+			}
+			if(settled[current] || distance > distances[current])
+				continue;
+			settled[current] = true;
+			for(int n=0;n<neighbours[current].length;n++){
+				int next = neighbours[current][n];
+				double candidate = distance + latencies[current][n];
+				if(settled[next] || candidate >= distances[next])
+					continue;
+				distances[next] = candidate;
+				firstHops[next] = current == source ? next : firstHops[current];
+				if(heapSize == heap.length){
+					heap = Arrays.copyOf(heap, heapSize*2);
+					keys = Arrays.copyOf(keys, heapSize*2);
+				}
+				int i = heapSize++;
+				while(i > 0){
+					int parent = (i-1) / 2;
+					if(keys[parent] <= candidate)
+						break;
+					heap[i] = heap[parent];
+					keys[i] = keys[parent];
+					i = parent;
+				}
+				heap[i] = next;
+				keys[i] = candidate;
+			}
+		}
+
+		int[] row = new int[size];
+		for(int i=0;i<size;i++)
+			row[i] = firstHops[i] == -1 ? -1 : deviceIds[firstHops[i]];
+		return row;
+	}
+}
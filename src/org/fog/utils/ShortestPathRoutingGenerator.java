@@ -1,129 +1,100 @@
 package org.fog.utils;
 
-import org.apache.commons.math3.util.Pair;
 import org.fog.entities.FogDevice;
 import org.fog.entities.MicroserviceFogDevice;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by Samodha Pallewatta on 6/18/2021.
  * Creates a routing table considering shortest path between devices.
+ * The next hops are computed per source device on demand by {@link NextHopTable}.
  */
 public class ShortestPathRoutingGenerator {
 
-    public static Map<Integer, Map<Integer, Integer>> generateRoutingTable(List<FogDevice> fogDevices) {
-        // <source device id>  ->  <dest device id,next device to route to>
-        Map<Integer, Map<Integer, Integer>> routing = new HashMap<>();
-        Map<String, Map<String, String>> routingString = new HashMap<>();
+    /**
+     * Captures the links between the devices and returns the table of next hops along the
+     * lowest-latency paths. A link is taken from the device listed first, as seen from that
+     * device (its uplink latency, or its latency to the child or cluster member), or from the
+     * other device if the first one does not list it.
+     */
+    public static NextHopTable generateRoutingTable(List<FogDevice> fogDevices) {
         int size = fogDevices.size();
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < size; i++)
+            positions.put(fogDevices.get(i).getId(), i);
 
-        int[][] routingMatrix = new int[size][size];
-        double[][] distanceMatrix = new double[size][size];
+        List<List<Integer>> neighbourLists = new ArrayList<>();
+        List<List<Double>> latencyLists = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            neighbourLists.add(new ArrayList<>());
+            latencyLists.add(new ArrayList<>());
+        }
+        Set<Long> links = new HashSet<>();
         for (int row = 0; row < size; row++) {
-            for (int column = 0; column < size; column++) {
-                routingMatrix[row][column] = -1;
-                distanceMatrix[row][column] = -1;
+            FogDevice rFog = fogDevices.get(row);
+            for (int neighbourId : linkedDeviceIds(rFog)) {
+                Integer column = positions.get(neighbourId);
+                if (column == null || column == row)
+                    continue;
+                // each link once, from the device listed first
+                int first = Math.min(row, column);
+                int second = Math.max(row, column);
+                if (!links.add((long) first * size + second))
+                    continue;
+                double dist = directlyConnectedDist(fogDevices.get(first), fogDevices.get(second));
+                if (dist < 0)
+                    dist = directlyConnectedDist(fogDevices.get(second), fogDevices.get(first));
+                if (dist < 0)
+                    continue;
+                neighbourLists.get(first).add(second);
+                latencyLists.get(first).add(dist);
+                neighbourLists.get(second).add(first);
+                latencyLists.get(second).add(dist);
             }
         }
 
-        boolean change = true;
-        boolean firstIteration = true;
-        while (change || firstIteration) {
-            change = false;
-            for (int row = 0; row < size; row++) {
-                for (int column = 0; column < size; column++) {
-                    double dist = distanceMatrix[row][column];
-                    FogDevice rFog = fogDevices.get(row);
-                    FogDevice cFog = fogDevices.get(column);
-                    if (firstIteration && dist < 0) {
-                        if (row == column) {
-                            dist = 0;
-                        } else {
-                            dist = directlyConnectedDist(rFog, cFog);
-                        }
-                        if (dist >= 0) {
-                            change = true;
-                            distanceMatrix[row][column] = dist;
-                            distanceMatrix[column][row] = dist;
-
-                            // directly connected
-                            routingMatrix[row][column] = cFog.getId();
-                            routingMatrix[column][row] = rFog.getId();
-                        }
-                    }
-                    if (dist < 0) {
-                        Pair<Double, Integer> result = indirectDist(row, column, size, distanceMatrix);
-                        dist = result.getFirst();
-                        int mid = result.getSecond();
-                        if (dist >= 0) {
-                            change = true;
-                            distanceMatrix[row][column] = dist;
-                            routingMatrix[row][column] = routingMatrix[row][mid];
-                        }
-                    }
-                    if (dist > 0) {
-                        Pair<Double, Integer> result = indirectDist(row, column, size, distanceMatrix);
-                        double distNew = result.getFirst();
-                        int mid = result.getSecond();
-                        if (distNew < dist) {
-                            change = true;
-                            distanceMatrix[row][column] = distNew;
-                            routingMatrix[row][column] = routingMatrix[row][mid];
-                        }
-                    }
-                }
+        int[][] neighbours = new int[size][];
+        double[][] latencies = new double[size][];
+        for (int i = 0; i < size; i++) {
+            int degree = neighbourLists.get(i).size();
+            neighbours[i] = new int[degree];
+            latencies[i] = new double[degree];
+            for (int n = 0; n < degree; n++) {
+                neighbours[i][n] = neighbourLists.get(i).get(n);
+                latencies[i][n] = latencyLists.get(i).get(n);
             }
-            firstIteration = false;
         }
+        NextHopTable routing = new NextHopTable(fogDevices, neighbours, latencies);
 
-        for (int row = 0; row < size; row++) {
-            for (int column = 0; column < size; column++) {
-                int sourceId = fogDevices.get(row).getId();
-                int destId = fogDevices.get(column).getId();
-                if (routing.containsKey(sourceId)) {
-                    routing.get(sourceId).put(destId, routingMatrix[row][column]);
-                    routingString.get(fogDevices.get(row).getName()).put(fogDevices.get(column).getName(), getFogDeviceById(routingMatrix[row][column], fogDevices).getName());
-                } else {
-                    Map<Integer, Integer> route = new HashMap<>();
-                    route.put(destId, routingMatrix[row][column]);
-                    routing.put(sourceId, route);
-
-                    Map<String, String> routeS = new HashMap<>();
-                    routeS.put(fogDevices.get(column).getName(), getFogDeviceById(routingMatrix[row][column], fogDevices).getName());
-                    routingString.put(fogDevices.get(row).getName(), routeS);
+        if (Logger.isDebugEnabled()) {
+            for (FogDevice source : fogDevices) {
+                Map<String, String> routes = new LinkedHashMap<>();
+                for (FogDevice destination : fogDevices) {
+                    FogDevice next = getFogDeviceById(routing.getNextHop(source.getId(), destination.getId()), fogDevices);
+                    routes.put(destination.getName(), next != null ? next.getName() : null);
                 }
+                Logger.debug("Routing Table", source.getName() + " : " + routes);
             }
         }
 
-        System.out.println("Routing Table : ");
-        for (String deviceName : routingString.keySet()) {
-            System.out.println(deviceName + " : " + routingString.get(deviceName).toString());
-        }
-        System.out.println("\n");
-
         return routing;
     }
 
-
-    private static Pair<Double, Integer> indirectDist(int row, int dest, int size, double[][] distanceMatrix) {
-        double minDistFromDirectConn = distanceMatrix[row][dest];
-        int midPoint = -1;
-        for (int column = 0; column < size; column++) {
-            if (distanceMatrix[row][column] >= 0 && distanceMatrix[column][dest] >= 0) {
-                double totalDist = distanceMatrix[row][column] + distanceMatrix[column][dest];
-                if (minDistFromDirectConn >= 0 && totalDist < minDistFromDirectConn) {
-                    minDistFromDirectConn = totalDist;
-                    midPoint = column;
-                } else if (minDistFromDirectConn < 0) {
-                    minDistFromDirectConn = totalDist;
-                    midPoint = column;
-                }
-            }
-        }
-        return new Pair<>(minDistFromDirectConn, midPoint);
+    private static List<Integer> linkedDeviceIds(FogDevice fogDevice) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(fogDevice.getParentId());
+        if (fogDevice.getChildrenIds() != null)
+            ids.addAll(fogDevice.getChildrenIds());
+        if (fogDevice.getClusterMembers() != null)
+            ids.addAll(fogDevice.getClusterMembers());
+        return ids;
     }
 
     private static double directlyConnectedDist(FogDevice rFog, FogDevice cFog) {
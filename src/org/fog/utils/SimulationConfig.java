@@ -0,0 +1,202 @@
+package org.fog.utils;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * The settings of one simulation. A simulation starts with the values of the static fields of
+ * {@link Config} and {@link MicroservicePlacementConfig} at the time it first reads its settings,
+ * normally when its first fog device is created, and the runs of a sweep (see
+ * {@link SimulationSweep}) can then change their own settings without affecting each other.
+ * Entities get the settings of their simulation once, when they are created.
+ */
+public class SimulationConfig {
+
+	private int maxSimulationTime = Config.MAX_SIMULATION_TIME;
+	private int resourceManageInterval = Config.RESOURCE_MANAGE_INTERVAL;
+	private boolean staticClustering = Config.ENABLE_STATIC_CLUSTERING;
+	private boolean dynamicClustering = Config.ENABLE_DYNAMIC_CLUSTERING;
+	private double nodeCommunicationRange = Config.Node_Communication_RANGE;
+	private double clusteringLatency = Config.clusteringLatency;
+	private boolean batchLinkTransmission = Config.BATCH_LINK_TRANSMISSION;
+	private boolean floodDownTuples = Config.FLOOD_DOWN_TUPLES;
+	private boolean analyticTupleExecution = Config.ANALYTIC_TUPLE_EXECUTION;
+	private AcknowledgementPolicy acknowledgementPolicy = Config.ACKNOWLEDGEMENT_POLICY;
+	private int acknowledgementSamplingInterval = Config.ACKNOWLEDGEMENT_SAMPLING_INTERVAL;
+	private boolean rollingMobilityEvents = Config.ROLLING_MOBILITY_EVENTS;
+	private boolean lightweightTuples = Config.LIGHTWEIGHT_TUPLES;
+
+	private String simulationMode = MicroservicePlacementConfig.SIMULATION_MODE;
+	private String prProcessingMode = MicroservicePlacementConfig.PR_PROCESSING_MODE;
+	private boolean parallelBatchPlacement = MicroservicePlacementConfig.PARALLEL_BATCH_PLACEMENT;
+	private boolean resourceDataSharing = MicroservicePlacementConfig.ENABLE_RESOURCE_DATA_SHARING;
+	private double moduleDeploymentTime = MicroservicePlacementConfig.MODULE_DEPLOYMENT_TIME;
+
+	/**
+	 * Gets the settings of the simulation run by the calling thread.
+	 */
+	public static SimulationConfig current(){
+		return SimulationContext.current().getOrCreate(SimulationConfig.class, SimulationConfig::new);
+	}
+
+	/** @see Config#MAX_SIMULATION_TIME */
+	public int getMaxSimulationTime() {
+		return maxSimulationTime;
+	}
+
+	public void setMaxSimulationTime(int maxSimulationTime) {
+		this.maxSimulationTime = maxSimulationTime;
+	}
+
+	/** @see Config#RESOURCE_MANAGE_INTERVAL */
+	public int getResourceManageInterval() {
+		return resourceManageInterval;
+	}
+
+	public void setResourceManageInterval(int resourceManageInterval) {
+		this.resourceManageInterval = resourceManageInterval;
+	}
+
+	/** @see Config#ENABLE_STATIC_CLUSTERING */
+	public boolean isStaticClustering() {
+		return staticClustering;
+	}
+
+	public void setStaticClustering(boolean staticClustering) {
+		this.staticClustering = staticClustering;
+	}
+
+	/** @see Config#ENABLE_DYNAMIC_CLUSTERING */
+	public boolean isDynamicClustering() {
+		return dynamicClustering;
+	}
+
+	public void setDynamicClustering(boolean dynamicClustering) {
+		this.dynamicClustering = dynamicClustering;
+	}
+
+	/** @see Config#Node_Communication_RANGE */
+	public double getNodeCommunicationRange() {
+		return nodeCommunicationRange;
+	}
+
+	public void setNodeCommunicationRange(double nodeCommunicationRange) {
+		this.nodeCommunicationRange = nodeCommunicationRange;
+	}
+
+	/** @see Config#clusteringLatency */
+	public double getClusteringLatency() {
+		return clusteringLatency;
+	}
+
+	public void setClusteringLatency(double clusteringLatency) {
+		this.clusteringLatency = clusteringLatency;
+	}
+
+	/** @see Config#BATCH_LINK_TRANSMISSION */
+	public boolean isBatchLinkTransmission() {
+		return batchLinkTransmission;
+	}
+
+	public void setBatchLinkTransmission(boolean batchLinkTransmission) {
+		this.batchLinkTransmission = batchLinkTransmission;
+	}
+
+	/** @see Config#FLOOD_DOWN_TUPLES */
+	public boolean isFloodDownTuples() {
+		return floodDownTuples;
+	}
+
+	public void setFloodDownTuples(boolean floodDownTuples) {
+		this.floodDownTuples = floodDownTuples;
+	}
+
+	/** @see Config#ANALYTIC_TUPLE_EXECUTION */
+	public boolean isAnalyticTupleExecution() {
+		return analyticTupleExecution;
+	}
+
+	public void setAnalyticTupleExecution(boolean analyticTupleExecution) {
+		this.analyticTupleExecution = analyticTupleExecution;
+	}
+
+	/** @see Config#ACKNOWLEDGEMENT_POLICY */
+	public AcknowledgementPolicy getAcknowledgementPolicy() {
+		return acknowledgementPolicy;
+	}
+
+	public void setAcknowledgementPolicy(AcknowledgementPolicy acknowledgementPolicy) {
+		this.acknowledgementPolicy = acknowledgementPolicy;
+	}
+
+	/** @see Config#ACKNOWLEDGEMENT_SAMPLING_INTERVAL */
+	public int getAcknowledgementSamplingInterval() {
+		return acknowledgementSamplingInterval;
+	}
+
+	public void setAcknowledgementSamplingInterval(int acknowledgementSamplingInterval) {
+		this.acknowledgementSamplingInterval = acknowledgementSamplingInterval;
+	}
+
+	/** @see Config#ROLLING_MOBILITY_EVENTS */
+	public boolean isRollingMobilityEvents() {
+		return rollingMobilityEvents;
+	}
+
+	public void setRollingMobilityEvents(boolean rollingMobilityEvents) {
+		this.rollingMobilityEvents = rollingMobilityEvents;
+	}
+
+	/** @see Config#LIGHTWEIGHT_TUPLES */
+	public boolean isLightweightTuples() {
+		return lightweightTuples;
+	}
+
+	public void setLightweightTuples(boolean lightweightTuples) {
+		this.lightweightTuples = lightweightTuples;
+	}
+
+	/** @see MicroservicePlacementConfig#SIMULATION_MODE */
+	public String getSimulationMode() {
+		return simulationMode;
+	}
+
+	public void setSimulationMode(String simulationMode) {
+		this.simulationMode = simulationMode;
+	}
+
+	/** @see MicroservicePlacementConfig#PR_PROCESSING_MODE */
+	public String getPrProcessingMode() {
+		return prProcessingMode;
+	}
+
+	public void setPrProcessingMode(String prProcessingMode) {
+		this.prProcessingMode = prProcessingMode;
+	}
+
+	/** @see MicroservicePlacementConfig#PARALLEL_BATCH_PLACEMENT */
+	public boolean isParallelBatchPlacement() {
+		return parallelBatchPlacement;
+	}
+
+	public void setParallelBatchPlacement(boolean parallelBatchPlacement) {
+		this.parallelBatchPlacement = parallelBatchPlacement;
+	}
+
+	/** @see MicroservicePlacementConfig#ENABLE_RESOURCE_DATA_SHARING */
+	public boolean isResourceDataSharing() {
+		return resourceDataSharing;
+	}
+
+	public void setResourceDataSharing(boolean resourceDataSharing) {
+		this.resourceDataSharing = resourceDataSharing;
+	}
+
+	/** @see MicroservicePlacementConfig#MODULE_DEPLOYMENT_TIME */
+	public double getModuleDeploymentTime() {
+		return moduleDeploymentTime;
+	}
+
+	public void setModuleDeploymentTime(double moduleDeploymentTime) {
+		this.moduleDeploymentTime = moduleDeploymentTime;
+	}
+}
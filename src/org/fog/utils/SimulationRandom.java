@@ -0,0 +1,92 @@
+package org.fog.utils;
+
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.Checkpoint;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * A random number generator whose state is part of the simulation: each simulation context has
+ * its own (see {@link #current()}). Seeding it makes the models that otherwise call
+ * {@link Math#random()}, such as {@link org.fog.application.selectivity.FractionalSelectivity},
+ * draw from it instead, so that a run is reproducible and a {@link Checkpoint} saves and restores
+ * where its sequence stands.
+ * <p>
+ * It draws the same sequence as {@link Random} for the same seed, but keeps the state in fields
+ * of its own, which {@link Checkpoint} can save.
+ */
+public class SimulationRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	// not initialised here, as the constructor of Random sets them through setSeed
+	private long seed;
+	private double nextNextGaussian;
+	private boolean haveNextNextGaussian;
+
+	/** Whether {@link #setSeed(long)} was called, i.e. whether the draws are reproducible. */
+	private boolean seeded;
+
+	/**
+	 * Gets the generator of the simulation of the calling thread, unseeded until
+	 * {@link #setSeed(long)} is called on it.
+	 */
+	public static SimulationRandom current(){
+		return SimulationContext.current().getOrCreate(SimulationRandom.class, SimulationRandom::new);
+	}
+
+	/**
+	 * Creates an unseeded generator.
+	 */
+	public SimulationRandom() {
+		super();
+		seeded = false; // the constructor of Random seeded it through setSeed
+	}
+
+	public SimulationRandom(long seed) {
+		super(seed);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		this.seed = (seed ^ MULTIPLIER) & MASK;
+		haveNextNextGaussian = false;
+		seeded = true;
+	}
+
+	/**
+	 * Checks whether the generator was seeded, by {@link #SimulationRandom(long)} or
+	 * {@link #setSeed(long)}.
+	 */
+	public boolean isSeeded() {
+		return seeded;
+	}
+
+	@Override
+	protected int next(int bits) {
+		seed = (seed * MULTIPLIER + ADDEND) & MASK;
+		return (int) (seed >>> (48 - bits));
+	}
+
+	@Override
+	public double nextGaussian() {
+		if(haveNextNextGaussian){
+			haveNextNextGaussian = false;
+			return nextNextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while(s >= 1 || s == 0);
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s)/s);
+		nextNextGaussian = v2 * multiplier;
+		haveNextNextGaussian = true;
+		return v1 * multiplier;
+	}
+}
@@ -0,0 +1,120 @@
+package org.fog.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The results of one run of a {@link SimulationSweep}: the figures the controllers print at
+ * STOP_SIMULATION, collected into maps instead.
+ */
+public class SimulationResult<P> {
+
+	private P parameters;
+	private double simulationTime;
+	private long executionTime;
+	private double networkUsage;
+	private double migrationDelay;
+	private Map<String, Double> energyConsumptions = new LinkedHashMap<String, Double>();
+	private Map<String, Double> costs = new LinkedHashMap<String, Double>();
+	private Map<String, Double> loopDelays = new LinkedHashMap<String, Double>();
+	private Map<String, Double> tupleCpuTimes = new LinkedHashMap<String, Double>();
+	private Map<String, Integer> loopQoSSuccessCounts = new LinkedHashMap<String, Integer>();
+	private Throwable error;
+
+	public SimulationResult(P parameters){
+		this.parameters = parameters;
+	}
+
+	/**
+	 * Checks whether the run completed, i.e. neither building nor running the scenario threw.
+	 */
+	public boolean isSuccessful(){
+		return error == null;
+	}
+
+	public P getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * The simulation clock at which the run ended.
+	 */
+	public double getSimulationTime() {
+		return simulationTime;
+	}
+	public void setSimulationTime(double simulationTime) {
+		this.simulationTime = simulationTime;
+	}
+
+	/**
+	 * The wall-clock time of the run in milliseconds, as reported as EXECUTION TIME by the controllers.
+	 */
+	public long getExecutionTime() {
+		return executionTime;
+	}
+	public void setExecutionTime(long executionTime) {
+		this.executionTime = executionTime;
+	}
+
+	/**
+	 * The total network usage; the controllers print it divided by {@link Config#MAX_SIMULATION_TIME}.
+	 */
+	public double getNetworkUsage() {
+		return networkUsage;
+	}
+	public void setNetworkUsage(double networkUsage) {
+		this.networkUsage = networkUsage;
+	}
+
+	public double getMigrationDelay() {
+		return migrationDelay;
+	}
+	public void setMigrationDelay(double migrationDelay) {
+		this.migrationDelay = migrationDelay;
+	}
+
+	/**
+	 * Energy consumed by each fog device, by device name.
+	 */
+	public Map<String, Double> getEnergyConsumptions() {
+		return energyConsumptions;
+	}
+
+	/**
+	 * Total cost of execution of each fog device, by device name.
+	 */
+	public Map<String, Double> getCosts() {
+		return costs;
+	}
+
+	/**
+	 * Average delay of each application loop, by the list of modules of the loop.
+	 */
+	public Map<String, Double> getLoopDelays() {
+		return loopDelays;
+	}
+
+	/**
+	 * Average CPU execution delay, by tuple type.
+	 */
+	public Map<String, Double> getTupleCpuTimes() {
+		return tupleCpuTimes;
+	}
+
+	/**
+	 * Number of loop executions that met the latency deadline, by the list of modules of the loop.
+	 */
+	public Map<String, Integer> getLoopQoSSuccessCounts() {
+		return loopQoSSuccessCounts;
+	}
+
+	/**
+	 * The exception that ended the run, or null if it completed.
+	 */
+	public Throwable getError() {
+		return error;
+	}
+	public void setError(Throwable error) {
+		this.error = error;
+	}
+}
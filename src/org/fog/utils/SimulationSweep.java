@@ -0,0 +1,143 @@
+package org.fog.utils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.fog.application.AppLoop;
+import org.fog.application.Application;
+import org.fog.entities.FogDevice;
+
+/**
+ * Runs a scenario once for each point of a parameter sweep, several runs at a time in the same
+ * JVM. Each run gets its own {@link SimulationContext}, so the CloudSim kernel, the
+ * {@link TimeKeeper}, the id counters and the monitors of one run are not seen by the others,
+ * and the controller's STOP_SIMULATION only ends that run instead of exiting the JVM.
+ * <p>
+ * The scenario must not keep the topology in static fields (as the examples in
+ * <tt>org.fog.test.perfeval</tt> do). Each run starts with the settings in {@link Config}, which
+ * are shared by all the runs; a scenario that varies them sets them in the
+ * {@link SimulationConfig} of its run, before creating the devices.
+ *
+ * @param <P> the type of the parameters of a run
+ */
+public class SimulationSweep<P> {
+
+	/**
+	 * Builds the simulation for one point of the sweep.
+	 */
+	public interface Scenario<P> {
+		/**
+		 * Initialises CloudSim and creates the devices, applications and controller of a run,
+		 * without starting the simulation.
+		 *
+		 * @param parameters the parameters of the run
+		 * @return the fog devices of the run, from which the results are collected
+		 */
+		List<FogDevice> build(P parameters) throws Exception;
+	}
+
+	private final Scenario<P> scenario;
+	private final int parallelism;
+
+	/**
+	 * @param scenario builds each run
+	 * @param parallelism the number of runs executed at the same time
+	 */
+	public SimulationSweep(Scenario<P> scenario, int parallelism){
+		if(parallelism < 1)
+			throw new IllegalArgumentException("The parallelism should be positive, but is: " + parallelism);
+		this.scenario = scenario;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Runs the scenario for every parameter point and waits for all the runs to end.
+	 *
+	 * @param points the parameters of the runs
+	 * @return the results, in the order of the points
+	 */
+	public List<SimulationResult<P>> run(List<P> points) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(points.size(), 1)));
+		try {
+			List<Future<SimulationResult<P>>> futures = new ArrayList<Future<SimulationResult<P>>>();
+			for(P point : points)
+				futures.add(executor.submit(() -> runOne(point)));
+			List<SimulationResult<P>> results = new ArrayList<SimulationResult<P>>();
+			for(Future<SimulationResult<P>> future : futures){
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					// runOne records its own failures, so this is an error of the sweep itself
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Builds and runs one point of the sweep in a new simulation context.
+	 */
+	public SimulationResult<P> runOne(P parameters){
+		SimulationResult<P> result = new SimulationResult<P>(parameters);
+		try {
+			new SimulationContext().call(() -> {
+				List<FogDevice> fogDevices = scenario.build(parameters);
+				TimeKeeper.getInstance().setSimulationStartTime(Calendar.getInstance().getTimeInMillis());
+				result.setSimulationTime(CloudSim.startSimulation());
+				result.setExecutionTime(Calendar.getInstance().getTimeInMillis() - TimeKeeper.getInstance().getSimulationStartTime());
+				collect(result, fogDevices);
+				return null;
+			});
+		} catch (Throwable e) {
+			result.setError(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Collects the results of a run that has ended, from the simulation of the calling thread.
+	 *
+	 * @param result the result to fill
+	 * @param fogDevices the fog devices of the run
+	 */
+	public static <P> void collect(SimulationResult<P> result, List<FogDevice> fogDevices){
+		TimeKeeper timeKeeper = TimeKeeper.getInstance();
+		result.setNetworkUsage(NetworkUsageMonitor.getNetworkUsage());
+		result.setMigrationDelay(MigrationDelayMonitor.getMigrationDelay());
+
+		Map<Integer, String> loopNames = new HashMap<Integer, String>();
+		for(FogDevice fogDevice : fogDevices){
+			result.getEnergyConsumptions().put(fogDevice.getName(), fogDevice.getEnergyConsumption());
+			result.getCosts().put(fogDevice.getName(), fogDevice.getTotalCost());
+			for(Application application : fogDevice.getApplicationMap().values()){
+				for(AppLoop loop : application.getLoops())
+					loopNames.put(loop.getLoopId(), loop.getModules().toString());
+			}
+		}
+		for(int loopId : timeKeeper.getLoopDelays().keySet()){
+			LoopDelayStatistics delays = timeKeeper.getLoopDelay(loopId);
+			if(delays.getCount() > 0)
+				result.getLoopDelays().put(loopName(loopNames, loopId), delays.getAverage());
+		}
+		for(Integer loopId : timeKeeper.getLoopIdToLatencyQoSSuccessCount().keySet())
+			result.getLoopQoSSuccessCounts().put(loopName(loopNames, loopId), timeKeeper.getLoopIdToLatencyQoSSuccessCount().get(loopId));
+		result.getTupleCpuTimes().putAll(timeKeeper.getTupleTypeToAverageCpuTime());
+	}
+
+	private static String loopName(Map<Integer, String> loopNames, int loopId){
+		String name = loopNames.get(loopId);
+		return name != null ? name : "loop-" + loopId;
+	}
+}
@@ -6,23 +6,23 @@ import java.util.Map;
 
 import org.apache.commons.math3.util.Pair;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.fog.entities.Tuple;
 
 public class TimeKeeper {
 
-	private static TimeKeeper instance;
-	
 	private long simulationStartTime;
 	private int count; 
-	private Map<Integer, Double> emitTimes;
-	private Map<Integer, Double> endTimes;
-	private Map<Integer, List<Integer>> loopIdToTupleIds;
-	private Map<Integer, Double> tupleIdToCpuStartTime;
+	// emit times of the loop executions in progress, by actual tuple id
+	private IntDoubleHashMap emitTimes;
+	private IntDoubleHashMap endTimes;
+	private Map<Integer, LoopDelayStatistics> loopDelays;
+	// start times of the tuples being executed, by cloudlet id, and how many copies of each are being executed (held as doubles)
+	private IntDoubleHashMap tupleIdToCpuStartTime;
+	private IntDoubleHashMap tupleIdToExecutingCopies;
 	private Map<String, Double> tupleTypeToAverageCpuTime;
 	private Map<String, Integer> tupleTypeToExecutedTupleCount;
-	
-	private Map<Integer, Double> loopIdToCurrentAverage;
-	private Map<Integer, Integer> loopIdToCurrentNum;
+	private Map<String, LatencyHistogram> tupleTypeToCpuTimeHistogram;
 
 	private Map<Integer, Integer> loopIdToLatencyQoSSuccessCount = new HashMap<>();
 
@@ -31,10 +31,11 @@ public class TimeKeeper {
 	// last execution time
 	private Map<Integer, Double> tupleIdToExecutionTime = new HashMap<>();
 	
+	/**
+	 * Gets the time keeper of the simulation run by the calling thread.
+	 */
 	public static TimeKeeper getInstance(){
-		if(instance == null)
-			instance = new TimeKeeper();
-		return instance;
+		return SimulationContext.current().getOrCreate(TimeKeeper.class, TimeKeeper::new);
 	}
 	
 	public int getUniqueId(){
@@ -42,13 +43,33 @@ public class TimeKeeper {
 	}
 	
 	public void tupleStartedExecution(Tuple tuple){
-		tupleIdToCpuStartTime.put(tuple.getCloudletId(), CloudSim.clock());
+		int tupleId = tuple.getCloudletId();
+		tupleIdToCpuStartTime.put(tupleId, CloudSim.clock());
+		tupleIdToExecutingCopies.put(tupleId, tupleIdToExecutingCopies.get(tupleId, 0) + 1);
 	}
 	
+	/**
+	 * Records the CPU time of a tuple whose execution has ended. The copies of a tuple sent to
+	 * several modules share its cloudlet id, and so its start time, which is the one of the copy
+	 * started last; it is dropped once every copy started has ended.
+	 */
 	public void tupleEndedExecution(Tuple tuple){
-		if(!tupleIdToCpuStartTime.containsKey(tuple.getCloudletId()))
+		int tupleId = tuple.getCloudletId();
+		double startTime = tupleIdToCpuStartTime.get(tupleId, Double.NaN);
+		if(Double.isNaN(startTime))
 			return;
-		double executionTime = CloudSim.clock() - tupleIdToCpuStartTime.get(tuple.getCloudletId());
+		double copies = tupleIdToExecutingCopies.remove(tupleId, 0);
+		if(copies > 1)
+			tupleIdToExecutingCopies.put(tupleId, copies - 1);
+		else
+			tupleIdToCpuStartTime.remove(tupleId, Double.NaN);
+		double executionTime = CloudSim.clock() - startTime;
+		LatencyHistogram histogram = tupleTypeToCpuTimeHistogram.get(tuple.getTupleType());
+		if(histogram == null){
+			histogram = new LatencyHistogram();
+			tupleTypeToCpuTimeHistogram.put(tuple.getTupleType(), histogram);
+		}
+		histogram.record(executionTime);
 		if(!tupleTypeToAverageCpuTime.containsKey(tuple.getTupleType())){
 			tupleTypeToAverageCpuTime.put(tuple.getTupleType(), executionTime);
 			tupleTypeToExecutedTupleCount.put(tuple.getTupleType(), 1);
@@ -59,20 +80,48 @@ public class TimeKeeper {
 		}
 	}
 	
-	public Map<Integer, List<Integer>> loopIdToTupleIds(){
-		return getInstance().getLoopIdToTupleIds();
+	/**
+	 * Records the start of an execution of an application loop.
+	 * @param loopId the loop
+	 * @return the id identifying this execution, to be set as the actual tuple id of the tuple starting it
+	 */
+	public int loopStarted(int loopId){
+		int tupleId = getUniqueId();
+		if(loopDelays.get(loopId) == null)
+			loopDelays.put(loopId, new LoopDelayStatistics());
+		emitTimes.put(tupleId, CloudSim.clock());
+		return tupleId;
+	}
+	
+	/**
+	 * Records the end of an execution of an application loop and updates the average and the
+	 * distribution of the delay of the loop.
+	 * Nothing is recorded if the execution was not started, or has already ended.
+	 * @param loopId the loop
+	 * @param actualTupleId the id returned by {@link #loopStarted(int)} for this execution
+	 */
+	public void loopEnded(int loopId, int actualTupleId){
+		double startTime = emitTimes.remove(actualTupleId, Double.NaN);
+		if(Double.isNaN(startTime))
+			return;
+		LoopDelayStatistics delays = loopDelays.get(loopId);
+		if(delays == null){
+			delays = new LoopDelayStatistics();
+			loopDelays.put(loopId, delays);
+		}
+		delays.record(CloudSim.clock() - startTime);
 	}
 	
 	private TimeKeeper(){
 		count = 1;
-		setEmitTimes(new HashMap<Integer, Double>());
-		setEndTimes(new HashMap<Integer, Double>());
-		setLoopIdToTupleIds(new HashMap<Integer, List<Integer>>());
+		setEmitTimes(new IntDoubleHashMap());
+		setEndTimes(new IntDoubleHashMap());
+		setLoopDelays(new HashMap<Integer, LoopDelayStatistics>());
 		setTupleTypeToAverageCpuTime(new HashMap<String, Double>());
 		setTupleTypeToExecutedTupleCount(new HashMap<String, Integer>());
-		setTupleIdToCpuStartTime(new HashMap<Integer, Double>());
-		setLoopIdToCurrentAverage(new HashMap<Integer, Double>());
-		setLoopIdToCurrentNum(new HashMap<Integer, Integer>());
+		setTupleTypeToCpuTimeHistogram(new HashMap<String, LatencyHistogram>());
+		setTupleIdToCpuStartTime(new IntDoubleHashMap());
+		setTupleIdToExecutingCopies(new IntDoubleHashMap());
 	}
 	
 	public int getCount() {
@@ -83,28 +132,40 @@ public class TimeKeeper {
 		this.count = count;
 	}
 
-	public Map<Integer, Double> getEmitTimes() {
+	public IntDoubleHashMap getEmitTimes() {
 		return emitTimes;
 	}
 
-	public void setEmitTimes(Map<Integer, Double> emitTimes) {
+	public void setEmitTimes(IntDoubleHashMap emitTimes) {
 		this.emitTimes = emitTimes;
 	}
 
-	public Map<Integer, Double> getEndTimes() {
+	public IntDoubleHashMap getEndTimes() {
 		return endTimes;
 	}
 
-	public void setEndTimes(Map<Integer, Double> endTimes) {
+	public void setEndTimes(IntDoubleHashMap endTimes) {
 		this.endTimes = endTimes;
 	}
 
-	public Map<Integer, List<Integer>> getLoopIdToTupleIds() {
-		return loopIdToTupleIds;
+	/**
+	 * Gets the delays of each loop, with an entry for every loop that has been started, even if
+	 * none of its executions has ended yet.
+	 */
+	public Map<Integer, LoopDelayStatistics> getLoopDelays() {
+		return loopDelays;
+	}
+
+	public void setLoopDelays(Map<Integer, LoopDelayStatistics> loopDelays) {
+		this.loopDelays = loopDelays;
 	}
 
-	public void setLoopIdToTupleIds(Map<Integer, List<Integer>> loopIdToTupleIds) {
-		this.loopIdToTupleIds = loopIdToTupleIds;
+	/**
+	 * Gets the delays of a loop.
+	 * @return the delays, or <tt>null</tt> if the loop has never been started
+	 */
+	public LoopDelayStatistics getLoopDelay(int loopId) {
+		return loopDelays.get(loopId);
 	}
 
 	public Map<String, Double> getTupleTypeToAverageCpuTime() {
@@ -125,36 +186,39 @@ public class TimeKeeper {
 		this.tupleTypeToExecutedTupleCount = tupleTypeToExecutedTupleCount;
 	}
 
-	public Map<Integer, Double> getTupleIdToCpuStartTime() {
-		return tupleIdToCpuStartTime;
+	/**
+	 * Gets the distribution of the CPU execution delay of each tuple type.
+	 */
+	public Map<String, LatencyHistogram> getTupleTypeToCpuTimeHistogram() {
+		return tupleTypeToCpuTimeHistogram;
 	}
 
-	public void setTupleIdToCpuStartTime(Map<Integer, Double> tupleIdToCpuStartTime) {
-		this.tupleIdToCpuStartTime = tupleIdToCpuStartTime;
+	public void setTupleTypeToCpuTimeHistogram(Map<String, LatencyHistogram> tupleTypeToCpuTimeHistogram) {
+		this.tupleTypeToCpuTimeHistogram = tupleTypeToCpuTimeHistogram;
 	}
 
-	public long getSimulationStartTime() {
-		return simulationStartTime;
+	public IntDoubleHashMap getTupleIdToCpuStartTime() {
+		return tupleIdToCpuStartTime;
 	}
 
-	public void setSimulationStartTime(long simulationStartTime) {
-		this.simulationStartTime = simulationStartTime;
+	public void setTupleIdToCpuStartTime(IntDoubleHashMap tupleIdToCpuStartTime) {
+		this.tupleIdToCpuStartTime = tupleIdToCpuStartTime;
 	}
 
-	public Map<Integer, Double> getLoopIdToCurrentAverage() {
-		return loopIdToCurrentAverage;
+	public IntDoubleHashMap getTupleIdToExecutingCopies() {
+		return tupleIdToExecutingCopies;
 	}
 
-	public void setLoopIdToCurrentAverage(Map<Integer, Double> loopIdToCurrentAverage) {
-		this.loopIdToCurrentAverage = loopIdToCurrentAverage;
+	public void setTupleIdToExecutingCopies(IntDoubleHashMap tupleIdToExecutingCopies) {
+		this.tupleIdToExecutingCopies = tupleIdToExecutingCopies;
 	}
 
-	public Map<Integer, Integer> getLoopIdToCurrentNum() {
-		return loopIdToCurrentNum;
+	public long getSimulationStartTime() {
+		return simulationStartTime;
 	}
 
-	public void setLoopIdToCurrentNum(Map<Integer, Integer> loopIdToCurrentNum) {
-		this.loopIdToCurrentNum = loopIdToCurrentNum;
+	public void setSimulationStartTime(long simulationStartTime) {
+		this.simulationStartTime = simulationStartTime;
 	}
 
 	public Map<Integer, Integer> getLoopIdToLatencyQoSSuccessCount() {
@@ -0,0 +1,632 @@
+package org.fog.utils;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.sdn.overbooking.BwProvisionerOverbooking;
+import org.cloudbus.cloudsim.sdn.overbooking.PeProvisionerOverbooking;
+import org.fog.entities.Actuator;
+import org.fog.entities.FogDevice;
+import org.fog.entities.FogDeviceCharacteristics;
+import org.fog.entities.MicroserviceFogDevice;
+import org.fog.entities.PhysicalTopology;
+import org.fog.entities.Sensor;
+import org.fog.mobilitydata.DataParser;
+import org.fog.mobilitydata.Location;
+import org.fog.mobilitydata.References;
+import org.fog.placement.LocationHandler;
+import org.fog.policy.AppModuleAllocationPolicy;
+import org.fog.scheduler.StreamOperatorScheduler;
+import org.fog.utils.distribution.DeterministicDistribution;
+import org.fog.utils.distribution.Distribution;
+import org.json.simple.JSONValue;
+
+/**
+ * Generates synthetic fog hierarchies of any size, for finding the scaling limits of the
+ * simulator. The cloud is at level 0, each device of a level has a number of children on the
+ * next level drawn from the fan-out of its level, and the devices of the last level (the end
+ * devices) have the sensors and actuators. The devices of a level are drawn among its
+ * {@link DeviceType}s, with their MIPS and RAM spread by the heterogeneity, the sensors read
+ * periodically with a period drawn for each of them, and a share of the end devices are mobile.
+ * <p>
+ * The hierarchy is a function of the seed and the settings only: it can be written in the JSON
+ * format of {@link JsonToTopology#getPhysicalTopology(int, String, String)}, or built directly in
+ * the simulation of the calling thread, and both give the same devices. Each setting draws from
+ * its own random numbers, so that changing the mobile share, for instance, changes which end
+ * devices are mobile and nothing else.
+ * <p>
+ * The devices are named <tt>cloud</tt> and <tt>d&lt;level&gt;-&lt;index&gt;</tt>, and the
+ * sensors and actuators of the i-th end device <tt>s-i-k</tt> and <tt>a-i-k</tt>.
+ */
+public class TopologyGenerator {
+
+	/**
+	 * A kind of fog device. The devices of a level are drawn among the types of the level, in
+	 * proportion to their weights.
+	 */
+	public static class DeviceType {
+		public final long mips;
+		public final int ram;
+		public final long upBw;
+		public final long downBw;
+		public final double ratePerMips;
+		public final double busyPower;
+		public final double idlePower;
+		public final double weight;
+
+		public DeviceType(long mips, int ram, long upBw, long downBw, double ratePerMips,
+				double busyPower, double idlePower, double weight) {
+			if(weight <= 0)
+				throw new IllegalArgumentException("The weight should be positive, but is: " + weight);
+			this.mips = mips;
+			this.ram = ram;
+			this.upBw = upBw;
+			this.downBw = downBw;
+			this.ratePerMips = ratePerMips;
+			this.busyPower = busyPower;
+			this.idlePower = idlePower;
+			this.weight = weight;
+		}
+	}
+
+	/** The cloud of the examples, the default type of level 0. */
+	public static final DeviceType CLOUD = new DeviceType(44800, 40000, 100, 10000, 0.01, 16*103, 16*83.25, 1);
+	/** The proxy servers and gateways of the examples, the default type of the intermediate levels. */
+	public static final DeviceType FOG_NODE = new DeviceType(2800, 4000, 10000, 10000, 0.0, 107.339, 83.4333, 1);
+	/** The smartphones of the examples, the default type of the end devices. */
+	public static final DeviceType MOBILE = new DeviceType(1000, 1000, 10000, 270, 0, 87.53, 82.44, 1);
+
+	/** Distance between two neighbouring devices of the level above the end devices, in kilometers. */
+	private static final double PARENT_SPACING = 1;
+	private static final double KM_PER_DEGREE = 111.32;
+	/** The storage of every fog device, which is never changed. */
+	private static final List<Storage> NO_STORAGE = Collections.emptyList();
+
+	private final long seed;
+
+	private int[] minFanOuts = {1, 10, 4};
+	private int[] maxFanOuts = {1, 10, 4};
+	private Map<Integer, DeviceType[]> deviceTypes = new HashMap<Integer, DeviceType[]>();
+	private double heterogeneity = 0;
+	private double[] uplinkLatencies = {100, 4, 2};
+
+	private String sensorType = "EEG";
+	private String actuatorType = "DISPLAY";
+	private int sensorsPerDevice = 1;
+	private int actuatorsPerDevice = 1;
+	private double minSensorPeriod = 5;
+	private double maxSensorPeriod = 5;
+	private double sensorLatency = 6.0;
+	private double actuatorLatency = 1.0;
+
+	private double mobileShare = 0;
+	private double mobilityInterval = 20;
+	private double mobilityStep = 0.1;
+
+	private boolean microservices = false;
+
+	private LocationHandler locationHandler;
+	private final Map<DeviceType, PowerModel> powerModels = new HashMap<DeviceType, PowerModel>();
+
+	/**
+	 * Creates a generator of VRGame-like hierarchies (a cloud, a proxy server, 10 gateways and 4
+	 * smartphones per gateway) to be changed with the setters.
+	 *
+	 * @param seed the seed of all the random numbers of the hierarchy
+	 */
+	public TopologyGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the depth of the hierarchy and a fixed number of children for the devices of each
+	 * level but the last.
+	 *
+	 * @param fanOuts the number of children of each device of level 0, 1, ...
+	 */
+	public TopologyGenerator setFanOuts(int... fanOuts) {
+		for(int fanOut : fanOuts)
+			checkFanOut(fanOut, fanOut);
+		minFanOuts = fanOuts.clone();
+		maxFanOuts = fanOuts.clone();
+		return this;
+	}
+
+	/**
+	 * Draws the number of children of each device of a level uniformly from a range.
+	 */
+	public TopologyGenerator setFanOut(int level, int min, int max) {
+		if(level < 0 || level >= minFanOuts.length)
+			throw new IllegalArgumentException("No fan-out for level " + level + " in a hierarchy of depth " + getDepth());
+		checkFanOut(min, max);
+		minFanOuts[level] = min;
+		maxFanOuts[level] = max;
+		return this;
+	}
+
+	private static void checkFanOut(int min, int max) {
+		if(min < 1 || max < min)
+			throw new IllegalArgumentException("Invalid fan-out: [" + min + ", " + max + "]");
+	}
+
+	/**
+	 * Sets the types the devices of a level are drawn among.
+	 */
+	public TopologyGenerator setDeviceTypes(int level, DeviceType... types) {
+		if(types.length == 0)
+			throw new IllegalArgumentException("No device type for level " + level);
+		deviceTypes.put(level, types.clone());
+		return this;
+	}
+
+	/**
+	 * Spreads the MIPS and RAM of each device uniformly between (1 - heterogeneity) and
+	 * (1 + heterogeneity) times those of its type.
+	 */
+	public TopologyGenerator setHeterogeneity(double heterogeneity) {
+		if(heterogeneity < 0 || heterogeneity >= 1)
+			throw new IllegalArgumentException("The heterogeneity should be in [0, 1), but is: " + heterogeneity);
+		this.heterogeneity = heterogeneity;
+		return this;
+	}
+
+	/**
+	 * Sets the latencies from the devices of level 1, 2, ... to their parents; the levels past
+	 * the last latency get the last latency.
+	 */
+	public TopologyGenerator setUplinkLatencies(double... latencies) {
+		if(latencies.length == 0)
+			throw new IllegalArgumentException("No uplink latency");
+		uplinkLatencies = latencies.clone();
+		return this;
+	}
+
+	/**
+	 * Sets the sensors and actuators of each end device.
+	 */
+	public TopologyGenerator setEndpoints(String sensorType, int sensorsPerDevice, double sensorLatency,
+			String actuatorType, int actuatorsPerDevice, double actuatorLatency) {
+		if(sensorsPerDevice < 0 || actuatorsPerDevice < 0)
+			throw new IllegalArgumentException("The number of sensors and actuators should not be negative");
+		this.sensorType = sensorType;
+		this.sensorsPerDevice = sensorsPerDevice;
+		this.sensorLatency = sensorLatency;
+		this.actuatorType = actuatorType;
+		this.actuatorsPerDevice = actuatorsPerDevice;
+		this.actuatorLatency = actuatorLatency;
+		return this;
+	}
+
+	/**
+	 * Draws the time between two readings of each sensor uniformly from a range.
+	 */
+	public TopologyGenerator setSensorPeriod(double min, double max) {
+		if(min <= 0 || max < min)
+			throw new IllegalArgumentException("Invalid sensor period: [" + min + ", " + max + "]");
+		minSensorPeriod = min;
+		maxSensorPeriod = max;
+		return this;
+	}
+
+	/**
+	 * Sets the share of the end devices that are mobile. A mobile device takes a step of a
+	 * random direction at each interval, up to {@link Config#MAX_SIMULATION_TIME}, which
+	 * {@link #getLocationHandler()} gives to the mobility controllers.
+	 *
+	 * @param share the probability of an end device being mobile
+	 * @param interval the time between two steps
+	 * @param step the length of a step, in kilometers
+	 */
+	public TopologyGenerator setMobility(double share, double interval, double step) {
+		if(share < 0 || share > 1)
+			throw new IllegalArgumentException("The mobile share should be in [0, 1], but is: " + share);
+		if(interval <= 0)
+			throw new IllegalArgumentException("The mobility interval should be positive, but is: " + interval);
+		mobileShare = share;
+		mobilityInterval = interval;
+		mobilityStep = step;
+		return this;
+	}
+
+	/**
+	 * Makes {@link #build(int, String)} create {@link MicroserviceFogDevice}s: the cloud, the
+	 * orchestration nodes on level 1, the computation nodes below them and the clients on the
+	 * last level.
+	 */
+	public TopologyGenerator setMicroservices(boolean microservices) {
+		this.microservices = microservices;
+		return this;
+	}
+
+	/**
+	 * Gets the number of levels, the cloud's included.
+	 */
+	public int getDepth() {
+		return minFanOuts.length + 1;
+	}
+
+	/**
+	 * Gets the locations of the devices built by the last {@link #build(int, String)}, with the
+	 * traces of the mobile devices: the mobile and fixed end devices are the users of the data
+	 * (the fixed ones with empty traces) and the others the resources, each level a level of the
+	 * data, the cloud "Cloud", level 1 "Proxy", the parents of the end devices "Gateway" and the
+	 * end devices "User".
+	 */
+	public LocationHandler getLocationHandler() {
+		return locationHandler;
+	}
+
+	/**
+	 * Writes the hierarchy in the format of {@link JsonToTopology#getPhysicalTopology(int, String, String)},
+	 * the fog devices with whether they are mobile in addition.
+	 */
+	public void writeJson(String file) throws IOException {
+		Writer writer = new BufferedWriter(new FileWriter(file), 1 << 16);
+		try {
+			writeJson(writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes the hierarchy in the format of {@link JsonToTopology#getPhysicalTopology(int, String, String)},
+	 * one node or link per line, without keeping it in memory.
+	 */
+	public void writeJson(final Writer writer) throws IOException {
+		int[][] parents = generateStructure();
+		writer.write("{\"nodes\":[\n");
+		generate(parents, new Sink<IOException>() {
+			boolean first = true;
+
+			private void begin() throws IOException {
+				if(!first)
+					writer.write(",\n");
+				first = false;
+			}
+
+			@Override
+			public void device(int level, int index, DeviceType type, long mips, int ram, boolean mobile) throws IOException {
+				begin();
+				writer.write("{\"type\":\"FOG_DEVICE\",\"name\":\"" + getDeviceName(level, index)
+						+ "\",\"level\":" + level + ",\"mips\":" + mips + ",\"ram\":" + ram
+						+ ",\"upBw\":" + type.upBw + ",\"downBw\":" + type.downBw
+						+ ",\"ratePerMips\":" + type.ratePerMips + ",\"busyPower\":" + type.busyPower
+						+ ",\"idlePower\":" + type.idlePower + ",\"mobile\":" + mobile + "}");
+			}
+
+			@Override
+			public void sensor(int device, int index, double period) throws IOException {
+				begin();
+				writer.write("{\"type\":\"SENSOR\",\"name\":\"" + getSensorName(device, index)
+						+ "\",\"sensorType\":\"" + JSONValue.escape(sensorType)
+						+ "\",\"distribution\":" + Distribution.DETERMINISTIC + ",\"value\":" + period + "}");
+			}
+
+			@Override
+			public void actuator(int device, int index) throws IOException {
+				begin();
+				writer.write("{\"type\":\"ACTUATOR\",\"name\":\"" + getActuatorName(device, index)
+						+ "\",\"actuatorType\":\"" + JSONValue.escape(actuatorType) + "\"}");
+			}
+		});
+		writer.write("\n],\"links\":[\n");
+		boolean first = true;
+		for(int level=1;level<parents.length;level++){
+			String latency = Double.toString(getUplinkLatency(level));
+			for(int i=0;i<parents[level].length;i++){
+				if(!first)
+					writer.write(",\n");
+				first = false;
+				writeLink(writer, getDeviceName(level, i), getDeviceName(level-1, parents[level][i]), latency);
+			}
+		}
+		int last = parents.length-1;
+		for(int i=0;last>0 && i<parents[last].length;i++){
+			String device = getDeviceName(last, i);
+			for(int k=0;k<sensorsPerDevice;k++){
+				writer.write(",\n");
+				writeLink(writer, getSensorName(i, k), device, Double.toString(sensorLatency));
+			}
+			for(int k=0;k<actuatorsPerDevice;k++){
+				writer.write(",\n");
+				writeLink(writer, device, getActuatorName(i, k), Double.toString(actuatorLatency));
+			}
+		}
+		writer.write("\n]}\n");
+		writer.flush();
+	}
+
+	private static void writeLink(Writer writer, String source, String destination, String latency) throws IOException {
+		writer.write("{\"source\":\"" + source + "\",\"destination\":\"" + destination + "\",\"latency\":" + latency + "}");
+	}
+
+	/**
+	 * Builds the hierarchy in the simulation of the calling thread, which must have been
+	 * initialised, with each device linked to its parent and each sensor and actuator to its end
+	 * device, as {@link JsonToTopology#getPhysicalTopology(int, String, String)} would from
+	 * {@link #writeJson(String)}. The sensors and actuators are not given their application.
+	 */
+	public PhysicalTopology build(final int userId, final String appId) throws Exception {
+		final int[][] parents = generateStructure();
+		final FogDevice[][] devices = new FogDevice[parents.length][];
+		for(int level=0;level<parents.length;level++)
+			devices[level] = new FogDevice[parents[level].length];
+		final List<FogDevice> fogDevices = new ArrayList<FogDevice>();
+		final List<Sensor> sensors = new ArrayList<Sensor>();
+		final List<Actuator> actuators = new ArrayList<Actuator>();
+		final boolean[] mobile = new boolean[devices[parents.length-1].length];
+
+		generate(parents, new Sink<Exception>() {
+			@Override
+			public void device(int level, int index, DeviceType type, long mips, int ram, boolean isMobile) throws Exception {
+				FogDevice device = createFogDevice(getDeviceName(level, index), level, type, mips, ram);
+				device.setLevel(level);
+				if(level == 0){
+					device.setParentId(-1);
+				} else {
+					device.setParentId(devices[level-1][parents[level][index]].getId());
+					device.setUplinkLatency(getUplinkLatency(level));
+				}
+				devices[level][index] = device;
+				fogDevices.add(device);
+				if(level == parents.length-1)
+					mobile[index] = isMobile;
+			}
+
+			@Override
+			public void sensor(int device, int index, double period) {
+				Sensor sensor = new Sensor(getSensorName(device, index), sensorType, userId, appId, new DeterministicDistribution(period));
+				sensor.setGatewayDeviceId(devices[parents.length-1][device].getId());
+				sensor.setLatency(sensorLatency);
+				sensors.add(sensor);
+			}
+
+			@Override
+			public void actuator(int device, int index) {
+				Actuator actuator = new Actuator(getActuatorName(device, index), userId, appId, actuatorType);
+				actuator.setGatewayDeviceId(devices[parents.length-1][device].getId());
+				actuator.setLatency(actuatorLatency);
+				actuators.add(actuator);
+			}
+		});
+		locationHandler = createLocationHandler(parents, devices, mobile);
+
+		PhysicalTopology physicalTopology = new PhysicalTopology();
+		physicalTopology.setFogDevices(fogDevices);
+		physicalTopology.setSensors(sensors);
+		physicalTopology.setActuators(actuators);
+		return physicalTopology;
+	}
+
+	private FogDevice createFogDevice(String name, int level, DeviceType type, long mips, int ram) throws Exception {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerOverbooking(mips)));
+
+		PowerHost host = new PowerHost(
+				FogUtils.generateEntityId(),
+				new RamProvisionerSimple(ram),
+				new BwProvisionerOverbooking(10000),
+				1000000,
+				peList,
+				new StreamOperatorScheduler(peList),
+				getPowerModel(type)
+			);
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(host);
+
+		FogDeviceCharacteristics characteristics = new FogDeviceCharacteristics(
+				"x86", "Linux", "Xen", host, 10.0, 3.0, 0.05, 0.001, 0.0);
+
+		if(!microservices)
+			return new FogDevice(name, characteristics, new AppModuleAllocationPolicy(hostList),
+					NO_STORAGE, 10, type.upBw, type.downBw, 0, type.ratePerMips);
+		String deviceType;
+		if(level == 0)
+			deviceType = MicroserviceFogDevice.CLOUD;
+		else if(level == getDepth()-1)
+			deviceType = MicroserviceFogDevice.CLIENT;
+		else if(level == 1)
+			deviceType = MicroserviceFogDevice.FON;
+		else
+			deviceType = MicroserviceFogDevice.FCN;
+		return new MicroserviceFogDevice(name, characteristics, new AppModuleAllocationPolicy(hostList),
+				NO_STORAGE, 10, type.upBw, type.downBw, 1250000, 0, type.ratePerMips, deviceType);
+	}
+
+	/**
+	 * Gets the power model of the devices of a type, which they share.
+	 */
+	private PowerModel getPowerModel(DeviceType type) {
+		PowerModel powerModel = powerModels.get(type);
+		if(powerModel == null){
+			powerModel = new FogLinearPowerModel(type.busyPower, type.idlePower);
+			powerModels.put(type, powerModel);
+		}
+		return powerModel;
+	}
+
+	/**
+	 * Places the cloud at the reference location of the mobility data and every other device
+	 * in the square of its parent, the squares of a level sharing the area evenly, with the end
+	 * devices starting at their parents.
+	 */
+	private LocationHandler createLocationHandler(int[][] parents, FogDevice[][] devices, boolean[] mobile) {
+		int depth = parents.length;
+		DataParser data = new DataParser();
+		data.levelID.put("LevelsNum", depth);
+		data.levelID.put("Cloud", 0);
+		data.levelID.put("Proxy", Math.min(1, depth-1));
+		data.levelID.put("Gateway", Math.max(0, depth-2));
+		data.levelID.put("User", depth-1);
+		LocationHandler locator = new LocationHandler(data);
+
+		Random random = new Random(seed + 3);
+		double side = Math.sqrt(parents[Math.max(0, depth-2)].length) * PARENT_SPACING;
+		Location[] parentLocations = null;
+		for(int level=0;level<depth;level++){
+			Location[] locations = new Location[parents[level].length];
+			ArrayList<String> dataIds = new ArrayList<String>();
+			double parentSide = level == 0 ? 0 : side / Math.sqrt(parents[level-1].length);
+			for(int i=0;i<locations.length;i++){
+				if(level == 0){
+					locations[i] = new Location(References.lat_reference, References.long_reference, References.NOT_SET);
+				} else {
+					Location parent = parentLocations[parents[level][i]];
+					double north = level == depth-1 ? 0 : (random.nextDouble() - 0.5) * parentSide;
+					double east = level == depth-1 ? 0 : (random.nextDouble() - 0.5) * parentSide;
+					locations[i] = move(parent, north, east);
+				}
+				String dataId;
+				if(level == depth-1 && level > 0){
+					dataId = "usr_" + i;
+					data.usersLocation.put(dataId, mobile[i] ? createTrace(locations[i], random) : new TreeMap<Double, Location>());
+				} else {
+					dataId = "res_" + getDeviceName(level, i);
+					data.resourceLocationData.put(dataId, locations[i]);
+					dataIds.add(dataId);
+				}
+				data.resourceAndUserToLevel.put(dataId, level);
+				locator.linkDataWithInstance(devices[level][i].getId(), dataId);
+			}
+			data.levelwiseResources.put(level, dataIds);
+			parentLocations = locations;
+		}
+		return locator;
+	}
+
+	private NavigableMap<Double, Location> createTrace(Location start, Random random) {
+		NavigableMap<Double, Location> trace = new TreeMap<Double, Location>();
+		Location location = start;
+		for(double time=mobilityInterval;time<=SimulationConfig.current().getMaxSimulationTime();time+=mobilityInterval){
+			double direction = random.nextDouble() * 2 * Math.PI;
+			location = move(location, mobilityStep * Math.cos(direction), mobilityStep * Math.sin(direction));
+			trace.put(time, location);
+		}
+		return trace;
+	}
+
+	private static Location move(Location location, double north, double east) {
+		double latitude = location.latitude + north / KM_PER_DEGREE;
+		double longitude = location.longitude + east / (KM_PER_DEGREE * Math.cos(Math.toRadians(location.latitude)));
+		return new Location(latitude, longitude, References.NOT_SET);
+	}
+
+	/** Receives the nodes of the hierarchy, level by level, each end device followed by its sensors and actuators. */
+	private interface Sink<E extends Exception> {
+		void device(int level, int index, DeviceType type, long mips, int ram, boolean mobile) throws E;
+
+		void sensor(int device, int index, double period) throws E;
+
+		void actuator(int device, int index) throws E;
+	}
+
+	/**
+	 * Draws the number of children of every device.
+	 *
+	 * @return the index of the parent of each device of each level, by level
+	 */
+	private int[][] generateStructure() {
+		Random random = new Random(seed);
+		int[][] parents = new int[getDepth()][];
+		parents[0] = new int[1];
+		for(int level=1;level<parents.length;level++){
+			int[] fanOuts = new int[parents[level-1].length];
+			long size = 0;
+			for(int i=0;i<fanOuts.length;i++){
+				int min = minFanOuts[level-1], max = maxFanOuts[level-1];
+				fanOuts[i] = min + (max > min ? random.nextInt(max - min + 1) : 0);
+				size += fanOuts[i];
+			}
+			if(size > Integer.MAX_VALUE - 8)
+				throw new IllegalArgumentException("Too many devices on level " + level + ": " + size);
+			parents[level] = new int[(int) size];
+			int index = 0;
+			for(int i=0;i<fanOuts.length;i++){
+				for(int j=0;j<fanOuts[i];j++)
+					parents[level][index++] = i;
+			}
+		}
+		return parents;
+	}
+
+	private <E extends Exception> void generate(int[][] parents, Sink<E> sink) throws E {
+		Random types = new Random(seed + 1);
+		Random capacities = new Random(seed + 2);
+		Random mobility = new Random(seed + 4);
+		Random periods = new Random(seed + 5);
+		int last = parents.length-1;
+		for(int level=0;level<parents.length;level++){
+			DeviceType[] levelTypes = getDeviceTypes(level);
+			double totalWeight = 0;
+			for(DeviceType type : levelTypes)
+				totalWeight += type.weight;
+			for(int i=0;i<parents[level].length;i++){
+				DeviceType type = levelTypes[0];
+				if(levelTypes.length > 1){
+					double weight = types.nextDouble() * totalWeight;
+					for(int t=0;t<levelTypes.length && weight >= 0;t++){
+						type = levelTypes[t];
+						weight -= type.weight;
+					}
+				}
+				double mipsFactor = 1 + heterogeneity * (2 * capacities.nextDouble() - 1);
+				double ramFactor = 1 + heterogeneity * (2 * capacities.nextDouble() - 1);
+				long mips = Math.max(1, Math.round(type.mips * mipsFactor));
+				int ram = (int) Math.max(1, Math.round(type.ram * ramFactor));
+				if(level < last || level == 0){
+					sink.device(level, i, type, mips, ram, false);
+					continue;
+				}
+				sink.device(level, i, type, mips, ram, mobility.nextDouble() < mobileShare);
+				for(int k=0;k<sensorsPerDevice;k++)
+					sink.sensor(i, k, minSensorPeriod + (maxSensorPeriod - minSensorPeriod) * periods.nextDouble());
+				for(int k=0;k<actuatorsPerDevice;k++)
+					sink.actuator(i, k);
+			}
+		}
+	}
+
+	private DeviceType[] getDeviceTypes(int level) {
+		DeviceType[] types = deviceTypes.get(level);
+		if(types != null)
+			return types;
+		if(level == 0)
+			return new DeviceType[]{CLOUD};
+		if(level == getDepth()-1)
+			return new DeviceType[]{MOBILE};
+		return new DeviceType[]{FOG_NODE};
+	}
+
+	private double getUplinkLatency(int level) {
+		return uplinkLatencies[Math.min(level, uplinkLatencies.length) - 1];
+	}
+
+	private static String getDeviceName(int level, int index) {
+		return level == 0 ? "cloud" : "d" + level + "-" + index;
+	}
+
+	private static String getSensorName(int device, int index) {
+		return "s-" + device + "-" + index;
+	}
+
+	private static String getActuatorName(int device, int index) {
+		return "a-" + device + "-" + index;
+	}
+}